@@ -0,0 +1,17 @@
+match (n) detach delete n;
+
+drop constraint on (o:GroundObject) assert o.id is unique;
+drop constraint on (n:Node) assert n.name is unique;
+drop constraint on (e:GroundEdge) assert e.name is unique;
+drop constraint on (g:Graph) assert g.name is unique;
+drop constraint on (s:Structure) assert s.name is unique;
+drop constraint on (l:LineageEdges) assert l.name is unique;
+drop constraint on (l:IdLease) assert l.key is unique;
+drop index on :ItemTag(item_id);
+drop index on :ItemTag(tkey);
+drop index on :RichVersionTag(rich_version_id);
+drop index on :RichVersionTag(tkey);
+drop index on :ItemTag(value);
+drop index on :ItemTag(nvalue);
+drop index on :RichVersionTag(value);
+drop index on :RichVersionTag(nvalue);
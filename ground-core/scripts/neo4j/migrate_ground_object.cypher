@@ -0,0 +1,12 @@
+/* Backfills the GroundObject label in a database that was created before it was added. Lookups by
+   id now match on :GroundObject only, so run this once, before starting a server that has the
+   label, or vertices without it will not be found.
+
+     neo4j-shell -file migrate_ground_object.cypher
+
+   Each statement labels up to 100000 vertices in its own transaction, to bound the memory it
+   needs. Run the file again until it reports that no labels were added. Only vertices with an id
+   are labeled, as new writes do; tags, parameters and attributes are left out of the index. */
+MATCH (n) WHERE exists(n.id) AND NOT n:GroundObject
+WITH n LIMIT 100000
+SET n:GroundObject;
@@ -0,0 +1,24 @@
+/* OBJECTS */
+/* Every vertex with an id is also labeled GroundObject, so that lookups by id need no other label.
+   Databases created before the label was added need migrate_ground_object.cypher. */
+create constraint on (o:GroundObject) assert o.id is unique;
+
+/* ITEMS */
+create constraint on (n:Node) assert n.name is unique;
+create constraint on (e:GroundEdge) assert e.name is unique;
+create constraint on (g:Graph) assert g.name is unique;
+create constraint on (s:Structure) assert s.name is unique;
+create constraint on (l:LineageEdges) assert l.name is unique;
+
+/* TAGS */
+create index on :ItemTag(item_id);
+create index on :ItemTag(tkey);
+create index on :RichVersionTag(rich_version_id);
+create index on :RichVersionTag(tkey);
+create index on :ItemTag(value);
+create index on :ItemTag(nvalue);
+create index on :RichVersionTag(value);
+create index on :RichVersionTag(nvalue);
+
+/* IDS */
+create constraint on (l:IdLease) assert l.key is unique;
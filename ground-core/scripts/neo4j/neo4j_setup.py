@@ -0,0 +1,27 @@
+'''
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+'''
+
+import sys, os
+
+# Neo4j has a single database per server, so the only option is whether to drop it first.
+drop = len(sys.argv) == 2
+
+if drop:
+    command_string = "neo4j-shell -file drop_neo4j.cypher"
+    os.system(command_string)
+
+command_string = "neo4j-shell -file neo4j.cypher"
+os.system(command_string)
+
+print "Successfully reset Neo4j."
@@ -1,9 +1,11 @@
+drop table id_lease;
 drop table lineage_edge_version;
 drop table lineage_edge;
 drop table principal;
 drop table workflow;
 drop table graph_version_edge;
 drop table graph_version;
+drop table node_version_closure;
 drop table edge_version;
 drop table node_version;
 drop table graph;
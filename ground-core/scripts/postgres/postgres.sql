@@ -1,5 +1,5 @@
 /* VERSIONS */
-create type data_type as enum ('integer', 'string', 'boolean');
+create type data_type as enum ('integer', 'string', 'boolean', 'long');
 
 create table version (
     id bigint NOT NULL PRIMARY KEY
@@ -24,6 +24,14 @@ create table item_tag (
     CONSTRAINT item_tag_pkey PRIMARY KEY (item_id, key)
 );
 
+/* Tag search (see PostgresTagFactory): by key, by key and the indexed prefix of the value, and by
+   key and the numeric value of integer and long tags. Each index ends with the id, so that a page
+   of results is read in id order. */
+create index item_tag_key on item_tag(key, item_id);
+create index item_tag_key_value on item_tag(key, left(value, 256) text_pattern_ops, item_id);
+create index item_tag_key_number on item_tag(key, (case when type in ('integer', 'long') then value::bigint end), item_id)
+    where type in ('integer', 'long');
+
 create table version_history_dag (
     item_id bigint NOT NULL REFERENCES item(id),
     version_successor_id bigint NOT NULL REFERENCES version_successor(id),
@@ -70,6 +78,11 @@ create table rich_version_tag (
     CONSTRAINT rich_version_tag_pkey PRIMARY KEY (rich_version_id, key)
 );
 
+create index rich_version_tag_key on rich_version_tag(key, rich_version_id);
+create index rich_version_tag_key_value on rich_version_tag(key, left(value, 256) text_pattern_ops, rich_version_id);
+create index rich_version_tag_key_number on rich_version_tag(key, (case when type in ('integer', 'long') then value::bigint end), rich_version_id)
+    where type in ('integer', 'long');
+
 create table edge (
     item_id bigint NOT NULL PRIMARY KEY REFERENCES item(id),
     name varchar NOT NULL UNIQUE
@@ -97,6 +110,19 @@ create table edge_version (
     to_node_version_id bigint NOT NULL REFERENCES node_version(id)
 );
 
+create index edge_version_from_node_version_id on edge_version(from_node_version_id, to_node_version_id);
+create index edge_version_to_node_version_id on edge_version(to_node_version_id, from_node_version_id);
+
+/* Every pair of node versions connected by a path of edge versions. This is derived from
+   edge_version and can be rebuilt from it with the rebuild-closure command. */
+create table node_version_closure (
+    ancestor_id bigint NOT NULL,
+    descendant_id bigint NOT NULL,
+    CONSTRAINT node_version_closure_pkey PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+create index node_version_closure_descendant_id on node_version_closure(descendant_id, ancestor_id);
+
 create table graph_version (
     id bigint NOT NULL PRIMARY KEY REFERENCES rich_version(id),
     graph_id bigint NOT NULL REFERENCES graph(item_id)
@@ -134,6 +160,17 @@ create table lineage_edge_version (
     principal_id bigint REFERENCES node_version(id)
 );
 
+create index lineage_edge_version_to_rich_version_id on lineage_edge_version(to_rich_version_id, from_rich_version_id);
+
+/* IDS */
+
+create table id_lease (
+    machine_id integer NOT NULL,
+    name varchar NOT NULL,
+    high_water bigint NOT NULL,
+    CONSTRAINT id_lease_pkey PRIMARY KEY (machine_id, name)
+);
+
 /* CREATE EMPTY VERSION */
 
 insert into version(id) values (0);
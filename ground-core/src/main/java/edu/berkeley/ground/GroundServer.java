@@ -15,16 +15,32 @@
 package edu.berkeley.ground;
 
 import edu.berkeley.ground.api.models.*;
+import edu.berkeley.ground.api.models.cached.CachedEdgeVersionFactory;
+import edu.berkeley.ground.api.models.cached.CachedGraphVersionFactory;
+import edu.berkeley.ground.api.models.cached.CachedNodeVersionFactory;
+import edu.berkeley.ground.api.models.cached.CachedStructureVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedEdgeVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedGraphVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedNodeVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedStructureVersionFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
+import edu.berkeley.ground.api.usage.cached.CachedLineageEdgeVersionFactory;
+import edu.berkeley.ground.api.usage.feed.ChangeFeedLineageEdgeVersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
 import edu.berkeley.ground.db.Neo4jClient;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.resources.*;
 import edu.berkeley.ground.util.CassandraFactories;
+import edu.berkeley.ground.util.ChangeFeed;
+import edu.berkeley.ground.util.DBClientManager;
+import edu.berkeley.ground.util.GraphSnapshotTask;
+import edu.berkeley.ground.util.KafkaProduce;
 import edu.berkeley.ground.util.Neo4jFactories;
 import edu.berkeley.ground.util.PostgresFactories;
+import edu.berkeley.ground.util.TransactionListener;
+import edu.berkeley.ground.util.VersionCache;
 import io.dropwizard.Application;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
@@ -32,6 +48,7 @@ import io.federecio.dropwizard.swagger.SwaggerBundle;
 import io.federecio.dropwizard.swagger.SwaggerBundleConfiguration;
 
 public class GroundServer extends Application<GroundServerConfiguration> {
+  private BulkIngestFactory bulkIngestFactory;
   private EdgeFactory edgeFactory;
   private EdgeVersionFactory edgeVersionFactory;
   private GraphFactory graphFactory;
@@ -42,6 +59,7 @@ public class GroundServer extends Application<GroundServerConfiguration> {
   private NodeVersionFactory nodeVersionFactory;
   private StructureFactory structureFactory;
   private StructureVersionFactory structureVersionFactory;
+  private TagFactory tagFactory;
 
   public static void main(String[] args) throws Exception {
     new GroundServer().run(args);
@@ -61,6 +79,8 @@ public class GroundServer extends Application<GroundServerConfiguration> {
         return configuration.swaggerBundleConfiguration;
       }
     });
+
+    bootstrap.addCommand(new RebuildClosureCommand());
   }
 
 
@@ -68,30 +88,57 @@ public class GroundServer extends Application<GroundServerConfiguration> {
   public void run(GroundServerConfiguration configuration, Environment environment) throws GroundException {
     switch (configuration.getDbType()) {
       case "postgres":
-        PostgresClient postgresClient = new PostgresClient(configuration.getDbHost(), configuration.getDbPort(), configuration.getDbName(), configuration.getDbUser(), configuration.getDbPassword());
+        PostgresClient postgresClient = new PostgresClient(configuration.getDbHost(), configuration.getDbPort(), configuration.getDbName(), configuration.getDbUser(), configuration.getDbPassword(),
+            configuration.getDbPoolSize(), configuration.getDbPoolTimeout(), environment.metrics());
         setPostgresFactories(postgresClient, configuration.getMachineId(), configuration.getNumMachines());
+        environment.jersey().register(new TransactionListener(postgresClient));
         break;
 
       case "cassandra":
-        CassandraClient cassandraClient = new CassandraClient(configuration.getDbHost(), configuration.getDbPort(), configuration.getDbName(), configuration.getDbUser(), configuration.getDbPassword());
+        CassandraClient cassandraClient = new CassandraClient(configuration.getDbHost(), configuration.getDbPort(), configuration.getDbName(), configuration.getDbUser(), configuration.getDbPassword(),
+            configuration.getGraphSnapshotPath(), configuration.getCassandraAsyncWrites(), configuration.getCassandraMaxInFlightRequests());
         setCassandraFactories(cassandraClient, configuration.getMachineId(), configuration.getNumMachines());
+        environment.jersey().register(new TransactionListener(cassandraClient));
+
+        // close() checkpoints the graph, so that the next start does not have to rescan it
+        environment.lifecycle().manage(new DBClientManager(cassandraClient));
+        environment.admin().addTask(new GraphSnapshotTask(cassandraClient));
         break;
 
       case "neo4j":
-        Neo4jClient neo4jClient = new Neo4jClient(configuration.getDbHost(), configuration.getDbUser(), configuration.getDbPassword());
+        Neo4jClient neo4jClient = new Neo4jClient(configuration.getDbHost(), configuration.getDbUser(), configuration.getDbPassword(),
+            configuration.getDbPoolSize(), configuration.getDbPoolTimeout(), environment.metrics());
         setNeo4jFactories(neo4jClient, configuration.getMachineId(), configuration.getNumMachines());
+        environment.jersey().register(new TransactionListener(neo4jClient));
+        environment.lifecycle().manage(new DBClientManager(neo4jClient));
         break;
 
       default:
         throw new RuntimeException("FATAL: Unrecognized database type (" + configuration.getDbType() + ").");
     }
 
+    KafkaProduce kafkaProducer = new KafkaProduce(configuration.getKafkaHost(), configuration.getKafkaPort(),
+        configuration.getKafkaAcks(), configuration.getKafkaLingerMs(), configuration.getKafkaBatchSize(),
+        configuration.getKafkaCompressionType(), configuration.getKafkaMaxBlockMs());
+    environment.lifecycle().manage(kafkaProducer);
+
+    // Events are published by the innermost decorator, so a create is only announced once it has
+    // committed, and a cached read never publishes anything.
+    if (configuration.getChangeFeedTopic() != null) {
+      setChangeFeedVersionFactories(new ChangeFeed(kafkaProducer, configuration.getChangeFeedTopic()));
+    }
+
+    if (configuration.getVersionCacheSize() > 0) {
+      setCachedVersionFactories(new VersionCache(configuration.getVersionCacheSize(), environment.metrics()));
+    }
+
     final EdgesResource edgesResource = new EdgesResource(edgeFactory, edgeVersionFactory);
     final GraphsResource graphsResource = new GraphsResource(graphFactory, graphVersionFactory);
     final LineageEdgesResource lineageEdgesResource = new LineageEdgesResource(lineageEdgeFactory, lineageEdgeVersionFactory);
     final NodesResource nodesResource = new NodesResource(nodeFactory, nodeVersionFactory);
     final StructuresResource structuresResource = new StructuresResource(structureFactory, structureVersionFactory);
-    final KafkaResource kafkaResource = new KafkaResource(configuration.getKafkaHost(), configuration.getKafkaPort());
+    final KafkaResource kafkaResource = new KafkaResource(kafkaProducer);
+    final SearchResource searchResource = new SearchResource(tagFactory);
 
     environment.jersey().register(edgesResource);
     environment.jersey().register(graphsResource);
@@ -99,11 +146,39 @@ public class GroundServer extends Application<GroundServerConfiguration> {
     environment.jersey().register(nodesResource);
     environment.jersey().register(structuresResource);
     environment.jersey().register(kafkaResource);
+    environment.jersey().register(searchResource);
+    environment.jersey().register(new ImmutableVersionFilter());
+
+    // Bulk loading needs a backend-specific load path, which Neo4j does not have yet.
+    if (bulkIngestFactory != null) {
+      environment.jersey().register(new BulkResource(bulkIngestFactory, environment.getObjectMapper()));
+    }
+  }
+
+  private void setChangeFeedVersionFactories(ChangeFeed changeFeed) {
+    edgeVersionFactory = new ChangeFeedEdgeVersionFactory(edgeVersionFactory, changeFeed);
+    graphVersionFactory = new ChangeFeedGraphVersionFactory(graphVersionFactory, changeFeed);
+    lineageEdgeVersionFactory = new ChangeFeedLineageEdgeVersionFactory(lineageEdgeVersionFactory, changeFeed);
+    nodeVersionFactory = new ChangeFeedNodeVersionFactory(nodeVersionFactory, changeFeed);
+    structureVersionFactory = new ChangeFeedStructureVersionFactory(structureVersionFactory, changeFeed);
+
+    if (bulkIngestFactory != null) {
+      bulkIngestFactory.setChangeFeed(changeFeed);
+    }
+  }
+
+  private void setCachedVersionFactories(VersionCache versionCache) {
+    edgeVersionFactory = new CachedEdgeVersionFactory(edgeVersionFactory, versionCache);
+    graphVersionFactory = new CachedGraphVersionFactory(graphVersionFactory, versionCache);
+    lineageEdgeVersionFactory = new CachedLineageEdgeVersionFactory(lineageEdgeVersionFactory, versionCache);
+    nodeVersionFactory = new CachedNodeVersionFactory(nodeVersionFactory, versionCache);
+    structureVersionFactory = new CachedStructureVersionFactory(structureVersionFactory, versionCache);
   }
 
   private void setPostgresFactories(PostgresClient postgresClient, int machineId, int numMachines) {
     PostgresFactories factoryGenerator = new PostgresFactories(postgresClient, machineId, numMachines);
 
+    bulkIngestFactory = factoryGenerator.getBulkIngestFactory();
     edgeFactory = factoryGenerator.getEdgeFactory();
     edgeVersionFactory = factoryGenerator.getEdgeVersionFactory();
     graphFactory = factoryGenerator.getGraphFactory();
@@ -114,11 +189,13 @@ public class GroundServer extends Application<GroundServerConfiguration> {
     nodeVersionFactory = factoryGenerator.getNodeVersionFactory();
     structureFactory = factoryGenerator.getStructureFactory();
     structureVersionFactory = factoryGenerator.getStructureVersionFactory();
+    tagFactory = factoryGenerator.getTagFactory();
   }
 
   private void setCassandraFactories(CassandraClient cassandraClient, int machineId, int numMachines) {
     CassandraFactories factoryGenerator = new CassandraFactories(cassandraClient, machineId, numMachines);
 
+    bulkIngestFactory = factoryGenerator.getBulkIngestFactory();
     edgeFactory = factoryGenerator.getEdgeFactory();
     edgeVersionFactory = factoryGenerator.getEdgeVersionFactory();
     graphFactory = factoryGenerator.getGraphFactory();
@@ -129,6 +206,7 @@ public class GroundServer extends Application<GroundServerConfiguration> {
     nodeVersionFactory = factoryGenerator.getNodeVersionFactory();
     structureFactory = factoryGenerator.getStructureFactory();
     structureVersionFactory = factoryGenerator.getStructureVersionFactory();
+    tagFactory = factoryGenerator.getTagFactory();
   }
 
   private void setNeo4jFactories(Neo4jClient neo4jClient, int machineId, int numMachines) {
@@ -144,5 +222,6 @@ public class GroundServer extends Application<GroundServerConfiguration> {
     nodeVersionFactory = factoryGenerator.getNodeVersionFactory();
     structureFactory = factoryGenerator.getStructureFactory();
     structureVersionFactory = factoryGenerator.getStructureVersionFactory();
+    tagFactory = factoryGenerator.getTagFactory();
   }
 }
@@ -16,11 +16,13 @@ package edu.berkeley.ground;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import edu.berkeley.ground.db.CassandraClient;
 import io.dropwizard.Configuration;
 import io.federecio.dropwizard.swagger.SwaggerBundleConfiguration;
 
 import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 public class GroundServerConfiguration extends Configuration {
@@ -46,12 +48,53 @@ public class GroundServerConfiguration extends Configuration {
   @NotEmpty
   private String dbPassword;
 
+  @Min(1)
+  private int dbPoolSize = 16;
+
+  @Min(0)
+  private long dbPoolTimeout = 30000;
+
+  private String graphSnapshotPath;
+
+  // whether Cassandra writes are sent concurrently at commit instead of as logged batches
+  private boolean cassandraAsyncWrites = false;
+
+  // the most Cassandra requests this server has outstanding at once when writing concurrently
+  @Min(1)
+  private int cassandraMaxInFlightRequests = CassandraClient.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+  // the number of versions kept in memory; 0 disables the cache
+  @Min(0)
+  private long versionCacheSize = 100000;
+
   @NotEmpty
   private String kafkaHost;
 
   @NotEmpty
   private String kafkaPort;
 
+  // the acknowledgements a Kafka send waits for: 0, 1 or all
+  @NotEmpty
+  private String kafkaAcks = "1";
+
+  // how long a Kafka message may wait to be batched with others
+  @Min(0)
+  private int kafkaLingerMs = 5;
+
+  // the most bytes batched per Kafka partition
+  @Min(0)
+  private int kafkaBatchSize = 65536;
+
+  @NotEmpty
+  private String kafkaCompressionType = "lz4";
+
+  // how long a Kafka send may block when the broker is unreachable or the buffer is full
+  @Min(0)
+  private long kafkaMaxBlockMs = 1000;
+
+  // the topic that an event is published to for every version created; unset disables the feed
+  private String changeFeedTopic;
+
   @NotNull
   private Integer numMachines;
 
@@ -118,6 +161,66 @@ public class GroundServerConfiguration extends Configuration {
     this.dbPassword = dbPassword;
   }
 
+  @JsonProperty
+  public int getDbPoolSize() {
+    return this.dbPoolSize;
+  }
+
+  @JsonProperty
+  public void setDbPoolSize(int dbPoolSize) {
+    this.dbPoolSize = dbPoolSize;
+  }
+
+  @JsonProperty
+  public long getDbPoolTimeout() {
+    return this.dbPoolTimeout;
+  }
+
+  @JsonProperty
+  public void setDbPoolTimeout(long dbPoolTimeout) {
+    this.dbPoolTimeout = dbPoolTimeout;
+  }
+
+  @JsonProperty
+  public String getGraphSnapshotPath() {
+    return this.graphSnapshotPath;
+  }
+
+  @JsonProperty
+  public void setGraphSnapshotPath(String graphSnapshotPath) {
+    this.graphSnapshotPath = graphSnapshotPath;
+  }
+
+  @JsonProperty
+  public boolean getCassandraAsyncWrites() {
+    return this.cassandraAsyncWrites;
+  }
+
+  @JsonProperty
+  public void setCassandraAsyncWrites(boolean cassandraAsyncWrites) {
+    this.cassandraAsyncWrites = cassandraAsyncWrites;
+  }
+
+  @JsonProperty
+  public int getCassandraMaxInFlightRequests() {
+    return this.cassandraMaxInFlightRequests;
+  }
+
+  @JsonProperty
+  public void setCassandraMaxInFlightRequests(int cassandraMaxInFlightRequests) {
+    this.cassandraMaxInFlightRequests = cassandraMaxInFlightRequests;
+  }
+
+  @JsonProperty
+  public long getVersionCacheSize() {
+    return this.versionCacheSize;
+  }
+
+  @JsonProperty
+  public void setVersionCacheSize(long versionCacheSize) {
+    this.versionCacheSize = versionCacheSize;
+  }
+
   @JsonProperty
   public String getKafkaHost() {
     return this.kafkaHost;
@@ -138,6 +241,66 @@ public class GroundServerConfiguration extends Configuration {
     this.kafkaPort = kafkaPort;
   }
 
+  @JsonProperty
+  public String getKafkaAcks() {
+    return this.kafkaAcks;
+  }
+
+  @JsonProperty
+  public void setKafkaAcks(String kafkaAcks) {
+    this.kafkaAcks = kafkaAcks;
+  }
+
+  @JsonProperty
+  public int getKafkaLingerMs() {
+    return this.kafkaLingerMs;
+  }
+
+  @JsonProperty
+  public void setKafkaLingerMs(int kafkaLingerMs) {
+    this.kafkaLingerMs = kafkaLingerMs;
+  }
+
+  @JsonProperty
+  public int getKafkaBatchSize() {
+    return this.kafkaBatchSize;
+  }
+
+  @JsonProperty
+  public void setKafkaBatchSize(int kafkaBatchSize) {
+    this.kafkaBatchSize = kafkaBatchSize;
+  }
+
+  @JsonProperty
+  public String getKafkaCompressionType() {
+    return this.kafkaCompressionType;
+  }
+
+  @JsonProperty
+  public void setKafkaCompressionType(String kafkaCompressionType) {
+    this.kafkaCompressionType = kafkaCompressionType;
+  }
+
+  @JsonProperty
+  public long getKafkaMaxBlockMs() {
+    return this.kafkaMaxBlockMs;
+  }
+
+  @JsonProperty
+  public void setKafkaMaxBlockMs(long kafkaMaxBlockMs) {
+    this.kafkaMaxBlockMs = kafkaMaxBlockMs;
+  }
+
+  @JsonProperty
+  public String getChangeFeedTopic() {
+    return this.changeFeedTopic;
+  }
+
+  @JsonProperty
+  public void setChangeFeedTopic(String changeFeedTopic) {
+    this.changeFeedTopic = changeFeedTopic;
+  }
+
   @JsonProperty
   public Integer getNumMachines() {
     return this.numMachines;
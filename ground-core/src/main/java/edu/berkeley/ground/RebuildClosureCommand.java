@@ -0,0 +1,63 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground;
+
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recomputes the node_version_closure table from edge_version, e.g. after loading edge versions
+ * behind the server's back or after upgrading a database that predates the table:
+ *
+ * <pre>
+ * java -jar ground-core.jar rebuild-closure config.yml
+ * </pre>
+ */
+public class RebuildClosureCommand extends ConfiguredCommand<GroundServerConfiguration> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RebuildClosureCommand.class);
+
+  public RebuildClosureCommand() {
+    super("rebuild-closure", "Rebuild the transitive closure of the node version graph");
+  }
+
+  @Override
+  protected void run(Bootstrap<GroundServerConfiguration> bootstrap,
+                     Namespace namespace,
+                     GroundServerConfiguration configuration) throws GroundException {
+
+    if (!configuration.getDbType().equals("postgres")) {
+      throw new GroundException("Only the postgres backend keeps a closure table.");
+    }
+
+    PostgresClient postgresClient = new PostgresClient(configuration.getDbHost(),
+        configuration.getDbPort(), configuration.getDbName(), configuration.getDbUser(),
+        configuration.getDbPassword());
+
+    try {
+      int rows = postgresClient.rebuildClosure();
+      postgresClient.commit();
+
+      LOGGER.info("Rebuilt node_version_closure with " + rows + " rows.");
+    } finally {
+      postgresClient.close();
+    }
+  }
+}
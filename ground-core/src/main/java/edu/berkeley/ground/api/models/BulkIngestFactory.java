@@ -0,0 +1,417 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionHistoryDAGFactory;
+import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+import edu.berkeley.ground.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Loads a stream of BulkRecords. Records are read in chunks; every chunk is turned into plain rows
+ * for the version and model tables, which the backend then writes with whatever bulk-loading path
+ * it has before the chunk is committed. On backends without transactions (Cassandra), a chunk that
+ * fails part of the way through may be partially written, and an atomic ingest is no more atomic
+ * than a chunk.
+ *
+ * <p>With a ChangeFeed, an event is published for every node and edge version once the chunk (or,
+ * for an atomic ingest, the stream) that created it has committed.
+ */
+public abstract class BulkIngestFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkIngestFactory.class);
+  private static final int CHUNK_SIZE = 10000;
+
+  // Every table a chunk can write to, parents before the tables that reference them.
+  private static final List<String> TABLES = Arrays.asList("item", "item_tag", "node", "edge",
+      "version", "rich_version", "rich_version_tag", "rich_version_external_parameter",
+      "node_version", "edge_version", "version_successor", "version_history_dag");
+
+  private final DBClient dbClient;
+  private final NodeFactory nodeFactory;
+  private final EdgeFactory edgeFactory;
+  private final StructureValidatorCache structureValidators;
+  private final VersionHistoryDAGFactory versionHistoryDAGFactory;
+  private final IdGenerator idGenerator;
+
+  // null if no events are published
+  private ChangeFeed changeFeed;
+
+  protected BulkIngestFactory(DBClient dbClient,
+                              NodeFactory nodeFactory,
+                              EdgeFactory edgeFactory,
+                              StructureValidatorCache structureValidators,
+                              VersionHistoryDAGFactory versionHistoryDAGFactory,
+                              IdGenerator idGenerator) {
+    this.dbClient = dbClient;
+    this.nodeFactory = nodeFactory;
+    this.edgeFactory = edgeFactory;
+    this.structureValidators = structureValidators;
+    this.versionHistoryDAGFactory = versionHistoryDAGFactory;
+    this.idGenerator = idGenerator;
+  }
+
+  public void setChangeFeed(ChangeFeed changeFeed) {
+    this.changeFeed = changeFeed;
+  }
+
+  /**
+   * Write the rows of one chunk. The rows are keyed by table, in an order in which they can be
+   * written without violating any references.
+   *
+   * @param rows the rows to write
+   */
+  protected abstract void write(Map<String, List<List<DbDataContainer>>> rows) throws GroundException;
+
+  /**
+   * Ingest all records from the stream. Each chunk of records is committed on its own, so if a
+   * chunk fails, the chunks before it stay in place.
+   *
+   * @param records the records to load
+   * @return the number of objects created, and the ids assigned to every record with a ref
+   */
+  public BulkIngestResult ingest(Iterator<BulkRecord> records) throws GroundException {
+    return this.ingest(records, false);
+  }
+
+  /**
+   * Ingest all records from the stream. If atomic, the stream is committed once at the end, so
+   * either every record is loaded or none is; otherwise, each chunk is committed on its own.
+   *
+   * @param records the records to load
+   * @param atomic whether to load the whole stream in one transaction
+   * @return the number of objects created, and the ids assigned to every record with a ref
+   */
+  public BulkIngestResult ingest(Iterator<BulkRecord> records, boolean atomic)
+      throws GroundException {
+    BulkIngestResult result = new BulkIngestResult();
+    Context context = new Context();
+
+    List<BulkRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+    long ingested = 0;
+
+    try {
+      while (records.hasNext()) {
+        chunk.add(records.next());
+
+        if (chunk.size() == CHUNK_SIZE || !records.hasNext()) {
+          this.write(this.plan(chunk, context, result));
+          if (!atomic) {
+            this.dbClient.commit();
+            this.publish(context);
+          }
+
+          ingested += chunk.size();
+          chunk.clear();
+          LOGGER.info("Ingested " + ingested + " records.");
+        }
+      }
+
+      if (atomic) {
+        this.dbClient.commit();
+        this.publish(context);
+      }
+    } catch (GroundException | RuntimeException e) {
+      // a malformed record is reported by the iterator as an unchecked exception
+      this.dbClient.abort();
+
+      if (atomic) {
+        throw new GroundException("Bulk ingest failed, so no records were loaded: "
+            + e.getMessage());
+      }
+      throw new GroundException("Bulk ingest failed after " + ingested + " records: "
+          + e.getMessage());
+    }
+
+    return result;
+  }
+
+  private Map<String, List<List<DbDataContainer>>> plan(List<BulkRecord> chunk,
+                                                        Context context,
+                                                        BulkIngestResult result)
+      throws GroundException {
+
+    int itemCount = 0;
+    int versionCount = 0;
+    int successorCount = 0;
+
+    for (BulkRecord record : chunk) {
+      if (record.getType() == null) {
+        throw new GroundException("Bulk record has no type.");
+      }
+
+      switch (record.getType()) {
+        case BulkRecord.NODE:
+        case BulkRecord.EDGE:
+          itemCount++;
+          break;
+        case BulkRecord.NODE_VERSION:
+        case BulkRecord.EDGE_VERSION:
+          versionCount++;
+          successorCount += Math.max(1, record.getParents().size());
+          break;
+        default:
+          throw new GroundException("Unknown bulk record type: " + record.getType() + ".");
+      }
+    }
+
+    // Take all of the ids that this chunk needs in one go.
+    long nextItemId = itemCount > 0 ? this.idGenerator.reserveItemIds(itemCount) : 0;
+    long nextVersionId = versionCount > 0 ? this.idGenerator.reserveVersionIds(versionCount) : 0;
+    long nextSuccessorId =
+        successorCount > 0 ? this.idGenerator.reserveSuccessorIds(successorCount) : 0;
+
+    Map<String, List<List<DbDataContainer>>> rows = new LinkedHashMap<>();
+    for (String table : TABLES) {
+      rows.put(table, new ArrayList<>());
+    }
+
+    for (BulkRecord record : chunk) {
+      long id;
+
+      switch (record.getType()) {
+        case BulkRecord.NODE:
+        case BulkRecord.EDGE:
+          id = nextItemId++;
+          this.planItem(rows, record, id, context);
+          break;
+
+        default:
+          id = nextVersionId++;
+          this.planRichVersion(rows, record, id);
+
+          long itemId;
+          if (record.getType().equals(BulkRecord.NODE_VERSION)) {
+            itemId = this.resolveItem(record.getNode(), context.nodeIds, true);
+
+            List<DbDataContainer> nodeVersion = new ArrayList<>();
+            nodeVersion.add(new DbDataContainer("id", GroundType.LONG, id));
+            nodeVersion.add(new DbDataContainer("node_id", GroundType.LONG, itemId));
+            rows.get("node_version").add(nodeVersion);
+          } else {
+            itemId = this.resolveItem(record.getEdge(), context.edgeIds, false);
+
+            List<DbDataContainer> edgeVersion = new ArrayList<>();
+            edgeVersion.add(new DbDataContainer("id", GroundType.LONG, id));
+            edgeVersion.add(new DbDataContainer("edge_id", GroundType.LONG, itemId));
+            edgeVersion.add(new DbDataContainer("from_node_version_id", GroundType.LONG,
+                this.resolveVersion(record.getFrom(), context)));
+            edgeVersion.add(new DbDataContainer("to_node_version_id", GroundType.LONG,
+                this.resolveVersion(record.getTo(), context)));
+            rows.get("edge_version").add(edgeVersion);
+            if (this.changeFeed != null) {
+              context.edgeVersions.add(id);
+            }
+          }
+
+          // Without parents, a version is a child of EMPTY, just as with a single create.
+          List<Long> parents = record.getParents().isEmpty()
+              ? Collections.singletonList(0L) : record.getParents();
+          for (long parentId : parents) {
+            // as with a single create, a parent has to be a version of the same item
+            if (parentId != 0 && !this.isVersionOf(parentId, itemId, context)) {
+              throw new GroundException("Parent " + parentId + " is not in Item " + itemId + ".");
+            }
+
+            long successorId = nextSuccessorId++;
+
+            List<DbDataContainer> successor = new ArrayList<>();
+            successor.add(new DbDataContainer("id", GroundType.LONG, successorId));
+            successor.add(new DbDataContainer("from_version_id", GroundType.LONG, parentId));
+            successor.add(new DbDataContainer("to_version_id", GroundType.LONG, id));
+            rows.get("version_successor").add(successor);
+
+            List<DbDataContainer> dagEdge = new ArrayList<>();
+            dagEdge.add(new DbDataContainer("item_id", GroundType.LONG, itemId));
+            dagEdge.add(new DbDataContainer("version_successor_id", GroundType.LONG, successorId));
+            rows.get("version_history_dag").add(dagEdge);
+          }
+
+          context.versionItems.put(id, itemId);
+          if (this.changeFeed != null) {
+            context.unpublished.add(id);
+          }
+      }
+
+      if (record.getRef() != null) {
+        context.refs.put(record.getRef(), id);
+      }
+
+      result.add(record.getType(), record.getRef(), id);
+    }
+
+    rows.values().removeIf(List::isEmpty);
+    return rows;
+  }
+
+  // Publishes the versions created since the last commit.
+  private void publish(Context context) {
+    for (long id : context.unpublished) {
+      this.changeFeed.publish(context.edgeVersions.contains(id) ? "EdgeVersion" : "NodeVersion", id,
+          context.versionItems.get(id));
+    }
+
+    context.unpublished.clear();
+    context.edgeVersions.clear();
+  }
+
+  private void planItem(Map<String, List<List<DbDataContainer>>> rows,
+                        BulkRecord record,
+                        long id,
+                        Context context) throws GroundException {
+    if (record.getName() == null) {
+      throw new GroundException("Bulk " + record.getType() + " record has no name.");
+    }
+
+    List<DbDataContainer> item = new ArrayList<>();
+    item.add(new DbDataContainer("id", GroundType.LONG, id));
+    rows.get("item").add(item);
+
+    for (Map.Entry<String, Tag> entry : record.getTags().entrySet()) {
+      rows.get("item_tag").add(tagRow("item_id", id, entry.getKey(), entry.getValue()));
+    }
+
+    List<DbDataContainer> model = new ArrayList<>();
+    model.add(new DbDataContainer("item_id", GroundType.LONG, id));
+    model.add(new DbDataContainer("name", GroundType.STRING, record.getName()));
+    rows.get(record.getType()).add(model);
+
+    if (record.getType().equals(BulkRecord.NODE)) {
+      context.nodeIds.put(record.getName(), id);
+    } else {
+      context.edgeIds.put(record.getName(), id);
+    }
+  }
+
+  private void planRichVersion(Map<String, List<List<DbDataContainer>>> rows,
+                               BulkRecord record,
+                               long id) throws GroundException {
+    long structureVersionId = record.getStructureVersionId();
+    if (structureVersionId != -1) {
+      this.structureValidators.get(structureVersionId).validate(record.getTags());
+    }
+
+    List<DbDataContainer> version = new ArrayList<>();
+    version.add(new DbDataContainer("id", GroundType.LONG, id));
+    rows.get("version").add(version);
+
+    List<DbDataContainer> richVersion = new ArrayList<>();
+    richVersion.add(new DbDataContainer("id", GroundType.LONG, id));
+    richVersion.add(new DbDataContainer("structure_version_id", GroundType.LONG, structureVersionId));
+    richVersion.add(new DbDataContainer("reference", GroundType.STRING, record.getReference()));
+    rows.get("rich_version").add(richVersion);
+
+    for (Map.Entry<String, Tag> entry : record.getTags().entrySet()) {
+      rows.get("rich_version_tag").add(tagRow("rich_version_id", id, entry.getKey(), entry.getValue()));
+    }
+
+    for (Map.Entry<String, String> entry : record.getReferenceParameters().entrySet()) {
+      List<DbDataContainer> parameter = new ArrayList<>();
+      parameter.add(new DbDataContainer("rich_version_id", GroundType.LONG, id));
+      parameter.add(new DbDataContainer("key", GroundType.STRING, entry.getKey()));
+      parameter.add(new DbDataContainer("value", GroundType.STRING, entry.getValue()));
+      rows.get("rich_version_external_parameter").add(parameter);
+    }
+  }
+
+  private long resolveItem(String name, Map<String, Long> ids, boolean isNode)
+      throws GroundException {
+    if (name == null) {
+      throw new GroundException("Bulk version record does not name its " + (isNode ? "node" : "edge") + ".");
+    }
+
+    Long id = ids.get(name);
+    if (id == null) {
+      id = isNode ? this.nodeFactory.retrieveFromDatabase(name).getId()
+          : this.edgeFactory.retrieveFromDatabase(name).getId();
+      ids.put(name, id);
+    }
+
+    return id;
+  }
+
+  // whether a version, created earlier in this stream or before it, belongs to the item
+  private boolean isVersionOf(long versionId, long itemId, Context context) throws GroundException {
+    Long streamedItemId = context.versionItems.get(versionId);
+    if (streamedItemId != null) {
+      return streamedItemId == itemId;
+    }
+
+    try {
+      return this.versionHistoryDAGFactory.retrieveFromDatabase(itemId).checkItemInDag(versionId);
+    } catch (GroundException e) {
+      if (!e.getMessage().contains("No results found for query:")) {
+        throw e;
+      }
+
+      return false;
+    }
+  }
+
+  private long resolveVersion(String refOrId, Context context) throws GroundException {
+    if (refOrId == null) {
+      throw new GroundException("Bulk edge version record is missing an endpoint.");
+    }
+
+    Long id = context.refs.get(refOrId);
+    if (id != null) {
+      return id;
+    }
+
+    try {
+      return Long.parseLong(refOrId);
+    } catch (NumberFormatException e) {
+      throw new GroundException("Unknown ref " + refOrId + ".");
+    }
+  }
+
+  private static List<DbDataContainer> tagRow(String idField, long id, String key, Tag tag)
+      throws GroundException {
+    List<DbDataContainer> tagInsertion = new ArrayList<>();
+    tagInsertion.add(new DbDataContainer(idField, GroundType.LONG, id));
+    tagInsertion.add(new DbDataContainer("key", GroundType.STRING, key));
+
+    if (tag.getValue() != null) {
+      tagInsertion.add(new DbDataContainer("value", GroundType.STRING, tag.getValue().toString()));
+      tagInsertion.add(new DbDataContainer("type", GroundType.STRING, tag.getValueType().toString()));
+    } else {
+      tagInsertion.add(new DbDataContainer("value", GroundType.STRING, null));
+      tagInsertion.add(new DbDataContainer("type", GroundType.STRING, null));
+    }
+
+    return tagInsertion;
+  }
+
+  // The names and refs seen so far in one stream.
+  private static class Context {
+    private final Map<String, Long> refs = new HashMap<>();
+    private final Map<String, Long> nodeIds = new HashMap<>();
+    private final Map<String, Long> edgeIds = new HashMap<>();
+
+    // the item of every version created in the stream
+    private final Map<Long, Long> versionItems = new HashMap<>();
+
+    // the versions whose events wait for the next commit, and which of them are edge versions
+    private final List<Long> unpublished = new ArrayList<>();
+    private final Set<Long> edgeVersions = new HashSet<>();
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BulkIngestResult {
+  private long nodes;
+  private long nodeVersions;
+  private long edges;
+  private long edgeVersions;
+
+  // the id assigned to every record that was given a ref
+  private Map<String, Long> ids;
+
+  public BulkIngestResult() {
+    this.ids = new HashMap<>();
+  }
+
+  void add(String type, String ref, long id) {
+    switch (type) {
+      case BulkRecord.NODE:
+        this.nodes++;
+        break;
+      case BulkRecord.NODE_VERSION:
+        this.nodeVersions++;
+        break;
+      case BulkRecord.EDGE:
+        this.edges++;
+        break;
+      case BulkRecord.EDGE_VERSION:
+        this.edgeVersions++;
+        break;
+    }
+
+    if (ref != null) {
+      this.ids.put(ref, id);
+    }
+  }
+
+  @JsonProperty
+  public long getNodes() {
+    return this.nodes;
+  }
+
+  @JsonProperty
+  public long getNodeVersions() {
+    return this.nodeVersions;
+  }
+
+  @JsonProperty
+  public long getEdges() {
+    return this.edges;
+  }
+
+  @JsonProperty
+  public long getEdgeVersions() {
+    return this.edgeVersions;
+  }
+
+  @JsonProperty
+  public Map<String, Long> getIds() {
+    return this.ids;
+  }
+}
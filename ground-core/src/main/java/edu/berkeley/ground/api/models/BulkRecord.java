@@ -0,0 +1,151 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.*;
+
+/**
+ * One line of a bulk ingest stream. Depending on its type, a record describes a node, a node
+ * version, an edge or an edge version:
+ *
+ * <pre>
+ * {"type": "node", "name": "hdfs://a", "tags": {...}}
+ * {"type": "node_version", "ref": "a1", "node": "hdfs://a", "tags": {...}, "parents": [...]}
+ * {"type": "edge", "name": "a-to-b"}
+ * {"type": "edge_version", "edge": "a-to-b", "from": "a1", "to": 12345}
+ * </pre>
+ *
+ * Versions may carry a client-chosen ref, which later records in the same stream can use in place
+ * of the version's (not yet known) id.
+ */
+public class BulkRecord {
+  public static final String NODE = "node";
+  public static final String NODE_VERSION = "node_version";
+  public static final String EDGE = "edge";
+  public static final String EDGE_VERSION = "edge_version";
+
+  // one of node, node_version, edge or edge_version
+  private String type;
+
+  // the client-side name of the object created by this record
+  private String ref;
+
+  // the name of the Node or Edge created by this record
+  private String name;
+
+  // the name of the Node or Edge that contains this version
+  private String node;
+  private String edge;
+
+  private Map<String, Tag> tags;
+  private long structureVersionId;
+  private String reference;
+  private Map<String, String> referenceParameters;
+  private List<Long> parents;
+
+  // the endpoints of an edge version, either as refs or as node version ids
+  private String from;
+  private String to;
+
+  @JsonCreator
+  public BulkRecord(@JsonProperty("type") String type,
+                    @JsonProperty("ref") String ref,
+                    @JsonProperty("name") String name,
+                    @JsonProperty("node") String node,
+                    @JsonProperty("edge") String edge,
+                    @JsonProperty("tags") Map<String, Tag> tags,
+                    @JsonProperty("structureVersionId") Long structureVersionId,
+                    @JsonProperty("reference") String reference,
+                    @JsonProperty("referenceParameters") Map<String, String> referenceParameters,
+                    @JsonProperty("parents") List<Long> parents,
+                    @JsonProperty("from") String from,
+                    @JsonProperty("to") String to) {
+    this.type = type;
+    this.ref = ref;
+    this.name = name;
+    this.node = node;
+    this.edge = edge;
+    this.tags = tags == null ? new HashMap<>() : tags;
+    this.structureVersionId = structureVersionId == null ? -1 : structureVersionId;
+    this.reference = reference;
+    this.referenceParameters = referenceParameters == null ? new HashMap<>() : referenceParameters;
+    this.parents = parents == null ? new ArrayList<>() : parents;
+    this.from = from;
+    this.to = to;
+  }
+
+  @JsonProperty
+  public String getType() {
+    return this.type;
+  }
+
+  @JsonProperty
+  public String getRef() {
+    return this.ref;
+  }
+
+  @JsonProperty
+  public String getName() {
+    return this.name;
+  }
+
+  @JsonProperty
+  public String getNode() {
+    return this.node;
+  }
+
+  @JsonProperty
+  public String getEdge() {
+    return this.edge;
+  }
+
+  @JsonProperty
+  public Map<String, Tag> getTags() {
+    return this.tags;
+  }
+
+  @JsonProperty
+  public long getStructureVersionId() {
+    return this.structureVersionId;
+  }
+
+  @JsonProperty
+  public String getReference() {
+    return this.reference;
+  }
+
+  @JsonProperty
+  public Map<String, String> getReferenceParameters() {
+    return this.referenceParameters;
+  }
+
+  @JsonProperty
+  public List<Long> getParents() {
+    return this.parents;
+  }
+
+  @JsonProperty
+  public String getFrom() {
+    return this.from;
+  }
+
+  @JsonProperty
+  public String getTo() {
+    return this.to;
+  }
+}
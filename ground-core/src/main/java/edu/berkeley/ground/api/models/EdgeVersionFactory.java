@@ -32,6 +32,8 @@ public abstract class EdgeVersionFactory {
 
   public abstract EdgeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  public abstract List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   protected static EdgeVersion construct(long id,
                                          Map<String, Tag> tags,
                                          long structureVersionId,
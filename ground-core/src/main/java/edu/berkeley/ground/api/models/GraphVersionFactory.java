@@ -30,6 +30,8 @@ public abstract class GraphVersionFactory {
 
   public abstract GraphVersion retrieveFromDatabase(long id) throws GroundException;
 
+  public abstract List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   protected static GraphVersion construct(long id,
                                           Map<String, Tag> tags,
                                           long structureVersionId,
@@ -29,10 +29,69 @@ public abstract class NodeVersionFactory {
 
   public abstract NodeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  public abstract List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   public abstract List<Long> getTransitiveClosure(long nodeVersionId) throws GroundException;
 
   public abstract List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike) throws GroundException;
 
+  /**
+   * Get a page of the node versions reachable from nodeVersionId, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow, or DBClient.UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getTransitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                                  int limit) throws GroundException;
+
+  /**
+   * Get a page of the node versions that nodeVersionId has an edge version to, where the name of
+   * the edge contains edgeNameLike, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeNameLike the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                              long afterId, int limit) throws GroundException;
+
+  /**
+   * Get a page of the node versions that reach nodeVersionId, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow back, or DBClient.UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getUpstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                                int limit) throws GroundException;
+
+  /**
+   * Get a page of the node versions that have an edge version to nodeVersionId, where the name of
+   * the edge contains edgeNameLike, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeNameLike the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getUpstreamAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                                      long afterId, int limit)
+      throws GroundException;
+
+  /**
+   * Whether getTransitiveClosure and getUpstreamClosure read a page to maxDepth without visiting
+   * the rest of the closure, so that streaming a closure a page at a time is not quadratic.
+   *
+   * @param maxDepth the most edges to follow, or DBClient.UNBOUNDED_DEPTH
+   */
+  public boolean pagesClosure(int maxDepth) {
+    return false;
+  }
+
   public static NodeVersion construct(long id,
                                       Map<String, Tag> tags,
                                       long structureVersionId,
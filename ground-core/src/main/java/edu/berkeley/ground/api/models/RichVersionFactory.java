@@ -14,8 +14,6 @@
 
 package edu.berkeley.ground.api.models;
 
-import edu.berkeley.ground.api.versions.GroundType;
-import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 
 import java.util.Map;
@@ -36,29 +34,4 @@ public abstract class RichVersionFactory {
                                          Map<String, String> parameters) {
     return new RichVersion(id, tags, structureVersionId, reference, parameters);
   }
-
-  /**
-   * Validate that the given Tags satisfy the StructureVersion's requirements.
-   *
-   * @param structureVersion the StructureVersion to check against
-   * @param tags             the provided tags
-   */
-  protected static void checkStructureTags(StructureVersion structureVersion, Map<String, Tag> tags) throws GroundException {
-    Map<String, GroundType> structureVersionAttributes = structureVersion.getAttributes();
-
-    if (tags.isEmpty()) {
-      throw new GroundDBException("No tags were specified");
-    }
-
-    for (String key : structureVersionAttributes.keySet()) {
-      // check if such a tag exists
-      if (!tags.keySet().contains(key)) {
-        throw new GroundDBException("No tag with key " + key + " was specified.");
-      } else if (tags.get(key).getValueType() == null) { // check that value type is specified
-        throw new GroundDBException("Tag with key " + key + " did not have a value.");
-      } else if (!tags.get(key).getValueType().equals(structureVersionAttributes.get(key))) { // check that the value type is the same
-        throw new GroundDBException("Tag with key " + key + " did not have a value of the correct type.");
-      }
-    }
-  }
 }
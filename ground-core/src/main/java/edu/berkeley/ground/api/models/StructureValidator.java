@@ -0,0 +1,67 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundDBException;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import java.util.Map;
+
+/**
+ * Checks that tags satisfy a StructureVersion's requirements. The attributes are flattened into
+ * arrays up front, so a check is one map lookup per attribute.
+ */
+public class StructureValidator {
+  private final String[] keys;
+  private final GroundType[] types;
+
+  public StructureValidator(StructureVersion structureVersion) {
+    Map<String, GroundType> attributes = structureVersion.getAttributes();
+
+    this.keys = new String[attributes.size()];
+    this.types = new GroundType[attributes.size()];
+
+    int index = 0;
+    for (Map.Entry<String, GroundType> attribute : attributes.entrySet()) {
+      this.keys[index] = attribute.getKey();
+      this.types[index] = attribute.getValue();
+      index++;
+    }
+  }
+
+  /**
+   * Validate that the given Tags satisfy the StructureVersion's requirements.
+   *
+   * @param tags the provided tags
+   */
+  public void validate(Map<String, Tag> tags) throws GroundException {
+    if (tags.isEmpty()) {
+      throw new GroundDBException("No tags were specified");
+    }
+
+    for (int i = 0; i < this.keys.length; i++) {
+      Tag tag = tags.get(this.keys[i]);
+
+      if (tag == null) { // check if such a tag exists
+        throw new GroundDBException("No tag with key " + this.keys[i] + " was specified.");
+      } else if (tag.getValueType() == null) { // check that value type is specified
+        throw new GroundDBException("Tag with key " + this.keys[i] + " did not have a value.");
+      } else if (tag.getValueType() != this.types[i]) { // check that the value type is the same
+        throw new GroundDBException("Tag with key " + this.keys[i] + " did not have a value of the correct type.");
+      }
+    }
+  }
+}
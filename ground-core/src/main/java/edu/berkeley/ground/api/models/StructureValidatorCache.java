@@ -0,0 +1,55 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * Keeps a StructureValidator for each recently used StructureVersion, so that checking the tags
+ * of a new rich version does not read its structure version from the database every time.
+ * Structure versions never change, so validators are only ever evicted, never invalidated.
+ */
+public class StructureValidatorCache {
+  public static final long DEFAULT_SIZE = 10000;
+
+  private final StructureVersionFactory structureVersionFactory;
+  private final Cache<Long, StructureValidator> validators;
+
+  /**
+   * @param structureVersionFactory loads the structure versions that are not cached
+   * @param maximumSize the number of validators to keep; 0 loads the structure version every time
+   */
+  public StructureValidatorCache(StructureVersionFactory structureVersionFactory, long maximumSize) {
+    this.structureVersionFactory = structureVersionFactory;
+    this.validators = maximumSize == 0 ? null : Caffeine.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  public StructureValidator get(long structureVersionId) throws GroundException {
+    StructureValidator validator = this.validators == null ? null : this.validators.getIfPresent(structureVersionId);
+
+    if (validator == null) {
+      validator = new StructureValidator(this.structureVersionFactory.retrieveFromDatabase(structureVersionId));
+
+      if (this.validators != null) {
+        this.validators.put(structureVersionId, validator);
+      }
+    }
+
+    return validator;
+  }
+}
@@ -27,6 +27,8 @@ public abstract class StructureVersionFactory {
 
   public abstract StructureVersion retrieveFromDatabase(long id) throws GroundException;
 
+  public abstract List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   protected static StructureVersion construct(long id, long structureId, Map<String, GroundType> attributes) {
     return new StructureVersion(id, structureId, attributes);
   }
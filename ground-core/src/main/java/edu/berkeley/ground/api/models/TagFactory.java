@@ -16,10 +16,20 @@ package edu.berkeley.ground.api.models;
 
 import edu.berkeley.ground.exceptions.GroundException;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 public abstract class TagFactory {
+  // how many ids an AND reads from its first child at a time, to check against the others
+  private static final int PROBE_SIZE = 1000;
+
   public abstract Map<String, Tag> retrieveFromDatabaseByVersionId(long id) throws GroundException;
 
   public abstract Map<String, Tag> retrieveFromDatabaseByItemId(long id) throws GroundException;
@@ -27,4 +37,143 @@ public abstract class TagFactory {
   public abstract List<Long> getVersionIdsByTag(String tag) throws GroundException;
 
   public abstract List<Long> getItemIdsByTag(String tag) throws GroundException;
+
+  /**
+   * Find the rich versions that have a tag matching query.
+   *
+   * @param query the predicate on the tag
+   * @param afterId only ids greater than this are returned, so that a caller can page through
+   *                the results by passing the last id it has seen
+   * @param limit the maximum number of ids to return
+   * @return the matching ids, in ascending order
+   */
+  public abstract List<Long> searchVersionIds(TagQuery query, long afterId, int limit)
+      throws GroundException;
+
+  /**
+   * Find the rich versions whose tags match filter. Every tag query in the filter is answered by
+   * searchVersionIds, so it uses the tag indexes of the backend; the ids are combined here. An AND
+   * reads its most selective child a page at a time and checks those ids against the others with
+   * filterVersionIds, so it reads no more of any child than the page needs.
+   *
+   * @param filter an AND or an OR of tag queries
+   * @param afterId only ids greater than this are returned
+   * @param limit the maximum number of ids to return
+   * @return the matching ids, in ascending order
+   */
+  public List<Long> searchVersionIds(TagFilter filter, long afterId, int limit)
+      throws GroundException {
+    if (filter.getOperator() == null) {
+      return this.searchVersionIds(filter.toQuery(), afterId, limit);
+    }
+    if (filter.getChildren().isEmpty()) {
+      throw new GroundException("An " + filter.getOperator() + " filter must have children.");
+    }
+
+    switch (filter.getOperator()) {
+      case TagFilter.AND:
+        // queries on values go first, since they tend to match the fewest ids
+        List<TagFilter> children = new ArrayList<>(filter.getChildren());
+        children.sort(Comparator.comparing(child -> child.getValues().isEmpty()));
+        TagFilter rest = TagFilter.and(children.subList(1, children.size()));
+
+        List<Long> matching = new ArrayList<>();
+        long cursor = afterId;
+        while (matching.size() < limit) {
+          int probeSize = Math.max(PROBE_SIZE, limit - matching.size());
+          List<Long> candidates = this.searchVersionIds(children.get(0), cursor, probeSize);
+          if (candidates.isEmpty()) {
+            break;
+          }
+
+          matching.addAll(this.filterVersionIds(rest, candidates));
+          if (candidates.size() < probeSize) {
+            break;
+          }
+
+          cursor = candidates.get(candidates.size() - 1);
+        }
+
+        return matching.stream().limit(limit).collect(Collectors.toList());
+      case TagFilter.OR:
+        // the first limit ids of the union are among the first limit ids of each child
+        SortedSet<Long> union = new TreeSet<>();
+        for (TagFilter child : filter.getChildren()) {
+          union.addAll(this.searchVersionIds(child, afterId, limit));
+        }
+
+        return union.stream().limit(limit).collect(Collectors.toList());
+      default:
+        throw new GroundException("Unknown filter operator " + filter.getOperator() + ".");
+    }
+  }
+
+  /**
+   * Find which of ids are rich versions whose tags match filter.
+   *
+   * @param filter an AND or an OR of tag queries, or an AND with no children to match every id
+   * @param ids the candidate ids, in ascending order
+   * @return the matching ids, in ascending order
+   */
+  public List<Long> filterVersionIds(TagFilter filter, List<Long> ids) throws GroundException {
+    if (filter.getOperator() == null) {
+      return this.filterVersionIds(filter.toQuery(), ids);
+    }
+
+    switch (filter.getOperator()) {
+      case TagFilter.AND:
+        List<Long> matching = ids;
+        for (TagFilter child : filter.getChildren()) {
+          if (matching.isEmpty()) {
+            break;
+          }
+
+          matching = this.filterVersionIds(child, matching);
+        }
+
+        return matching;
+      case TagFilter.OR:
+        Set<Long> union = new HashSet<>();
+        for (TagFilter child : filter.getChildren()) {
+          union.addAll(this.filterVersionIds(child, ids));
+        }
+
+        return ids.stream().filter(union::contains).collect(Collectors.toList());
+      default:
+        throw new GroundException("Unknown filter operator " + filter.getOperator() + ".");
+    }
+  }
+
+  /**
+   * Find which of ids are rich versions with a tag matching query. This reads the tags of each
+   * id; backends that can check all of them with a single query override it.
+   *
+   * @param query the predicate on the tag
+   * @param ids the candidate ids, in ascending order
+   * @return the matching ids, in ascending order
+   */
+  public List<Long> filterVersionIds(TagQuery query, List<Long> ids) throws GroundException {
+    List<Long> matching = new ArrayList<>();
+    for (long id : ids) {
+      Tag tag = this.retrieveFromDatabaseByVersionId(id).get(query.getKey());
+      if (tag != null && query.matches(tag.getValue() == null ? null : tag.getValue().toString(),
+          tag.getValueType())) {
+        matching.add(id);
+      }
+    }
+
+    return matching;
+  }
+
+  /**
+   * Find the items that have a tag matching query.
+   *
+   * @param query the predicate on the tag
+   * @param afterId only ids greater than this are returned, so that a caller can page through
+   *                the results by passing the last id it has seen
+   * @param limit the maximum number of ids to return
+   * @return the matching ids, in ascending order
+   */
+  public abstract List<Long> searchItemIds(TagQuery query, long afterId, int limit)
+      throws GroundException;
 }
@@ -0,0 +1,157 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A search on several tags: an AND or an OR of other filters, or a single tag query. A tag query
+ * takes the same parameters as a GET on /search, with the values as a list:
+ *
+ * <pre>
+ * {"operator": "and", "children": [
+ *   {"key": "sales/ds", "prefix": "2016-"},
+ *   {"operator": "or", "children": [
+ *     {"key": "sales/hour", "min": 0, "max": 5},
+ *     {"key": "sales/region", "values": ["us", "eu"]}]}]}
+ * </pre>
+ */
+public class TagFilter {
+  public static final String AND = "and";
+  public static final String OR = "or";
+
+  // and, or, or null for a single tag query
+  private String operator;
+  private List<TagFilter> children;
+
+  private String key;
+  private List<String> values;
+  private String type;
+  private String prefix;
+  private Long min;
+  private Long max;
+
+  @JsonCreator
+  public TagFilter(@JsonProperty("operator") String operator,
+                   @JsonProperty("children") List<TagFilter> children,
+                   @JsonProperty("key") String key,
+                   @JsonProperty("values") List<String> values,
+                   @JsonProperty("type") String type,
+                   @JsonProperty("prefix") String prefix,
+                   @JsonProperty("min") Long min,
+                   @JsonProperty("max") Long max) {
+    this.operator = operator;
+    this.children = children == null ? new ArrayList<>() : children;
+    this.key = key;
+    this.values = values == null ? new ArrayList<>() : values;
+    this.type = type == null ? GroundType.STRING.toString() : type;
+    this.prefix = prefix;
+    this.min = min;
+    this.max = max;
+  }
+
+  public static TagFilter and(TagFilter... children) {
+    return new TagFilter(AND, Arrays.asList(children), null, null, null, null, null, null);
+  }
+
+  public static TagFilter and(List<TagFilter> children) {
+    return new TagFilter(AND, children, null, null, null, null, null, null);
+  }
+
+  public static TagFilter or(List<TagFilter> children) {
+    return new TagFilter(OR, children, null, null, null, null, null, null);
+  }
+
+  public static TagFilter exists(String key) {
+    return new TagFilter(null, null, key, null, null, null, null, null);
+  }
+
+  public static TagFilter in(String key, GroundType type, List<String> values) {
+    return new TagFilter(null, null, key, values, type.toString(), null, null, null);
+  }
+
+  public static TagFilter in(String key, GroundType type, String value) {
+    return TagFilter.in(key, type, Collections.singletonList(value));
+  }
+
+  public static TagFilter prefix(String key, String prefix) {
+    return new TagFilter(null, null, key, null, null, prefix, null, null);
+  }
+
+  public static TagFilter range(String key, Long min, Long max) {
+    return new TagFilter(null, null, key, null, null, null, min, max);
+  }
+
+  @JsonProperty
+  public String getOperator() {
+    return this.operator;
+  }
+
+  @JsonProperty
+  public List<TagFilter> getChildren() {
+    return this.children;
+  }
+
+  @JsonProperty
+  public String getKey() {
+    return this.key;
+  }
+
+  @JsonProperty
+  public List<String> getValues() {
+    return this.values;
+  }
+
+  @JsonProperty
+  public String getType() {
+    return this.type;
+  }
+
+  @JsonProperty
+  public String getPrefix() {
+    return this.prefix;
+  }
+
+  @JsonProperty
+  public Long getMin() {
+    return this.min;
+  }
+
+  @JsonProperty
+  public Long getMax() {
+    return this.max;
+  }
+
+  /**
+   * The tag query of a filter that is not an AND or an OR.
+   */
+  public TagQuery toQuery() throws GroundException {
+    if (this.operator != null) {
+      throw new GroundException("An " + this.operator + " filter is not a single tag query.");
+    }
+
+    return TagQuery.parse(this.key, this.values, GroundType.fromString(this.type), this.prefix,
+        this.min, this.max);
+  }
+}
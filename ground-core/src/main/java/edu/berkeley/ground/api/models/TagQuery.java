@@ -0,0 +1,241 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A predicate on the tags with a single key, used to search for the items or rich versions that
+ * have a matching tag.
+ *
+ * <p>Numeric comparisons match both integer and long tags, so an IN or RANGE query with either
+ * numeric type finds values of both.
+ */
+public class TagQuery {
+  public enum Operator {
+    // any tag with the key, with or without a value
+    EXISTS,
+    // a tag whose value is one of a set of values of a type
+    IN,
+    // a string tag whose value starts with a prefix
+    PREFIX,
+    // an integer or long tag whose value is between two inclusive bounds
+    RANGE
+  }
+
+  private final String key;
+  private final Operator operator;
+  private final GroundType type;
+  private final List<String> values;
+  private final Long lower;
+  private final Long upper;
+
+  private TagQuery(String key, Operator operator, GroundType type, List<String> values, Long lower,
+                   Long upper) throws GroundException {
+    if (key == null || key.isEmpty()) {
+      throw new GroundException("A tag query must have a key.");
+    }
+
+    this.key = key;
+    this.operator = operator;
+    this.type = type;
+    this.values = values;
+    this.lower = lower;
+    this.upper = upper;
+  }
+
+  public static TagQuery exists(String key) throws GroundException {
+    return new TagQuery(key, Operator.EXISTS, null, Collections.emptyList(), null, null);
+  }
+
+  /**
+   * Match tags whose value is one of values. The values are parsed as type, so that "007" finds
+   * the integer 7.
+   */
+  public static TagQuery in(String key, GroundType type, List<String> values)
+      throws GroundException {
+    if (type == null) {
+      throw new GroundException("An IN query on tag " + key + " must have a type.");
+    }
+    if (values == null || values.isEmpty()) {
+      throw new GroundException("An IN query on tag " + key + " must have at least one value.");
+    }
+
+    List<String> canonical = new ArrayList<>();
+    for (String value : values) {
+      canonical.add(TagQuery.canonicalize(key, type, value));
+    }
+
+    return new TagQuery(key, Operator.IN, type, canonical, null, null);
+  }
+
+  public static TagQuery prefix(String key, String prefix) throws GroundException {
+    if (prefix == null) {
+      throw new GroundException("A PREFIX query on tag " + key + " must have a prefix.");
+    }
+
+    return new TagQuery(key, Operator.PREFIX, GroundType.STRING, Collections.singletonList(prefix),
+        null, null);
+  }
+
+  /**
+   * Match integer and long tags whose value is between lower and upper, inclusive.
+   *
+   * @param lower the lower bound, or null for no lower bound
+   * @param upper the upper bound, or null for no upper bound
+   */
+  public static TagQuery range(String key, Long lower, Long upper) throws GroundException {
+    if (lower == null && upper == null) {
+      throw new GroundException("A RANGE query on tag " + key + " must have a bound.");
+    }
+
+    return new TagQuery(key, Operator.RANGE, GroundType.LONG, Collections.emptyList(), lower,
+        upper);
+  }
+
+  /**
+   * The query that the parameters of a search describe: values of type, a prefix, or min and max
+   * for a range, or none of them for any tag with the key.
+   */
+  public static TagQuery parse(String key, List<String> values, GroundType type, String prefix,
+                               Long min, Long max) throws GroundException {
+    boolean hasValues = values != null && !values.isEmpty();
+    boolean hasRange = min != null || max != null;
+
+    if ((hasValues ? 1 : 0) + (prefix != null ? 1 : 0) + (hasRange ? 1 : 0) > 1) {
+      throw new GroundException("Only one of value, prefix, and min and max may be given.");
+    }
+
+    if (hasValues) {
+      return TagQuery.in(key, type, values);
+    } else if (prefix != null) {
+      return TagQuery.prefix(key, prefix);
+    } else if (hasRange) {
+      return TagQuery.range(key, min, max);
+    } else {
+      return TagQuery.exists(key);
+    }
+  }
+
+  private static String canonicalize(String key, GroundType type, String value)
+      throws GroundException {
+    if (value == null) {
+      throw new GroundException("A value for tag " + key + " was null.");
+    }
+
+    switch (type) {
+      case INTEGER:
+      case LONG:
+        try {
+          return Long.toString(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+          throw new GroundException("Value " + value + " for tag " + key + " is not a number.");
+        }
+      case BOOLEAN:
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+          throw new GroundException("Value " + value + " for tag " + key + " is not a boolean.");
+        }
+
+        return value.toLowerCase();
+      default:
+        return value;
+    }
+  }
+
+  public String getKey() {
+    return this.key;
+  }
+
+  public Operator getOperator() {
+    return this.operator;
+  }
+
+  /**
+   * Whether this query compares numbers, and so matches both integer and long tags.
+   */
+  public boolean isNumeric() {
+    return this.type == GroundType.INTEGER || this.type == GroundType.LONG;
+  }
+
+  public GroundType getType() {
+    return this.type;
+  }
+
+  /**
+   * The values of an IN query as they are stored, or the prefix of a PREFIX query.
+   */
+  public List<String> getValues() {
+    return this.values;
+  }
+
+  public List<Long> getNumbers() {
+    List<Long> numbers = new ArrayList<>();
+    for (String value : this.values) {
+      numbers.add(Long.parseLong(value));
+    }
+
+    return numbers;
+  }
+
+  public String getPrefix() {
+    return this.values.get(0);
+  }
+
+  public Long getLower() {
+    return this.lower;
+  }
+
+  public Long getUpper() {
+    return this.upper;
+  }
+
+  /**
+   * Check a tag that has the right key against this query. Backends whose indexes only narrow
+   * the candidates down use this to filter them.
+   *
+   * @param value the stored value of the tag, or null
+   * @param type the stored type of the tag, or null
+   */
+  public boolean matches(String value, GroundType type) {
+    switch (this.operator) {
+      case EXISTS:
+        return true;
+      case IN:
+        if (this.isNumeric()) {
+          return (type == GroundType.INTEGER || type == GroundType.LONG)
+              && this.values.contains(value);
+        }
+
+        return type == this.type && this.values.contains(value);
+      case PREFIX:
+        return type == GroundType.STRING && value != null && value.startsWith(this.getPrefix());
+      case RANGE:
+        if (value == null || (type != GroundType.INTEGER && type != GroundType.LONG)) {
+          return false;
+        }
+
+        long number = Long.parseLong(value);
+        return (this.lower == null || number >= this.lower)
+            && (this.upper == null || number <= this.upper);
+      default:
+        return false;
+    }
+  }
+}
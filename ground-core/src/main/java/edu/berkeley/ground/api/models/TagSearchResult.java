@@ -0,0 +1,41 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class TagSearchResult {
+  private List<Long> ids;
+
+  // the cursor for the next page, or null if this is the last page
+  private Long next;
+
+  public TagSearchResult(List<Long> ids, Long next) {
+    this.ids = ids;
+    this.next = next;
+  }
+
+  @JsonProperty
+  public List<Long> getIds() {
+    return this.ids;
+  }
+
+  @JsonProperty
+  public Long getNext() {
+    return this.next;
+  }
+}
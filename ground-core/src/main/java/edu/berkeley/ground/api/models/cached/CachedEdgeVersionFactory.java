@@ -0,0 +1,59 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.cached;
+
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.EdgeVersionFactory;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.VersionCache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves edge version retrievals from a VersionCache in front of another factory. Everything
+ * else goes straight to the delegate.
+ */
+public class CachedEdgeVersionFactory extends EdgeVersionFactory {
+  private final EdgeVersionFactory delegate;
+  private final VersionCache cache;
+
+  public CachedEdgeVersionFactory(EdgeVersionFactory delegate, VersionCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  public EdgeVersion create(Map<String, Tag> tags,
+                            long structureVersionId,
+                            String reference,
+                            Map<String, String> referenceParameters,
+                            long edgeId,
+                            long fromId,
+                            long toId,
+                            List<Long> parentIds) throws GroundException {
+    return this.delegate.create(tags, structureVersionId, reference, referenceParameters, edgeId,
+        fromId, toId, parentIds);
+  }
+
+  public EdgeVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.cache.get(id, EdgeVersion.class, this.delegate::retrieveFromDatabase);
+  }
+
+  @Override
+  public List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.cache.getAll(ids, EdgeVersion.class, this.delegate::retrieveFromDatabase);
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.cached;
+
+import edu.berkeley.ground.api.models.GraphVersion;
+import edu.berkeley.ground.api.models.GraphVersionFactory;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.VersionCache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves graph version retrievals from a VersionCache in front of another factory. Everything
+ * else goes straight to the delegate.
+ */
+public class CachedGraphVersionFactory extends GraphVersionFactory {
+  private final GraphVersionFactory delegate;
+  private final VersionCache cache;
+
+  public CachedGraphVersionFactory(GraphVersionFactory delegate, VersionCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  public GraphVersion create(Map<String, Tag> tags,
+                             long structureVersionId,
+                             String reference,
+                             Map<String, String> referenceParameters,
+                             long graphId,
+                             List<Long> edgeVersionIds,
+                             List<Long> parentIds) throws GroundException {
+    return this.delegate.create(tags, structureVersionId, reference, referenceParameters, graphId,
+        edgeVersionIds, parentIds);
+  }
+
+  public GraphVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.cache.get(id, GraphVersion.class, this.delegate::retrieveFromDatabase);
+  }
+
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.cache.getAll(ids, GraphVersion.class, this.delegate::retrieveFromDatabase);
+  }
+}
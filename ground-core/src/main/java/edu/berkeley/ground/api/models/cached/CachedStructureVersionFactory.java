@@ -0,0 +1,53 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.cached;
+
+import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureVersionFactory;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.VersionCache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves structure version retrievals from a VersionCache in front of another factory. Everything
+ * else goes straight to the delegate.
+ */
+public class CachedStructureVersionFactory extends StructureVersionFactory {
+  private final StructureVersionFactory delegate;
+  private final VersionCache cache;
+
+  public CachedStructureVersionFactory(StructureVersionFactory delegate, VersionCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  public StructureVersion create(long structureId,
+                                 Map<String, GroundType> attributes,
+                                 List<Long> parentIds) throws GroundException {
+    return this.delegate.create(structureId, attributes, parentIds);
+  }
+
+  public StructureVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.cache.get(id, StructureVersion.class, this.delegate::retrieveFromDatabase);
+  }
+
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.cache.getAll(ids, StructureVersion.class, this.delegate::retrieveFromDatabase);
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.cassandra;
+
+import edu.berkeley.ground.api.models.BulkIngestFactory;
+import edu.berkeley.ground.api.models.StructureValidatorCache;
+import edu.berkeley.ground.api.versions.cassandra.CassandraVersionHistoryDAGFactory;
+import edu.berkeley.ground.db.CassandraClient;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.util.IdGenerator;
+
+import java.util.List;
+import java.util.Map;
+
+public class CassandraBulkIngestFactory extends BulkIngestFactory {
+  private final CassandraClient dbClient;
+
+  public CassandraBulkIngestFactory(CassandraClient dbClient,
+                                    CassandraNodeFactory nodeFactory,
+                                    CassandraEdgeFactory edgeFactory,
+                                    StructureValidatorCache structureValidators,
+                                    CassandraVersionHistoryDAGFactory versionHistoryDAGFactory,
+                                    IdGenerator idGenerator) {
+    super(dbClient, nodeFactory, edgeFactory, structureValidators, versionHistoryDAGFactory,
+        idGenerator);
+
+    this.dbClient = dbClient;
+  }
+
+  protected void write(Map<String, List<List<DbDataContainer>>> rows) {
+    for (Map.Entry<String, List<List<DbDataContainer>>> entry : rows.entrySet()) {
+      this.dbClient.insertUnlogged(entry.getKey(), entry.getValue());
+    }
+  }
+}
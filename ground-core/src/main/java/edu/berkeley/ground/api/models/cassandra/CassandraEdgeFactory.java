@@ -77,7 +77,7 @@ public class CassandraEdgeFactory extends EdgeFactory {
 
       QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("edge", DBClient.SELECT_STAR, predicates);
+        resultSet = this.dbClient.equalitySelect("edge_by_name", DBClient.SELECT_STAR, predicates);
       } catch (EmptyResultException e) {
         this.dbClient.abort();
 
@@ -90,7 +90,7 @@ public class CassandraEdgeFactory extends EdgeFactory {
         throw new GroundException("No Edge found with name " + name + ".");
       }
 
-      long id = resultSet.getLong(0);
+      long id = resultSet.getLong("item_id");
       Map<String, Tag> tags = this.itemFactory.retrieveFromDatabase(id).getTags();
 
       this.dbClient.commit();
@@ -19,11 +19,10 @@ import edu.berkeley.ground.api.models.EdgeVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
@@ -31,6 +30,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -87,35 +88,36 @@ public class CassandraEdgeVersionFactory extends EdgeVersionFactory {
   }
 
   public EdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("edge_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        this.dbClient.abort();
-
-        throw new GroundException("No EdgeVersion found with id " + id + ".");
-      }
-
-      if (!resultSet.next()) {
-        this.dbClient.abort();
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-        throw new GroundException("No EdgeVersion found with id " + id + ".");
+  @Override
+  public List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromDatabase(ids);
+      Map<Long, EdgeVersion> versions = new HashMap<>();
+
+      for (QueryResults resultSet : this.dbClient.queryIn("select id, edge_id, "
+          + "from_node_version_id, to_node_version_id from edge_version where id in ?", ids)) {
+        while (resultSet.next()) {
+          RichVersion version = richVersions.get(resultSet.getLong("id"));
+          if (version == null) {
+            continue;
+          }
+
+          versions.put(version.getId(), EdgeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), resultSet.getLong("edge_id"),
+              resultSet.getLong("from_node_version_id"), resultSet.getLong("to_node_version_id")));
+        }
       }
 
-      long edgeId = resultSet.getLong("edge_id");
-      long fromId = resultSet.getLong("from_node_version_id");
-      long toId = resultSet.getLong("to_node_version_id");
+      List<EdgeVersion> result = VersionFactory.inOrderOf(ids, versions, "EdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved edge version " + id + " in Edge " + edgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " edge versions.");
 
-      return EdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), edgeId, fromId, toId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
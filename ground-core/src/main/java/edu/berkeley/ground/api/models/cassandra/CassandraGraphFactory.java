@@ -77,7 +77,7 @@ public class CassandraGraphFactory extends GraphFactory {
 
       QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("graph", DBClient.SELECT_STAR, predicates);
+        resultSet = this.dbClient.equalitySelect("graph_by_name", DBClient.SELECT_STAR, predicates);
       } catch (EmptyResultException e) {
         this.dbClient.abort();
 
@@ -90,7 +90,7 @@ public class CassandraGraphFactory extends GraphFactory {
         throw new GroundException("No Graph found with name " + name + ".");
       }
 
-      long id = resultSet.getLong(0);
+      long id = resultSet.getLong("item_id");
       Map<String, Tag> tags = this.itemFactory.retrieveFromDatabase(id).getTags();
 
       this.dbClient.commit();
@@ -19,11 +19,10 @@ import edu.berkeley.ground.api.models.GraphVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
@@ -31,6 +30,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -93,44 +94,47 @@ public class CassandraGraphVersionFactory extends GraphVersionFactory {
   }
 
   public GraphVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      List<DbDataContainer> edgePredicate = new ArrayList<>();
-      edgePredicate.add(new DbDataContainer("graph_version_id", GroundType.LONG, id));
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("graph_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundException("No GraphVersion found with id " + id + ".");
-      }
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromDatabase(ids);
 
-      if (!resultSet.next()) {
-        throw new GroundException("No GraphVersion found with id " + id + ".");
+      Map<Long, List<Long>> edgeVersionIds = new HashMap<>();
+      for (QueryResults edgeSet : this.dbClient.queryIn("select graph_version_id, "
+          + "edge_version_id from graph_version_edge where graph_version_id in ?", ids)) {
+        while (edgeSet.next()) {
+          edgeVersionIds
+              .computeIfAbsent(edgeSet.getLong("graph_version_id"), id -> new ArrayList<>())
+              .add(edgeSet.getLong("edge_version_id"));
+        }
       }
 
-      long graphId = resultSet.getLong(1);
-
-      List<Long> edgeVersionIds = new ArrayList<>();
-      try {
-        QueryResults edgeSet = this.dbClient.equalitySelect("graph_version_edge", DBClient.SELECT_STAR, edgePredicate);
-
-        while (edgeSet.next()) {
-          edgeVersionIds.add(edgeSet.getLong(1));
+      Map<Long, GraphVersion> versions = new HashMap<>();
+      for (QueryResults resultSet : this.dbClient.queryIn(
+          "select id, graph_id from graph_version where id in ?", ids)) {
+        while (resultSet.next()) {
+          RichVersion version = richVersions.get(resultSet.getLong("id"));
+          if (version == null) {
+            continue;
+          }
+
+          // a graph without edge versions has no rows in graph_version_edge
+          versions.put(version.getId(), GraphVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), resultSet.getLong("graph_id"),
+              edgeVersionIds.getOrDefault(version.getId(), new ArrayList<>())));
         }
-      } catch (EmptyResultException e) {
-        // do nothing; this means that the graph is empty
       }
 
+      List<GraphVersion> result = VersionFactory.inOrderOf(ids, versions, "GraphVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved graph version " + id + " in graph " + graphId + ".");
+      LOGGER.info("Retrieved " + result.size() + " graph versions.");
 
-      return GraphVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), graphId, edgeVersionIds);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
@@ -92,7 +92,7 @@ public class CassandraNodeFactory extends NodeFactory {
 
       QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("node", DBClient.SELECT_STAR, predicates);
+        resultSet = this.dbClient.equalitySelect("node_by_name", DBClient.SELECT_STAR, predicates);
       } catch (EmptyResultException e) {
         this.dbClient.abort();
 
@@ -105,7 +105,7 @@ public class CassandraNodeFactory extends NodeFactory {
         throw new GroundException("No Node found with name " + name + ".");
       }
 
-      long id = resultSet.getLong(0);
+      long id = resultSet.getLong("item_id");
       Map<String, Tag> tags = this.itemFactory.retrieveFromDatabase(id).getTags();
 
       this.dbClient.commit();
@@ -19,11 +19,10 @@ import edu.berkeley.ground.api.models.NodeVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
@@ -31,6 +30,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -86,33 +87,35 @@ public class CassandraNodeVersionFactory extends NodeVersionFactory {
   }
 
   public NodeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("node_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        this.dbClient.abort();
-
-        throw new GroundException("No NodeVersion found with id " + id + ".");
-      }
-
-      if (!resultSet.next()) {
-        this.dbClient.abort();
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-        throw new GroundException("No NodeVersion found with id " + id + ".");
+  @Override
+  public List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromDatabase(ids);
+      Map<Long, NodeVersion> versions = new HashMap<>();
+
+      for (QueryResults resultSet : this.dbClient.queryIn(
+          "select id, node_id from node_version where id in ?", ids)) {
+        while (resultSet.next()) {
+          RichVersion version = richVersions.get(resultSet.getLong("id"));
+          if (version == null) {
+            continue;
+          }
+
+          versions.put(version.getId(), NodeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), resultSet.getLong("node_id")));
+        }
       }
 
-      long nodeId = resultSet.getLong(1);
+      List<NodeVersion> result = VersionFactory.inOrderOf(ids, versions, "NodeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved node version " + id + " in node " + nodeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " node versions.");
 
-      return NodeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), nodeId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
@@ -133,4 +136,37 @@ public class CassandraNodeVersionFactory extends NodeVersionFactory {
     this.dbClient.commit();
     return result;
   }
+
+  public List<Long> getTransitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                         int limit) {
+    List<Long> result = this.dbClient.transitiveClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike, long afterId,
+                                     int limit) {
+    List<Long> result = this.dbClient.adjacentNodes(nodeVersionId, edgeNameLike, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                       int limit) {
+    List<Long> result = this.dbClient.upstreamClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                             long afterId, int limit) {
+    List<Long> result = this.dbClient.upstreamAdjacentNodes(nodeVersionId, edgeNameLike, afterId,
+        limit);
+
+    this.dbClient.commit();
+    return result;
+  }
 }
@@ -16,7 +16,7 @@ package edu.berkeley.ground.api.models.cassandra;
 
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.RichVersionFactory;
-import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.api.versions.cassandra.CassandraVersionFactory;
@@ -32,16 +32,16 @@ import java.util.*;
 public class CassandraRichVersionFactory extends RichVersionFactory {
   private final CassandraClient dbClient;
   private final CassandraVersionFactory versionFactory;
-  private final CassandraStructureVersionFactory structureVersionFactory;
+  private final StructureValidatorCache structureValidators;
   private final CassandraTagFactory tagFactory;
 
   public CassandraRichVersionFactory(CassandraClient dbClient,
                                      CassandraVersionFactory versionFactory,
-                                     CassandraStructureVersionFactory structureVersionFactory,
+                                     StructureValidatorCache structureValidators,
                                      CassandraTagFactory tagFactory) {
     this.dbClient = dbClient;
     this.versionFactory = versionFactory;
-    this.structureVersionFactory = structureVersionFactory;
+    this.structureValidators = structureValidators;
     this.tagFactory = tagFactory;
   }
 
@@ -53,9 +53,7 @@ public class CassandraRichVersionFactory extends RichVersionFactory {
     this.versionFactory.insertIntoDatabase(id);
 
     if (structureVersionId != -1) {
-      StructureVersion structureVersion = this.structureVersionFactory.retrieveFromDatabase(structureVersionId);
-
-      RichVersionFactory.checkStructureTags(structureVersion, tags);
+      this.structureValidators.get(structureVersionId).validate(tags);
     }
 
     List<DbDataContainer> insertions = new ArrayList<>();
@@ -128,4 +126,39 @@ public class CassandraRichVersionFactory extends RichVersionFactory {
 
     return RichVersionFactory.construct(id, tags, structureVersionId, reference, referenceParameters);
   }
+
+  /**
+   * Retrieve several RichVersions with their tags and external parameters, reading a slice of
+   * partitions per query rather than one partition at a time.
+   *
+   * @param ids the ids of the versions
+   * @return the versions that were found, by id
+   */
+  public Map<Long, RichVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    Map<Long, Map<String, String>> referenceParameters = new HashMap<>();
+    for (QueryResults parameterSet : this.dbClient.queryIn("select rich_version_id, key, value "
+        + "from rich_version_external_parameter where rich_version_id in ?", ids)) {
+      while (parameterSet.next()) {
+        referenceParameters
+            .computeIfAbsent(parameterSet.getLong("rich_version_id"), id -> new HashMap<>())
+            .put(parameterSet.getString("key"), parameterSet.getString("value"));
+      }
+    }
+
+    Map<Long, Map<String, Tag>> tags = this.tagFactory.retrieveFromDatabaseByVersionIds(ids);
+
+    Map<Long, RichVersion> versions = new HashMap<>();
+    for (QueryResults resultSet : this.dbClient.queryIn(
+        "select id, structure_version_id, reference from rich_version where id in ?", ids)) {
+      while (resultSet.next()) {
+        long id = resultSet.getLong("id");
+
+        versions.put(id, RichVersionFactory.construct(id, tags.get(id),
+            resultSet.getLong("structure_version_id"), resultSet.getString("reference"),
+            referenceParameters.getOrDefault(id, new HashMap<>())));
+      }
+    }
+
+    return versions;
+  }
 }
@@ -17,12 +17,11 @@ package edu.berkeley.ground.api.models.cassandra;
 import edu.berkeley.ground.api.models.StructureVersion;
 import edu.berkeley.ground.api.models.StructureVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.api.versions.cassandra.CassandraVersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
@@ -84,48 +83,41 @@ public class CassandraStructureVersionFactory extends StructureVersionFactory {
   }
 
   public StructureVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("structure_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        this.dbClient.abort();
-
-        throw new GroundException("No StructureVersion found with id " + id + ".");
-      }
-
-      if (!resultSet.next()) {
-        this.dbClient.abort();
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-        throw new GroundException("No StructureVersion found with id " + id + ".");
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, Map<String, GroundType>> attributes = new HashMap<>();
+      for (QueryResults attributesSet : this.dbClient.queryIn("select structure_version_id, "
+          + "key, type from structure_version_attribute where structure_version_id in ?", ids)) {
+        while (attributesSet.next()) {
+          attributes
+              .computeIfAbsent(attributesSet.getLong("structure_version_id"), id -> new HashMap<>())
+              .put(attributesSet.getString("key"),
+                  GroundType.fromString(attributesSet.getString("type")));
+        }
       }
 
-      Map<String, GroundType> attributes = new HashMap<>();
-
-      try {
-        List<DbDataContainer> attributePredicates = new ArrayList<>();
-        attributePredicates.add(new DbDataContainer("structure_version_id", GroundType.LONG, id));
-        QueryResults attributesSet = this.dbClient.equalitySelect("structure_version_attribute", DBClient.SELECT_STAR, attributePredicates);
+      Map<Long, StructureVersion> versions = new HashMap<>();
+      for (QueryResults resultSet : this.dbClient.queryIn(
+          "select id, structure_id from structure_version where id in ?", ids)) {
+        while (resultSet.next()) {
+          long id = resultSet.getLong("id");
 
-        while (attributesSet.next()) {
-          attributes.put(attributesSet.getString(1), GroundType.fromString(attributesSet.getString(2)));
+          versions.put(id, StructureVersionFactory.construct(id, resultSet.getLong("structure_id"),
+              attributes.getOrDefault(id, new HashMap<>())));
         }
-      } catch (EmptyResultException e) {
-        this.dbClient.abort();
-
-        throw new GroundException("No StructureVersion attributes found for id " + id + ".");
       }
 
-      long structureId = resultSet.getLong(1);
+      List<StructureVersion> result = VersionFactory.inOrderOf(ids, versions,
+          "StructureVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved structure version " + id + " in structure " + structureId + ".");
+      LOGGER.info("Retrieved " + result.size() + " structure versions.");
 
-      return StructureVersionFactory.construct(id, structureId, attributes);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
@@ -16,17 +16,28 @@ package edu.berkeley.ground.api.models.cassandra;
 
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.models.TagFactory;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.db.CassandraClient;
+import edu.berkeley.ground.db.CassandraResults;
 import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
 import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
 
 public class CassandraTagFactory extends TagFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CassandraTagFactory.class);
+
+  // The number tables are clustered by value, so a page of a range in id order reads the whole
+  // range. Ranges that more tags than this fall in are rejected rather than read for every page.
+  public static final int MAX_RANGE_TAGS = 100000;
+
   private final CassandraClient dbClient;
 
   public CassandraTagFactory(CassandraClient dbClient) {
@@ -56,20 +67,52 @@ public class CassandraTagFactory extends TagFactory {
     }
 
     while (resultSet.next()) {
-      String key = resultSet.getString("key");
+      Tag tag = toTag(id, resultSet);
+      result.put(tag.getKey(), tag);
+    }
 
-      // these methods will return null if the input is null, so there's no need to check
-      GroundType type = GroundType.fromString(resultSet.getString("type"));
+    return result;
+  }
+
+  /**
+   * Retrieve the tags of several RichVersions, a slice of partitions per query.
+   *
+   * @param ids the ids of the versions
+   * @return the tags of each version, by id; versions without tags map to an empty map
+   */
+  public Map<Long, Map<String, Tag>> retrieveFromDatabaseByVersionIds(List<Long> ids)
+      throws GroundException {
+    Map<Long, Map<String, Tag>> result = new HashMap<>();
+    for (long id : ids) {
+      result.put(id, new HashMap<>());
+    }
 
-      String valueString = resultSet.getString("value");
-      Object value = GroundType.stringToType(valueString, type);
+    for (QueryResults resultSet : this.dbClient.queryIn(
+        "select rich_version_id, key, value, type from rich_version_tag where rich_version_id in ?",
+        ids)) {
+      while (resultSet.next()) {
+        long id = resultSet.getLong("rich_version_id");
+        Tag tag = toTag(id, resultSet);
 
-      result.put(key, new Tag(id, key, value, type));
+        result.get(id).put(tag.getKey(), tag);
+      }
     }
 
     return result;
   }
 
+  private static Tag toTag(long id, QueryResults resultSet) throws GroundException {
+    String key = resultSet.getString("key");
+
+    // these methods will return null if the input is null, so there's no need to check
+    GroundType type = GroundType.fromString(resultSet.getString("type"));
+
+    String valueString = resultSet.getString("value");
+    Object value = GroundType.stringToType(valueString, type);
+
+    return new Tag(id, key, value, type);
+  }
+
   public List<Long> getVersionIdsByTag(String tag) throws GroundException {
     return this.getIdsByTag(tag, "rich_version");
   }
@@ -81,24 +124,121 @@ public class CassandraTagFactory extends TagFactory {
   private List<Long> getIdsByTag(String tag, String keyPrefix) throws GroundException {
     List<Long> result = new ArrayList<>();
 
-    List<DbDataContainer> predicates = new ArrayList<>();
-    predicates.add(new DbDataContainer("key", GroundType.STRING, tag));
+    for (int bucket = 0; bucket < CassandraClient.TAG_BUCKETS; bucket++) {
+      CassandraResults resultSet = this.dbClient.query("select " + keyPrefix + "_id from "
+          + keyPrefix + "_tag_by_key where key = ? and bucket = ?;", tag, bucket);
+
+      while (resultSet.next()) {
+        result.add(resultSet.getLong(0));
+      }
+    }
 
-    List<String> projections = new ArrayList<>();
-    projections.add(keyPrefix + "_id");
+    return result;
+  }
 
-    QueryResults resultSet;
+  public List<Long> searchVersionIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "rich_version", afterId, limit);
+  }
+
+  public List<Long> searchItemIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "item", afterId, limit);
+  }
+
+  private List<Long> search(TagQuery query, String keyPrefix, long afterId, int limit)
+      throws GroundException {
     try {
-      resultSet = this.dbClient.equalitySelect(keyPrefix + "_tag", projections, predicates);
-    } catch (EmptyResultException e) {
-      // this means that there are no tags
-      return result;
+      String idColumn = keyPrefix + "_id";
+      String table = keyPrefix + "_tag";
+
+      // the smallest matching ids; a page may be assembled from several partitions, such as the
+      // buckets of a key, each of which is read from the same cursor
+      TreeSet<Long> result = new TreeSet<>();
+
+      switch (query.getOperator()) {
+        case EXISTS:
+          for (int bucket = 0; bucket < CassandraClient.TAG_BUCKETS; bucket++) {
+            this.collect(result, limit, this.dbClient.query("select " + idColumn + " from " + table
+                + "_by_key where key = ? and bucket = ? and " + idColumn + " > ? limit ?;",
+                query.getKey(), bucket, afterId, limit), null);
+          }
+          break;
+        case IN:
+          // each value is its own partition, read in id order
+          for (String value : query.getValues()) {
+            this.collect(result, limit, this.dbClient.query("select " + idColumn + ", value, type "
+                + "from " + table + "_by_value where key = ? and value = ? and " + idColumn
+                + " > ?;", query.getKey(), value, afterId), query);
+          }
+          break;
+        case PREFIX:
+          // values are not ordered within a bucket, so each is read in id order until enough
+          // values match
+          for (int bucket = 0; bucket < CassandraClient.TAG_BUCKETS; bucket++) {
+            this.collect(result, limit, this.dbClient.query("select " + idColumn + ", value, type "
+                + "from " + table + "_by_key where key = ? and bucket = ? and " + idColumn
+                + " > ?;", query.getKey(), bucket, afterId), query);
+          }
+          break;
+        case RANGE:
+          long lower = query.getLower() == null ? Long.MIN_VALUE : query.getLower();
+          long upper = query.getUpper() == null ? Long.MAX_VALUE : query.getUpper();
+
+          int scanned = 0;
+          for (int bucket = 0; bucket < CassandraClient.TAG_BUCKETS; bucket++) {
+            CassandraResults resultSet = this.dbClient.query("select " + idColumn + " from "
+                + table + "_by_number where key = ? and bucket = ? and value >= ? and value <= ? "
+                + "limit ?;", query.getKey(), bucket, lower, upper, MAX_RANGE_TAGS - scanned + 1);
+
+            // the slice is in value order, so every id in it has to be considered
+            while (resultSet.next()) {
+              if (++scanned > MAX_RANGE_TAGS) {
+                throw new GroundException("More than " + MAX_RANGE_TAGS + " tags " + query.getKey()
+                    + " are in the range, so it can not be searched; narrow the range.");
+              }
+
+              long id = resultSet.getLong(0);
+              if (id > afterId) {
+                result.add(id);
+
+                if (result.size() > limit) {
+                  result.pollLast();
+                }
+              }
+            }
+          }
+          break;
+      }
+
+      this.dbClient.commit();
+      LOGGER.info("Found " + result.size() + " " + keyPrefix + " ids with tag "
+          + query.getKey() + ".");
+
+      return new ArrayList<>(result);
+    } catch (GroundException e) {
+      this.dbClient.abort();
+
+      throw e;
     }
+  }
 
-    while (resultSet.next()) {
-      result.add(resultSet.getLong(0));
+  // Adds the ids of rows, which are in id order, that match query to result, keeping only the
+  // smallest limit ids. A null query matches every row.
+  private void collect(TreeSet<Long> result, int limit, CassandraResults resultSet,
+                       TagQuery query) throws GroundException {
+    int matched = 0;
+
+    while (matched < limit && resultSet.next()) {
+      if (query == null
+          || query.matches(resultSet.getString(1), GroundType.fromString(resultSet.getString(2)))) {
+        result.add(resultSet.getLong(0));
+        matched++;
+      }
     }
 
-    return result;
+    while (result.size() > limit) {
+      result.pollLast();
+    }
   }
 }
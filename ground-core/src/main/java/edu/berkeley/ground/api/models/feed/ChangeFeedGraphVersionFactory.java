@@ -0,0 +1,61 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.feed;
+
+import edu.berkeley.ground.api.models.GraphVersion;
+import edu.berkeley.ground.api.models.GraphVersionFactory;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an event to a ChangeFeed for every graph version that another factory creates.
+ * Everything else goes straight to the delegate.
+ */
+public class ChangeFeedGraphVersionFactory extends GraphVersionFactory {
+  private final GraphVersionFactory delegate;
+  private final ChangeFeed changeFeed;
+
+  public ChangeFeedGraphVersionFactory(GraphVersionFactory delegate, ChangeFeed changeFeed) {
+    this.delegate = delegate;
+    this.changeFeed = changeFeed;
+  }
+
+  public GraphVersion create(Map<String, Tag> tags,
+                             long structureVersionId,
+                             String reference,
+                             Map<String, String> referenceParameters,
+                             long graphId,
+                             List<Long> edgeVersionIds,
+                             List<Long> parentIds) throws GroundException {
+    GraphVersion version = this.delegate.create(tags, structureVersionId, reference,
+        referenceParameters, graphId, edgeVersionIds, parentIds);
+    this.changeFeed.publish("GraphVersion", version.getId(), version.getGraphId());
+
+    return version;
+  }
+
+  public GraphVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.delegate.retrieveFromDatabase(id);
+  }
+
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.delegate.retrieveFromDatabase(ids);
+  }
+}
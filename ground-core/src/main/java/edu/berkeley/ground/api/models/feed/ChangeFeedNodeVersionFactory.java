@@ -0,0 +1,94 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.feed;
+
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.api.models.NodeVersionFactory;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an event to a ChangeFeed for every node version that another factory creates.
+ * Everything else goes straight to the delegate.
+ */
+public class ChangeFeedNodeVersionFactory extends NodeVersionFactory {
+  private final NodeVersionFactory delegate;
+  private final ChangeFeed changeFeed;
+
+  public ChangeFeedNodeVersionFactory(NodeVersionFactory delegate, ChangeFeed changeFeed) {
+    this.delegate = delegate;
+    this.changeFeed = changeFeed;
+  }
+
+  public NodeVersion create(Map<String, Tag> tags,
+                            long structureVersionId,
+                            String reference,
+                            Map<String, String> referenceParameters,
+                            long nodeId,
+                            List<Long> parentIds) throws GroundException {
+    NodeVersion version = this.delegate.create(tags, structureVersionId, reference,
+        referenceParameters, nodeId, parentIds);
+    this.changeFeed.publish("NodeVersion", version.getId(), version.getNodeId());
+
+    return version;
+  }
+
+  public NodeVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.delegate.retrieveFromDatabase(id);
+  }
+
+  @Override
+  public List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.delegate.retrieveFromDatabase(ids);
+  }
+
+  public List<Long> getTransitiveClosure(long nodeVersionId) throws GroundException {
+    return this.delegate.getTransitiveClosure(nodeVersionId);
+  }
+
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike)
+      throws GroundException {
+    return this.delegate.getAdjacentNodes(nodeVersionId, edgeNameLike);
+  }
+
+  public List<Long> getTransitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                         int limit) throws GroundException {
+    return this.delegate.getTransitiveClosure(nodeVersionId, maxDepth, afterId, limit);
+  }
+
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike, long afterId,
+                                     int limit) throws GroundException {
+    return this.delegate.getAdjacentNodes(nodeVersionId, edgeNameLike, afterId, limit);
+  }
+
+  public List<Long> getUpstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    return this.delegate.getUpstreamClosure(nodeVersionId, maxDepth, afterId, limit);
+  }
+
+  public List<Long> getUpstreamAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                             long afterId, int limit) throws GroundException {
+    return this.delegate.getUpstreamAdjacentNodes(nodeVersionId, edgeNameLike, afterId, limit);
+  }
+
+  @Override
+  public boolean pagesClosure(int maxDepth) {
+    return this.delegate.pagesClosure(maxDepth);
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.feed;
+
+import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureVersionFactory;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an event to a ChangeFeed for every structure version that another factory creates.
+ * Everything else goes straight to the delegate.
+ */
+public class ChangeFeedStructureVersionFactory extends StructureVersionFactory {
+  private final StructureVersionFactory delegate;
+  private final ChangeFeed changeFeed;
+
+  public ChangeFeedStructureVersionFactory(StructureVersionFactory delegate,
+                                           ChangeFeed changeFeed) {
+    this.delegate = delegate;
+    this.changeFeed = changeFeed;
+  }
+
+  public StructureVersion create(long structureId,
+                                 Map<String, GroundType> attributes,
+                                 List<Long> parentIds) throws GroundException {
+    StructureVersion version = this.delegate.create(structureId, attributes, parentIds);
+    this.changeFeed.publish("StructureVersion", version.getId(), version.getStructureId());
+
+    return version;
+  }
+
+  public StructureVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.delegate.retrieveFromDatabase(id);
+  }
+
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.delegate.retrieveFromDatabase(ids);
+  }
+}
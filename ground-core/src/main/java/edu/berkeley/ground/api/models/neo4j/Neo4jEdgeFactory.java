@@ -76,7 +76,7 @@ public class Neo4jEdgeFactory extends EdgeFactory {
 
       Record record;
       try {
-        record = this.dbClient.getVertex(predicates);
+        record = this.dbClient.getVertex("GroundEdge", predicates);
       } catch (EmptyResultException e) {
         throw new GroundDBException("No Edge found with name " + name + ".");
       }
@@ -19,18 +19,21 @@ import edu.berkeley.ground.api.models.EdgeVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -89,28 +92,33 @@ public class Neo4jEdgeVersionFactory extends EdgeVersionFactory {
   }
 
   public EdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      Record versionRecord;
-      try {
-        versionRecord = this.dbClient.getVertex(predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundDBException("No EdgeVersion found with id " + id + ".");
+  @Override
+  public List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      List<Record> records = this.dbClient.getVertices("EdgeVersion", ids);
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromRecords(records);
+
+      Map<Long, EdgeVersion> versions = new HashMap<>();
+      for (Record record : records) {
+        Node vertex = record.get("v").asNode();
+        RichVersion version = richVersions.get(vertex.get("id").asLong());
+
+        versions.put(version.getId(), EdgeVersionFactory.construct(version.getId(),
+            version.getTags(), version.getStructureVersionId(), version.getReference(),
+            version.getParameters(), vertex.get("edge_id").asLong(),
+            vertex.get("endpoint_one").asLong(), vertex.get("endpoint_two").asLong()));
       }
 
-      long edgeId = versionRecord.get("v").asNode() .get("edge_id").asLong();
-      long fromId = versionRecord.get("v").asNode().get("endpoint_one").asLong();
-      long toId = versionRecord.get("v").asNode().get("endpoint_two").asLong();
+      List<EdgeVersion> result = VersionFactory.inOrderOf(ids, versions, "EdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved edge version " + id + " in edge " + edgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " edge versions.");
 
-      return EdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), edgeId, fromId, toId);
-    } catch (GroundDBException e) {
+      return result;
+    } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
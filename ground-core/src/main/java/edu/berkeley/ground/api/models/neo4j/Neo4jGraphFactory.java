@@ -78,7 +78,7 @@ public class Neo4jGraphFactory extends GraphFactory {
 
       Record record;
       try {
-        record = this.dbClient.getVertex(predicates);
+        record = this.dbClient.getVertex("Graph", predicates);
       } catch (EmptyResultException e) {
         throw new GroundDBException("No Graph found with name " + name + ".");
       }
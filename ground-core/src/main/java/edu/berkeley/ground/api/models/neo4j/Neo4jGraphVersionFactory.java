@@ -19,19 +19,22 @@ import edu.berkeley.ground.api.models.GraphVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -95,34 +98,44 @@ public class Neo4jGraphVersionFactory extends GraphVersionFactory {
   }
 
   public GraphVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
+
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
     try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
+      List<Record> records = this.dbClient.getVertices("GraphVersion", ids);
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromRecords(records);
 
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+      List<String> returnFields = new ArrayList<>();
+      returnFields.add("id");
 
-      Record versionRecord;
-      try {
-        versionRecord = this.dbClient.getVertex(predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundDBException("No GraphVersion found with id " + id + ".");
+      // a graph without edge versions has no GraphVersionEdge edges
+      Map<Long, List<Long>> edgeVersionIds = new HashMap<>();
+      for (Record edgeVersionVertex : this.dbClient.getAdjacentVerticesByEdgeLabel("GraphVersionEdge", ids, returnFields)) {
+        edgeVersionIds
+            .computeIfAbsent(edgeVersionVertex.get("from_id").asLong(), id -> new ArrayList<>())
+            .add(edgeVersionVertex.get("id").asLong());
       }
 
-      long graphId = versionRecord.get("v") .asNode().get("graph_id").asLong();
+      Map<Long, GraphVersion> versions = new HashMap<>();
+      for (Record record : records) {
+        Node vertex = record.get("v").asNode();
+        RichVersion version = richVersions.get(vertex.get("id").asLong());
 
-      List<String> returnFields = new ArrayList<>();
-      returnFields.add("id");
-
-      List<Record> edgeVersionVertices = this.dbClient.getAdjacentVerticesByEdgeLabel("GraphVersionEdge", id, returnFields);
-      List<Long> edgeVersionIds = new ArrayList<>();
+        versions.put(version.getId(), GraphVersionFactory.construct(version.getId(),
+            version.getTags(), version.getStructureVersionId(), version.getReference(),
+            version.getParameters(), vertex.get("graph_id").asLong(),
+            edgeVersionIds.getOrDefault(version.getId(), new ArrayList<>())));
+      }
 
-      edgeVersionVertices.forEach(edgeVersionVertex -> edgeVersionIds.add(edgeVersionVertex.get("id").asLong()));
+      List<GraphVersion> result = VersionFactory.inOrderOf(ids, versions, "GraphVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved graph version " + id + " in graph " + graphId + ".");
+      LOGGER.info("Retrieved " + result.size() + " graph versions.");
 
-      return GraphVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), graphId, edgeVersionIds);
-    } catch (GroundDBException e) {
+      return result;
+    } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
@@ -19,18 +19,21 @@ import edu.berkeley.ground.api.models.NodeVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -85,43 +88,82 @@ public class Neo4jNodeVersionFactory extends NodeVersionFactory {
   }
 
   public NodeVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
+
+  @Override
+  public List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
     try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
+      List<Record> records = this.dbClient.getVertices("NodeVersion", ids);
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromRecords(records);
 
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+      Map<Long, NodeVersion> versions = new HashMap<>();
+      for (Record record : records) {
+        Node vertex = record.get("v").asNode();
+        RichVersion version = richVersions.get(vertex.get("id").asLong());
 
-      Record record;
-      try {
-        record = this.dbClient.getVertex(predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundDBException("No NodeVersion found with id " + id + ".");
+        versions.put(version.getId(), NodeVersionFactory.construct(version.getId(),
+            version.getTags(), version.getStructureVersionId(), version.getReference(),
+            version.getParameters(), vertex.get("node_id").asLong()));
       }
 
-      long nodeId = record.get("v").asNode(). get("node_id").asLong();
+      List<NodeVersion> result = VersionFactory.inOrderOf(ids, versions, "NodeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved node version " + id + " in node " + nodeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " node versions.");
 
-      return NodeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), nodeId);
-    } catch (GroundDBException e) {
+      return result;
+    } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
     }
   }
 
-  public List<Long> getTransitiveClosure(long nodeVersionId) {
+  public List<Long> getTransitiveClosure(long nodeVersionId) throws GroundException {
     List<Long> result = this.dbClient.transitiveClosure(nodeVersionId);
 
     this.dbClient.commit();
     return result;
   }
 
-  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameRegex) {
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameRegex) throws GroundException {
     List<Long> result = this.dbClient.adjacentNodes(nodeVersionId, edgeNameRegex);
 
     this.dbClient.commit();
     return result;
   }
+
+  public List<Long> getTransitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                         int limit) throws GroundException {
+    List<Long> result = this.dbClient.transitiveClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike, long afterId,
+                                     int limit) throws GroundException {
+    List<Long> result = this.dbClient.adjacentNodes(nodeVersionId, edgeNameLike, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                             long afterId, int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamAdjacentNodes(nodeVersionId, edgeNameLike, afterId,
+        limit);
+
+    this.dbClient.commit();
+    return result;
+  }
 }
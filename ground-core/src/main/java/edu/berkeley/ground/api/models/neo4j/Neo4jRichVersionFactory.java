@@ -16,7 +16,7 @@ package edu.berkeley.ground.api.models.neo4j;
 
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.RichVersionFactory;
-import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.db.DbDataContainer;
@@ -28,19 +28,20 @@ import edu.berkeley.ground.exceptions.GroundException;
 import org.neo4j.driver.internal.value.NullValue;
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 
 import java.util.*;
 
 public class Neo4jRichVersionFactory extends RichVersionFactory {
   private final Neo4jClient dbClient;
-  private final Neo4jStructureVersionFactory structureVersionFactory;
+  private final StructureValidatorCache structureValidators;
   private final Neo4jTagFactory tagFactory;
 
   public Neo4jRichVersionFactory(Neo4jClient dbClient,
-                                 Neo4jStructureVersionFactory structureVersionFactory,
+                                 StructureValidatorCache structureValidators,
                                  Neo4jTagFactory tagFactory) {
     this.dbClient = dbClient;
-    this.structureVersionFactory = structureVersionFactory;
+    this.structureValidators = structureValidators;
     this.tagFactory = tagFactory;
   }
 
@@ -51,8 +52,7 @@ public class Neo4jRichVersionFactory extends RichVersionFactory {
                                  Map<String, String> referenceParameters
   ) throws GroundException {
     if (structureVersionId != -1) {
-      StructureVersion structureVersion = this.structureVersionFactory.retrieveFromDatabase(structureVersionId);
-      RichVersionFactory.checkStructureTags(structureVersion, tags);
+      this.structureValidators.get(structureVersionId).validate(tags);
     }
 
     for (String key : referenceParameters.keySet()) {
@@ -86,6 +86,11 @@ public class Neo4jRichVersionFactory extends RichVersionFactory {
       if (tag.getValue() != null) {
         tagInsertion.add(new DbDataContainer("value", GroundType.STRING, tag.getValue().toString()));
         tagInsertion.add(new DbDataContainer("type", GroundType.STRING, tag.getValueType().toString()));
+
+        // numeric values are also stored as numbers, for range queries
+        if (tag.getValueType() == GroundType.INTEGER || tag.getValueType() == GroundType.LONG) {
+          tagInsertion.add(new DbDataContainer("nvalue", GroundType.LONG, Long.parseLong(tag.getValue().toString())));
+        }
       } else {
         tagInsertion.add(new DbDataContainer("value", GroundType.STRING, null));
         tagInsertion.add(new DbDataContainer("type", GroundType.STRING, null));
@@ -107,36 +112,58 @@ public class Neo4jRichVersionFactory extends RichVersionFactory {
       throw new GroundDBException("No RichVersion found with id " + id + ".");
     }
 
+    return this.retrieveFromRecords(Collections.singletonList(record)).get(id);
+  }
+
+  /**
+   * Build the RichVersions of vertices that were already retrieved, such as by
+   * Neo4jClient.getVertices, fetching the tags and external parameters of all of them with one
+   * query each.
+   *
+   * @param records a Record with the vertex as v for each version
+   * @return the versions, by id
+   */
+  public Map<Long, RichVersion> retrieveFromRecords(List<Record> records) throws GroundException {
+    List<Long> ids = new ArrayList<>();
+    for (Record record : records) {
+      ids.add(record.get("v").asNode().get("id").asLong());
+    }
+
     List<String> returnFields = new ArrayList<>();
     returnFields.add("pkey");
     returnFields.add("value");
 
-    List<Record> parameterVertices = this.dbClient.getAdjacentVerticesByEdgeLabel("RichVersionExternalParameterConnection", id, returnFields);
-    Map<String, String> referenceParameters = new HashMap<>();
-
-    if (!parameterVertices.isEmpty()) {
-      for (Record parameter : parameterVertices) {
-        referenceParameters.put(Neo4jClient.getStringFromValue((StringValue) parameter.get("pkey")), Neo4jClient.getStringFromValue((StringValue) parameter.get("value")));
-      }
+    Map<Long, Map<String, String>> referenceParameters = new HashMap<>();
+    for (Record parameter : this.dbClient.getAdjacentVerticesByEdgeLabel("RichVersionExternalParameterConnection", ids, returnFields)) {
+      referenceParameters
+          .computeIfAbsent(parameter.get("from_id").asLong(), id -> new HashMap<>())
+          .put(Neo4jClient.getStringFromValue((StringValue) parameter.get("pkey")), Neo4jClient.getStringFromValue((StringValue) parameter.get("value")));
     }
 
-    Map<String, Tag> tags = tagFactory.retrieveFromDatabaseByVersionId(id);
+    Map<Long, Map<String, Tag>> tags = this.tagFactory.retrieveFromDatabaseByVersionIds(ids);
 
-    String reference;
-    if (record.get("v").asNode().get("reference") instanceof NullValue) {
-      reference = null;
-    } else {
-      reference = Neo4jClient.getStringFromValue((StringValue) record.get("v").asNode()
-          .get("reference"));
-    }
+    Map<Long, RichVersion> versions = new HashMap<>();
+    for (Record record : records) {
+      Node vertex = record.get("v").asNode();
+      long id = vertex.get("id").asLong();
+
+      String reference;
+      if (vertex.get("reference") instanceof NullValue) {
+        reference = null;
+      } else {
+        reference = Neo4jClient.getStringFromValue((StringValue) vertex.get("reference"));
+      }
+
+      long structureVersionId;
+      if (vertex.get("structure_id") instanceof NullValue) {
+        structureVersionId = -1;
+      } else {
+        structureVersionId = vertex.get("structure_id").asLong();
+      }
 
-    long structureVersionId;
-    if (record.get("v").asNode().get("structure_id") instanceof NullValue) {
-      structureVersionId = -1;
-    } else {
-      structureVersionId = record.get("v").asNode().get("structure_id").asLong();
+      versions.put(id, RichVersionFactory.construct(id, tags.get(id), structureVersionId, reference, referenceParameters.getOrDefault(id, new HashMap<>())));
     }
 
-    return RichVersionFactory.construct(id, tags, structureVersionId, reference, referenceParameters);
+    return versions;
   }
 }
@@ -17,15 +17,16 @@ package edu.berkeley.ground.api.models.neo4j;
 import edu.berkeley.ground.api.models.StructureVersion;
 import edu.berkeley.ground.api.models.StructureVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,38 +77,41 @@ public class Neo4jStructureVersionFactory extends StructureVersionFactory {
   }
 
   public StructureVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      long structureId;
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      try {
-        structureId = this.dbClient.getVertex(predicates).get("v").asNode().get("structure_id").asLong();
-      } catch (EmptyResultException e) {
-        throw new GroundDBException("No StructureVersion found with id " + id + ".");
-      }
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
       List<String> returnFields = new ArrayList<>();
-      returnFields.add("svid");
       returnFields.add("skey");
       returnFields.add("stype");
 
-      List<Record> edges = this.dbClient.getAdjacentVerticesByEdgeLabel("StructureVersionItemConnection", id, returnFields);
-      Map<String, GroundType> attributes = new HashMap<>();
+      Map<Long, Map<String, GroundType>> attributes = new HashMap<>();
+      for (Record record : this.dbClient.getAdjacentVerticesByEdgeLabel("StructureVersionItemConnection", ids, returnFields)) {
+        attributes
+            .computeIfAbsent(record.get("from_id").asLong(), id -> new HashMap<>())
+            .put(Neo4jClient.getStringFromValue((StringValue) record.get("skey")), GroundType.fromString(Neo4jClient.getStringFromValue((StringValue) record.get("stype"))));
+      }
 
+      Map<Long, StructureVersion> versions = new HashMap<>();
+      for (Record record : this.dbClient.getVertices("StructureVersion", ids)) {
+        Node vertex = record.get("v").asNode();
+        long id = vertex.get("id").asLong();
 
-      for (Record record : edges) {
-        attributes.put(Neo4jClient.getStringFromValue((StringValue) record.get("skey")), GroundType.fromString(Neo4jClient.getStringFromValue((StringValue) record.get("stype"))));
+        versions.put(id, StructureVersionFactory.construct(id, vertex.get("structure_id").asLong(), attributes.getOrDefault(id, new HashMap<>())));
       }
 
+      List<StructureVersion> result = VersionFactory.inOrderOf(ids, versions, "StructureVersion");
+
       this.dbClient.commit();
-      LOGGER.info("Retrieved structure version " + id + " in structure " + structureId + ".");
+      LOGGER.info("Retrieved " + result.size() + " structure versions.");
 
-      return StructureVersionFactory.construct(id, structureId, attributes);
-    } catch (GroundDBException ge) {
+      return result;
+    } catch (GroundException e) {
       this.dbClient.abort();
 
-      throw ge;
+      throw e;
     }
   }
 }
@@ -16,6 +16,7 @@ package edu.berkeley.ground.api.models.neo4j;
 
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.models.TagFactory;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
@@ -25,10 +26,14 @@ import edu.berkeley.ground.exceptions.GroundException;
 import org.neo4j.driver.internal.value.NullValue;
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
 public class Neo4jTagFactory extends TagFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(Neo4jTagFactory.class);
+
   private final Neo4jClient dbClient;
 
   public Neo4jTagFactory(Neo4jClient dbClient) {
@@ -54,42 +59,143 @@ public class Neo4jTagFactory extends TagFactory {
     Map<String, Tag> tags = new HashMap<>();
 
     for (Record record : tagsRecords) {
-      String key = Neo4jClient.getStringFromValue((StringValue) record.get("tkey"));
-
-      Object value;
-      if (record.containsKey("value") && !(record.get("value") instanceof NullValue)) {
-        value = Neo4jClient.getStringFromValue((StringValue) record.get("value"));
-      } else {
-        value = null;
-      }
-
-      GroundType type;
-      if (record.containsKey("type") && !(record.get("type") instanceof NullValue)) {
-        type = GroundType.fromString(Neo4jClient.getStringFromValue((StringValue) record.get("type")));
-        value = GroundType.stringToType((String) value, type);
-      } else {
-        type = null;
-      }
-
-      tags.put(key, new Tag(id, key, value, type));
+      Tag tag = toTag(id, record);
+      tags.put(tag.getKey(), tag);
     }
 
     return tags;
   }
 
+  /**
+   * Retrieve the tags of several RichVersions with one query.
+   *
+   * @param ids the ids of the versions
+   * @return the tags of each version, by id; versions without tags map to an empty map
+   */
+  public Map<Long, Map<String, Tag>> retrieveFromDatabaseByVersionIds(List<Long> ids)
+      throws GroundException {
+    List<String> returnFields = new ArrayList<>();
+    returnFields.add("tkey");
+    returnFields.add("value");
+    returnFields.add("type");
+
+    Map<Long, Map<String, Tag>> tags = new HashMap<>();
+    for (long id : ids) {
+      tags.put(id, new HashMap<>());
+    }
+
+    for (Record record : this.dbClient.getAdjacentVerticesByEdgeLabel("RichVersionTagConnection", ids, returnFields)) {
+      long id = record.get("from_id").asLong();
+      Tag tag = toTag(id, record);
+
+      tags.get(id).put(tag.getKey(), tag);
+    }
+
+    return tags;
+  }
+
+  private static Tag toTag(long id, Record record) throws GroundException {
+    String key = Neo4jClient.getStringFromValue((StringValue) record.get("tkey"));
+
+    Object value;
+    if (record.containsKey("value") && !(record.get("value") instanceof NullValue)) {
+      value = Neo4jClient.getStringFromValue((StringValue) record.get("value"));
+    } else {
+      value = null;
+    }
+
+    GroundType type;
+    if (record.containsKey("type") && !(record.get("type") instanceof NullValue)) {
+      type = GroundType.fromString(Neo4jClient.getStringFromValue((StringValue) record.get("type")));
+      value = GroundType.stringToType((String) value, type);
+    } else {
+      type = null;
+    }
+
+    return new Tag(id, key, value, type);
+  }
+
   public List<Long> getVersionIdsByTag(String tag) throws GroundDBException {
-    return this.getIdsByTag(tag, "rich_version_id");
+    return this.getIdsByTag(tag, "RichVersion", "rich_version_id");
   }
 
   public List<Long> getItemIdsByTag(String tag) throws GroundDBException {
-    return this.getIdsByTag(tag, "item_id");
+    return this.getIdsByTag(tag, "Item", "item_id");
   }
 
 
-  public List<Long> getIdsByTag(String tag, String idAttribute) throws GroundDBException {
+  public List<Long> getIdsByTag(String tag, String keyPrefix, String idAttribute) throws GroundDBException {
     List<DbDataContainer> predicates = new ArrayList<>();
     predicates.add(new DbDataContainer("tkey", GroundType.STRING, tag));
 
-    return this.dbClient.getVerticesByAttributes(predicates, idAttribute);
+    return this.dbClient.getVerticesByAttributes(keyPrefix + "Tag", predicates, idAttribute);
+  }
+
+  public List<Long> searchVersionIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "RichVersion", "rich_version_id", afterId, limit);
+  }
+
+  public List<Long> searchItemIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "Item", "item_id", afterId, limit);
+  }
+
+  private List<Long> search(TagQuery query, String keyPrefix, String idAttribute, long afterId,
+                            int limit) throws GroundException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("key", query.getKey());
+    parameters.put("after", afterId);
+    parameters.put("limit", limit);
+
+    // integer and long tags have their value as a number in nvalue (see Neo4jItemFactory)
+    String condition;
+    switch (query.getOperator()) {
+      case IN:
+        if (query.isNumeric()) {
+          condition = " AND t.nvalue IN $values";
+          parameters.put("values", query.getNumbers());
+        } else {
+          condition = " AND t.value IN $values AND t.type = $type";
+          parameters.put("values", query.getValues());
+          parameters.put("type", query.getType().toString());
+        }
+        break;
+      case PREFIX:
+        condition = " AND t.value STARTS WITH $prefix AND t.type = 'string'";
+        parameters.put("prefix", query.getPrefix());
+        break;
+      case RANGE:
+        condition = "";
+        if (query.getLower() != null) {
+          condition += " AND t.nvalue >= $lower";
+          parameters.put("lower", query.getLower());
+        }
+        if (query.getUpper() != null) {
+          condition += " AND t.nvalue <= $upper";
+          parameters.put("upper", query.getUpper());
+        }
+        break;
+      default:
+        condition = "";
+    }
+
+    String cypher = "MATCH (t:" + keyPrefix + "Tag) WHERE t.tkey = $key" + condition + " AND t."
+        + idAttribute + " > $after RETURN t." + idAttribute + " ORDER BY t." + idAttribute
+        + " LIMIT $limit";
+
+    try {
+      List<Long> result = this.dbClient.getIds(cypher, parameters);
+
+      this.dbClient.commit();
+      LOGGER.info("Found " + result.size() + " " + keyPrefix + " ids with tag " + query.getKey()
+          + ".");
+
+      return result;
+    } catch (GroundException e) {
+      this.dbClient.abort();
+
+      throw e;
+    }
   }
 }
@@ -0,0 +1,85 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.models.postgres;
+
+import edu.berkeley.ground.api.models.BulkIngestFactory;
+import edu.berkeley.ground.api.models.StructureValidatorCache;
+import edu.berkeley.ground.api.versions.postgres.PostgresVersionHistoryDAGFactory;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PostgresBulkIngestFactory extends BulkIngestFactory {
+  private final PostgresClient dbClient;
+  private final PostgresVersionHistoryDAGFactory versionHistoryDAGFactory;
+
+  public PostgresBulkIngestFactory(PostgresClient dbClient,
+                                   PostgresNodeFactory nodeFactory,
+                                   PostgresEdgeFactory edgeFactory,
+                                   StructureValidatorCache structureValidators,
+                                   PostgresVersionHistoryDAGFactory versionHistoryDAGFactory,
+                                   IdGenerator idGenerator) {
+    super(dbClient, nodeFactory, edgeFactory, structureValidators, versionHistoryDAGFactory, idGenerator);
+
+    this.dbClient = dbClient;
+    this.versionHistoryDAGFactory = versionHistoryDAGFactory;
+  }
+
+  protected void write(Map<String, List<List<DbDataContainer>>> rows) throws GroundException {
+    for (Map.Entry<String, List<List<DbDataContainer>>> entry : rows.entrySet()) {
+      this.dbClient.copy(entry.getKey(), entry.getValue());
+    }
+
+    List<long[]> edges = new ArrayList<>();
+    for (List<DbDataContainer> row : rows.getOrDefault("edge_version", Collections.emptyList())) {
+      long[] edge = new long[2];
+
+      for (DbDataContainer container : row) {
+        if (container.getField().equals("from_node_version_id")) {
+          edge[0] = (long) container.getValue();
+        } else if (container.getField().equals("to_node_version_id")) {
+          edge[1] = (long) container.getValue();
+        }
+      }
+
+      edges.add(edge);
+    }
+
+    this.dbClient.addReachability(edges);
+
+    // The copied successors bypass the DAG cache, so the affected items have to be reloaded.
+    Set<Long> itemIds = new HashSet<>();
+    for (List<DbDataContainer> row : rows.getOrDefault("version_history_dag",
+        Collections.emptyList())) {
+      for (DbDataContainer container : row) {
+        if (container.getField().equals("item_id")) {
+          itemIds.add((long) container.getValue());
+        }
+      }
+    }
+
+    for (long itemId : itemIds) {
+      this.versionHistoryDAGFactory.invalidate(itemId);
+    }
+  }
+}
@@ -16,7 +16,7 @@ package edu.berkeley.ground.api.models.postgres;
 
 import edu.berkeley.ground.api.models.*;
 import edu.berkeley.ground.api.versions.GroundType;
-import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
@@ -28,6 +28,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -70,6 +73,7 @@ public class PostgresEdgeVersionFactory extends EdgeVersionFactory {
       insertions.add(new DbDataContainer("to_node_version_id", GroundType.LONG, toId));
 
       this.dbClient.insert("edge_version", insertions);
+      this.dbClient.addReachability(Collections.singletonList(new long[]{fromId, toId}));
 
       this.edgeFactory.update(edgeId, id, parentIds);
 
@@ -84,26 +88,38 @@ public class PostgresEdgeVersionFactory extends EdgeVersionFactory {
   }
 
   public EdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+  @Override
+  public List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, EdgeVersion> versions = new HashMap<>();
 
-      QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("edge_version", DBClient.SELECT_STAR, predicates);
+        QueryResults resultSet = this.richVersionFactory.retrieveWithSubtype(ids, "edge_version",
+            Arrays.asList("s.edge_id", "s.from_node_version_id", "s.to_node_version_id"));
+
+        do {
+          RichVersion version = this.richVersionFactory.fromResults(resultSet);
+          long edgeId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN);
+          long fromId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN + 1);
+          long toId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN + 2);
+
+          versions.put(version.getId(), EdgeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), edgeId, fromId, toId));
+        } while (resultSet.next());
       } catch (EmptyResultException e) {
-        throw new GroundException("No EdgeVersion found with id " + id + ".");
+        // do nothing; inOrderOf reports the missing ids
       }
-      long edgeId = resultSet.getLong(2);
-      long fromId = resultSet.getLong(3);
-      long toId = resultSet.getLong(4);
+
+      List<EdgeVersion> result = VersionFactory.inOrderOf(ids, versions, "EdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved edge version " + id + " in edge " + edgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " edge versions.");
 
-      return EdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), edgeId, fromId, toId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
@@ -14,12 +14,14 @@
 
 package edu.berkeley.ground.api.models.postgres;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import edu.berkeley.ground.api.models.GraphVersion;
 import edu.berkeley.ground.api.models.GraphVersionFactory;
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
-import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
@@ -31,6 +33,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -93,40 +98,44 @@ public class PostgresGraphVersionFactory extends GraphVersionFactory {
   }
 
   public GraphVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      List<DbDataContainer> edgePredicate = new ArrayList<>();
-      edgePredicate.add(new DbDataContainer("graph_version_id", GroundType.LONG, id));
-
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("graph_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundException("No GraphVersion found with id " + id + ".");
-      }
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      long graphId = resultSet.getLong(2);
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, GraphVersion> versions = new HashMap<>();
 
-      QueryResults edgeSet;
-      List<Long> edgeVersionIds = new ArrayList<>();
       try {
-        edgeSet = this.dbClient.equalitySelect("graph_version_edge", DBClient.SELECT_STAR, edgePredicate);
+        // the edges are aggregated into the same row as the rest of the version
+        QueryResults resultSet = this.richVersionFactory.retrieveWithSubtype(ids, "graph_version",
+            Arrays.asList("s.graph_id", "(select json_agg(e.edge_version_id) "
+                + "from graph_version_edge e where e.graph_version_id = s.id)"));
 
         do {
-          edgeVersionIds.add(edgeSet.getLong(2));
-        } while (edgeSet.next());
+          RichVersion version = this.richVersionFactory.fromResults(resultSet);
+          long graphId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN);
+
+          List<Long> edgeVersionIds = new ArrayList<>();
+          for (JsonNode edgeVersionId : PostgresRichVersionFactory.readJson(
+              resultSet.getString(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN + 1))) {
+            edgeVersionIds.add(edgeVersionId.asLong());
+          }
+
+          versions.put(version.getId(), GraphVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), graphId, edgeVersionIds));
+        } while (resultSet.next());
       } catch (EmptyResultException e) {
-        // do nothing; this just means that there are no edges in the GraphVersion
+        // do nothing; inOrderOf reports the missing ids
       }
 
+      List<GraphVersion> result = VersionFactory.inOrderOf(ids, versions, "GraphVersion");
+
       this.dbClient.commit();
-      LOGGER.info("Retrieved graph version " + id + " in graph " + graphId + ".");
+      LOGGER.info("Retrieved " + result.size() + " graph versions.");
 
-      return GraphVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), graphId, edgeVersionIds);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
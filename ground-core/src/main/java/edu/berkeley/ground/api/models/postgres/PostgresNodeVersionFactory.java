@@ -16,7 +16,7 @@ package edu.berkeley.ground.api.models.postgres;
 
 import edu.berkeley.ground.api.models.*;
 import edu.berkeley.ground.api.versions.GroundType;
-import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
@@ -28,6 +28,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -83,25 +85,36 @@ public class PostgresNodeVersionFactory extends NodeVersionFactory {
   }
 
   public NodeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+  @Override
+  public List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, NodeVersion> versions = new HashMap<>();
 
-      QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("node_version", DBClient.SELECT_STAR, predicates);
+        QueryResults resultSet = this.richVersionFactory.retrieveWithSubtype(ids, "node_version",
+            Collections.singletonList("s.node_id"));
+
+        do {
+          RichVersion version = this.richVersionFactory.fromResults(resultSet);
+          long nodeId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN);
+
+          versions.put(version.getId(), NodeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), nodeId));
+        } while (resultSet.next());
       } catch (EmptyResultException e) {
-        throw new GroundException("No NodeVersion found with id " + id + ".");
+        // do nothing; inOrderOf reports the missing ids
       }
 
-      long nodeId = resultSet.getLong(2);
+      List<NodeVersion> result = VersionFactory.inOrderOf(ids, versions, "NodeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved node version " + id + " in node " + nodeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " node versions.");
 
-      return NodeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), nodeId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
@@ -122,4 +135,42 @@ public class PostgresNodeVersionFactory extends NodeVersionFactory {
     this.dbClient.commit();
     return result;
   }
+
+  public List<Long> getTransitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                         int limit) throws GroundException {
+    List<Long> result = this.dbClient.transitiveClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getAdjacentNodes(long nodeVersionId, String edgeNameLike, long afterId,
+                                     int limit) throws GroundException {
+    List<Long> result = this.dbClient.adjacentNodes(nodeVersionId, edgeNameLike, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamClosure(nodeVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacentNodes(long nodeVersionId, String edgeNameLike,
+                                             long afterId, int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamAdjacentNodes(nodeVersionId, edgeNameLike, afterId,
+        limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  @Override
+  public boolean pagesClosure(int maxDepth) {
+    return this.dbClient.pagesClosure(maxDepth);
+  }
 }
@@ -14,35 +14,43 @@
 
 package edu.berkeley.ground.api.models.postgres;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.berkeley.ground.api.models.RichVersion;
 import edu.berkeley.ground.api.models.RichVersionFactory;
-import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.api.versions.postgres.PostgresVersionFactory;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
 import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 
+import java.io.IOException;
 import java.util.*;
 
 public class PostgresRichVersionFactory extends RichVersionFactory {
+  // the index of the first subtype column in the results of retrieveWithSubtype
+  public static final int FIRST_SUBTYPE_COLUMN = 6;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   private final PostgresClient dbClient;
   private final PostgresVersionFactory versionFactory;
-  private final PostgresStructureVersionFactory structureVersionFactory;
+  private final StructureValidatorCache structureValidators;
   private final PostgresTagFactory tagFactory;
 
   public PostgresRichVersionFactory(PostgresClient dbClient,
                                     PostgresVersionFactory versionFactory,
-                                    PostgresStructureVersionFactory structureVersionFactory,
+                                    StructureValidatorCache structureValidators,
                                     PostgresTagFactory tagFactory) {
 
     this.dbClient = dbClient;
     this.versionFactory = versionFactory;
-    this.structureVersionFactory = structureVersionFactory;
+    this.structureValidators = structureValidators;
     this.tagFactory = tagFactory;
   }
 
@@ -54,8 +62,7 @@ public class PostgresRichVersionFactory extends RichVersionFactory {
     this.versionFactory.insertIntoDatabase(id);
 
     if (structureVersionId != -1) {
-      StructureVersion structureVersion = this.structureVersionFactory.retrieveFromDatabase(structureVersionId);
-      RichVersionFactory.checkStructureTags(structureVersion, tags);
+      this.structureValidators.get(structureVersionId).validate(tags);
     }
 
     List<DbDataContainer> insertions = new ArrayList<>();
@@ -95,36 +102,103 @@ public class PostgresRichVersionFactory extends RichVersionFactory {
   }
 
   public RichVersion retrieveFromDatabase(long id) throws GroundException {
-    List<DbDataContainer> predicates = new ArrayList<>();
-    predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
     QueryResults resultSet;
     try {
-      resultSet = this.dbClient.equalitySelect("rich_version", DBClient.SELECT_STAR, predicates);
+      resultSet = this.retrieveWithSubtype(Collections.singletonList(id), null,
+          Collections.emptyList());
     } catch (EmptyResultException e) {
       throw new GroundException("No RichVersion found with id " + id + ".");
     }
 
-    List<DbDataContainer> parameterPredicates = new ArrayList<>();
-    parameterPredicates.add(new DbDataContainer("rich_version_id", GroundType.LONG, id));
-    Map<String, String> referenceParameters = new HashMap<>();
+    return this.fromResults(resultSet);
+  }
 
-    try {
-      QueryResults parameterSet = this.dbClient.equalitySelect("rich_version_external_parameter", DBClient.SELECT_STAR, parameterPredicates);
+  /**
+   * Retrieve RichVersions, their tags, their external parameters and their rows in a subtype table
+   * with a single query. Tags and parameters are aggregated into JSON arrays, so the query returns
+   * one row per version however many of them there are.
+   *
+   * @param ids the ids of the versions
+   * @param subtypeTable the table to join to rich_version on id, or null for none
+   * @param subtypeColumns the subtype columns to return, as expressions over the alias s; they
+   *     start at FIRST_SUBTYPE_COLUMN
+   * @return the results, positioned on the first version's row; pass each row to fromResults
+   * @throws EmptyResultException if none of the versions exist with a row in subtypeTable
+   */
+  public QueryResults retrieveWithSubtype(List<Long> ids, String subtypeTable,
+                                          List<String> subtypeColumns)
+      throws GroundException, EmptyResultException {
+    StringBuilder query = new StringBuilder(
+        "select rv.id, rv.structure_version_id, rv.reference, t.tags, p.parameters");
+    for (String column : subtypeColumns) {
+      query.append(", ").append(column);
+    }
 
-      do {
-        referenceParameters.put(parameterSet.getString(2), parameterSet.getString(3));
-      } while (parameterSet.next());
-    } catch (EmptyResultException e) {
-      // do nothing; there are no referenceParameters
+    query.append(" from rich_version rv");
+    if (subtypeTable != null) {
+      query.append(" join ").append(subtypeTable).append(" s on s.id = rv.id");
     }
 
-    Map<String, Tag> tags = tagFactory.retrieveFromDatabaseByVersionId(id);
+    query.append(" left join lateral (select json_agg(json_build_array(key, value, type)) as tags "
+        + "from rich_version_tag where rich_version_id = rv.id) t on true"
+        + " left join lateral (select json_agg(json_build_array(key, value)) as parameters "
+        + "from rich_version_external_parameter where rich_version_id = rv.id) p on true"
+        + " where rv.id = any(?);");
 
-    String reference = resultSet.getString(3);
+    return this.dbClient.queryByIds(query.toString(), ids);
+  }
+
+  /**
+   * Build the RichVersion in the current row of results returned by retrieveWithSubtype.
+   *
+   * @param resultSet the results, positioned on the version's row
+   * @return the version
+   */
+  public RichVersion fromResults(QueryResults resultSet) throws GroundException {
+    long id = resultSet.getLong(1);
     long structureVersionId = resultSet.getLong(2);
     structureVersionId = structureVersionId == 0 ? -1 : structureVersionId;
+    String reference = resultSet.getString(3);
+
+    Map<String, Tag> tags = new HashMap<>();
+    for (JsonNode tag : readJson(resultSet.getString(4))) {
+      String key = tag.get(0).asText();
+
+      // these methods will return null if the input is null, so there's no need to check
+      GroundType type = GroundType.fromString(textOrNull(tag.get(2)));
+      Object value = GroundType.stringToType(textOrNull(tag.get(1)), type);
+
+      tags.put(key, new Tag(id, key, value, type));
+    }
+
+    Map<String, String> referenceParameters = new HashMap<>();
+    for (JsonNode parameter : readJson(resultSet.getString(5))) {
+      referenceParameters.put(parameter.get(0).asText(), parameter.get(1).asText());
+    }
 
     return RichVersionFactory.construct(id, tags, structureVersionId, reference, referenceParameters);
   }
+
+  /**
+   * Read a JSON array produced by json_agg, which is null rather than empty if nothing was
+   * aggregated.
+   *
+   * @param json the array, or null
+   * @return the elements of the array
+   */
+  public static JsonNode readJson(String json) throws GroundException {
+    if (json == null) {
+      return MAPPER.createArrayNode();
+    }
+
+    try {
+      return MAPPER.readTree(json);
+    } catch (IOException e) {
+      throw new GroundException("Unable to parse " + json + ": " + e.getMessage());
+    }
+  }
+
+  private static String textOrNull(JsonNode node) {
+    return node.isNull() ? null : node.asText();
+  }
 }
@@ -14,9 +14,12 @@
 
 package edu.berkeley.ground.api.models.postgres;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import edu.berkeley.ground.api.models.StructureVersion;
 import edu.berkeley.ground.api.models.StructureVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.api.versions.postgres.PostgresVersionFactory;
 import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
@@ -90,19 +93,18 @@ public class PostgresStructureVersionFactory extends StructureVersionFactory {
     List<DbDataContainer> attributePredicates = new ArrayList<>();
     attributePredicates.add(new DbDataContainer("structure_version_id", GroundType.LONG, id));
 
-    QueryResults attributesSet;
+    // a structure version may have no attributes, as the ones the Hive plugin creates do
+    Map<String, GroundType> attributes = new HashMap<>();
     try {
-      attributesSet = this.dbClient.equalitySelect("structure_version_attribute", DBClient.SELECT_STAR, attributePredicates);
+      QueryResults attributesSet = this.dbClient.equalitySelect("structure_version_attribute", DBClient.SELECT_STAR, attributePredicates);
+
+      do {
+        attributes.put(attributesSet.getString(2), GroundType.fromString(attributesSet.getString(3)));
+      } while (attributesSet.next());
     } catch (EmptyResultException e) {
-      throw new GroundException("No attributes found for StructureVersion with id " + id + ".");
+      // no attributes
     }
 
-    Map<String, GroundType> attributes = new HashMap<>();
-
-    do {
-      attributes.put(attributesSet.getString(2), GroundType.fromString(attributesSet.getString(3)));
-    } while (attributesSet.next());
-
     long structureId = resultSet.getLong(2);
 
     this.dbClient.commit();
@@ -110,4 +112,47 @@ public class PostgresStructureVersionFactory extends StructureVersionFactory {
 
     return StructureVersionFactory.construct(id, structureId, attributes);
   }
+
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    // the attributes are aggregated into the same row as the rest of the version; a version with
+    // no attributes gets an empty array
+    String query = "select sv.id, sv.structure_id, "
+        + "coalesce(json_agg(json_build_array(a.key, a.type)) filter (where a.key is not null), '[]') "
+        + "from structure_version sv "
+        + "left join structure_version_attribute a on a.structure_version_id = sv.id "
+        + "where sv.id = any(?) group by sv.id, sv.structure_id;";
+
+    try {
+      Map<Long, StructureVersion> versions = new HashMap<>();
+
+      try {
+        QueryResults resultSet = this.dbClient.queryByIds(query, ids);
+
+        do {
+          long id = resultSet.getLong(1);
+
+          Map<String, GroundType> attributes = new HashMap<>();
+          for (JsonNode attribute : PostgresRichVersionFactory.readJson(resultSet.getString(3))) {
+            attributes.put(attribute.get(0).asText(), GroundType.fromString(attribute.get(1).asText()));
+          }
+
+          versions.put(id, StructureVersionFactory.construct(id, resultSet.getLong(2), attributes));
+        } while (resultSet.next());
+      } catch (EmptyResultException e) {
+        // do nothing; inOrderOf reports the missing ids
+      }
+
+      List<StructureVersion> result = VersionFactory.inOrderOf(ids, versions, "StructureVersion");
+
+      this.dbClient.commit();
+      LOGGER.info("Retrieved " + result.size() + " structure versions.");
+
+      return result;
+    } catch (GroundException e) {
+      this.dbClient.abort();
+
+      throw e;
+    }
+  }
 }
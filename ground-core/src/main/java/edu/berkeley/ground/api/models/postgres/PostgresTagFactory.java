@@ -16,6 +16,7 @@ package edu.berkeley.ground.api.models.postgres;
 
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.models.TagFactory;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
@@ -24,9 +25,26 @@ import edu.berkeley.ground.db.QueryResults;
 import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class PostgresTagFactory extends TagFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PostgresTagFactory.class);
+
+  // the number of characters of a value that are indexed; longer values would not fit in a btree
+  // entry, so matches on the indexed prefix are rechecked against the whole value
+  private static final int INDEXED_LENGTH = 256;
+  private static final String INDEXED_VALUE = "left(value, " + INDEXED_LENGTH + ")";
+
+  // the value of an integer or long tag as a number; this must match the expression of the
+  // *_tag_key_number indexes in postgres.sql exactly, or they will not be used
+  private static final String NUMBER_VALUE =
+      "(case when type in ('integer', 'long') then value::bigint end)";
+  private static final String IS_NUMBER = "type in ('integer', 'long')";
+
   private final PostgresClient dbClient;
 
   public PostgresTagFactory(PostgresClient dbClient) {
@@ -97,4 +115,177 @@ public class PostgresTagFactory extends TagFactory {
 
     return result;
   }
+
+  public List<Long> searchVersionIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "rich_version", afterId, limit);
+  }
+
+  public List<Long> searchItemIds(TagQuery query, long afterId, int limit)
+      throws GroundException {
+    return this.search(query, "item", afterId, limit);
+  }
+
+  // Checks all of the ids with one query, by adding them to the query of a search.
+  @Override
+  public List<Long> filterVersionIds(TagQuery query, List<Long> ids) throws GroundException {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<DbDataContainer> parameters = new ArrayList<>();
+    String sql = PostgresTagFactory.select(query, "rich_version", parameters)
+        + " and rich_version_id = any(cast(? as bigint[])) order by rich_version_id";
+    parameters.add(new DbDataContainer("rich_version_id", GroundType.STRING,
+        ids.stream().map(Object::toString).collect(Collectors.joining(",", "{", "}"))));
+
+    return this.readIds(sql, parameters, query, "rich_version");
+  }
+
+  private List<Long> search(TagQuery query, String keyPrefix, long afterId, int limit)
+      throws GroundException {
+    String idColumn = keyPrefix + "_id";
+
+    List<DbDataContainer> parameters = new ArrayList<>();
+    String sql = PostgresTagFactory.select(query, keyPrefix, parameters)
+        + " and " + idColumn + " > cast(? as bigint) order by " + idColumn + " limit ?";
+    parameters.add(new DbDataContainer(idColumn, GroundType.STRING, Long.toString(afterId)));
+    parameters.add(new DbDataContainer("limit", GroundType.INTEGER, limit));
+
+    return this.readIds(sql, parameters, query, keyPrefix);
+  }
+
+  // The query for the ids with a tag that matches query, to which conditions on the id are added.
+  private static String select(TagQuery query, String keyPrefix,
+                               List<DbDataContainer> parameters) throws GroundException {
+    String idColumn = keyPrefix + "_id";
+
+    // numbers are bound as strings and cast, because a long container of -1 is bound as null
+    parameters.add(new DbDataContainer("key", GroundType.STRING, query.getKey()));
+
+    String sql = "select " + idColumn + " from " + keyPrefix + "_tag where key = ?";
+
+    switch (query.getOperator()) {
+      case EXISTS:
+        break;
+      case IN:
+        String placeholders = query.getValues().stream().map(value -> "?")
+            .collect(Collectors.joining(", "));
+
+        if (query.isNumeric()) {
+          sql += " and " + IS_NUMBER + " and " + NUMBER_VALUE + " in ("
+              + query.getValues().stream().map(value -> "cast(? as bigint)")
+                  .collect(Collectors.joining(", ")) + ")";
+
+          for (String value : query.getValues()) {
+            parameters.add(new DbDataContainer("value", GroundType.STRING, value));
+          }
+        } else {
+          sql += " and type = ? and " + INDEXED_VALUE + " in ("
+              + query.getValues().stream().map(value -> "left(?, " + INDEXED_LENGTH + ")")
+                  .collect(Collectors.joining(", "))
+              + ") and value in (" + placeholders + ")";
+
+          parameters.add(new DbDataContainer("type", GroundType.STRING,
+              query.getType().toString()));
+          for (int i = 0; i < 2; i++) {
+            for (String value : query.getValues()) {
+              parameters.add(new DbDataContainer("value", GroundType.STRING, value));
+            }
+          }
+        }
+
+        break;
+      case PREFIX:
+        String indexedPrefix = PostgresTagFactory.truncate(query.getPrefix());
+        String upperBound = PostgresTagFactory.successor(indexedPrefix);
+
+        sql += " and type = 'string' and " + INDEXED_VALUE + " ~>=~ ?";
+        parameters.add(new DbDataContainer("value", GroundType.STRING, indexedPrefix));
+
+        if (upperBound != null) {
+          sql += " and " + INDEXED_VALUE + " ~<~ ?";
+          parameters.add(new DbDataContainer("value", GroundType.STRING, upperBound));
+        }
+
+        sql += " and value like ? escape '\\'";
+        parameters.add(new DbDataContainer("value", GroundType.STRING,
+            query.getPrefix().replaceAll("([\\\\%_])", "\\\\$1") + "%"));
+        break;
+      case RANGE:
+        sql += " and " + IS_NUMBER;
+
+        if (query.getLower() != null) {
+          sql += " and " + NUMBER_VALUE + " >= cast(? as bigint)";
+          parameters.add(new DbDataContainer("value", GroundType.STRING,
+              query.getLower().toString()));
+        }
+        if (query.getUpper() != null) {
+          sql += " and " + NUMBER_VALUE + " <= cast(? as bigint)";
+          parameters.add(new DbDataContainer("value", GroundType.STRING,
+              query.getUpper().toString()));
+        }
+
+        break;
+    }
+
+    return sql;
+  }
+
+  private List<Long> readIds(String sql, List<DbDataContainer> parameters, TagQuery query,
+                             String keyPrefix) throws GroundException {
+    try {
+      List<Long> result = new ArrayList<>();
+
+      try {
+        QueryResults resultSet = this.dbClient.query(sql, parameters);
+
+        do {
+          result.add(resultSet.getLong(1));
+        } while (resultSet.next());
+      } catch (EmptyResultException e) {
+        // no tag matched
+      }
+
+      this.dbClient.commit();
+      LOGGER.info("Found " + result.size() + " " + keyPrefix + " ids with tag "
+          + query.getKey() + ".");
+
+      return result;
+    } catch (GroundException e) {
+      this.dbClient.abort();
+
+      throw e;
+    }
+  }
+
+  // the part of a prefix that is compared against the index
+  private static String truncate(String prefix) {
+    if (prefix.codePointCount(0, prefix.length()) <= INDEXED_LENGTH) {
+      return prefix;
+    }
+
+    return prefix.substring(0, prefix.offsetByCodePoints(0, INDEXED_LENGTH));
+  }
+
+  // the smallest string greater than every string starting with prefix, or null if there is none
+  private static String successor(String prefix) {
+    int end = prefix.length();
+
+    while (end > 0) {
+      int last = prefix.codePointBefore(end);
+      end -= Character.charCount(last);
+
+      if (last < Character.MAX_CODE_POINT) {
+        int next = last + 1;
+        if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+          next = Character.MAX_SURROGATE + 1;
+        }
+
+        return prefix.substring(0, end) + new String(Character.toChars(next));
+      }
+    }
+
+    return null;
+  }
 }
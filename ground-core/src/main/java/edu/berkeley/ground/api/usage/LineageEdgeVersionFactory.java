@@ -32,6 +32,32 @@ public abstract class LineageEdgeVersionFactory {
 
   public abstract LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  public abstract List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
+  /**
+   * Get a page of the rich versions that reach richVersionId through lineage edge versions, in
+   * ascending order of id.
+   *
+   * @param richVersionId the rich version to start from
+   * @param maxDepth the most lineage edges to follow back, or DBClient.UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getUpstreamClosure(long richVersionId, int maxDepth, long afterId,
+                                                int limit) throws GroundException;
+
+  /**
+   * Get a page of the rich versions that have a lineage edge version to richVersionId, where the
+   * name of the lineage edge contains lineageEdgeNameLike, in ascending order of id.
+   *
+   * @param richVersionId the rich version to start from
+   * @param lineageEdgeNameLike the text that the lineage edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public abstract List<Long> getUpstreamAdjacent(long richVersionId, String lineageEdgeNameLike,
+                                                 long afterId, int limit) throws GroundException;
+
   protected static LineageEdgeVersion construct(long id,
                                                 Map<String, Tag> tags,
                                                 long structureVersionId,
@@ -77,7 +77,7 @@ public class CassandraLineageEdgeFactory extends LineageEdgeFactory {
 
       QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("lineage_edge", DBClient.SELECT_STAR, predicates);
+        resultSet = this.dbClient.equalitySelect("lineage_edge_by_name", DBClient.SELECT_STAR, predicates);
       } catch (EmptyResultException e) {
         this.dbClient.abort();
 
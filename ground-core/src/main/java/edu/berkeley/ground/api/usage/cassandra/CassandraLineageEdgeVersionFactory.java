@@ -20,11 +20,10 @@ import edu.berkeley.ground.api.models.cassandra.CassandraRichVersionFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeVersion;
 import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.CassandraClient;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.QueryResults;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
@@ -32,6 +31,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -90,39 +91,59 @@ public class CassandraLineageEdgeVersionFactory extends LineageEdgeVersionFactor
   }
 
   public LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
-
-      QueryResults resultSet;
-      try {
-        resultSet = this.dbClient.equalitySelect("lineage_edge_version", DBClient.SELECT_STAR, predicates);
-      } catch (EmptyResultException e) {
-        this.dbClient.abort();
-
-        throw new GroundException("No LineageEdgeVersion found with id " + id + ".");
-      }
-
-      if (!resultSet.next()) {
-        this.dbClient.abort();
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-        throw new GroundException("No LineageEdgeVersion found with id " + id + ".");
+  @Override
+  public List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromDatabase(ids);
+      Map<Long, LineageEdgeVersion> versions = new HashMap<>();
+
+      for (QueryResults resultSet : this.dbClient.queryIn("select id, lineage_edge_id, "
+          + "from_rich_version_id, to_rich_version_id from lineage_edge_version where id in ?",
+          ids)) {
+        while (resultSet.next()) {
+          RichVersion version = richVersions.get(resultSet.getLong("id"));
+          if (version == null) {
+            continue;
+          }
+
+          versions.put(version.getId(), LineageEdgeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), resultSet.getLong("from_rich_version_id"),
+              resultSet.getLong("to_rich_version_id"), resultSet.getLong("lineage_edge_id")));
+        }
       }
 
-      long lineageEdgeId = resultSet.getLong("lineage_edge_id");
-      long fromId = resultSet.getLong("from_rich_version_id");
-      long toId = resultSet.getLong("to_rich_version_id");
+      List<LineageEdgeVersion> result = VersionFactory.inOrderOf(ids, versions,
+          "LineageEdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved lineage edge version " + id + " in lineage edge " + lineageEdgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " lineage edge versions.");
 
-      return LineageEdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), fromId, toId, lineageEdgeId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
     }
   }
+
+  public List<Long> getUpstreamClosure(long richVersionId, int maxDepth, long afterId,
+                                       int limit) {
+    List<Long> result = this.dbClient.upstreamLineage(richVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacent(long richVersionId, String lineageEdgeNameLike,
+                                        long afterId, int limit) {
+    List<Long> result = this.dbClient.upstreamAdjacentLineage(richVersionId, lineageEdgeNameLike,
+        afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.api.usage.feed;
+
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.usage.LineageEdgeVersion;
+import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an event to a ChangeFeed for every lineage edge version that another factory creates.
+ * Everything else goes straight to the delegate.
+ */
+public class ChangeFeedLineageEdgeVersionFactory extends LineageEdgeVersionFactory {
+  private final LineageEdgeVersionFactory delegate;
+  private final ChangeFeed changeFeed;
+
+  public ChangeFeedLineageEdgeVersionFactory(LineageEdgeVersionFactory delegate,
+                                             ChangeFeed changeFeed) {
+    this.delegate = delegate;
+    this.changeFeed = changeFeed;
+  }
+
+  public LineageEdgeVersion create(Map<String, Tag> tags,
+                                   long structureVersionId,
+                                   String reference,
+                                   Map<String, String> referenceParameters,
+                                   long fromId,
+                                   long toId,
+                                   long lineageEdgeId,
+                                   List<Long> parentIds) throws GroundException {
+    LineageEdgeVersion version = this.delegate.create(tags, structureVersionId,
+        reference, referenceParameters, fromId, toId, lineageEdgeId, parentIds);
+    this.changeFeed.publish("LineageEdgeVersion", version.getId(), version.getLineageEdgeId());
+
+    return version;
+  }
+
+  public LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException {
+    return this.delegate.retrieveFromDatabase(id);
+  }
+
+  @Override
+  public List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.delegate.retrieveFromDatabase(ids);
+  }
+
+  public List<Long> getUpstreamClosure(long richVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    return this.delegate.getUpstreamClosure(richVersionId, maxDepth, afterId, limit);
+  }
+
+  public List<Long> getUpstreamAdjacent(long richVersionId, String lineageEdgeNameLike,
+                                        long afterId, int limit) throws GroundException {
+    return this.delegate.getUpstreamAdjacent(richVersionId, lineageEdgeNameLike, afterId, limit);
+  }
+}
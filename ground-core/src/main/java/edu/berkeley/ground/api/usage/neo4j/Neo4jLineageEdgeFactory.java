@@ -78,7 +78,7 @@ public class Neo4jLineageEdgeFactory extends LineageEdgeFactory {
 
       Record record;
       try {
-        record = this.dbClient.getVertex(predicates);
+        record = this.dbClient.getVertex("LineageEdges", predicates);
       } catch (EmptyResultException e) {
         throw new GroundDBException("No LineageEdge found with name " + name + ".");
       }
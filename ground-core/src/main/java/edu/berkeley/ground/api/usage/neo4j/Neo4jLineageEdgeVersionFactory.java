@@ -20,19 +20,22 @@ import edu.berkeley.ground.api.models.neo4j.Neo4jRichVersionFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeVersion;
 import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.Neo4jClient;
-import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -93,31 +96,53 @@ public class Neo4jLineageEdgeVersionFactory extends LineageEdgeVersionFactory {
   }
 
   public LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
-
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      Record versionRecord;
-      try {
-        versionRecord = this.dbClient.getVertex(predicates);
-      } catch (EmptyResultException e) {
-        throw new GroundDBException("No LineageEdgeVersion found with id " + id + ".");
+  @Override
+  public List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      List<Record> records = this.dbClient.getVertices("LineageEdgeVersions", ids);
+      Map<Long, RichVersion> richVersions = this.richVersionFactory.retrieveFromRecords(records);
+
+      Map<Long, LineageEdgeVersion> versions = new HashMap<>();
+      for (Record record : records) {
+        Node vertex = record.get("v").asNode();
+        RichVersion version = richVersions.get(vertex.get("id").asLong());
+
+        versions.put(version.getId(), LineageEdgeVersionFactory.construct(version.getId(),
+            version.getTags(), version.getStructureVersionId(), version.getReference(),
+            version.getParameters(), vertex.get("endpoint_one").asLong(),
+            vertex.get("endpoint_two").asLong(), vertex.get("lineageedge_id").asLong()));
       }
 
-      long lineageEdgeId = versionRecord. get("v").asNode().get("lineageedge_id").asLong();
-      long fromId = versionRecord.get("v").asNode().get("endpoint_one").asLong();
-      long toId = versionRecord.get("v").asNode().get("endpoint_two").asLong();
+      List<LineageEdgeVersion> result = VersionFactory.inOrderOf(ids, versions, "LineageEdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved lineage edge version " + id + " in lineage edge " + lineageEdgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " lineage edge versions.");
 
-      return LineageEdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), fromId, toId, lineageEdgeId);
-    } catch (GroundDBException e) {
+      return result;
+    } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
     }
   }
+
+  public List<Long> getUpstreamClosure(long richVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamLineage(richVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacent(long richVersionId, String lineageEdgeNameLike,
+                                        long afterId, int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamAdjacentLineage(richVersionId, lineageEdgeNameLike,
+        afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
 }
@@ -20,7 +20,7 @@ import edu.berkeley.ground.api.models.postgres.PostgresRichVersionFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeVersion;
 import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
 import edu.berkeley.ground.api.versions.GroundType;
-import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.api.versions.VersionFactory;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
@@ -32,6 +32,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -90,31 +93,59 @@ public class PostgresLineageEdgeVersionFactory extends LineageEdgeVersionFactory
   }
 
   public LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    try {
-      RichVersion version = this.richVersionFactory.retrieveFromDatabase(id);
+    return this.retrieveFromDatabase(Collections.singletonList(id)).get(0);
+  }
 
-      List<DbDataContainer> predicates = new ArrayList<>();
-      predicates.add(new DbDataContainer("id", GroundType.LONG, id));
+  @Override
+  public List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    try {
+      Map<Long, LineageEdgeVersion> versions = new HashMap<>();
 
-      QueryResults resultSet;
       try {
-        resultSet = this.dbClient.equalitySelect("lineage_edge_version", DBClient.SELECT_STAR, predicates);
+        QueryResults resultSet = this.richVersionFactory.retrieveWithSubtype(ids, "lineage_edge_version",
+            Arrays.asList("s.lineage_edge_id", "s.from_rich_version_id", "s.to_rich_version_id"));
+
+        do {
+          RichVersion version = this.richVersionFactory.fromResults(resultSet);
+          long lineageEdgeId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN);
+          long fromId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN + 1);
+          long toId = resultSet.getLong(PostgresRichVersionFactory.FIRST_SUBTYPE_COLUMN + 2);
+
+          versions.put(version.getId(), LineageEdgeVersionFactory.construct(version.getId(),
+              version.getTags(), version.getStructureVersionId(), version.getReference(),
+              version.getParameters(), fromId, toId, lineageEdgeId));
+        } while (resultSet.next());
       } catch (EmptyResultException e) {
-        throw new GroundException("No LineageEdgeVersion found with id " + id + ".");
+        // do nothing; inOrderOf reports the missing ids
       }
 
-      long lineageEdgeId = resultSet.getLong(2);
-      long fromId = resultSet.getLong(3);
-      long toId = resultSet.getLong(4);
+      List<LineageEdgeVersion> result = VersionFactory.inOrderOf(ids, versions, "LineageEdgeVersion");
 
       this.dbClient.commit();
-      LOGGER.info("Retrieved lineage edge version " + id + " in lineage edge " + lineageEdgeId + ".");
+      LOGGER.info("Retrieved " + result.size() + " lineage edge versions.");
 
-      return LineageEdgeVersionFactory.construct(id, version.getTags(), version.getStructureVersionId(), version.getReference(), version.getParameters(), fromId, toId, lineageEdgeId);
+      return result;
     } catch (GroundException e) {
       this.dbClient.abort();
 
       throw e;
     }
   }
+
+  public List<Long> getUpstreamClosure(long richVersionId, int maxDepth, long afterId,
+                                       int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamLineage(richVersionId, maxDepth, afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
+
+  public List<Long> getUpstreamAdjacent(long richVersionId, String lineageEdgeNameLike,
+                                        long afterId, int limit) throws GroundException {
+    List<Long> result = this.dbClient.upstreamAdjacentLineage(richVersionId, lineageEdgeNameLike,
+        afterId, limit);
+
+    this.dbClient.commit();
+    return result;
+  }
 }
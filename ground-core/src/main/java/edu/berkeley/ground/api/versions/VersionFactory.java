@@ -16,6 +16,37 @@ package edu.berkeley.ground.api.versions;
 
 import edu.berkeley.ground.exceptions.GroundException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public abstract class VersionFactory {
   public abstract void insertIntoDatabase(long id) throws GroundException;
+
+  /**
+   * Put versions that were retrieved together into the order in which they were asked for.
+   *
+   * <p>Each backend's retrieveFromDatabase(List) reads all of the versions it is given with a
+   * fixed number of queries, whatever their number, and returns them through this.
+   *
+   * @param ids the requested ids
+   * @param versions the retrieved versions, by id
+   * @param typeName the name of the type of version, for the error message
+   * @return the versions, in the order of ids
+   * @throws GroundException if any of the ids was not found
+   */
+  public static <T extends Version> List<T> inOrderOf(List<Long> ids, Map<Long, T> versions,
+                                                      String typeName) throws GroundException {
+    List<T> result = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      T version = versions.get(id);
+      if (version == null) {
+        throw new GroundException("No " + typeName + " found with id " + id + ".");
+      }
+
+      result.add(version);
+    }
+
+    return result;
+  }
 }
@@ -14,36 +14,58 @@
 
 package edu.berkeley.ground.api.versions;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.primitives.Longs;
 
-import edu.berkeley.ground.exceptions.GroundDBException;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
+/**
+ * The version history of an Item. Leaves are kept up to date as edges are added, so that finding
+ * the latest versions does not depend on the size of the history.
+ *
+ * <p>A DAG is not safe for concurrent modification.
+ */
 public class VersionHistoryDAG<T extends Version> {
   // the id of the Version that's at the rootId of this DAG
   private long itemId;
 
   // list of VersionSuccessors that make up this DAG
-  private List<Long> edgeIds;
+  private LongArrayList edgeIds;
 
   // map of parents to children
-  private Map<Long, List<Long>> parentChildMap;
+  private LongObjectHashMap<LongArrayList> parentChildMap;
+
+  // every id that is a child but not a parent
+  private LongHashSet leaves;
 
   protected VersionHistoryDAG(long itemId, List<VersionSuccessor<T>> edges) {
     this.itemId = itemId;
-    this.edgeIds = new ArrayList<>();
-    this.parentChildMap = new HashMap<>();
+    this.edgeIds = new LongArrayList(edges.size());
+    this.parentChildMap = new LongObjectHashMap<>();
+    this.leaves = new LongHashSet();
 
     for (VersionSuccessor<T> edge : edges) {
-      edgeIds.add(edge.getId());
+      this.addEdge(edge.getFromId(), edge.getToId(), edge.getId());
+    }
+  }
 
-      this.addToParentChildMap(edge.getFromId(), edge.getToId());
+  /**
+   * Create a copy of other that can be modified independently of it.
+   *
+   * @param other the DAG to copy
+   */
+  protected VersionHistoryDAG(VersionHistoryDAG<T> other) {
+    this.itemId = other.itemId;
+    this.edgeIds = other.edgeIds.clone();
+    this.parentChildMap = new LongObjectHashMap<>(other.parentChildMap.size());
+    this.leaves = other.leaves.clone();
+
+    for (LongObjectCursor<LongArrayList> cursor : other.parentChildMap) {
+      this.parentChildMap.put(cursor.key, cursor.value.clone());
     }
   }
 
@@ -54,7 +76,7 @@ public class VersionHistoryDAG<T extends Version> {
 
   @JsonProperty
   public List<Long> getEdgeIds() {
-    return this.edgeIds;
+    return Longs.asList(this.edgeIds.toArray());
   }
 
   /**
@@ -64,7 +86,7 @@ public class VersionHistoryDAG<T extends Version> {
    * @return true if id is in the DAG, false otherwise
    */
   public boolean checkItemInDag(long id) {
-    return this.parentChildMap.keySet().contains(id) || this.getLeaves().contains(id);
+    return this.parentChildMap.containsKey(id) || this.leaves.contains(id);
   }
 
   /**
@@ -76,6 +98,11 @@ public class VersionHistoryDAG<T extends Version> {
   public void addEdge(long parentId, long childId, long successorId) {
     edgeIds.add(successorId);
     this.addToParentChildMap(parentId, childId);
+
+    this.leaves.remove(parentId);
+    if (!this.parentChildMap.containsKey(childId)) {
+      this.leaves.add(childId);
+    }
   }
 
   /**
@@ -85,27 +112,23 @@ public class VersionHistoryDAG<T extends Version> {
    * @return the list of the IDs of the leaves of this DAG
    */
   public List<Long> getLeaves() {
-    List<Long> leaves = new ArrayList<>();
-    for (List<Long> values : parentChildMap.values()) {
-      leaves.addAll(values);
-    }
-
-    leaves.removeAll(this.parentChildMap.keySet());
-
-    Set<Long> leafSet = new HashSet<>(leaves);
-    List<Long> result = new ArrayList<>();
-    result.addAll(leafSet);
+    return Longs.asList(this.leaves.toArray());
+  }
 
-    return result;
+  /**
+   * Returns the number of edges in this DAG.
+   */
+  public int size() {
+    return this.edgeIds.size();
   }
 
   private void addToParentChildMap(long parent, long child) {
-    List<Long> childList = this.parentChildMap.get(parent);
+    LongArrayList childList = this.parentChildMap.get(parent);
     if (childList == null) {
-      childList = new ArrayList<>();
+      childList = new LongArrayList();
+      this.parentChildMap.put(parent, childList);
     }
 
     childList.add(child);
-    this.parentChildMap.put(parent, childList);
   }
 }
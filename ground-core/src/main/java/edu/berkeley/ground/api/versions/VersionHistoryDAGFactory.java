@@ -41,4 +41,8 @@ public abstract class VersionHistoryDAGFactory {
   protected static <T extends Version> VersionHistoryDAG<T> construct(long itemId, List<VersionSuccessor<T>> edges) {
     return new VersionHistoryDAG<>(itemId, edges);
   }
+
+  protected static <T extends Version> VersionHistoryDAG<T> copy(VersionHistoryDAG<T> dag) {
+    return new VersionHistoryDAG<>(dag);
+  }
 }
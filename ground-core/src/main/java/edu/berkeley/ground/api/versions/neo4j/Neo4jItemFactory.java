@@ -53,6 +53,11 @@ public class Neo4jItemFactory extends ItemFactory {
       if (tag.getValue() != null) {
         tagInsertion.add(new DbDataContainer("value", GroundType.STRING, tag.getValue().toString()));
         tagInsertion.add(new DbDataContainer("type", GroundType.STRING, tag.getValueType().toString()));
+
+        // numeric values are also stored as numbers, for range queries
+        if (tag.getValueType() == GroundType.INTEGER || tag.getValueType() == GroundType.LONG) {
+          tagInsertion.add(new DbDataContainer("nvalue", GroundType.LONG, Long.parseLong(tag.getValue().toString())));
+        }
       } else {
         tagInsertion.add(new DbDataContainer("value", GroundType.STRING, null));
         tagInsertion.add(new DbDataContainer("type", GroundType.STRING, null));
@@ -14,8 +14,10 @@
 
 package edu.berkeley.ground.api.versions.postgres;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import edu.berkeley.ground.api.versions.*;
-import edu.berkeley.ground.db.DBClient;
 import edu.berkeley.ground.db.DbDataContainer;
 import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.db.QueryResults;
@@ -24,50 +26,151 @@ import edu.berkeley.ground.exceptions.GroundException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class PostgresVersionHistoryDAGFactory extends VersionHistoryDAGFactory {
+  private static final long DEFAULT_CACHE_EDGES = 1000000;
+  private static final int GENERATION_STRIPES = 1024;
+
   private final PostgresClient dbClient;
   private final PostgresVersionSuccessorFactory versionSuccessorFactory;
 
+  // Committed DAGs by item id, bounded by their total number of edges. Cached DAGs are never
+  // modified; callers get a copy, which is published back once their transaction commits.
+  private final Cache<Long, VersionHistoryDAG<?>> cache;
+
+  // Bumped whenever a DAG changes, so that a transaction that read a DAG before another one
+  // changed it cannot publish its stale copy. Items share stripes, which only costs the odd
+  // unnecessary reload. Generations only change, and the cache is only written, under the lock of
+  // the item's stripe.
+  private final AtomicLongArray generations;
+  private final Object[] locks;
+
   public PostgresVersionHistoryDAGFactory(PostgresClient dbClient,
                                           PostgresVersionSuccessorFactory versionSuccessorFactory) {
+    this(dbClient, versionSuccessorFactory, DEFAULT_CACHE_EDGES);
+  }
+
+  /**
+   * Create a factory that caches up to cacheEdges edges worth of DAGs.
+   *
+   * @param cacheEdges the maximum total number of edges in cached DAGs
+   */
+  public PostgresVersionHistoryDAGFactory(PostgresClient dbClient,
+                                          PostgresVersionSuccessorFactory versionSuccessorFactory,
+                                          long cacheEdges) {
     this.dbClient = dbClient;
     this.versionSuccessorFactory = versionSuccessorFactory;
+
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(cacheEdges)
+        .weigher((Long itemId, VersionHistoryDAG<?> dag) -> dag.size() + 1)
+        .build();
+    this.generations = new AtomicLongArray(GENERATION_STRIPES);
+    this.locks = new Object[GENERATION_STRIPES];
+    for (int i = 0; i < GENERATION_STRIPES; i++) {
+      this.locks[i] = new Object();
+    }
   }
 
   public <T extends Version> VersionHistoryDAG<T> create(long itemId) throws GroundException {
-    return construct(itemId);
+    return this.track(itemId, this.generations.get(stripe(itemId)), construct(itemId));
   }
 
+  @SuppressWarnings("unchecked")
   public <T extends Version> VersionHistoryDAG<T> retrieveFromDatabase(long itemId) throws GroundException {
-    List<DbDataContainer> predicates = new ArrayList<>();
-    predicates.add(new DbDataContainer("item_id", GroundType.LONG, itemId));
+    long generation = this.generations.get(stripe(itemId));
+
+    VersionHistoryDAG<T> cached = (VersionHistoryDAG<T>) this.cache.getIfPresent(itemId);
+    return this.track(itemId, generation, cached == null ? this.load(itemId) : copy(cached));
+  }
+
+  public void addEdge(VersionHistoryDAG dag, long parentId, long childId, long itemId) throws GroundException {
+    VersionSuccessor successor = this.versionSuccessorFactory.create(parentId, childId);
+
+    List<DbDataContainer> insertions = new ArrayList<>();
+    insertions.add(new DbDataContainer("item_id", GroundType.LONG, itemId));
+    insertions.add(new DbDataContainer("version_successor_id", GroundType.LONG, successor.getId()));
+
+    this.dbClient.insert("version_history_dag", insertions);
+
+    dag.addEdge(parentId, childId, successor.getId());
+  }
+
+  /**
+   * Drop the cached DAG of itemId once the current transaction commits. This is for writers that
+   * add to version_history_dag without going through addEdge.
+   *
+   * @param itemId the item whose DAG is changing
+   */
+  public void invalidate(long itemId) throws GroundException {
+    this.dbClient.afterCommit(() -> {
+      int stripe = stripe(itemId);
+
+      synchronized (this.locks[stripe]) {
+        this.generations.incrementAndGet(stripe);
+        this.cache.invalidate(itemId);
+      }
+    });
+  }
+
+  // Publishes dag, including any edges this transaction adds to it, once the transaction commits.
+  private <T extends Version> VersionHistoryDAG<T> track(long itemId, long generation,
+                                                        VersionHistoryDAG<T> dag)
+      throws GroundException {
+    int sizeWhenRead = dag.size();
+
+    this.dbClient.afterCommit(() -> this.publish(itemId, generation, sizeWhenRead, dag));
+    return dag;
+  }
+
+  // Loads the DAG with a single join rather than one query per successor.
+  private <T extends Version> VersionHistoryDAG<T> load(long itemId) throws GroundException {
+    List<DbDataContainer> parameters = new ArrayList<>();
+    parameters.add(new DbDataContainer("item_id", GroundType.LONG, itemId));
+
+    VersionHistoryDAG<T> dag = construct(itemId);
 
     QueryResults resultSet;
     try {
-      resultSet = this.dbClient.equalitySelect("version_history_dag", DBClient.SELECT_STAR, predicates);
+      resultSet = this.dbClient.query("select vs.id, vs.from_version_id, vs.to_version_id "
+          + "from version_history_dag vhd "
+          + "join version_successor vs on vs.id = vhd.version_successor_id "
+          + "where vhd.item_id = ? order by vs.id;", parameters);
     } catch (EmptyResultException e) {
-      // do nothing' this just means that no versions have been added yet.
-      return VersionHistoryDAGFactory.construct(itemId, new ArrayList<VersionSuccessor<T>>());
+      // do nothing; this just means that no versions have been added yet.
+      return dag;
     }
 
-    List<VersionSuccessor<T>> edges = new ArrayList<>();
     do {
-      edges.add(this.versionSuccessorFactory.retrieveFromDatabase(resultSet.getLong(2)));
+      dag.addEdge(resultSet.getLong(2), resultSet.getLong(3), resultSet.getLong(1));
     } while (resultSet.next());
 
-    return VersionHistoryDAGFactory.construct(itemId, edges);
+    return dag;
   }
 
-  public void addEdge(VersionHistoryDAG dag, long parentId, long childId, long itemId) throws GroundException {
-    VersionSuccessor successor = this.versionSuccessorFactory.create(parentId, childId);
+  // Called after the transaction that read (and possibly extended) dag has committed.
+  private void publish(long itemId, long generation, int sizeWhenRead, VersionHistoryDAG<?> dag) {
+    int stripe = stripe(itemId);
+    boolean changed = dag.size() != sizeWhenRead;
 
-    List<DbDataContainer> insertions = new ArrayList<>();
-    insertions.add(new DbDataContainer("item_id", GroundType.LONG, itemId));
-    insertions.add(new DbDataContainer("version_successor_id", GroundType.LONG, successor.getId()));
+    synchronized (this.locks[stripe]) {
+      boolean stale = this.generations.get(stripe) != generation;
+      if (changed) {
+        this.generations.incrementAndGet(stripe);
+      }
 
-    this.dbClient.insert("version_history_dag", insertions);
+      if (!stale) {
+        this.cache.put(itemId, dag);
+      } else if (changed) {
+        // Another transaction changed the DAG after this one read it, so neither its copy nor
+        // this one has all of the edges. Without changes, whatever it published is newer.
+        this.cache.invalidate(itemId);
+      }
+    }
+  }
 
-    dag.addEdge(parentId, childId, successor.getId());
+  private static int stripe(long itemId) {
+    return (int) ((itemId ^ (itemId >>> 32)) & (GENERATION_STRIPES - 1));
   }
 }
@@ -11,60 +11,503 @@
  */
 package edu.berkeley.ground.db;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
 import com.datastax.driver.core.*;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.EmptyResultException;
+import edu.berkeley.ground.exceptions.GroundDBException;
+import edu.berkeley.ground.util.CompactGraph;
+import edu.berkeley.ground.util.GraphSnapshot;
 import edu.berkeley.ground.util.JGraphTUtils;
-import org.jgrapht.DirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class CassandraClient extends DBClient {
   private static final Logger LOGGER = LoggerFactory.getLogger(CassandraClient.class);
+  private static final int UNLOGGED_BATCH_SIZE = 100;
+
+  // The most statements sent in one logged batch. Large logged batches load the coordinator and
+  // its batchlog replicas, and past batch_size_fail_threshold_in_kb Cassandra rejects them.
+  private static final int LOGGED_BATCH_SIZE = 100;
+  private static final int SCAN_FETCH_SIZE = 5000;
+
+  // the most partitions one "in ?" query asks its coordinator for
+  private static final int MAX_IN_KEYS = 100;
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+
+  // the buckets each key of the tag search tables is spread over (see cassandra.cql)
+  public static final int TAG_BUCKETS = 16;
+
+  // edge_version_log is bucketed by hour, and rows expire after 30 days (see cassandra.cql)
+  private static final long LOG_BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long LOG_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  // how far before a snapshot's high-water mark to start replaying, to cover clock skew between
+  // servers and edges that were in flight while the snapshot was taken
+  private static final long LOG_REPLAY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  // Tables that hold a copy of another table's rows under a different primary key, so that reads
+  // by that key touch a single partition (see cassandra.cql). They are written in the same batch
+  // as the rows they copy.
+  private static final Map<String, List<String>> QUERY_TABLES = new HashMap<>();
+
+  static {
+    QUERY_TABLES.put("node", Collections.singletonList("node_by_name"));
+    QUERY_TABLES.put("edge", Collections.singletonList("edge_by_name"));
+    QUERY_TABLES.put("graph", Collections.singletonList("graph_by_name"));
+    QUERY_TABLES.put("structure", Collections.singletonList("structure_by_name"));
+    QUERY_TABLES.put("lineage_edge", Collections.singletonList("lineage_edge_by_name"));
+    QUERY_TABLES.put("edge_version",
+        Arrays.asList("edge_version_by_source", "edge_version_by_destination"));
+    QUERY_TABLES.put("lineage_edge_version",
+        Collections.singletonList("lineage_edge_version_by_destination"));
+  }
+
+  // the table holding the ids of each IdGenerator counter
+  private static final Map<String, String> COUNTER_TABLES = new HashMap<>();
+
+  static {
+    COUNTER_TABLES.put("version", "version");
+    COUNTER_TABLES.put("successor", "version_successor");
+    COUNTER_TABLES.put("item", "item");
+  }
 
   private final Cluster cluster;
   private final Session session;
   private final Map<String, PreparedStatement> preparedStatements;
-  private final DirectedGraph<Long, DefaultEdge> graph;
+  private final CompactGraph graph;
+  private final Path graphSnapshotPath;
+
+  // The writes queued by the calling thread, sent when the thread commits.
+  private final ThreadLocal<PendingBatch> pendingBatch;
+
+  // Whether queued writes are sent as concurrent requests rather than one logged batch.
+  private final boolean asyncWrites;
+
+  // Bounds the requests that this client has outstanding when it writes concurrently.
+  private final Semaphore inFlightRequests;
 
   public CassandraClient(String host, int port, String keyspace, String username, String password) {
+    this(host, port, keyspace, username, password, null);
+  }
+
+  public CassandraClient(String host, int port, String keyspace, String username, String password,
+                         String graphSnapshotPath) {
+    this(host, port, keyspace, username, password, graphSnapshotPath, false,
+        DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+  }
+
+  /**
+   * Create a client that checkpoints its in-memory graph to a local snapshot file. At startup,
+   * the graph is read from the snapshot and only edges written since are read from Cassandra.
+   *
+   * <p>By default, the writes of a transaction are sent as logged batches of at most
+   * LOGGED_BATCH_SIZE statements, one after another. Each row is written in the same batch as its
+   * copies in the query tables, so they are applied together, but a transaction that needs more
+   * than one batch may be left partly written if a later batch fails. With asyncWrites, the writes
+   * are sent as concurrent requests, each to a replica of its own partition. This is faster, but a
+   * failed commit may leave any of its rows written.
+   *
+   * @param graphSnapshotPath the snapshot file, or null to always load the graph from Cassandra
+   * @param asyncWrites whether to send the writes of a transaction concurrently
+   * @param maxInFlightRequests the most concurrent writes this client sends at once, across
+   *                            threads; bulk loads are bounded by this too
+   */
+  public CassandraClient(String host, int port, String keyspace, String username, String password,
+                         String graphSnapshotPath, boolean asyncWrites, int maxInFlightRequests) {
     this.cluster =
         Cluster.builder()
             .addContactPoint(host)
             .withAuthProvider(new PlainTextAuthProvider(username, password))
+            // send each statement straight to a replica of its partition
+            .withLoadBalancingPolicy(new TokenAwarePolicy(DCAwareRoundRobinPolicy.builder().build()))
             .build();
 
     this.session = this.cluster.connect(keyspace);
-    this.preparedStatements = new HashMap<>();
+    this.preparedStatements = new ConcurrentHashMap<>();
+    this.pendingBatch = ThreadLocal.withInitial(PendingBatch::new);
+    this.asyncWrites = asyncWrites;
+    this.inFlightRequests = new Semaphore(maxInFlightRequests);
+    this.graphSnapshotPath = graphSnapshotPath == null ? null : Paths.get(graphSnapshotPath);
+
+    // at startup, load all edges into memory for later in-memory processing
+    CompactGraph snapshotGraph = this.loadSnapshot();
+    if (snapshotGraph != null) {
+      this.graph = snapshotGraph;
+    } else {
+      this.graph = this.loadGraph();
+    }
+  }
+
+  /**
+   * Checkpoint the in-memory graph to the snapshot file, if there is one.
+   */
+  public synchronized void snapshot() throws IOException {
+    if (this.graphSnapshotPath == null) {
+      return;
+    }
+
+    // Every edge that was committed before this point is already in the graph.
+    long highWaterMark = System.currentTimeMillis();
+    GraphSnapshot.write(this.graph, highWaterMark, this.graphSnapshotPath);
+
+    LOGGER.info("Wrote graph snapshot to " + this.graphSnapshotPath + ".");
+  }
 
-    // at startup, load all nodes & edges into JGraphT for later in-memory processing
-    ResultSet resultSet = this.session.execute("select id from node_version;");
-    this.graph = JGraphTUtils.createGraph();
+  // Returns the graph from the snapshot, brought up to date from edge_version_log, or null if
+  // there is no usable snapshot.
+  private CompactGraph loadSnapshot() {
+    if (this.graphSnapshotPath == null || !Files.exists(this.graphSnapshotPath)) {
+      return null;
+    }
+
+    GraphSnapshot snapshot;
+    try {
+      snapshot = GraphSnapshot.read(this.graphSnapshotPath);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to read graph snapshot: " + e.getMessage());
+      return null;
+    }
+
+    long now = System.currentTimeMillis();
+    long replayFrom = snapshot.getHighWaterMark() - LOG_REPLAY_MARGIN_MILLIS;
+    if (replayFrom < now - LOG_RETENTION_MILLIS) {
+      LOGGER.warn("Graph snapshot is older than edge_version_log; ignoring it.");
+      return null;
+    }
 
-    for (Row r : resultSet.all()) {
-      JGraphTUtils.addVertex(graph, r.getLong(0));
+    CompactGraph graph = snapshot.getGraph();
+    BoundStatement statement = this.prepareStatement(
+        "select from_node_version_id, to_node_version_id from edge_version_log "
+            + "where bucket = ? and written_at >= ?;");
+    statement.setFetchSize(SCAN_FETCH_SIZE);
+
+    // Edges that were logged just before the high-water mark may be in the graph already; adding
+    // them again only creates a parallel edge, which does not change any closure.
+    long replayed = 0;
+    long lastBucket = now / LOG_BUCKET_MILLIS;
+    for (long bucket = replayFrom / LOG_BUCKET_MILLIS; bucket <= lastBucket; bucket++) {
+      statement.setLong(0, bucket);
+      statement.setLong(1, replayFrom);
+
+      for (Row r : this.session.execute(statement)) {
+        JGraphTUtils.addEdge(graph, r.getLong(0), r.getLong(1));
+        replayed++;
+      }
     }
 
-    resultSet =
-        this.session.execute("select from_node_version_id, to_node_version_id from edge_version;");
+    graph.compact();
+    LOGGER.info("Loaded graph snapshot and replayed " + replayed + " edges.");
+
+    return graph;
+  }
 
-    for (Row r : resultSet.all()) {
+  // Reads every edge version, a page at a time, and checkpoints the result.
+  private CompactGraph loadGraph() {
+    long highWaterMark = System.currentTimeMillis();
+    CompactGraph graph = JGraphTUtils.createCompactGraph();
+
+    // Node versions are not loaded: edges add their endpoints, and the closure of a version
+    // without edges is the version itself whether or not it is in the graph.
+    Statement statement = new SimpleStatement(
+        "select from_node_version_id, to_node_version_id from edge_version;")
+        .setFetchSize(SCAN_FETCH_SIZE);
+
+    for (Row r : this.session.execute(statement)) {
       JGraphTUtils.addEdge(graph, r.getLong(0), r.getLong(1));
     }
+
+    graph.compact();
+
+    if (this.graphSnapshotPath != null) {
+      try {
+        GraphSnapshot.write(graph, highWaterMark, this.graphSnapshotPath);
+      } catch (IOException e) {
+        LOGGER.warn("Unable to write graph snapshot: " + e.getMessage());
+      }
+    }
+
+    return graph;
   }
 
   /**
-   * Insert a new row into table with insertValues.
+   * Queue a new row for insertion into table. Queued rows are sent as one batch when the
+   * transaction commits, or earlier if the same thread runs a query.
    *
    * @param table the table to update
    * @param insertValues the values to put into table
    */
   public void insert(String table, List<DbDataContainer> insertValues) {
-    // hack to keep JGraphT up to date
+    PendingBatch batch = this.pendingBatch.get();
+
+    this.trackGraphChanges(table, insertValues, batch.vertices, batch.edges);
+
+    List<Statement> row = new ArrayList<>();
+    row.add(this.bindInsert(table, insertValues));
+    row.addAll(this.bindQueryTableInserts(table, insertValues));
+
+    if (table.equals("edge_version")) {
+      row.add(this.bindEdgeLogInsert(insertValues));
+    }
+
+    batch.rows.add(row);
+    batch.size += row.size();
+  }
+
+  /**
+   * Write rows into table immediately, using unlogged batches. Unlike insert, the rows are not
+   * part of the calling thread's transaction. The batches are sent concurrently.
+   *
+   * @param table the table to load
+   * @param rows the rows to load
+   */
+  public void insertUnlogged(String table, List<List<DbDataContainer>> rows) {
+    List<Long> vertices = new ArrayList<>();
+    List<long[]> edges = new ArrayList<>();
+    List<Statement> batches = new ArrayList<>();
+    BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+
+    for (List<DbDataContainer> row : rows) {
+      this.trackGraphChanges(table, row, vertices, edges);
+      batch.add(this.bindInsert(table, row));
+      batch.addAll(this.bindQueryTableInserts(table, row));
+
+      if (table.equals("edge_version")) {
+        batch.add(this.bindEdgeLogInsert(row));
+      }
+
+      if (batch.size() >= UNLOGGED_BATCH_SIZE) {
+        batches.add(batch);
+        batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+      }
+    }
+
+    if (batch.size() > 0) {
+      batches.add(batch);
+    }
+
+    this.executeConcurrently(batches);
+
+    LOGGER.info("Loaded " + rows.size() + " rows into " + table + ".");
+    this.updateGraph(vertices, edges);
+  }
+
+  /**
+   * Send all rows queued by the calling thread to Cassandra.
+   */
+  public void flush() {
+    PendingBatch batch = this.pendingBatch.get();
+    if (batch.size == 0) {
+      return;
+    }
+
+    this.pendingBatch.remove();
+
+    if (this.asyncWrites) {
+      LOGGER.info("Executing " + batch.size + " concurrent updates.");
+      this.executeConcurrently(batch.rows
+          .stream()
+          .flatMap(List::stream)
+          .collect(Collectors.toList()));
+    } else {
+      LOGGER.info("Executing " + batch.size + " updates in logged batches.");
+
+      for (BatchStatement logged : loggedBatches(batch.rows)) {
+        this.session.execute(logged);
+      }
+    }
+
+    this.updateGraph(batch.vertices, batch.edges);
+  }
+
+  // Packs rows into logged batches of at most LOGGED_BATCH_SIZE statements, never splitting a row
+  // from its copies. A row with more statements than that gets a batch of its own.
+  static List<BatchStatement> loggedBatches(List<List<Statement>> rows) {
+    List<BatchStatement> batches = new ArrayList<>();
+    BatchStatement batch = new BatchStatement();
+
+    for (List<Statement> row : rows) {
+      if (batch.size() > 0 && batch.size() + row.size() > LOGGED_BATCH_SIZE) {
+        batches.add(batch);
+        batch = new BatchStatement();
+      }
+
+      batch.addAll(row);
+    }
+
+    if (batch.size() > 0) {
+      batches.add(batch);
+    }
+
+    return batches;
+  }
+
+  private List<ResultSet> executeConcurrently(Collection<? extends Statement> statements) {
+    return executeConcurrently(statements, this.session::executeAsync, this.inFlightRequests);
+  }
+
+  // Runs statements with no more than permits outstanding, and waits for all of them. The first
+  // failure is rethrown as session.execute would have thrown it. A statement that fails before it
+  // is sent, such as when the session is closed, gives its permit back at once.
+  static List<ResultSet> executeConcurrently(Collection<? extends Statement> statements,
+                                             Function<Statement, ResultSetFuture> executeAsync,
+                                             Semaphore permits) {
+    List<ResultSetFuture> futures = new ArrayList<>(statements.size());
+
+    for (Statement statement : statements) {
+      permits.acquireUninterruptibly();
+
+      ResultSetFuture future;
+      try {
+        future = executeAsync.apply(statement);
+      } catch (RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+
+      future.addListener(permits::release, MoreExecutors.directExecutor());
+      futures.add(future);
+    }
+
+    try {
+      return Uninterruptibles.getUninterruptibly(Futures.allAsList(futures));
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private BoundStatement bindInsert(String table, List<DbDataContainer> insertValues) {
+    String fields =
+        insertValues.stream().map(DbDataContainer::getField).collect(Collectors.joining(", "));
+    String values = String.join(", ", Collections.nCopies(insertValues.size(), "?"));
+
+    String insert = "insert into " + table + "(" + fields + ") values (" + values + ");";
+    BoundStatement statement = this.prepareStatement(insert);
+
+    int index = 0;
+    for (DbDataContainer container : insertValues) {
+      CassandraClient.setValue(statement, container.getValue(), container.getGroundType(), index);
+
+      index++;
+    }
+
+    return statement;
+  }
+
+  private BoundStatement bindEdgeLogInsert(List<DbDataContainer> edgeVersion) {
+    long writtenAt = System.currentTimeMillis();
+
+    BoundStatement statement = this.prepareStatement(
+        "insert into edge_version_log(bucket, written_at, edge_version_id, from_node_version_id, "
+            + "to_node_version_id) values (?, ?, ?, ?, ?);");
+    statement.setLong(0, writtenAt / LOG_BUCKET_MILLIS);
+    statement.setLong(1, writtenAt);
+
+    for (DbDataContainer container : edgeVersion) {
+      switch (container.getField()) {
+        case "id":
+          statement.setLong(2, (Long) container.getValue());
+          break;
+        case "from_node_version_id":
+          statement.setLong(3, (Long) container.getValue());
+          break;
+        case "to_node_version_id":
+          statement.setLong(4, (Long) container.getValue());
+          break;
+      }
+    }
+
+    return statement;
+  }
+
+  // keeps the query tables in step with table
+  private List<BoundStatement> bindQueryTableInserts(String table, List<DbDataContainer> row) {
+    if (table.equals("item_tag") || table.equals("rich_version_tag")) {
+      return this.bindTagIndexInserts(table, row);
+    }
+
+    List<BoundStatement> statements = new ArrayList<>();
+    for (String queryTable : QUERY_TABLES.getOrDefault(table, Collections.emptyList())) {
+      statements.add(this.bindInsert(queryTable, row));
+    }
+
+    return statements;
+  }
+
+  // the tag search tables do not copy the tag rows as they are (see cassandra.cql)
+  private List<BoundStatement> bindTagIndexInserts(String table, List<DbDataContainer> tag) {
+
+    String idField = table.equals("item_tag") ? "item_id" : "rich_version_id";
+    long id = -1;
+    String key = null;
+    String value = null;
+    String type = null;
+
+    for (DbDataContainer container : tag) {
+      if (container.getField().equals(idField)) {
+        id = (Long) container.getValue();
+      } else if (container.getField().equals("key")) {
+        key = (String) container.getValue();
+      } else if (container.getField().equals("value")) {
+        value = (String) container.getValue();
+      } else if (container.getField().equals("type")) {
+        type = (String) container.getValue();
+      }
+    }
+
+    List<BoundStatement> statements = new ArrayList<>();
+
+    int bucket = tagBucket(id);
+    BoundStatement byKey = this.prepareStatement("insert into " + table + "_by_key (key, bucket, "
+        + idField + ", value, type) values (?, ?, ?, ?, ?);");
+    statements.add(byKey.bind(key, bucket, id, value, type));
+
+    if (value != null) {
+      BoundStatement byValue = this.prepareStatement("insert into " + table + "_by_value (key, "
+          + "value, " + idField + ", type) values (?, ?, ?, ?);");
+      statements.add(byValue.bind(key, value, id, type));
+
+      if (GroundType.INTEGER.toString().equals(type) || GroundType.LONG.toString().equals(type)) {
+        BoundStatement byNumber = this.prepareStatement("insert into " + table + "_by_number (key, "
+            + "bucket, value, " + idField + ") values (?, ?, ?, ?);");
+        statements.add(byNumber.bind(key, bucket, Long.parseLong(value), id));
+      }
+    }
+
+    return statements;
+  }
+
+  /**
+   * The bucket of the tag search tables that the tags of an item or version go in.
+   *
+   * @param id the id of the item or version
+   */
+  public static int tagBucket(long id) {
+    return (int) Math.floorMod(id, (long) TAG_BUCKETS);
+  }
+
+  // keeps the in-memory graph up to date
+  private void trackGraphChanges(String table, List<DbDataContainer> insertValues,
+                                 List<Long> vertices, List<long[]> edges) {
     if (table.equals("node_version")) {
       long id = -1;
       for (DbDataContainer container : insertValues) {
@@ -73,7 +516,7 @@ public class CassandraClient extends DBClient {
         }
       }
 
-      JGraphTUtils.addVertex(this.graph, id);
+      vertices.add(id);
     }
     if (table.equals("edge_version")) {
       long nvFromId = -1;
@@ -89,25 +532,18 @@ public class CassandraClient extends DBClient {
         }
       }
 
-      JGraphTUtils.addEdge(this.graph, nvFromId, nvToId);
+      edges.add(new long[] {nvFromId, nvToId});
     }
+  }
 
-    String fields =
-        insertValues.stream().map(DbDataContainer::getField).collect(Collectors.joining(", "));
-    String values = String.join(", ", Collections.nCopies(insertValues.size(), "?"));
-
-    String insert = "insert into " + table + "(" + fields + ") values (" + values + ");";
-    BoundStatement statement = this.prepareStatement(insert);
-
-    int index = 0;
-    for (DbDataContainer container : insertValues) {
-      CassandraClient.setValue(statement, container.getValue(), container.getGroundType(), index);
-
-      index++;
+  private void updateGraph(List<Long> vertices, List<long[]> edges) {
+    for (long vertex : vertices) {
+      JGraphTUtils.addVertex(this.graph, vertex);
     }
 
-    LOGGER.info("Executing update: " + statement.preparedStatement().getQueryString() + ".");
-    this.session.execute(statement);
+    for (long[] edge : edges) {
+      JGraphTUtils.addEdge(this.graph, edge[0], edge[1]);
+    }
   }
 
   /**
@@ -132,7 +568,9 @@ public class CassandraClient extends DBClient {
       select += " where " + predicatesString;
     }
 
-    select += " ALLOW FILTERING;";
+    select += ";";
+    this.flush();
+
     BoundStatement statement = this.prepareStatement(select);
 
     int index = 0;
@@ -152,38 +590,337 @@ public class CassandraClient extends DBClient {
     return new CassandraResults(resultSet);
   }
 
+  /**
+   * Run a query that equalitySelect cannot express, such as a slice of a clustering column. Any
+   * queued rows are written first. The rows are fetched a page at a time as they are read.
+   *
+   * @param query the query, with a ? for each value
+   * @param values the values to bind, in order
+   */
+  public CassandraResults query(String query, Object... values) {
+    this.flush();
+
+    BoundStatement statement = this.prepareStatement(query).bind(values);
+    statement.setFetchSize(SCAN_FETCH_SIZE);
+
+    LOGGER.info("Executing query: " + query + ".");
+    return new CassandraResults(this.session.execute(statement));
+  }
+
+  /**
+   * Run a query whose only value is a list of partition keys, bound to its "in ?". The keys are
+   * sent a slice at a time, so that no one query makes its coordinator wait on too many
+   * partitions.
+   *
+   * @param query the query, with a single "in ?"
+   * @param ids the partition keys
+   * @return the results of each slice, in order
+   */
+  public List<CassandraResults> queryIn(String query, List<Long> ids) {
+    List<Long> keys = new ArrayList<>(new LinkedHashSet<>(ids));
+
+    List<CassandraResults> results = new ArrayList<>();
+    for (int start = 0; start < keys.size(); start += MAX_IN_KEYS) {
+      List<Long> slice = keys.subList(start, Math.min(start + MAX_IN_KEYS, keys.size()));
+      results.add(this.query(query, new ArrayList<>(slice)));
+    }
+
+    return results;
+  }
+
   @Override
   public List<Long> transitiveClosure(long nodeVersionId) {
     return JGraphTUtils.runDFS(this.graph, nodeVersionId);
   }
 
-  public List<Long> adjacentNodes(long nodeVersionId, String edgeNameRegex) {
-    BoundStatement statement =
-        this.prepareStatement(
-            "select to_node_version_id, edge_id from edge_version"
-                + "where from_node_version_id = ? allow filtering;");
+  /**
+   * Look up a page of the node versions reachable from nodeVersionId in the in-memory graph. The
+   * graph is traversed in full for every page, so streamed responses read it in one go.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> transitiveClosure(long nodeVersionId, int maxDepth, long afterId, int limit) {
+    long[] reachable = maxDepth == UNBOUNDED_DEPTH ? this.graph.depthFirst(nodeVersionId)
+        : this.graph.breadthFirst(nodeVersionId, maxDepth);
+
+    // the traversal starts with nodeVersionId itself
+    return CassandraClient.page(Arrays.copyOfRange(reachable, 1, reachable.length), afterId,
+        limit);
+  }
+
+  /**
+   * Get the node versions that nodeVersionId has an edge version to, where the name of the edge
+   * contains edgeName.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName) {
+    return this.adjacentNodes(nodeVersionId, edgeName, Long.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Get a page of the node versions that nodeVersionId has an edge version to, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName, long afterId, int limit) {
+    return this.adjacent("edge_version_by_source", "from_node_version_id", "to_node_version_id",
+        "edge_id", "edge", nodeVersionId, edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the node versions that have an edge version to nodeVersionId, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentNodes(long nodeVersionId, String edgeName, long afterId,
+                                          int limit) {
+    return this.adjacent("edge_version_by_destination", "to_node_version_id",
+        "from_node_version_id", "edge_id", "edge", nodeVersionId, edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the rich versions that have a lineage edge version to richVersionId, where the
+   * name of the lineage edge contains lineageEdgeName, in ascending order of id.
+   *
+   * @param richVersionId the rich version to start from
+   * @param lineageEdgeName the text that the lineage edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentLineage(long richVersionId, String lineageEdgeName,
+                                            long afterId, int limit) {
+    return this.adjacent("lineage_edge_version_by_destination", "to_rich_version_id",
+        "from_rich_version_id", "lineage_edge_id", "lineage_edge", richVersionId,
+        lineageEdgeName, afterId, limit);
+  }
+
+  /**
+   * Look up a page of the node versions that reach nodeVersionId. The in-memory graph only
+   * follows edges forwards, so this walks edge_version_by_destination instead.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> upstreamClosure(long nodeVersionId, int maxDepth, long afterId, int limit) {
+    return this.walk("edge_version_by_destination", "to_node_version_id",
+        "from_node_version_id", nodeVersionId, maxDepth, afterId, limit);
+  }
+
+  /**
+   * Look up a page of the rich versions that reach richVersionId through lineage edge versions.
+   *
+   * @param richVersionId the rich version to start from
+   * @param maxDepth the most lineage edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamLineage(long richVersionId, int maxDepth, long afterId, int limit) {
+    return this.walk("lineage_edge_version_by_destination", "to_rich_version_id",
+        "from_rich_version_id", richVersionId, maxDepth, afterId, limit);
+  }
+
+  // Reads a page of the ends of the rows of a query table that start at start, where the name of
+  // the item that the row is a version of contains name. Partitions are clustered by version id
+  // rather than by their ends, so each one is read in full.
+  private List<Long> adjacent(String table, String startColumn, String endColumn,
+                              String itemColumn, String itemTable, long start, String name,
+                              long afterId, int limit) {
+    BoundStatement statement = this.prepareStatement("select " + endColumn + ", " + itemColumn
+        + " from " + table + " where " + startColumn + " = ?;");
+
+    statement.setLong(0, start);
+    this.flush();
 
-    statement.setLong(0, nodeVersionId);
     ResultSet resultSet = this.session.execute(statement);
 
-    List<Long> result = new ArrayList<>();
+    // most versions out of a vertex share a few items, so each name is read once
+    Map<Long, String> itemNames = new HashMap<>();
+    long[] adjacent = new long[resultSet.getAvailableWithoutFetching()];
+    int adjacentCount = 0;
     for (Row row : resultSet) {
-      if (row.getString(1).contains(edgeNameRegex)) {
-        result.add(row.getLong(0));
+      String itemName = itemNames.computeIfAbsent(row.getLong(1),
+          itemId -> this.getItemName(itemTable, itemId));
+
+      if (itemName != null && itemName.contains(name)) {
+        if (adjacentCount == adjacent.length) {
+          adjacent = Arrays.copyOf(adjacent, Math.max(1, adjacentCount * 2));
+        }
+        adjacent[adjacentCount++] = row.getLong(0);
+      }
+    }
+
+    return CassandraClient.page(Arrays.copyOf(adjacent, adjacentCount), afterId, limit);
+  }
+
+  // Walks a query table from start a depth at a time, with the reads for each depth sent
+  // concurrently, and returns a page of the ids that were reached.
+  private List<Long> walk(String table, String startColumn, String endColumn, long start,
+                          int maxDepth, long afterId, int limit) {
+    String query = "select " + endColumn + " from " + table + " where " + startColumn + " = ?;";
+    this.flush();
+
+    LongHashSet visited = new LongHashSet();
+    visited.add(start);
+
+    long[] frontier = {start};
+    for (int depth = 0; depth < maxDepth && frontier.length > 0; depth++) {
+      List<Statement> reads = new ArrayList<>(frontier.length);
+      for (long id : frontier) {
+        reads.add(this.prepareStatement(query).bind(id));
+      }
+
+      LongArrayList next = new LongArrayList();
+      for (ResultSet resultSet : this.executeConcurrently(reads)) {
+        for (Row row : resultSet) {
+          if (visited.add(row.getLong(0))) {
+            next.add(row.getLong(0));
+          }
+        }
+      }
+
+      frontier = next.toArray();
+    }
+
+    visited.remove(start);
+    return CassandraClient.page(visited.toArray(), afterId, limit);
+  }
+
+  // Sorts ids in place and returns the first limit distinct ones greater than afterId.
+  private static List<Long> page(long[] ids, long afterId, int limit) {
+    Arrays.sort(ids);
+
+    List<Long> result = new ArrayList<>();
+    for (int i = 0; i < ids.length && result.size() < limit; i++) {
+      if (ids[i] > afterId && (i == 0 || ids[i] != ids[i - 1])) {
+        result.add(ids[i]);
       }
     }
 
     return result;
   }
 
+  private String getItemName(String itemTable, long itemId) {
+    BoundStatement statement =
+        this.prepareStatement("select name from " + itemTable + " where item_id = ?;");
+    statement.setLong(0, itemId);
+
+    Row row = this.session.execute(statement).one();
+    return row == null ? null : row.getString(0);
+  }
+
+  /**
+   * Lease count values of an IdGenerator counter. The high-water mark is advanced with a
+   * lightweight transaction, retrying if another writer got there first. The first lease of a
+   * counter starts after the largest id of the machine in the counter's table, so ids written
+   * before leases were kept are not handed out again. Finding that id scans the table, once.
+   *
+   * @param machineId the machine that owns the counter
+   * @param counter the name of the counter
+   * @param count the number of values to lease
+   * @param prefix the prefix of the ids of the machine, from IdGenerator.prefix
+   * @param maxValue the largest counter value, from IdGenerator.maxCounterValue
+   * @return the first leased value
+   */
+  public long leaseIds(int machineId, String counter, long count, long prefix, long maxValue)
+      throws GroundDBException {
+    String table = COUNTER_TABLES.get(counter);
+    if (table == null) {
+      throw new GroundDBException("Unknown id counter " + counter + ".");
+    }
+
+    while (true) {
+      BoundStatement select =
+          this.prepareStatement("select high_water from id_lease where machine_id = ? and name = ?;");
+      select.setInt(0, machineId);
+      select.setString(1, counter);
+      select.setConsistencyLevel(ConsistencyLevel.SERIAL);
+
+      Row row = this.session.execute(select).one();
+
+      long first;
+      BoundStatement update;
+      if (row == null) {
+        first = this.firstUnusedId(table, prefix, maxValue);
+        update = this.prepareStatement(
+            "insert into id_lease (machine_id, name, high_water) values (?, ?, ?) if not exists;");
+        update.setInt(0, machineId);
+        update.setString(1, counter);
+        update.setLong(2, first + count);
+      } else {
+        first = row.getLong(0);
+        update = this.prepareStatement(
+            "update id_lease set high_water = ? where machine_id = ? and name = ? "
+                + "if high_water = ?;");
+        update.setLong(0, first + count);
+        update.setInt(1, machineId);
+        update.setString(2, counter);
+        update.setLong(3, first);
+      }
+
+      if (this.session.execute(update).wasApplied()) {
+        LOGGER.info("Leased " + count + " " + counter + " ids starting at " + first + ".");
+        return first;
+      }
+    }
+  }
+
+  // The counter value after the largest id in [prefix, prefix + maxValue] of table, or 1 if there
+  // is none. Ids are partition keys, which can only be ranged over by token, so this reads them all.
+  private long firstUnusedId(String table, long prefix, long maxValue) {
+    BoundStatement statement = this.prepareStatement("select id from " + table + ";");
+    statement.setFetchSize(SCAN_FETCH_SIZE);
+
+    long start = 1;
+    for (Row row : this.session.execute(statement)) {
+      long id = row.getLong(0);
+      if (id >= prefix && id <= prefix + maxValue) {
+        start = Math.max(start, id - prefix + 1);
+      }
+    }
+
+    return start;
+  }
+
   @Override
-  public void commit() {}
+  public void commit() {
+    this.flush();
+  }
 
   @Override
-  public void abort() {}
+  public void abort() {
+    this.pendingBatch.remove();
+  }
+
+  @Override
+  public void release() {
+    this.abort();
+  }
 
   @Override
   public void close() {
+    try {
+      this.snapshot();
+    } catch (IOException e) {
+      LOGGER.warn("Unable to write graph snapshot: " + e.getMessage());
+    }
+
     this.session.close();
     this.cluster.close();
   }
@@ -195,6 +932,14 @@ public class CassandraClient extends DBClient {
     return new BoundStatement(statement);
   }
 
+  private static class PendingBatch {
+    // the statements of each queued row: its insert, its query table copies and its log entry
+    private final List<List<Statement>> rows = new ArrayList<>();
+    private int size = 0;
+    private final List<Long> vertices = new ArrayList<>();
+    private final List<long[]> edges = new ArrayList<>();
+  }
+
   private static void setValue(
       BoundStatement statement, Object value, GroundType groundType, int index) {
     switch (groundType) {
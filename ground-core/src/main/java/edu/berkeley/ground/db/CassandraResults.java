@@ -19,7 +19,14 @@ import com.datastax.driver.core.Row;
 
 import edu.berkeley.ground.exceptions.GroundDBException;
 
+/**
+ * The rows of a query, read a page at a time. The next page is requested in the background while
+ * the last rows of the current page are being read, so that long scans rarely wait on a page.
+ */
 public class CassandraResults implements QueryResults {
+  // the number of rows left in the current page when the next page is requested
+  private static final int PREFETCH_THRESHOLD = 100;
+
   private ResultSet resultSet;
   private Row currentRow;
 
@@ -77,6 +84,11 @@ public class CassandraResults implements QueryResults {
   }
 
   public boolean next() {
+    if (this.resultSet.getAvailableWithoutFetching() == PREFETCH_THRESHOLD
+        && !this.resultSet.isFullyFetched()) {
+      this.resultSet.fetchMoreResults();
+    }
+
     this.currentRow = this.resultSet.one();
 
     return this.currentRow != null;
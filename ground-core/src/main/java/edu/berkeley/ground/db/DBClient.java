@@ -19,10 +19,19 @@ import java.util.List;
 public abstract class DBClient implements AutoCloseable {
   public static final List<String> SELECT_STAR = Collections.singletonList("*");
 
+  // the maxDepth of a traversal that follows edges as far as they go
+  public static final int UNBOUNDED_DEPTH = Integer.MAX_VALUE;
+
   public abstract void commit() throws GroundDBException;
 
   public abstract void abort() throws GroundDBException;
 
+  /**
+   * Release any transaction still held by the calling thread. Called at the end of every request
+   * so that a request that failed before committing or aborting cannot leak its connection.
+   */
+  public void release() throws GroundDBException {}
+
   /**
    * Run transitive closure from nodeVersionId.
    *
@@ -30,4 +39,38 @@ public abstract class DBClient implements AutoCloseable {
    * @return the list of reachable ids
    */
   public abstract List<Long> transitiveClosure(long nodeVersionId) throws GroundDBException;
+
+  /**
+   * Get a page of the node versions reachable from nodeVersionId, in ascending order of id.
+   *
+   * @param nodeVersionId the start id
+   * @param maxDepth the most edges to follow, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   * @return the reachable ids
+   */
+  public abstract List<Long> transitiveClosure(long nodeVersionId, int maxDepth, long afterId,
+                                               int limit) throws GroundDBException;
+
+  /**
+   * Get a page of the node versions that reach nodeVersionId, in ascending order of id.
+   *
+   * @param nodeVersionId the start id
+   * @param maxDepth the most edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   * @return the upstream ids
+   */
+  public abstract List<Long> upstreamClosure(long nodeVersionId, int maxDepth, long afterId,
+                                             int limit) throws GroundDBException;
+
+  /**
+   * Whether transitiveClosure and upstreamClosure read a page to maxDepth without visiting the
+   * rest of the closure. Where they do not, every page repeats the whole traversal.
+   *
+   * @param maxDepth the most edges to follow, or UNBOUNDED_DEPTH
+   */
+  public boolean pagesClosure(int maxDepth) {
+    return false;
+  }
 }
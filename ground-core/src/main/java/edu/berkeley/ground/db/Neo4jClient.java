@@ -14,9 +14,12 @@
 
 package edu.berkeley.ground.db;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.EmptyResultException;
+import edu.berkeley.ground.exceptions.GroundDBException;
 import org.neo4j.driver.internal.value.StringValue;
 import org.neo4j.driver.v1.*;
 import org.neo4j.driver.v1.types.Relationship;
@@ -24,55 +27,73 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Neo4jClient extends DBClient {
   private static final Logger LOGGER = LoggerFactory.getLogger(Neo4jClient.class);
 
-  private final Driver driver;
-  private final Session session;
-  private final Transaction transaction;
+  // Every vertex created by addVertex carries this label besides its own, so that lookups by id
+  // can use the unique index on :GroundObject(id) without knowing what kind of object they want.
+  // See scripts/neo4j/neo4j.cypher, and migrate_ground_object.cypher for older databases.
+  private static final String OBJECT_LABEL = "GroundObject";
 
-  public Neo4jClient(String host, String username, String password) {
-    this.driver = GraphDatabase.driver("bolt://" + host, AuthTokens.basic(username, password));
-    this.session = this.driver.session();
-    this.transaction = session.beginTransaction();
-  }
+  // the end of a query for a page of ids, which are returned as b.id; the limit is what ORDER BY
+  // allocates for, so it must not be left unbounded
+  private static final String PAGE = "RETURN DISTINCT b.id ORDER BY b.id LIMIT $limit";
 
-  private String addValuesToStatement(String statement, List<DbDataContainer> values) {
-    int count = 0;
-    for (DbDataContainer container : values) {
-      if (container.getValue() != null) {
-        statement += container.getField() + " : ";
-
-        switch (container.getGroundType()) {
-          case STRING:
-            statement += "'" + container.getValue().toString() + "'";
-            break;
-          case INTEGER:
-            statement += (int) container.getValue();
-            break;
-          case BOOLEAN:
-            statement += container.getValue();
-            break;
-          case LONG:
-            statement += (long) container.getValue();
-            break;
-        }
+  private static final int DEFAULT_POOL_SIZE = 1;
+  private static final long DEFAULT_POOL_TIMEOUT_MILLIS = 30000;
 
-        statement += ", ";
-        count++;
-      }
-    }
+  private final Neo4jSessionPool pool;
 
-    if (count > 0) {
-      statement = statement.substring(0, statement.length() - 2);
-    }
+  // The session and transaction owned by the calling thread. A session is borrowed on first use
+  // and closed when the transaction is committed or aborted, which gives every request its own
+  // short transaction.
+  private final ThreadLocal<Neo4jTransaction> currentTransaction;
+  private final Counter openTransactions;
+
+  // Cypher templates by method, label and the set of properties involved. Values are always
+  // passed as parameters, so that every call with the same shape sends the same query text and
+  // Neo4j can reuse its plan.
+  private final Map<String, String> templates;
+  private final Counter templateHits;
+  private final Counter templateMisses;
+
+  public Neo4jClient(String host, String username, String password) throws GroundDBException {
+    this(host, username, password, DEFAULT_POOL_SIZE, DEFAULT_POOL_TIMEOUT_MILLIS,
+        new MetricRegistry());
+  }
 
-    return statement;
+  /**
+   * Create a client backed by a pool of sessions.
+   *
+   * @param poolSize the maximum number of sessions in use at once
+   * @param poolTimeoutMillis how long to wait for a session when the pool is exhausted
+   * @param metricRegistry the registry to report pool usage, open transactions and template cache
+   *     hits and misses to
+   */
+  public Neo4jClient(String host, String username, String password, int poolSize,
+                     long poolTimeoutMillis, MetricRegistry metricRegistry)
+      throws GroundDBException {
+    this.pool = new Neo4jSessionPool(host, username, password, poolSize, poolTimeoutMillis,
+        metricRegistry);
+    this.currentTransaction = new ThreadLocal<>();
+    this.openTransactions = metricRegistry.counter(
+        MetricRegistry.name(Neo4jClient.class, "transactions", "open"));
+
+    this.templates = new ConcurrentHashMap<>();
+    this.templateHits = metricRegistry.counter(
+        MetricRegistry.name(Neo4jClient.class, "templates", "hits"));
+    this.templateMisses = metricRegistry.counter(
+        MetricRegistry.name(Neo4jClient.class, "templates", "misses"));
   }
 
   /**
@@ -81,13 +102,14 @@ public class Neo4jClient extends DBClient {
    * @param label the vertex label
    * @param attributes the vertex's attributes
    */
-  public void addVertex(String label, List<DbDataContainer> attributes) {
-    String insert = "CREATE (: " + label + " {";
+  public void addVertex(String label, List<DbDataContainer> attributes) throws GroundDBException {
+    String query = this.template("addVertex:" + label + ":" + shape(attributes), () ->
+        "CREATE (:" + label + ":" + OBJECT_LABEL + " " + propertyMap("v_", attributes) + ")");
 
-    insert = this.addValuesToStatement(insert, attributes);
-    insert += "})";
+    Map<String, Object> parameters = new HashMap<>();
+    addParameters(parameters, "v_", attributes);
 
-    this.transaction.run(insert);
+    this.getTransaction().run(query, parameters);
   }
 
   /**
@@ -98,24 +120,9 @@ public class Neo4jClient extends DBClient {
    * @param toId the id of the destination vertex
    * @param attributes the edge's attributes
    */
-  public void addEdge(String label, long fromId, long toId, List<DbDataContainer> attributes) {
-    String insert =
-        "MATCH (f"
-            + "{id : "
-            + fromId
-            + " })"
-            + "MATCH (t"
-            + "{id : "
-            + toId
-            + " })"
-            + "CREATE (f)-[:"
-            + label
-            + "{";
-
-    insert = this.addValuesToStatement(insert, attributes);
-    insert += "}]->(t)";
-
-    this.transaction.run(insert);
+  public void addEdge(String label, long fromId, long toId, List<DbDataContainer> attributes)
+      throws GroundDBException {
+    this.addEdge(label, (Object) fromId, toId, attributes);
   }
 
   /**
@@ -126,15 +133,24 @@ public class Neo4jClient extends DBClient {
    * @param toId the id of the destination vertex
    * @param attributes the edge's attributes
    */
-  public void addEdge(String label, String fromId, long toId, List<DbDataContainer> attributes) {
-    String insert = "MATCH (f" + "{id : '" + fromId + "' })";
-    insert += "MATCH (t" + "{id : " + toId + " })";
-    insert += "CREATE (f)-[:" + label + "{";
+  public void addEdge(String label, String fromId, long toId, List<DbDataContainer> attributes)
+      throws GroundDBException {
+    this.addEdge(label, (Object) fromId, toId, attributes);
+  }
 
-    insert = this.addValuesToStatement(insert, attributes);
-    insert += "}]->(t)";
+  private void addEdge(String label, Object fromId, long toId, List<DbDataContainer> attributes)
+      throws GroundDBException {
+    String query = this.template("addEdge:" + label + ":" + shape(attributes), () ->
+        "MATCH (f:" + OBJECT_LABEL + " {id: $from}) MATCH (t:" + OBJECT_LABEL + " {id: $to}) "
+            + "CREATE (f)-[:" + label + " "
+            + propertyMap("e_", attributes) + "]->(t)");
 
-    this.transaction.run(insert);
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("from", fromId);
+    parameters.put("to", toId);
+    addParameters(parameters, "e_", attributes);
+
+    this.getTransaction().run(query, parameters);
   }
 
   /**
@@ -151,18 +167,19 @@ public class Neo4jClient extends DBClient {
       List<DbDataContainer> attributes,
       String edgeLabel,
       long fromId,
-      List<DbDataContainer> edgeAttributes) {
-    String insert = "MATCH (f {id: " + fromId + "})";
-    insert += "CREATE (t: " + label + "{";
-
-    insert = this.addValuesToStatement(insert, attributes);
-    insert += "})";
-    insert += "CREATE (f)-[e: " + edgeLabel + "{";
-
-    insert = this.addValuesToStatement(insert, edgeAttributes);
-    insert += "}]->(t)";
-
-    this.transaction.run(insert);
+      List<DbDataContainer> edgeAttributes) throws GroundDBException {
+    String query = this.template("addVertexAndEdge:" + label + ":" + shape(attributes) + ":"
+        + edgeLabel + ":" + shape(edgeAttributes), () ->
+        "MATCH (f:" + OBJECT_LABEL + " {id: $from}) "
+            + "CREATE (t:" + label + " " + propertyMap("v_", attributes) + ") "
+            + "CREATE (f)-[e:" + edgeLabel + " " + propertyMap("e_", edgeAttributes) + "]->(t)");
+
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("from", fromId);
+    addParameters(parameters, "v_", attributes);
+    addParameters(parameters, "e_", edgeAttributes);
+
+    this.getTransaction().run(query, parameters);
   }
 
   /**
@@ -171,22 +188,43 @@ public class Neo4jClient extends DBClient {
    * @param attributes the set of attributes to filter
    * @return the Record of the vertex
    */
-  public Record getVertex(List<DbDataContainer> attributes) throws EmptyResultException {
+  public Record getVertex(List<DbDataContainer> attributes)
+      throws EmptyResultException, GroundDBException {
     return this.getVertex(null, attributes);
   }
 
   /**
-   * Get all vertices with a certain set of attributes.
+   * Retrieve the vertices with a particular label and any of a set of ids, with one query.
    *
+   * @param label the vertex label
+   * @param ids the ids to look up
+   * @return a Record with the vertex as v for each id that was found, in no particular order
+   */
+  public List<Record> getVertices(String label, List<Long> ids) throws GroundDBException {
+    String query = this.template("getVertices:" + label, () ->
+        "MATCH (v:" + label + ":" + OBJECT_LABEL + ") WHERE v.id IN $ids RETURN v");
+
+    return this.getTransaction().run(query, Values.parameters("ids", ids)).list();
+  }
+
+  /**
+   * Get all vertices with a certain label and set of attributes.
+   *
+   * @param label the vertex label
    * @param attributes the attributes to filter by
+   * @param idAttribute the attribute to return
    */
-  public List<Long> getVerticesByAttributes(List<DbDataContainer> attributes, String idAttribute) {
-    String query = "MATCH (f {";
+  public List<Long> getVerticesByAttributes(String label, List<DbDataContainer> attributes,
+                                            String idAttribute) throws GroundDBException {
+    String query = this.template("getVerticesByAttributes:" + label + ":" + shape(attributes)
+        + ":" + idAttribute, () ->
+        "MATCH (f:" + label + " " + propertyMap("v_", attributes) + ") where exists(f."
+            + idAttribute + ") return f");
 
-    query = this.addValuesToStatement(query, attributes);
-    query += "}) where exists(f." + idAttribute + ") return f";
+    Map<String, Object> parameters = new HashMap<>();
+    addParameters(parameters, "v_", attributes);
 
-    StatementResult queryResult = this.transaction.run(query);
+    StatementResult queryResult = this.getTransaction().run(query, parameters);
 
     List<Long> result = new ArrayList<>();
     while (queryResult.hasNext()) {
@@ -208,23 +246,21 @@ public class Neo4jClient extends DBClient {
    * @return the Record with the vertex
    */
   public Record getVertex(String label, List<DbDataContainer> attributes)
-      throws EmptyResultException {
-    String query = "MATCH (v";
-    if (label == null) {
-      query += " {";
-    } else {
-      query += ":" + label + "{";
-    }
+      throws EmptyResultException, GroundDBException {
+    String query = this.template("getVertex:" + label + ":" + shape(attributes), () ->
+        "MATCH (v" + labels(label, attributes) + " " + propertyMap("v_", attributes)
+            + ") RETURN v");
+
+    Map<String, Object> parameters = new HashMap<>();
+    addParameters(parameters, "v_", attributes);
 
-    query = this.addValuesToStatement(query, attributes);
-    query += "}) RETURN v";
-    StatementResult result = this.transaction.run(query);
+    StatementResult result = this.getTransaction().run(query, parameters);
 
     if (result.hasNext()) {
       return result.next();
     }
 
-    throw new EmptyResultException("No results found for query: " + query);
+    throw new EmptyResultException("No results found for query: " + query + " " + parameters);
   }
 
   /**
@@ -235,20 +271,21 @@ public class Neo4jClient extends DBClient {
    * @return the Neo4j Relationship for this edge
    */
   public Relationship getEdge(String label, List<DbDataContainer> attributes)
-      throws EmptyResultException {
-    String query = "MATCH (v)-[e:" + label + "{";
+      throws EmptyResultException, GroundDBException {
+    String query = this.template("getEdge:" + label + ":" + shape(attributes), () ->
+        "MATCH (v)-[e:" + label + " " + propertyMap("e_", attributes) + "]->(w) RETURN e");
 
-    query = this.addValuesToStatement(query, attributes);
-    query += "}]->(w) RETURN e";
+    Map<String, Object> parameters = new HashMap<>();
+    addParameters(parameters, "e_", attributes);
 
-    StatementResult result = this.transaction.run(query);
+    StatementResult result = this.getTransaction().run(query, parameters);
 
     if (result.hasNext()) {
       Record r = result.next();
       return r.get("e").asRelationship();
     }
 
-    throw new EmptyResultException("No results found for query: " + query);
+    throw new EmptyResultException("No results found for query: " + query + " " + parameters);
   }
 
   /**
@@ -258,9 +295,12 @@ public class Neo4jClient extends DBClient {
    * @param label the edge label we are looking for
    * @return the list of valid edges
    */
-  public List<Relationship> getDescendantEdgesByLabel(long startId, String label) {
-    String query = "MATCH (a {id: " + startId + "})-[e: " + label + "*]->(b) return distinct e;";
-    StatementResult result = this.transaction.run(query);
+  public List<Relationship> getDescendantEdgesByLabel(long startId, String label)
+      throws GroundDBException {
+    String query = this.template("getDescendantEdgesByLabel:" + label, () ->
+        "MATCH (a:" + OBJECT_LABEL + " {id: $id})-[e:" + label + "*]->(b) return distinct e");
+
+    StatementResult result = this.getTransaction().run(query, Values.parameters("id", startId));
 
     Set<Relationship> response = new HashSet<>();
 
@@ -281,88 +321,403 @@ public class Neo4jClient extends DBClient {
    * @return a list of adjacent vertices related by edgeLabel
    */
   public List<Record> getAdjacentVerticesByEdgeLabel(
-      String edgeLabel, long id, List<String> returnFields) {
-    String query =
-        "MATCH (a {id: " + id + " })" + "MATCH (a)-[:" + edgeLabel + "]->(b)" + "RETURN ";
-
-    query +=
-        returnFields
-            .stream()
-            .map(field -> "b." + field + " as " + field)
-            .collect(Collectors.joining(", "));
+      String edgeLabel, long id, List<String> returnFields) throws GroundDBException {
+    String query = this.template("getAdjacentVerticesByEdgeLabel:" + edgeLabel + ":"
+        + String.join(",", returnFields), () ->
+        "MATCH (a:" + OBJECT_LABEL + " {id: $id}) MATCH (a)-[:" + edgeLabel + "]->(b) RETURN "
+            + returnFields
+                .stream()
+                .map(field -> "b." + field + " as " + field)
+                .collect(Collectors.joining(", ")));
+
+    StatementResult result = this.getTransaction().run(query, Values.parameters("id", id));
+    return result.list();
+  }
 
-    StatementResult result = this.transaction.run(query);
+  /**
+   * Get the vertices that are one edge away from any of a set of vertices, where the edge
+   * connecting them has a particular label, with one query.
+   *
+   * @param edgeLabel the edge label we are looking for
+   * @param ids the vertices to start from
+   * @param returnFields the list of fields we want to select
+   * @return a Record for each adjacent vertex, with the id of the vertex it was reached from as
+   *     from_id followed by returnFields
+   */
+  public List<Record> getAdjacentVerticesByEdgeLabel(
+      String edgeLabel, List<Long> ids, List<String> returnFields) throws GroundDBException {
+    String query = this.template("getAdjacentVerticesByEdgeLabels:" + edgeLabel + ":"
+        + String.join(",", returnFields), () ->
+        "MATCH (a:" + OBJECT_LABEL + ") WHERE a.id IN $ids MATCH (a)-[:" + edgeLabel
+            + "]->(b) RETURN a.id as from_id"
+            + returnFields
+                .stream()
+                .map(field -> ", b." + field + " as " + field)
+                .collect(Collectors.joining()));
+
+    StatementResult result = this.getTransaction().run(query, Values.parameters("ids", ids));
     return result.list();
   }
 
+  /**
+   * Run a query that returns a single column of ids, such as a search that the other methods
+   * cannot express.
+   *
+   * @param query the query
+   * @param parameters the values of the query's parameters
+   */
+  public List<Long> getIds(String query, Map<String, Object> parameters)
+      throws GroundDBException {
+    StatementResult result = this.getTransaction().run(query, parameters);
+
+    List<Long> ids = new ArrayList<>();
+    while (result.hasNext()) {
+      ids.add(result.next().get(0).asLong());
+    }
+
+    return ids;
+  }
+
   @Override
-  public List<Long> transitiveClosure(long nodeVersionId) {
+  public List<Long> transitiveClosure(long nodeVersionId) throws GroundDBException {
     String query =
-        "MATCH (a: NodeVersion {id: "
-            + nodeVersionId
-            + "})-"
-            + "[:EdgeVersionConnection*]->(b: NodeVersion) RETURN b.id";
+        "MATCH (a:NodeVersion:" + OBJECT_LABEL + " {id: $id})-[:EdgeVersionConnection*]->"
+            + "(b:NodeVersion) RETURN b.id";
 
-    List<Record> records = this.transaction.run(query).list();
+    List<Record> records = this.getTransaction().run(query, Values.parameters("id", nodeVersionId))
+        .list();
     List<Long> result =
         records.stream().map(record -> record.get("b.id").asLong()).collect(Collectors.toList());
 
     return result;
   }
 
+  /**
+   * Look up a page of the node versions reachable from nodeVersionId.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> transitiveClosure(long nodeVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    return this.walk("EdgeVersionConnection", false, "b:NodeVersion", nodeVersionId, maxDepth,
+        afterId, limit);
+  }
+
+  /**
+   * Look up a page of the node versions that reach nodeVersionId. Relationships are followed
+   * backwards as cheaply as forwards, so this needs no index of its own.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> upstreamClosure(long nodeVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    return this.walk("EdgeVersionConnection", true, "b:NodeVersion", nodeVersionId, maxDepth,
+        afterId, limit);
+  }
+
+  /**
+   * Look up a page of the rich versions that reach richVersionId through lineage edge versions.
+   *
+   * @param richVersionId the rich version to start from
+   * @param maxDepth the most lineage edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamLineage(long richVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    return this.walk("LineageEdgeVersionConnection", true, "NOT b:LineageEdgeVersions",
+        richVersionId, maxDepth, afterId, limit);
+  }
+
+  // Every edge version is a vertex between the vertices it connects, so each edge is two hops,
+  // and the vertices in between are left out by condition.
+  private List<Long> walk(String relationship, boolean upstream, String condition, long start,
+                          int maxDepth, long afterId, int limit) throws GroundDBException {
+    // variable-length bounds cannot be parameters, so there is a query for every depth
+    String hops = maxDepth == UNBOUNDED_DEPTH ? "*" : "*1.." + (2L * maxDepth);
+    String query = this.template("walk:" + relationship + ":" + upstream + ":" + hops, () ->
+        "MATCH (a:" + OBJECT_LABEL + " {id: $id})" + (upstream ? "<-" : "-") + "[:"
+            + relationship + hops + "]" + (upstream ? "-" : "->") + "(b) "
+            + "WHERE " + condition + " AND b.id > $after " + PAGE);
+
+    return this.getIds(query, Values.parameters("id", start, "after", afterId, "limit", limit)
+        .asMap());
+  }
+
   /**
    * For a particular object, set a given attribute.
    *
    * @param id the id of the object
    * @param key the key of the attribute
    * @param value the value of the attribute
-   * @param isString determines whether or not to encapsulate value in quotes
+   * @param isString determines whether or not to store value as a string
+   */
+  public void setProperty(long id, String key, Object value, boolean isString)
+      throws GroundDBException {
+    String query = this.template("setProperty:" + key, () ->
+        "MATCH (n:" + OBJECT_LABEL + " {id: $id}) SET n." + key + " = $value");
+
+    this.getTransaction().run(query,
+        Values.parameters("id", id, "value", isString ? value.toString() : value));
+  }
+
+  /**
+   * Get the node versions that nodeVersionId has an edge version to, where the name of the edge
+   * contains edgeName.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName)
+      throws GroundDBException {
+    String query = this.adjacentQuery("EdgeVersionConnection", "GroundEdge", "edge_id", false)
+        + "RETURN DISTINCT b.id";
+
+    return this.getIds(query, Values.parameters("id", nodeVersionId, "name", edgeName, "after",
+        Long.MIN_VALUE).asMap());
+  }
+
+  /**
+   * Get a page of the node versions that nodeVersionId has an edge version to, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName, long afterId, int limit)
+      throws GroundDBException {
+    return this.adjacent("EdgeVersionConnection", "GroundEdge", "edge_id", false, nodeVersionId,
+        edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the node versions that have an edge version to nodeVersionId, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentNodes(long nodeVersionId, String edgeName, long afterId,
+                                          int limit) throws GroundDBException {
+    return this.adjacent("EdgeVersionConnection", "GroundEdge", "edge_id", true, nodeVersionId,
+        edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the rich versions that have a lineage edge version to richVersionId, where the
+   * name of the lineage edge contains lineageEdgeName, in ascending order of id.
+   *
+   * @param richVersionId the rich version to start from
+   * @param lineageEdgeName the text that the lineage edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentLineage(long richVersionId, String lineageEdgeName,
+                                            long afterId, int limit) throws GroundDBException {
+    return this.adjacent("LineageEdgeVersionConnection", "LineageEdges", "lineageedge_id", true,
+        richVersionId, lineageEdgeName, afterId, limit);
+  }
+
+  private List<Long> adjacent(String relationship, String itemLabel, String itemProperty,
+                              boolean upstream, long start, String name, long afterId, int limit)
+      throws GroundDBException {
+    String query = this.adjacentQuery(relationship, itemLabel, itemProperty, upstream) + PAGE;
+
+    return this.getIds(query, Values.parameters("id", start, "name", name, "after", afterId,
+        "limit", limit).asMap());
+  }
+
+  // Matches the vertices b one edge version away from $id, where the name of the item that the
+  // edge version belongs to contains $name.
+  private String adjacentQuery(String relationship, String itemLabel, String itemProperty,
+                               boolean upstream) {
+    String from = upstream ? "<-[:" + relationship + "]-" : "-[:" + relationship + "]->";
+
+    return this.template("adjacent:" + relationship + ":" + itemLabel + ":" + upstream, () ->
+        "MATCH (a:" + OBJECT_LABEL + " {id: $id})" + from + "(v)" + from + "(b) "
+            + "WHERE b.id > $after "
+            + "MATCH (i:" + itemLabel + ":" + OBJECT_LABEL + " {id: v." + itemProperty + "}) "
+            + "WHERE i.name CONTAINS $name ");
+  }
+
+  /**
+   * Lease count values of an IdGenerator counter. The lease runs in a session of its own and is
+   * committed before this returns, whatever happens to the calling thread's transaction. Only
+   * this process leases the counters of its machine, so leases are serialized here. The first
+   * lease of a counter starts after the largest id of the machine, so ids written before leases
+   * were kept are not handed out again.
+   *
+   * @param machineId the machine that owns the counter
+   * @param counter the name of the counter
+   * @param count the number of values to lease
+   * @param prefix the prefix of the ids of the machine, from IdGenerator.prefix
+   * @param maxValue the largest counter value, from IdGenerator.maxCounterValue
+   * @return the first leased value
    */
-  public void setProperty(long id, String key, Object value, boolean isString) {
-    String insert = "MATCH (n {id: " + id + " })" + "set n." + key + " = ";
+  public synchronized long leaseIds(int machineId, String counter, long count, long prefix,
+                                    long maxValue) throws GroundDBException {
+    String key = machineId + "/" + counter;
+
+    try (Session session = this.pool.openReserved()) {
+      StatementResult lease = session.run("MATCH (l:IdLease {key: $key}) "
+              + "SET l.high_water = l.high_water + $count RETURN l.high_water - $count AS first",
+          Values.parameters("key", key, "count", count));
+
+      long first;
+      if (lease.hasNext()) {
+        first = lease.single().get("first").asLong();
+      } else {
+        // Ids are on vertices, which the GroundObject index covers, and on successor edges.
+        Record existing = session.run("OPTIONAL MATCH (v:" + OBJECT_LABEL + ") "
+                + "WHERE v.id >= $low AND v.id <= $high WITH max(v.id) AS vertices "
+                + "OPTIONAL MATCH ()-[s:VersionSuccessor]->() WHERE s.id >= $low AND s.id <= $high "
+                + "RETURN vertices, max(s.id) AS successors",
+            Values.parameters("low", prefix, "high", prefix + maxValue)).single();
+
+        long start = 1;
+        for (String field : Arrays.asList("vertices", "successors")) {
+          if (!existing.get(field).isNull()) {
+            start = Math.max(start, existing.get(field).asLong() - prefix + 1);
+          }
+        }
+
+        first = session.run("MERGE (l:IdLease {key: $key}) ON CREATE SET l.high_water = $start "
+                + "SET l.high_water = l.high_water + $count RETURN l.high_water - $count AS first",
+            Values.parameters("key", key, "start", start, "count", count))
+            .single().get("first").asLong();
+      }
+
+      LOGGER.info("Leased " + count + " " + counter + " ids starting at " + first + ".");
+      return first;
+    } catch (RuntimeException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  private String template(String key, Supplier<String> builder) {
+    String template = this.templates.get(key);
 
-    if (isString) {
-      insert += "'" + value.toString() + "'";
+    if (template == null) {
+      this.templateMisses.inc();
+      template = this.templates.computeIfAbsent(key, k -> builder.get());
     } else {
-      insert += value.toString();
+      this.templateHits.inc();
     }
 
-    this.transaction.run(insert);
+    return template;
   }
 
-  public List<Long> adjacentNodes(long nodeVersionId, String edgeNameRegex) {
-    String query =
-        "MATCH (n: NodeVersion {id: '"
-            + nodeVersionId
-            + "'})"
-            + "-[e: EdgeVersionConnection]->(evn: EdgeVersion) where evn.edge_id =~ '.*"
-            + edgeNameRegex
-            + ".*'"
-            + "MATCH (evn)-[f: EdgeVersionConnection]->(dst)"
-            + "return dst.id";
-
-    List<Record> records = this.transaction.run(query).list();
-    List<Long> result =
-        records.stream().map(record -> record.get("dst.id").asLong()).collect(Collectors.toList());
+  // Lookups by id go through the GroundObject label, whose index covers every kind of object.
+  private static String labels(String label, List<DbDataContainer> attributes) {
+    boolean byId = attributes
+        .stream()
+        .anyMatch(container -> container.getField().equals("id") && container.getValue() != null);
 
-    return result;
+    return (label == null ? "" : ":" + label) + (byId ? ":" + OBJECT_LABEL : "");
+  }
+
+  // The names of the properties that are set, which together with the label determine the
+  // text of a query. Null values are left out entirely, as before.
+  private static String shape(List<DbDataContainer> values) {
+    return values
+        .stream()
+        .filter(container -> container.getValue() != null)
+        .map(DbDataContainer::getField)
+        .collect(Collectors.joining(","));
+  }
+
+  private static String propertyMap(String prefix, List<DbDataContainer> values) {
+    return values
+        .stream()
+        .filter(container -> container.getValue() != null)
+        .map(container -> container.getField() + ": $" + prefix + container.getField())
+        .collect(Collectors.joining(", ", "{", "}"));
+  }
+
+  private static void addParameters(Map<String, Object> parameters, String prefix,
+                                    List<DbDataContainer> values) {
+    for (DbDataContainer container : values) {
+      if (container.getValue() != null) {
+        parameters.put(prefix + container.getField(), container.getValue());
+      }
+    }
   }
 
   @Override
-  public void commit() {
-    this.transaction.success();
+  public void commit() throws GroundDBException {
+    this.finish(true);
   }
 
   @Override
-  public void abort() {
-    this.transaction.failure();
+  public void abort() throws GroundDBException {
+    this.finish(false);
+  }
+
+  @Override
+  public void release() throws GroundDBException {
+    this.abort();
   }
 
   @Override
   public void close() {
-    this.transaction.close();
-    this.session.close();
-    this.driver.close();
+    this.pool.close();
+  }
+
+  private Transaction getTransaction() throws GroundDBException {
+    Neo4jTransaction current = this.currentTransaction.get();
+
+    if (current == null) {
+      Session session = this.pool.acquire();
+      long leasedAt = System.nanoTime();
+
+      try {
+        current = new Neo4jTransaction(session, session.beginTransaction(), leasedAt);
+      } catch (RuntimeException e) {
+        this.pool.release(session, leasedAt);
+        throw new GroundDBException(e);
+      }
+
+      this.currentTransaction.set(current);
+      this.openTransactions.inc();
+    }
+
+    return current.transaction;
+  }
+
+  private void finish(boolean success) throws GroundDBException {
+    Neo4jTransaction current = this.currentTransaction.get();
+    if (current == null) {
+      return;
+    }
+
+    this.currentTransaction.remove();
+    this.openTransactions.dec();
+    try {
+      if (success) {
+        current.transaction.success();
+      } else {
+        current.transaction.failure();
+      }
+
+      // Commits or rolls back, depending on which of the two was called.
+      current.transaction.close();
+    } catch (RuntimeException e) {
+      throw new GroundDBException(e);
+    } finally {
+      this.pool.release(current.session, current.leasedAt);
+    }
   }
 
   public static String getStringFromValue(StringValue value) {
@@ -371,15 +726,26 @@ public class Neo4jClient extends DBClient {
   }
 
   @VisibleForTesting
-  public void dropData() {
-    Session session = this.driver.session();
-    Transaction transaction = session.beginTransaction();
+  public void dropData() throws GroundDBException {
+    // Whatever this thread left open would otherwise hold locks on the data being deleted.
+    this.abort();
+
+    Transaction transaction = this.getTransaction();
     transaction.run("MATCH ()-[e]->() DELETE e;");
     transaction.run("MATCH (n) DELETE n;");
 
-    transaction.success();
-    transaction.close();
+    this.commit();
+  }
+
+  private static class Neo4jTransaction {
+    private final Session session;
+    private final Transaction transaction;
+    private final long leasedAt;
 
-    session.close();
+    Neo4jTransaction(Session session, Transaction transaction, long leasedAt) {
+      this.session = session;
+      this.transaction = transaction;
+      this.leasedAt = leasedAt;
+    }
   }
 }
@@ -0,0 +1,124 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.berkeley.ground.exceptions.GroundDBException;
+import org.neo4j.driver.v1.AuthTokens;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Session;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of Neo4j sessions. The driver keeps the underlying connections open between
+ * sessions; this pool limits how many sessions are in use at once, so that callers wait up to the
+ * configured timeout instead of failing once the driver runs out of connections.
+ */
+class Neo4jSessionPool implements AutoCloseable {
+  // the driver has room for one session beyond the pool, for work that must not wait on it
+  private static final int RESERVED_SESSIONS = 1;
+
+  private final Driver driver;
+  private final int maxSize;
+  private final long timeoutMillis;
+
+  private final Semaphore permits;
+
+  private final Timer waitTimer;
+  private final Timer usageTimer;
+
+  Neo4jSessionPool(String host, String username, String password, int maxSize,
+                   long timeoutMillis, MetricRegistry metricRegistry) throws GroundDBException {
+    if (maxSize < 1) {
+      throw new GroundDBException("Session pool size must be positive, got " + maxSize + ".");
+    }
+
+    this.driver = GraphDatabase.driver("bolt://" + host, AuthTokens.basic(username, password),
+        Config.build().withMaxSessions(maxSize + RESERVED_SESSIONS).toConfig());
+    this.maxSize = maxSize;
+    this.timeoutMillis = timeoutMillis;
+    this.permits = new Semaphore(maxSize, true);
+
+    this.waitTimer = metricRegistry.timer(MetricRegistry.name(Neo4jClient.class, "pool", "wait"));
+    this.usageTimer = metricRegistry.timer(MetricRegistry.name(Neo4jClient.class, "pool", "usage"));
+    metricRegistry.register(MetricRegistry.name(Neo4jClient.class, "pool", "active"),
+        (Gauge<Integer>) () -> this.maxSize - this.permits.availablePermits());
+  }
+
+  /**
+   * Borrow a session.
+   *
+   * @return a session that is exclusively owned by the caller until it is released
+   */
+  Session acquire() throws GroundDBException {
+    Timer.Context waitContext = this.waitTimer.time();
+
+    try {
+      if (!this.permits.tryAcquire(this.timeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new GroundDBException("Timed out after " + this.timeoutMillis
+            + " ms waiting for one of " + this.maxSize + " database sessions.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GroundDBException(e);
+    } finally {
+      waitContext.stop();
+    }
+
+    try {
+      return this.driver.session();
+    } catch (RuntimeException e) {
+      this.permits.release();
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Open the reserved session, which is not counted against the pool. This never waits for a
+   * pooled session, so it is safe to call while holding one. The caller must close the session,
+   * and must make sure that only one is open at a time.
+   */
+  Session openReserved() throws GroundDBException {
+    try {
+      return this.driver.session();
+    } catch (RuntimeException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Close a borrowed session, which hands its connection back to the driver.
+   *
+   * @param session the session to return
+   * @param leasedAt when the session was acquired, from System.nanoTime()
+   */
+  void release(Session session, long leasedAt) {
+    try {
+      session.close();
+    } finally {
+      this.permits.release();
+      this.usageTimer.update(System.nanoTime() - leasedAt, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void close() {
+    this.driver.close();
+  }
+}
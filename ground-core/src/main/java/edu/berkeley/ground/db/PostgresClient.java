@@ -11,38 +11,91 @@
  */
 package edu.berkeley.ground.db;
 
+import com.codahale.metrics.MetricRegistry;
+
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.EmptyResultException;
 import edu.berkeley.ground.exceptions.GroundDBException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class PostgresClient extends DBClient {
   private static final Logger LOGGER = LoggerFactory.getLogger(PostgresClient.class);
-  private static final String JDBCString = "jdbc:postgresql://%s:%d/%s?stringtype=unspecified";
+  private static final String JDBCString = "jdbc:postgresql://%s:%d/%s?stringtype=unspecified&reWriteBatchedInserts=true";
+
+  private static final int DEFAULT_POOL_SIZE = 1;
+  private static final long DEFAULT_POOL_TIMEOUT_MILLIS = 30000;
+
+  // advisory lock key that closure writers share and a rebuild of node_version_closure holds alone
+  private static final long CLOSURE_LOCK_ID = 0x67726f756e64L;
+
+  // Closure writers also lock the node versions whose paths they change, hashed into this many
+  // advisory locks (keyed by CLOSURE_LOCK_CLASS and the bucket). A writer that would need more
+  // than MAX_CLOSURE_LOCKS of them takes CLOSURE_LOCK_ID alone instead.
+  private static final int CLOSURE_LOCK_CLASS = 0x67726f75;
+  private static final int CLOSURE_LOCK_BUCKETS = 4096;
+  private static final int MAX_CLOSURE_LOCKS = 32;
+
+  // A counter's first lease starts above the ids of the machine that are already in the table of
+  // the counter, so that ids written before leases were kept are not handed out again.
+  private static final String LEASE_IDS =
+      "insert into id_lease (machine_id, name, high_water) "
+          + "select ?, ?, coalesce(max(id) - ?, 0) + 1 + ? from %s where id between ? and ? "
+          + "on conflict (machine_id, name) do update "
+          + "set high_water = id_lease.high_water + ? returning high_water - ?;";
+
+  // the table holding the ids of each IdGenerator counter
+  private static final Map<String, String> COUNTER_TABLES = new HashMap<>();
+
+  static {
+    COUNTER_TABLES.put("version", "version");
+    COUNTER_TABLES.put("successor", "version_successor");
+    COUNTER_TABLES.put("item", "item");
+  }
+
+  private final PostgresConnectionPool pool;
 
-  private final Connection connection;
-  private final Map<String, PreparedStatement> preparedStatements;
+  // Id leases are committed on a connection of their own, outside of any request's transaction.
+  private PostgresConnection leaseConnection;
+
+  // The connection (and so the transaction) owned by the calling thread. A connection is borrowed
+  // on first use and returned to the pool when the transaction is committed or aborted, which
+  // gives every request its own transaction scope.
+  private final ThreadLocal<PostgresConnection> currentConnection;
 
   public PostgresClient(String host, int port, String dbName, String username, String password)
       throws GroundDBException {
+    this(host, port, dbName, username, password, DEFAULT_POOL_SIZE, DEFAULT_POOL_TIMEOUT_MILLIS,
+        new MetricRegistry());
+  }
+
+  /**
+   * Create a client backed by a pool of connections.
+   *
+   * @param poolSize the maximum number of open connections
+   * @param poolTimeoutMillis how long to wait for a connection when the pool is exhausted
+   * @param metricRegistry the registry to report pool wait and usage to
+   */
+  public PostgresClient(String host, int port, String dbName, String username, String password,
+                        int poolSize, long poolTimeoutMillis, MetricRegistry metricRegistry)
+      throws GroundDBException {
     String url = String.format(PostgresClient.JDBCString, host, port, dbName);
-    try {
-      this.connection = DriverManager.getConnection(url, username, password);
-      this.connection.setAutoCommit(false);
-    } catch (SQLException e) {
-      throw new GroundDBException(e);
-    }
 
-    this.preparedStatements = new HashMap<>();
+    this.pool = new PostgresConnectionPool(url, username, password, poolSize, poolTimeoutMillis,
+        metricRegistry);
+    this.currentConnection = new ThreadLocal<>();
   }
 
   /**
-   * Insert a new row into table with insertValues.
+   * Queue a new row for insertion into table. Queued rows are written in batches when the
+   * transaction commits, or earlier if a query reads from a table that has rows queued.
    *
    * @param table the table to update
    * @param insertValues the values to put into table
@@ -52,22 +105,104 @@ public class PostgresClient extends DBClient {
         insertValues.stream().map(DbDataContainer::getField).collect(Collectors.joining(", "));
     String values = String.join(", ", Collections.nCopies(insertValues.size(), "?"));
 
-    String insert = "insert into " + table + "(" + fields + ") values (" + values + ");";
-    try {
-      PreparedStatement preparedStatement = this.prepareStatement(insert);
-      int index = 1;
-      for (DbDataContainer container : insertValues) {
-        PostgresClient.setValue(
-            preparedStatement, container.getValue(), container.getGroundType(), index);
+    // No trailing semicolon, so that the driver can rewrite the batch into multi-row inserts.
+    String insert = "insert into " + table + "(" + fields + ") values (" + values + ")";
+    this.getConnection().queueInsert(table, insert, insertValues);
+  }
 
-        index++;
+  /**
+   * Write all queued rows to the database, issuing one JDBC batch per insert statement.
+   */
+  public void flush() throws GroundDBException {
+    PostgresConnection connection = this.currentConnection.get();
+    if (connection == null || !connection.hasPendingInserts()) {
+      return;
+    }
+
+    Map<String, List<List<DbDataContainer>>> pendingInserts = connection.drainPendingInserts();
+    for (Map.Entry<String, List<List<DbDataContainer>>> entry : pendingInserts.entrySet()) {
+      List<List<DbDataContainer>> rows = entry.getValue();
+
+      try {
+        PreparedStatement preparedStatement = connection.prepareStatement(entry.getKey());
+        for (List<DbDataContainer> row : rows) {
+          int index = 1;
+          for (DbDataContainer container : row) {
+            PostgresClient.setValue(
+                preparedStatement, container.getValue(), container.getGroundType(), index);
+
+            index++;
+          }
+
+          preparedStatement.addBatch();
+        }
+
+        LOGGER.info("Executing batch of " + rows.size() + " rows: " + entry.getKey() + ".");
+
+        preparedStatement.executeBatch();
+      } catch (SQLException e) {
+        // The batch exception itself only says which statement failed; the cause is chained.
+        SQLException cause = e.getNextException() == null ? e : e.getNextException();
+        LOGGER.error("Unexpected error in database insertion: " + cause.getMessage());
+
+        throw new GroundDBException(cause);
       }
+    }
+  }
+
+  /**
+   * Load rows into table with COPY ... FROM STDIN. This is much cheaper than inserting the rows
+   * one by one, but the rows are written immediately rather than at commit.
+   *
+   * @param table the table to load
+   * @param rows the rows to load; every row must list the same fields in the same order
+   */
+  public void copy(String table, List<List<DbDataContainer>> rows) throws GroundDBException {
+    if (rows.isEmpty()) {
+      return;
+    }
+
+    // Anything queued earlier in the transaction may be referenced by the copied rows.
+    this.flush();
+
+    String fields =
+        rows.get(0).stream().map(DbDataContainer::getField).collect(Collectors.joining(", "));
+    String copy = "copy " + table + "(" + fields + ") from stdin";
+
+    CopyIn copyIn = null;
+    try {
+      PGConnection connection =
+          this.getConnection().getConnection().unwrap(PGConnection.class);
+      copyIn = connection.getCopyAPI().copyIn(copy);
 
-      LOGGER.info("Executing update: " + preparedStatement.toString() + ".");
+      StringBuilder line = new StringBuilder();
+      for (List<DbDataContainer> row : rows) {
+        line.setLength(0);
 
-      preparedStatement.executeUpdate();
+        for (int i = 0; i < row.size(); i++) {
+          if (i > 0) {
+            line.append('\t');
+          }
+
+          DbDataContainer container = row.get(i);
+          PostgresClient.appendCopyValue(line, container.getValue(), container.getGroundType());
+        }
+
+        byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+      }
+
+      LOGGER.info("Copied " + copyIn.endCopy() + " rows into " + table + ".");
     } catch (SQLException e) {
-      LOGGER.error("Unexpected error in database insertion: " + e.getMessage());
+      LOGGER.error("Unexpected error in database copy: " + e.getMessage());
+
+      if (copyIn != null && copyIn.isActive()) {
+        try {
+          copyIn.cancelCopy();
+        } catch (SQLException cancelException) {
+          LOGGER.warn("Unable to cancel copy: " + cancelException.getMessage());
+        }
+      }
 
       throw new GroundDBException(e);
     }
@@ -96,6 +231,10 @@ public class PostgresClient extends DBClient {
     }
 
     select += ";";
+    if (this.getConnection().hasPendingInserts(table)) {
+      this.flush();
+    }
+
     try {
       PreparedStatement preparedStatement = this.prepareStatement(select);
       int index = 1;
@@ -124,8 +263,225 @@ public class PostgresClient extends DBClient {
     }
   }
 
+  /**
+   * Run a query that equalitySelect cannot express, such as a join. Any queued rows are written
+   * first.
+   *
+   * @param query the query, with a ? for each parameter
+   * @param parameters the values of the parameters, in order
+   */
+  public QueryResults query(String query, List<DbDataContainer> parameters)
+      throws GroundDBException, EmptyResultException {
+    this.flush();
+
+    try {
+      PreparedStatement preparedStatement = this.prepareStatement(query);
+      int index = 1;
+      for (DbDataContainer container : parameters) {
+        PostgresClient.setValue(
+            preparedStatement, container.getValue(), container.getGroundType(), index);
+
+        index++;
+      }
+
+      return PostgresClient.executeQuery(preparedStatement);
+    } catch (SQLException e) {
+      LOGGER.error("Unexpected error in database query: " + e.getMessage());
+
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Run a query whose only parameter is an array of ids, such as "... where id = any(?)". This
+   * looks up any number of rows with a single statement. Any queued rows are written first.
+   *
+   * @param query the query, with a single ? for the ids
+   * @param ids the ids to bind as a bigint array
+   */
+  public QueryResults queryByIds(String query, Collection<Long> ids)
+      throws GroundDBException, EmptyResultException {
+    this.flush();
+
+    try {
+      PreparedStatement preparedStatement = this.prepareStatement(query);
+      preparedStatement.setArray(1,
+          preparedStatement.getConnection().createArrayOf("bigint", ids.toArray()));
+
+      return PostgresClient.executeQuery(preparedStatement);
+    } catch (SQLException e) {
+      LOGGER.error("Unexpected error in database query: " + e.getMessage());
+
+      throw new GroundDBException(e);
+    }
+  }
+
+  private static QueryResults executeQuery(PreparedStatement preparedStatement)
+      throws SQLException, EmptyResultException {
+    LOGGER.info("Executing query: " + preparedStatement.toString() + ".");
+
+    ResultSet resultSet = preparedStatement.executeQuery();
+    if (!resultSet.isBeforeFirst()) {
+      throw new EmptyResultException(
+          "No results found for query: " + preparedStatement.toString());
+    }
+
+    resultSet.next();
+    return new PostgresResults(resultSet);
+  }
+
+  /**
+   * Look up every node version reachable from nodeVersionId in the node_version_closure table.
+   *
+   * @param nodeVersionId the node version to start from
+   */
   @Override
   public List<Long> transitiveClosure(long nodeVersionId) throws GroundDBException {
+    try {
+      // Closure rows are written as soon as an edge version is created, so there is nothing to
+      // flush here.
+      PreparedStatement statement = this.prepareStatement(
+          "select descendant_id from node_version_closure where ancestor_id = ?;");
+      statement.setLong(1, nodeVersionId);
+
+      return PostgresClient.readLongs(statement.executeQuery());
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Look up a page of the node versions reachable from nodeVersionId. Unbounded traversals read
+   * node_version_closure, which is keyed on (ancestor_id, descendant_id), so a page is a range
+   * scan. node_version_closure does not know how far apart two node versions are, so bounded
+   * traversals walk edge_version with a recursive query instead.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> transitiveClosure(long nodeVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    if (maxDepth != UNBOUNDED_DEPTH) {
+      return this.walk("edge_version", "from_node_version_id", "to_node_version_id",
+          nodeVersionId, maxDepth, afterId, limit);
+    }
+
+    return this.closurePage("ancestor_id", "descendant_id", nodeVersionId, afterId, limit);
+  }
+
+  /**
+   * Look up a page of the node versions that reach nodeVersionId, the reverse of
+   * transitiveClosure. Unbounded traversals read node_version_closure through its
+   * (descendant_id, ancestor_id) index.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param maxDepth the most edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  @Override
+  public List<Long> upstreamClosure(long nodeVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    if (maxDepth != UNBOUNDED_DEPTH) {
+      return this.walk("edge_version", "to_node_version_id", "from_node_version_id",
+          nodeVersionId, maxDepth, afterId, limit);
+    }
+
+    return this.closurePage("descendant_id", "ancestor_id", nodeVersionId, afterId, limit);
+  }
+
+  // Only the closure table can be read a page at a time; a bounded walk visits everything.
+  @Override
+  public boolean pagesClosure(int maxDepth) {
+    return maxDepth == UNBOUNDED_DEPTH;
+  }
+
+  /**
+   * Look up a page of the rich versions that reach richVersionId through lineage edge versions.
+   * There is no closure table for lineage, so this always walks lineage_edge_version.
+   *
+   * @param richVersionId the rich version to start from
+   * @param maxDepth the most lineage edges to follow back, or UNBOUNDED_DEPTH
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamLineage(long richVersionId, int maxDepth, long afterId, int limit)
+      throws GroundDBException {
+    return this.walk("lineage_edge_version", "to_rich_version_id", "from_rich_version_id",
+        richVersionId, maxDepth, afterId, limit);
+  }
+
+  // Reads a page of one side of node_version_closure, given the other.
+  private List<Long> closurePage(String startColumn, String resultColumn, long start,
+                                 long afterId, int limit) throws GroundDBException {
+    try {
+      // Closure rows are written as soon as an edge version is created, so there is nothing to
+      // flush here.
+      PreparedStatement statement = this.prepareStatement(
+          "select " + resultColumn + " from node_version_closure where " + startColumn + " = ?\n"
+              + "    and " + resultColumn + " > ? order by " + resultColumn + " limit ?;");
+      statement.setLong(1, start);
+      statement.setLong(2, afterId);
+      statement.setInt(3, limit);
+
+      return PostgresClient.readLongs(statement.executeQuery());
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Walk the rows of an edge table from start with a recursive query, following them from
+   * sourceColumn to targetColumn, and return a page of the ids that were reached.
+   */
+  private List<Long> walk(String table, String sourceColumn, String targetColumn, long start,
+                          int maxDepth, long afterId, int limit) throws GroundDBException {
+    this.flush();
+
+    boolean bounded = maxDepth != UNBOUNDED_DEPTH;
+
+    // Union drops repeated rows. Without a depth, every vertex is reached once, even on a cycle;
+    // with one, a vertex can be reached once per depth, up to maxDepth times.
+    String query =
+        "with recursive paths(vto" + (bounded ? ", depth" : "") + ") as (\n"
+            + "    (select " + targetColumn + (bounded ? ", 1" : "") + " from " + table
+            + " where " + sourceColumn + " = ?) "
+            + "union\n"
+            + "    (select e." + targetColumn + (bounded ? ", p.depth + 1" : "") + "\n"
+            + "    from paths p, " + table + " e\n"
+            + "    where p.vto = e." + sourceColumn + (bounded ? " and p.depth < ?" : "") + ")\n"
+            + ") select distinct vto from paths where vto > ? order by vto limit ?;";
+
+    try {
+      PreparedStatement statement = this.prepareStatement(query);
+
+      int index = 1;
+      statement.setLong(index++, start);
+      if (bounded) {
+        statement.setInt(index++, maxDepth);
+      }
+      statement.setLong(index++, afterId);
+      statement.setInt(index, limit);
+
+      return PostgresClient.readLongs(statement.executeQuery());
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Compute the transitive closure of nodeVersionId by walking edge_version with a recursive
+   * query. This returns the same node versions as transitiveClosure, but does not rely on
+   * node_version_closure being up to date.
+   *
+   * @param nodeVersionId the node version to start from
+   */
+  public List<Long> transitiveClosureRecursive(long nodeVersionId) throws GroundDBException {
+    this.flush();
+
     try {
       // recursive query implementation
       PreparedStatement statement =
@@ -141,91 +497,434 @@ public class PostgresClient extends DBClient {
 
       statement.setLong(1, nodeVersionId);
 
-      ResultSet resultSet = statement.executeQuery();
+      return PostgresClient.readLongs(statement.executeQuery());
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  /**
+   * Record new edges in node_version_closure: for every edge from -> to, every ancestor of from
+   * (and from itself) now reaches to and every descendant of to.
+   *
+   * <p>Two transactions whose new edges lie on a common path would miss each other's half of it,
+   * so each one locks the node versions it connects (the ancestors of every from and the
+   * descendants of every to) with transaction-level advisory locks, held until commit or abort.
+   * Edges in unrelated parts of the graph are recorded concurrently.
+   *
+   * @param edges the new edges, as {from node version id, to node version id} pairs
+   */
+  public void addReachability(List<long[]> edges) throws GroundDBException {
+    if (edges.isEmpty()) {
+      return;
+    }
+
+    try {
+      this.lockClosure(edges);
+
+      PreparedStatement statement = this.prepareStatement(
+          "insert into node_version_closure(ancestor_id, descendant_id)\n"
+              + "select a.id, d.id from\n"
+              + "    (select ?::bigint as id union "
+              + "     select ancestor_id from node_version_closure where descendant_id = ?) a,\n"
+              + "    (select ?::bigint as id union "
+              + "     select descendant_id from node_version_closure where ancestor_id = ?) d\n"
+              + "where not exists (select 1 from node_version_closure c\n"
+              + "    where c.ancestor_id = a.id and c.descendant_id = d.id)");
+
+      // The statements in a batch run in order, so each edge sees the paths added before it.
+      for (long[] edge : edges) {
+        statement.setLong(1, edge[0]);
+        statement.setLong(2, edge[0]);
+        statement.setLong(3, edge[1]);
+        statement.setLong(4, edge[1]);
+        statement.addBatch();
+      }
+
+      statement.executeBatch();
+    } catch (SQLException e) {
+      SQLException cause = e.getNextException() == null ? e : e.getNextException();
+      LOGGER.error("Unable to update node_version_closure: " + cause.getMessage());
+
+      throw new GroundDBException(cause);
+    }
+  }
+
+  // Locks the buckets of the node versions whose paths the edges change. Paths committed while
+  // waiting can reach further, so the buckets are read again once they are held. Buckets are only
+  // ever locked in ascending order, so that writers do not deadlock: if more are found, the locks
+  // are given back by rolling back to a savepoint, and the whole set is locked again in order.
+  private void lockClosure(List<long[]> edges) throws GroundDBException, SQLException {
+    Set<Long> froms = new HashSet<>();
+    Set<Long> tos = new HashSet<>();
+    for (long[] edge : edges) {
+      froms.add(edge[0]);
+      tos.add(edge[1]);
+    }
+
+    Connection connection = this.getConnection().getConnection();
+    Set<Integer> buckets = this.closureBuckets(froms, tos);
+    while (buckets.size() <= MAX_CLOSURE_LOCKS) {
+      Savepoint savepoint = connection.setSavepoint();
+
+      PreparedStatement shared = this.prepareStatement("select pg_advisory_xact_lock_shared(?);");
+      shared.setLong(1, CLOSURE_LOCK_ID);
+      shared.executeQuery().close();
+
+      PreparedStatement lock = this.prepareStatement("select pg_advisory_xact_lock(?, ?);");
+      for (int bucket : new TreeSet<>(buckets)) {
+        lock.setInt(1, CLOSURE_LOCK_CLASS);
+        lock.setInt(2, bucket);
+        lock.executeQuery().close();
+      }
+
+      Set<Integer> found = this.closureBuckets(froms, tos);
+      if (buckets.containsAll(found)) {
+        connection.releaseSavepoint(savepoint);
+        return;
+      }
+
+      connection.rollback(savepoint);
+      buckets.addAll(found);
+    }
+
+    PreparedStatement lock = this.prepareStatement("select pg_advisory_xact_lock(?);");
+    lock.setLong(1, CLOSURE_LOCK_ID);
+    lock.executeQuery().close();
+  }
 
-      List<Long> result = new ArrayList<>();
+  // Reads the lock buckets of the froms and their ancestors and of the tos and their descendants.
+  private Set<Integer> closureBuckets(Set<Long> froms, Set<Long> tos)
+      throws GroundDBException, SQLException {
+    PreparedStatement statement = this.prepareStatement(
+        "select distinct ((id % ?) + ?) % ? from (\n"
+            + "    select unnest(?::bigint[]) as id union\n"
+            + "    select unnest(?::bigint[]) union\n"
+            + "    select ancestor_id from node_version_closure where descendant_id = any(?) union\n"
+            + "    select descendant_id from node_version_closure where ancestor_id = any(?)) ids;");
+
+    Connection connection = statement.getConnection();
+    Array fromIds = connection.createArrayOf("bigint", froms.toArray());
+    Array toIds = connection.createArrayOf("bigint", tos.toArray());
+    statement.setInt(1, CLOSURE_LOCK_BUCKETS);
+    statement.setInt(2, CLOSURE_LOCK_BUCKETS);
+    statement.setInt(3, CLOSURE_LOCK_BUCKETS);
+    statement.setArray(4, fromIds);
+    statement.setArray(5, toIds);
+    statement.setArray(6, fromIds);
+    statement.setArray(7, toIds);
+
+    Set<Integer> buckets = new HashSet<>();
+    try (ResultSet resultSet = statement.executeQuery()) {
       while (resultSet.next()) {
-        result.add(resultSet.getLong(1));
+        buckets.add(resultSet.getInt(1));
       }
+    }
 
-      return result;
+    return buckets;
+  }
+
+  /**
+   * Recompute node_version_closure from scratch out of edge_version.
+   *
+   * @return the number of rows in the rebuilt table
+   */
+  public int rebuildClosure() throws GroundDBException {
+    this.flush();
+
+    try {
+      PreparedStatement lock = this.prepareStatement("select pg_advisory_xact_lock(?);");
+      lock.setLong(1, CLOSURE_LOCK_ID);
+      lock.executeQuery().close();
+
+      this.prepareStatement("delete from node_version_closure;").executeUpdate();
+
+      return this.prepareStatement(
+          "insert into node_version_closure(ancestor_id, descendant_id)\n"
+              + "with recursive paths(vfrom, vto) as (\n"
+              + "    (select from_node_version_id, to_node_version_id from edge_version)\n"
+              + "union\n"
+              + "    (select p.vfrom, ev.to_node_version_id\n"
+              + "    from paths p, edge_version ev\n"
+              + "    where p.vto = ev.from_node_version_id)\n"
+              + ") select vfrom, vto from paths;").executeUpdate();
     } catch (SQLException e) {
       throw new GroundDBException(e);
     }
   }
 
-  public List<Long> adjacentNodes(long nodeVersionId, String edgeNameRegex)
+  /**
+   * Get the node versions that nodeVersionId has an edge version to, where the name of the edge
+   * contains edgeName.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName)
       throws GroundDBException {
-    String query =
-        "select endpoint_two from EdgeVersions ev where ev.endpoint_one = ?"
-            + " and ev.edge_id like ?;";
+    return this.adjacentNodes(nodeVersionId, edgeName, Long.MIN_VALUE, Integer.MAX_VALUE);
+  }
 
-    edgeNameRegex = '%' + edgeNameRegex + '%';
+  /**
+   * Get a page of the node versions that nodeVersionId has an edge version to, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> adjacentNodes(long nodeVersionId, String edgeName, long afterId, int limit)
+      throws GroundDBException {
+    return this.adjacent("edge_version", "edge_id", "edge", "from_node_version_id",
+        "to_node_version_id", nodeVersionId, edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the node versions that have an edge version to nodeVersionId, where the name of
+   * the edge contains edgeName, in ascending order of id.
+   *
+   * @param nodeVersionId the node version to start from
+   * @param edgeName the text that the edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentNodes(long nodeVersionId, String edgeName, long afterId,
+                                          int limit) throws GroundDBException {
+    return this.adjacent("edge_version", "edge_id", "edge", "to_node_version_id",
+        "from_node_version_id", nodeVersionId, edgeName, afterId, limit);
+  }
+
+  /**
+   * Get a page of the rich versions that have a lineage edge version to richVersionId, where the
+   * name of the lineage edge contains lineageEdgeName, in ascending order of id.
+   *
+   * @param richVersionId the rich version to start from
+   * @param lineageEdgeName the text that the lineage edge names must contain
+   * @param afterId only ids greater than this are returned
+   * @param limit the most ids to return
+   */
+  public List<Long> upstreamAdjacentLineage(long richVersionId, String lineageEdgeName,
+                                            long afterId, int limit) throws GroundDBException {
+    return this.adjacent("lineage_edge_version", "lineage_edge_id", "lineage_edge",
+        "to_rich_version_id", "from_rich_version_id", richVersionId, lineageEdgeName, afterId,
+        limit);
+  }
+
+  // Reads a page of the ends of the rows of an edge table that start at start, where the name of
+  // the item the row is a version of contains name.
+  private List<Long> adjacent(String table, String itemColumn, String itemTable,
+                              String sourceColumn, String targetColumn, long start, String name,
+                              long afterId, int limit) throws GroundDBException {
+    this.flush();
 
     try {
-      PreparedStatement statement = this.prepareStatement(query);
-      statement.setLong(1, nodeVersionId);
-      statement.setString(2, edgeNameRegex);
+      // strpos rather than like, so that % and _ in the name are not wildcards
+      PreparedStatement statement = this.prepareStatement(
+          "select distinct v." + targetColumn + " from " + table + " v\n"
+              + "    join " + itemTable + " i on i.item_id = v." + itemColumn + "\n"
+              + "where v." + sourceColumn + " = ? and strpos(i.name, ?) > 0\n"
+              + "    and v." + targetColumn + " > ?\n"
+              + "order by v." + targetColumn + " limit ?;");
+      statement.setLong(1, start);
+      statement.setString(2, name);
+      statement.setLong(3, afterId);
+      statement.setInt(4, limit);
+
+      return PostgresClient.readLongs(statement.executeQuery());
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
 
-      ResultSet resultSet = statement.executeQuery();
-      List<Long> result = new ArrayList<>();
+  /**
+   * Lease count values of an IdGenerator counter. The lease is committed before this returns,
+   * whatever happens to the calling thread's transaction. The first lease of a counter starts
+   * after the largest id of the machine in the counter's table.
+   *
+   * @param machineId the machine that owns the counter
+   * @param counter the name of the counter
+   * @param count the number of values to lease
+   * @param prefix the prefix of the ids of the machine, from IdGenerator.prefix
+   * @param maxValue the largest counter value, from IdGenerator.maxCounterValue
+   * @return the first leased value
+   */
+  public synchronized long leaseIds(int machineId, String counter, long count, long prefix,
+                                    long maxValue) throws GroundDBException {
+    String table = COUNTER_TABLES.get(counter);
+    if (table == null) {
+      throw new GroundDBException("Unknown id counter " + counter + ".");
+    }
 
-      while (resultSet.next()) {
-        result.add(resultSet.getLong(1));
+    try {
+      if (this.leaseConnection == null) {
+        this.leaseConnection = this.pool.openUnpooled();
       }
 
-      return result;
+      PreparedStatement statement =
+          this.leaseConnection.prepareStatement(String.format(LEASE_IDS, table));
+      statement.setInt(1, machineId);
+      statement.setString(2, counter);
+      statement.setLong(3, prefix);
+      statement.setLong(4, count);
+      statement.setLong(5, prefix);
+      statement.setLong(6, prefix + maxValue);
+      statement.setLong(7, count);
+      statement.setLong(8, count);
+
+      long first;
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        first = resultSet.getLong(1);
+      }
+
+      this.leaseConnection.commit();
+      LOGGER.info("Leased " + count + " " + counter + " ids starting at " + first + ".");
+      return first;
     } catch (SQLException e) {
+      this.closeLeaseConnection();
       throw new GroundDBException(e);
     }
   }
 
+  /**
+   * Run callback once the calling thread's transaction has committed. Nothing is run if the
+   * transaction is aborted instead. This is how caches learn about committed writes without
+   * exposing uncommitted ones to other requests.
+   *
+   * @param callback the action to run after commit
+   */
+  public void afterCommit(Runnable callback) throws GroundDBException {
+    this.getConnection().afterCommit(callback);
+  }
+
   @Override
   public void commit() throws GroundDBException {
+    PostgresConnection connection = this.currentConnection.get();
+    if (connection == null) {
+      return;
+    }
+
+    // Write out queued rows first; if that fails, the connection stays with this thread so that
+    // the caller can abort the transaction.
+    this.flush();
+
+    this.currentConnection.remove();
+    List<Runnable> callbacks = connection.drainCommitCallbacks();
+    boolean broken = false;
     try {
-      this.connection.commit();
+      connection.commit();
     } catch (SQLException e) {
+      broken = true;
       throw new GroundDBException(e);
+    } finally {
+      this.pool.release(connection, broken);
+    }
+
+    for (Runnable callback : callbacks) {
+      callback.run();
     }
   }
 
   @Override
   public void abort() throws GroundDBException {
+    PostgresConnection connection = this.currentConnection.get();
+    if (connection == null) {
+      return;
+    }
+
+    this.currentConnection.remove();
+    boolean broken = false;
     try {
-      this.connection.rollback();
+      connection.rollback();
     } catch (SQLException e) {
+      broken = true;
       throw new GroundDBException(e);
+    } finally {
+      this.pool.release(connection, broken);
+    }
+  }
+
+  @Override
+  public void release() throws GroundDBException {
+    if (this.currentConnection.get() != null) {
+      LOGGER.warn("Rolling back a transaction that was neither committed nor aborted.");
+      this.abort();
     }
   }
 
   @Override
   public void close() throws GroundDBException {
-    try {
-      for (PreparedStatement statement : this.preparedStatements.values()) {
-        statement.close();
-      }
+    this.abort();
+    this.closeLeaseConnection();
+    this.pool.close();
+  }
 
-      this.connection.close();
+  private synchronized void closeLeaseConnection() {
+    if (this.leaseConnection == null) {
+      return;
+    }
+
+    try {
+      this.leaseConnection.close();
     } catch (SQLException e) {
-      throw new GroundDBException(e);
+      LOGGER.warn("Unable to close id lease connection: " + e.getMessage());
     }
+
+    this.leaseConnection = null;
   }
 
   private PreparedStatement prepareStatement(String sql) throws GroundDBException {
-    // We cannot use computeIfAbsent, as prepareStatement throws an exception.
-    // Check if the statement is already in the cache; if so, use it.
-    PreparedStatement existingStatement = this.preparedStatements.get(sql);
-    if (existingStatement != null) {
-      return existingStatement;
+    return this.getConnection().prepareStatement(sql);
+  }
+
+  private PostgresConnection getConnection() throws GroundDBException {
+    PostgresConnection connection = this.currentConnection.get();
+
+    if (connection == null) {
+      connection = this.pool.acquire();
+      this.currentConnection.set(connection);
     }
 
-    try {
-      // Otherwise, prepare the statement, then cache it.
-      PreparedStatement newStatement = this.connection.prepareStatement(sql);
-      this.preparedStatements.put(sql, newStatement);
-      return newStatement;
-    } catch (SQLException e) {
-      throw new GroundDBException(e);
+    return connection;
+  }
+
+  private static List<Long> readLongs(ResultSet resultSet) throws SQLException {
+    List<Long> result = new ArrayList<>();
+    while (resultSet.next()) {
+      result.add(resultSet.getLong(1));
+    }
+
+    return result;
+  }
+
+  // Writes a value in COPY's text format, following the same null conventions as setValue.
+  private static void appendCopyValue(StringBuilder builder, Object value, GroundType groundType) {
+    if (value == null || (groundType == GroundType.LONG && (long) value == -1)) {
+      builder.append("\\N");
+      return;
+    }
+
+    String text = value.toString();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+
+      switch (c) {
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          builder.append(c);
+      }
     }
   }
 
@@ -0,0 +1,145 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.db;
+
+import edu.berkeley.ground.exceptions.GroundDBException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single pooled JDBC connection along with the prepared statements that have been created on it.
+ * A connection is only ever used by one thread at a time, so none of this is synchronized.
+ */
+class PostgresConnection implements AutoCloseable {
+  private final Connection connection;
+  private final Map<String, PreparedStatement> preparedStatements;
+
+  // Rows waiting to be written, grouped by insert statement in the order in which each statement
+  // was first used. Flushing in this order keeps parent rows ahead of the rows referencing them.
+  private final Map<String, List<List<DbDataContainer>>> pendingInserts;
+  private final Set<String> pendingTables;
+
+  // Run once the current transaction has committed; dropped if it rolls back.
+  private final List<Runnable> commitCallbacks;
+
+  private long leasedAt;
+
+  PostgresConnection(Connection connection) throws SQLException {
+    this.connection = connection;
+    this.connection.setAutoCommit(false);
+
+    this.preparedStatements = new HashMap<>();
+    this.pendingInserts = new LinkedHashMap<>();
+    this.pendingTables = new HashSet<>();
+    this.commitCallbacks = new ArrayList<>();
+  }
+
+  Connection getConnection() {
+    return this.connection;
+  }
+
+  long getLeasedAt() {
+    return this.leasedAt;
+  }
+
+  void setLeasedAt(long leasedAt) {
+    this.leasedAt = leasedAt;
+  }
+
+  PreparedStatement prepareStatement(String sql) throws GroundDBException {
+    // We cannot use computeIfAbsent, as prepareStatement throws an exception.
+    // Check if the statement is already in the cache; if so, use it.
+    PreparedStatement existingStatement = this.preparedStatements.get(sql);
+    if (existingStatement != null) {
+      return existingStatement;
+    }
+
+    try {
+      // Otherwise, prepare the statement, then cache it.
+      PreparedStatement newStatement = this.connection.prepareStatement(sql);
+      this.preparedStatements.put(sql, newStatement);
+      return newStatement;
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+
+  void queueInsert(String table, String insert, List<DbDataContainer> row) {
+    this.pendingInserts.computeIfAbsent(insert, key -> new ArrayList<>()).add(row);
+    this.pendingTables.add(table);
+  }
+
+  boolean hasPendingInserts() {
+    return !this.pendingInserts.isEmpty();
+  }
+
+  boolean hasPendingInserts(String table) {
+    return this.pendingTables.contains(table);
+  }
+
+  /**
+   * Remove and return all queued rows, keyed by the statement that inserts them.
+   */
+  Map<String, List<List<DbDataContainer>>> drainPendingInserts() {
+    Map<String, List<List<DbDataContainer>>> pending = new LinkedHashMap<>(this.pendingInserts);
+
+    this.pendingInserts.clear();
+    this.pendingTables.clear();
+    return pending;
+  }
+
+  void afterCommit(Runnable callback) {
+    this.commitCallbacks.add(callback);
+  }
+
+  /**
+   * Remove and return the callbacks registered during the current transaction.
+   */
+  List<Runnable> drainCommitCallbacks() {
+    List<Runnable> callbacks = new ArrayList<>(this.commitCallbacks);
+
+    this.commitCallbacks.clear();
+    return callbacks;
+  }
+
+  void commit() throws SQLException {
+    this.connection.commit();
+  }
+
+  void rollback() throws SQLException {
+    this.pendingInserts.clear();
+    this.pendingTables.clear();
+    this.commitCallbacks.clear();
+    this.connection.rollback();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try {
+      for (PreparedStatement statement : this.preparedStatements.values()) {
+        statement.close();
+      }
+    } finally {
+      this.preparedStatements.clear();
+      this.connection.close();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.berkeley.ground.exceptions.GroundDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of Postgres connections. Connections are opened lazily up to the maximum size;
+ * once the pool is exhausted, callers wait up to the configured timeout for a connection to be
+ * returned.
+ */
+class PostgresConnectionPool implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PostgresConnectionPool.class);
+
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int maxSize;
+  private final long timeoutMillis;
+
+  private final BlockingQueue<PostgresConnection> idleConnections;
+  private final AtomicInteger openConnections;
+  private final AtomicInteger activeConnections;
+
+  private final Timer waitTimer;
+  private final Timer usageTimer;
+
+  PostgresConnectionPool(String url, String username, String password, int maxSize,
+                         long timeoutMillis, MetricRegistry metricRegistry)
+      throws GroundDBException {
+    if (maxSize < 1) {
+      throw new GroundDBException("Connection pool size must be positive, got " + maxSize + ".");
+    }
+
+    this.url = url;
+    this.username = username;
+    this.password = password;
+    this.maxSize = maxSize;
+    this.timeoutMillis = timeoutMillis;
+
+    this.idleConnections = new ArrayBlockingQueue<>(maxSize);
+    this.openConnections = new AtomicInteger(0);
+    this.activeConnections = new AtomicInteger(0);
+
+    this.waitTimer = metricRegistry.timer(MetricRegistry.name(PostgresClient.class, "pool", "wait"));
+    this.usageTimer =
+        metricRegistry.timer(MetricRegistry.name(PostgresClient.class, "pool", "usage"));
+    metricRegistry.register(MetricRegistry.name(PostgresClient.class, "pool", "active"),
+        (Gauge<Integer>) this.activeConnections::get);
+    metricRegistry.register(MetricRegistry.name(PostgresClient.class, "pool", "idle"),
+        (Gauge<Integer>) this.idleConnections::size);
+    metricRegistry.register(MetricRegistry.name(PostgresClient.class, "pool", "size"),
+        (Gauge<Integer>) this.openConnections::get);
+
+    // Open one connection up front so that a misconfigured database fails at startup.
+    this.openConnections.incrementAndGet();
+    this.idleConnections.add(this.open());
+  }
+
+  /**
+   * Borrow a connection, opening a new one if the pool has not reached its maximum size.
+   *
+   * @return a connection that is exclusively owned by the caller until it is released
+   */
+  PostgresConnection acquire() throws GroundDBException {
+    Timer.Context waitContext = this.waitTimer.time();
+
+    PostgresConnection connection;
+    try {
+      connection = this.idleConnections.poll();
+
+      if (connection == null && this.reserveSlot()) {
+        try {
+          connection = this.open();
+        } catch (GroundDBException e) {
+          this.openConnections.decrementAndGet();
+          throw e;
+        }
+      }
+
+      if (connection == null) {
+        connection = this.idleConnections.poll(this.timeoutMillis, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GroundDBException(e);
+    } finally {
+      waitContext.stop();
+    }
+
+    if (connection == null) {
+      throw new GroundDBException("Timed out after " + this.timeoutMillis
+          + " ms waiting for one of " + this.maxSize + " database connections.");
+    }
+
+    this.activeConnections.incrementAndGet();
+    connection.setLeasedAt(System.nanoTime());
+    return connection;
+  }
+
+  /**
+   * Return a borrowed connection to the pool. Broken connections are closed instead, which frees
+   * their slot for a fresh connection.
+   *
+   * @param connection the connection to return
+   * @param broken whether the last operation on this connection failed at the connection level
+   */
+  void release(PostgresConnection connection, boolean broken) {
+    this.activeConnections.decrementAndGet();
+    this.usageTimer.update(System.nanoTime() - connection.getLeasedAt(), TimeUnit.NANOSECONDS);
+
+    if (!broken && this.idleConnections.offer(connection)) {
+      return;
+    }
+
+    this.openConnections.decrementAndGet();
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      LOGGER.warn("Unable to close database connection: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Open a connection that is not part of the pool and does not count towards its size. The
+   * caller is responsible for closing it.
+   */
+  PostgresConnection openUnpooled() throws GroundDBException {
+    return this.open();
+  }
+
+  @Override
+  public void close() throws GroundDBException {
+    PostgresConnection connection;
+    SQLException failure = null;
+
+    while ((connection = this.idleConnections.poll()) != null) {
+      this.openConnections.decrementAndGet();
+
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        failure = e;
+      }
+    }
+
+    if (failure != null) {
+      throw new GroundDBException(failure);
+    }
+  }
+
+  private boolean reserveSlot() {
+    int current;
+    do {
+      current = this.openConnections.get();
+      if (current >= this.maxSize) {
+        return false;
+      }
+    } while (!this.openConnections.compareAndSet(current, current + 1));
+
+    return true;
+  }
+
+  private PostgresConnection open() throws GroundDBException {
+    try {
+      return new PostgresConnection(
+          DriverManager.getConnection(this.url, this.username, this.password));
+    } catch (SQLException e) {
+      throw new GroundDBException(e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.resources;
+
+import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.berkeley.ground.api.models.BulkIngestFactory;
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.exceptions.GroundException;
+import io.swagger.annotations.Api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Path("/bulk")
+@Api(value = "/bulk", description = "Load large numbers of nodes, edges and their versions")
+@Produces(MediaType.APPLICATION_JSON)
+public class BulkResource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkResource.class);
+  public static final String NDJSON = "application/x-ndjson";
+
+  private BulkIngestFactory bulkIngestFactory;
+  private ObjectMapper objectMapper;
+
+  public BulkResource(BulkIngestFactory bulkIngestFactory, ObjectMapper objectMapper) {
+    this.bulkIngestFactory = bulkIngestFactory;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Ingest a stream of newline-delimited BulkRecords. The body is parsed as it arrives, so the
+   * stream can be arbitrarily long. With atomic set, the stream is loaded in one transaction
+   * instead of one per chunk.
+   */
+  @POST
+  @Timed
+  @Path("/")
+  @Consumes({NDJSON, MediaType.APPLICATION_JSON})
+  public BulkIngestResult ingest(InputStream body,
+                                 @QueryParam("atomic") @DefaultValue("false") boolean atomic)
+      throws GroundException {
+    LOGGER.info("Starting " + (atomic ? "atomic " : "") + "bulk ingest.");
+
+    try (MappingIterator<BulkRecord> records =
+             this.objectMapper.readerFor(BulkRecord.class).readValues(body)) {
+      return this.bulkIngestFactory.ingest(records, atomic);
+    } catch (IOException | RuntimeException e) {
+      // MappingIterator reports malformed lines as unchecked exceptions.
+      throw new GroundException(e);
+    }
+  }
+}
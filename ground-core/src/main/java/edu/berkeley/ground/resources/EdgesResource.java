@@ -60,12 +60,21 @@ public class EdgesResource {
 
   @GET
   @Timed
+  @ImmutableVersion
   @Path("/versions/{id}")
   public EdgeVersion getEdgeVersion(@PathParam("id") long id) throws GroundException {
     LOGGER.info("Retrieving edge version " + id + ".");
     return this.edgeVersionFactory.retrieveFromDatabase(id);
   }
 
+  @POST
+  @Timed
+  @Path("/versions/batch")
+  public List<EdgeVersion> getEdgeVersions(List<Long> ids) throws GroundException {
+    LOGGER.info("Retrieving " + ids.size() + " edge versions.");
+    return this.edgeVersionFactory.retrieveFromDatabase(ids);
+  }
+
   @POST
   @Timed
   @Path("/{name}")
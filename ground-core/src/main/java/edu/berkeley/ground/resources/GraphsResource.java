@@ -58,12 +58,21 @@ public class GraphsResource {
 
   @GET
   @Timed
+  @ImmutableVersion
   @Path("/versions/{id}")
   public GraphVersion getGraphVersion(@PathParam("id") long id) throws GroundException {
     LOGGER.info("Retrieving graph version " + id + ".");
     return this.graphVersionFactory.retrieveFromDatabase(id);
   }
 
+  @POST
+  @Timed
+  @Path("/versions/batch")
+  public List<GraphVersion> getGraphVersions(List<Long> ids) throws GroundException {
+    LOGGER.info("Retrieving " + ids.size() + " graph versions.");
+    return this.graphVersionFactory.retrieveFromDatabase(ids);
+  }
+
   @POST
   @Timed
   @Path("/{name}")
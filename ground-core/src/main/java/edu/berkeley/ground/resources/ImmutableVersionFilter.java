@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.resources;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a strong ETag and an immutable Cache-Control header to the responses of methods marked
+ * with ImmutableVersion. The id of a version identifies its content, so the id is the ETag, and a
+ * request whose If-None-Match already names it is answered with 304 without touching the
+ * database.
+ */
+@ImmutableVersion
+public class ImmutableVersionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+  private static final String ID_PARAMETER = "id";
+  private static final String CACHE_CONTROL =
+      "public, max-age=" + TimeUnit.DAYS.toSeconds(365) + ", immutable";
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    EntityTag entityTag = ImmutableVersionFilter.entityTag(requestContext);
+    if (entityTag == null) {
+      return;
+    }
+
+    Response.ResponseBuilder notModified =
+        requestContext.getRequest().evaluatePreconditions(entityTag);
+    if (notModified != null) {
+      requestContext.abortWith(notModified.header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+          .build());
+    }
+  }
+
+  @Override
+  public void filter(ContainerRequestContext requestContext,
+                     ContainerResponseContext responseContext) {
+    EntityTag entityTag = ImmutableVersionFilter.entityTag(requestContext);
+    if (entityTag == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+      return;
+    }
+
+    responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+    responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+  }
+
+  private static EntityTag entityTag(ContainerRequestContext requestContext) {
+    String id = requestContext.getUriInfo().getPathParameters().getFirst(ID_PARAMETER);
+
+    return id == null ? null : new EntityTag(id);
+  }
+}
@@ -39,12 +39,10 @@ import edu.berkeley.ground.util.KafkaProduce;
 public class KafkaResource {
   private static final Logger LOGGER = LoggerFactory.getLogger(KafkaResource.class);
 
-  private String kafkaHost;
-  private String kafkaPort;
+  private KafkaProduce kafkaProducer;
 
-  public KafkaResource(String kafkaHost, String kafkaPort) {
-    this.kafkaHost = kafkaHost;
-    this.kafkaPort = kafkaPort;
+  public KafkaResource(KafkaProduce kafkaProducer) {
+    this.kafkaProducer = kafkaProducer;
   }
 
   @POST
@@ -56,7 +54,7 @@ public class KafkaResource {
       required = true) @QueryParam("topic") String topic, @ApiParam(value = "Key of message",
       required = true) @QueryParam("key") String key) throws GroundException {
     LOGGER.info("Receiving kafka publish");
-    KafkaProduce.push(kafkaHost, kafkaPort, topic, key, value);
+    kafkaProducer.push(topic, key, value);
     return value;
   }
 }
@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 import java.util.List;
 import java.util.Map;
@@ -58,12 +59,21 @@ public class LineageEdgesResource {
 
   @GET
   @Timed
+  @ImmutableVersion
   @Path("/versions/{id}")
   public LineageEdgeVersion getLineageEdgeVersion(@PathParam("id") long id) throws GroundException {
     LOGGER.info("Retrieving lineage edge version " + id + ".");
     return this.lineageEdgeVersionFactory.retrieveFromDatabase(id);
   }
 
+  @POST
+  @Timed
+  @Path("/versions/batch")
+  public List<LineageEdgeVersion> getLineageEdgeVersions(List<Long> ids) throws GroundException {
+    LOGGER.info("Retrieving " + ids.size() + " lineage edge versions.");
+    return this.lineageEdgeVersionFactory.retrieveFromDatabase(ids);
+  }
+
   @POST
   @Timed
   @Path("/{name}")
@@ -87,4 +97,44 @@ public class LineageEdgesResource {
         lineageEdgeVersion.getLineageEdgeId(),
         parentIds);
   }
+
+  /**
+   * Stream the rich versions that reach a rich version through lineage edge versions, as a JSON
+   * array in ascending order of id. To get the next page of a limited response, pass its last id
+   * as after.
+   */
+  @GET
+  @Timed
+  @Path("/closure/{id}/upstream")
+  public StreamingOutput upstreamClosure(@PathParam("id") long richVersionId,
+                                         @QueryParam("maxDepth") Integer maxDepth,
+                                         @QueryParam("after") Long after,
+                                         @QueryParam("limit") Integer limit)
+      throws GroundException {
+    LOGGER.info("Running upstream lineage closure on rich version " + richVersionId + ".");
+
+    // no backend keeps a lineage closure, so every page would repeat the walk
+    int depth = StreamedIds.maxDepth(maxDepth);
+    return StreamedIds.inFull((afterId, pageSize) -> this.lineageEdgeVersionFactory
+        .getUpstreamClosure(richVersionId, depth, afterId, pageSize), after, limit);
+  }
+
+  /**
+   * Stream the rich versions that have a lineage edge version to a rich version, where the name
+   * of the lineage edge contains lineageEdgeName, as a JSON array in ascending order of id. To get
+   * the next page of a limited response, pass its last id as after.
+   */
+  @GET
+  @Timed
+  @Path("/adjacent/{id}/{lineageEdgeName}/upstream")
+  public StreamingOutput upstreamAdjacent(@PathParam("id") long richVersionId,
+                                          @PathParam("lineageEdgeName") String lineageEdgeName,
+                                          @QueryParam("after") Long after,
+                                          @QueryParam("limit") Integer limit)
+      throws GroundException {
+    LOGGER.info("Retrieving upstream lineage of rich version " + richVersionId + ".");
+
+    return new StreamedIds((afterId, pageSize) -> this.lineageEdgeVersionFactory
+        .getUpstreamAdjacent(richVersionId, lineageEdgeName, afterId, pageSize), after, limit);
+  }
 }
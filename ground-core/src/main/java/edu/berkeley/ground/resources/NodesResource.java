@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 import java.util.List;
 import java.util.Map;
@@ -59,12 +60,21 @@ public class NodesResource {
 
   @GET
   @Timed
+  @ImmutableVersion
   @Path("/versions/{id}")
   public NodeVersion getNodeVersion(@PathParam("id") long id) throws GroundException {
     LOGGER.info("Retrieving node version " + id + ".");
     return this.nodeVersionFactory.retrieveFromDatabase(id);
   }
 
+  @POST
+  @Timed
+  @Path("/versions/batch")
+  public List<NodeVersion> getNodeVersions(List<Long> ids) throws GroundException {
+    LOGGER.info("Retrieving " + ids.size() + " node versions.");
+    return this.nodeVersionFactory.retrieveFromDatabase(ids);
+  }
+
   @POST
   @Timed
   @Path("/{name}")
@@ -95,21 +105,83 @@ public class NodesResource {
     return this.nodeFactory.getLeaves(name);
   }
 
+  /**
+   * Stream the node versions reachable from a node version, as a JSON array in ascending order of
+   * id. To get the next page of a limited response, pass its last id as after.
+   */
   @GET
   @Timed
   @Path("/closure/{id}")
-  public List<Long> transitiveClosure(@PathParam("id") long nodeVersionId) throws GroundException {
+  public StreamingOutput transitiveClosure(@PathParam("id") long nodeVersionId,
+                                           @QueryParam("maxDepth") Integer maxDepth,
+                                           @QueryParam("after") Long after,
+                                           @QueryParam("limit") Integer limit)
+      throws GroundException {
     LOGGER.info("Running transitive closure on node version  " + nodeVersionId + ".");
 
-    return this.nodeVersionFactory.getTransitiveClosure(nodeVersionId);
+    int depth = StreamedIds.maxDepth(maxDepth);
+    StreamedIds.Pager pager = (afterId, pageSize) -> this.nodeVersionFactory
+        .getTransitiveClosure(nodeVersionId, depth, afterId, pageSize);
+    return this.nodeVersionFactory.pagesClosure(depth) ? new StreamedIds(pager, after, limit)
+        : StreamedIds.inFull(pager, after, limit);
   }
 
+  /**
+   * Stream the node versions that a node version has an edge version to, where the name of the
+   * edge contains edgeName, as a JSON array in ascending order of id. To get the next page of a
+   * limited response, pass its last id as after.
+   */
   @GET
   @Timed
   @Path("/adjacent/{id}/{edgeName}")
-  public List<Long> adjacentNodes(@PathParam("id") long nodeVersionId, @PathParam("edgeName") String edgeNameRegex) throws GroundException {
+  public StreamingOutput adjacentNodes(@PathParam("id") long nodeVersionId,
+                                       @PathParam("edgeName") String edgeName,
+                                       @QueryParam("after") Long after,
+                                       @QueryParam("limit") Integer limit)
+      throws GroundException {
     LOGGER.info("Retrieving adjancent nodes to node version  " + nodeVersionId + ".");
 
-    return this.nodeVersionFactory.getAdjacentNodes(nodeVersionId, edgeNameRegex);
+    return new StreamedIds((afterId, pageSize) -> this.nodeVersionFactory
+        .getAdjacentNodes(nodeVersionId, edgeName, afterId, pageSize), after, limit);
+  }
+
+  /**
+   * Stream the node versions that reach a node version, as a JSON array in ascending order of id.
+   * To get the next page of a limited response, pass its last id as after.
+   */
+  @GET
+  @Timed
+  @Path("/closure/{id}/upstream")
+  public StreamingOutput upstreamClosure(@PathParam("id") long nodeVersionId,
+                                         @QueryParam("maxDepth") Integer maxDepth,
+                                         @QueryParam("after") Long after,
+                                         @QueryParam("limit") Integer limit)
+      throws GroundException {
+    LOGGER.info("Running upstream closure on node version " + nodeVersionId + ".");
+
+    int depth = StreamedIds.maxDepth(maxDepth);
+    StreamedIds.Pager pager = (afterId, pageSize) -> this.nodeVersionFactory
+        .getUpstreamClosure(nodeVersionId, depth, afterId, pageSize);
+    return this.nodeVersionFactory.pagesClosure(depth) ? new StreamedIds(pager, after, limit)
+        : StreamedIds.inFull(pager, after, limit);
+  }
+
+  /**
+   * Stream the node versions that have an edge version to a node version, where the name of the
+   * edge contains edgeName, as a JSON array in ascending order of id. To get the next page of a
+   * limited response, pass its last id as after.
+   */
+  @GET
+  @Timed
+  @Path("/adjacent/{id}/{edgeName}/upstream")
+  public StreamingOutput upstreamAdjacentNodes(@PathParam("id") long nodeVersionId,
+                                               @PathParam("edgeName") String edgeName,
+                                               @QueryParam("after") Long after,
+                                               @QueryParam("limit") Integer limit)
+      throws GroundException {
+    LOGGER.info("Retrieving upstream adjacent nodes to node version " + nodeVersionId + ".");
+
+    return new StreamedIds((afterId, pageSize) -> this.nodeVersionFactory
+        .getUpstreamAdjacentNodes(nodeVersionId, edgeName, afterId, pageSize), after, limit);
   }
 }
@@ -0,0 +1,142 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.resources;
+
+import com.codahale.metrics.annotation.Timed;
+
+import edu.berkeley.ground.api.models.TagFactory;
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.api.models.TagQuery;
+import edu.berkeley.ground.api.models.TagSearchResult;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+import io.swagger.annotations.Api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Valid;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * Find items and rich versions by their tags. A search is on a single tag key, and optionally on
+ * its value: value (repeatable) for values of a type, prefix for string values that start with a
+ * prefix, or min and max for integer and long values in an inclusive range.
+ *
+ * <p>A POST to /versions searches on several tags at once, with a TagFilter in the body.
+ *
+ * <p>Results are in ascending order of id. To get the next page, pass the next field of a result
+ * as after.
+ *
+ * <p>On Cassandra, every page of a range search reads all of the tags in the range, so a range that
+ * more than CassandraTagFactory.MAX_RANGE_TAGS (100000) tags fall in is rejected.
+ */
+@Path("/search")
+@Api(value = "/search", description = "Search for items and versions by their tags")
+@Produces(MediaType.APPLICATION_JSON)
+public class SearchResource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SearchResource.class);
+  public static final int MAX_LIMIT = 1000;
+
+  private TagFactory tagFactory;
+
+  public SearchResource(TagFactory tagFactory) {
+    this.tagFactory = tagFactory;
+  }
+
+  @GET
+  @Timed
+  @Path("/versions")
+  public TagSearchResult searchVersions(@QueryParam("key") String key,
+                                        @QueryParam("value") List<String> values,
+                                        @QueryParam("type") @DefaultValue("string") String type,
+                                        @QueryParam("prefix") String prefix,
+                                        @QueryParam("min") Long min,
+                                        @QueryParam("max") Long max,
+                                        @QueryParam("after") Long after,
+                                        @QueryParam("limit") @DefaultValue("100") int limit)
+      throws GroundException {
+    TagQuery query = SearchResource.parse(key, values, type, prefix, min, max);
+    LOGGER.info("Searching for versions with tag " + key + ".");
+
+    checkLimit(limit);
+    return page(this.tagFactory.searchVersionIds(query, start(after), limit + 1), limit);
+  }
+
+  /**
+   * Search for versions with a filter on several tags, given as a TagFilter in the body.
+   */
+  @POST
+  @Timed
+  @Path("/versions")
+  @Consumes(MediaType.APPLICATION_JSON)
+  public TagSearchResult filterVersions(@Valid TagFilter filter,
+                                        @QueryParam("after") Long after,
+                                        @QueryParam("limit") @DefaultValue("100") int limit)
+      throws GroundException {
+    LOGGER.info("Filtering versions by tags.");
+
+    checkLimit(limit);
+    return page(this.tagFactory.searchVersionIds(filter, start(after), limit + 1), limit);
+  }
+
+  @GET
+  @Timed
+  @Path("/items")
+  public TagSearchResult searchItems(@QueryParam("key") String key,
+                                     @QueryParam("value") List<String> values,
+                                     @QueryParam("type") @DefaultValue("string") String type,
+                                     @QueryParam("prefix") String prefix,
+                                     @QueryParam("min") Long min,
+                                     @QueryParam("max") Long max,
+                                     @QueryParam("after") Long after,
+                                     @QueryParam("limit") @DefaultValue("100") int limit)
+      throws GroundException {
+    TagQuery query = SearchResource.parse(key, values, type, prefix, min, max);
+    LOGGER.info("Searching for items with tag " + key + ".");
+
+    checkLimit(limit);
+    return page(this.tagFactory.searchItemIds(query, start(after), limit + 1), limit);
+  }
+
+  private static TagQuery parse(String key, List<String> values, String type, String prefix,
+                                Long min, Long max) throws GroundException {
+    return TagQuery.parse(key, values, GroundType.fromString(type), prefix, min, max);
+  }
+
+  private static void checkLimit(int limit) throws GroundException {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new GroundException("The limit must be between 1 and " + MAX_LIMIT + ".");
+    }
+  }
+
+  // ids are signed, and the first page starts before all of them
+  private static long start(Long after) {
+    return after == null ? Long.MIN_VALUE : after;
+  }
+
+  // one more id than limit is requested, to tell whether there is another page
+  private static TagSearchResult page(List<Long> ids, int limit) {
+    if (ids.size() <= limit) {
+      return new TagSearchResult(ids, null);
+    }
+
+    List<Long> page = ids.subList(0, limit);
+    return new TagSearchResult(page, page.get(limit - 1));
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.resources;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A JSON array of ids in ascending order, read from the backend a page at a time and written out
+ * as each page arrives, so that the whole array is never held in memory.
+ *
+ * <p>The first page is read before the response starts, so that failing to read it fails the
+ * request. A later failure can only cut the array short, which leaves it unparseable.
+ */
+public class StreamedIds implements StreamingOutput {
+  public static final int PAGE_SIZE = 10000;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  @FunctionalInterface
+  public interface Pager {
+    /**
+     * Read a page of ids.
+     *
+     * @param afterId only ids greater than this are returned
+     * @param limit the most ids to return
+     * @return the ids, in ascending order
+     */
+    List<Long> page(long afterId, int limit) throws GroundException;
+  }
+
+  private final Pager pager;
+  private final List<Long> firstPage;
+  private final long limit;
+
+  /**
+   * @param pager reads the pages
+   * @param after the id to start after, or null to start at the beginning
+   * @param limit the most ids to write, or null for all of them
+   */
+  public StreamedIds(Pager pager, Long after, Integer limit) throws GroundException {
+    if (limit != null && limit < 1) {
+      throw new GroundException("The limit must be at least 1.");
+    }
+
+    this.pager = pager;
+    this.limit = limit == null ? Long.MAX_VALUE : limit;
+
+    // ids are signed, and the first page starts before all of them
+    this.firstPage = pager.page(after == null ? Long.MIN_VALUE : after, StreamedIds.pageSize(this.limit));
+  }
+
+  /**
+   * Stream ids from a backend that has to visit all of them to read any page, such as a traversal
+   * that walks the graph. Reading such a source a page at a time would repeat the walk for every
+   * page, so this reads it once, up to the limit, and writes it out in pages.
+   *
+   * @param pager reads the ids
+   * @param after the id to start after, or null to start at the beginning
+   * @param limit the most ids to write, or null for all of them
+   */
+  public static StreamedIds inFull(Pager pager, Long after, Integer limit) throws GroundException {
+    return new StreamedIds(new Pager() {
+      private List<Long> ids;
+      private int next;
+
+      @Override
+      public List<Long> page(long afterId, int pageSize) throws GroundException {
+        if (this.ids == null) {
+          this.ids = pager.page(afterId, limit == null ? Integer.MAX_VALUE : limit);
+        }
+
+        int end = Math.min(this.ids.size(), this.next + pageSize);
+        List<Long> page = this.ids.subList(this.next, end);
+        this.next = end;
+        return page;
+      }
+    }, after, limit);
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    JsonGenerator generator = JSON_FACTORY.createGenerator(output)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.writeStartArray();
+
+    List<Long> page = this.firstPage;
+    long remaining = this.limit;
+    while (true) {
+      for (long id : page) {
+        generator.writeNumber(id);
+      }
+      generator.flush();
+
+      int requested = StreamedIds.pageSize(remaining);
+      remaining -= page.size();
+      if (page.size() < requested || remaining == 0) {
+        break;
+      }
+
+      try {
+        page = this.pager.page(page.get(page.size() - 1), StreamedIds.pageSize(remaining));
+      } catch (GroundException e) {
+        throw new WebApplicationException(e);
+      }
+    }
+
+    generator.writeEndArray();
+    generator.close();
+  }
+
+  /**
+   * Check the maxDepth parameter of a traversal.
+   *
+   * @param maxDepth the most edges to follow, or null to follow them as far as they go
+   * @return maxDepth, or DBClient.UNBOUNDED_DEPTH if it is null
+   */
+  public static int maxDepth(Integer maxDepth) throws GroundException {
+    if (maxDepth == null) {
+      return DBClient.UNBOUNDED_DEPTH;
+    } else if (maxDepth < 1) {
+      throw new GroundException("The maxDepth must be at least 1.");
+    }
+
+    return maxDepth;
+  }
+
+  private static int pageSize(long remaining) {
+    return (int) Math.min(PAGE_SIZE, remaining);
+  }
+}
@@ -58,12 +58,21 @@ public class StructuresResource {
 
   @GET
   @Timed
+  @ImmutableVersion
   @Path("/versions/{id}")
   public StructureVersion getStructureVersion(@PathParam("id") long id) throws GroundException {
     LOGGER.info("Retrieving structure version " + id + ".");
     return this.structureVersionFactory.retrieveFromDatabase(id);
   }
 
+  @POST
+  @Timed
+  @Path("/versions/batch")
+  public List<StructureVersion> getStructureVersions(List<Long> ids) throws GroundException {
+    LOGGER.info("Retrieving " + ids.size() + " structure versions.");
+    return this.structureVersionFactory.retrieveFromDatabase(ids);
+  }
+
   @POST
   @Timed
   @Path("/{name}")
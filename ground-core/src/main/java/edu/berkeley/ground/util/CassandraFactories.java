@@ -36,21 +36,31 @@ public class CassandraFactories {
   private CassandraNodeFactory nodeFactory;
   private CassandraNodeVersionFactory nodeVersionFactory;
 
+  private CassandraBulkIngestFactory bulkIngestFactory;
+
   private CassandraLineageEdgeFactory lineageEdgeFactory;
   private CassandraLineageEdgeVersionFactory lineageEdgeVersionFactory;
 
+  private CassandraTagFactory tagFactory;
+
   public CassandraFactories(CassandraClient cassandraClient, int machineId, int numMachines) {
-    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, false);
+    long prefix = IdGenerator.prefix(machineId, numMachines);
+    long maxValue = IdGenerator.maxCounterValue(numMachines);
+    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, false,
+        (machine, counter, count) -> cassandraClient.leaseIds(machine, counter, count, prefix, maxValue),
+        IdGenerator.DEFAULT_LEASE_SIZE);
 
     CassandraVersionFactory versionFactory = new CassandraVersionFactory(cassandraClient);
     CassandraVersionSuccessorFactory versionSuccessorFactory = new CassandraVersionSuccessorFactory(cassandraClient, idGenerator);
     CassandraVersionHistoryDAGFactory versionHistoryDAGFactory = new CassandraVersionHistoryDAGFactory(cassandraClient, versionSuccessorFactory);
-    CassandraTagFactory tagFactory = new CassandraTagFactory(cassandraClient);
-    CassandraItemFactory itemFactory = new CassandraItemFactory(cassandraClient, versionHistoryDAGFactory, tagFactory);
+    this.tagFactory = new CassandraTagFactory(cassandraClient);
+    CassandraItemFactory itemFactory = new CassandraItemFactory(cassandraClient, versionHistoryDAGFactory, this.tagFactory);
 
     this.structureFactory = new CassandraStructureFactory(itemFactory, cassandraClient, idGenerator);
     this.structureVersionFactory = new CassandraStructureVersionFactory(this.structureFactory, versionFactory, cassandraClient, idGenerator);
-    CassandraRichVersionFactory richVersionFactory = new CassandraRichVersionFactory(cassandraClient, versionFactory, structureVersionFactory, tagFactory);
+    StructureValidatorCache structureValidators = new StructureValidatorCache(this.structureVersionFactory,
+        StructureValidatorCache.DEFAULT_SIZE);
+    CassandraRichVersionFactory richVersionFactory = new CassandraRichVersionFactory(cassandraClient, versionFactory, structureValidators, this.tagFactory);
     this.edgeFactory = new CassandraEdgeFactory(itemFactory, cassandraClient, idGenerator);
     this.edgeVersionFactory = new CassandraEdgeVersionFactory(this.edgeFactory, richVersionFactory, cassandraClient, idGenerator);
     this.graphFactory = new CassandraGraphFactory(itemFactory, cassandraClient, idGenerator);
@@ -60,6 +70,9 @@ public class CassandraFactories {
 
     this.lineageEdgeFactory = new CassandraLineageEdgeFactory(itemFactory, cassandraClient, idGenerator);
     this.lineageEdgeVersionFactory = new CassandraLineageEdgeVersionFactory(this.lineageEdgeFactory, richVersionFactory, cassandraClient, idGenerator);
+
+    this.bulkIngestFactory = new CassandraBulkIngestFactory(cassandraClient, this.nodeFactory, this.edgeFactory, structureValidators,
+        versionHistoryDAGFactory, idGenerator);
   }
 
   public EdgeFactory getEdgeFactory() {
@@ -86,6 +99,10 @@ public class CassandraFactories {
     return nodeVersionFactory;
   }
 
+  public BulkIngestFactory getBulkIngestFactory() {
+    return bulkIngestFactory;
+  }
+
   public LineageEdgeFactory getLineageEdgeFactory() {
     return lineageEdgeFactory;
   }
@@ -101,4 +118,8 @@ public class CassandraFactories {
   public StructureVersionFactory getStructureVersionFactory() {
     return structureVersionFactory;
   }
+
+  public TagFactory getTagFactory() {
+    return tagFactory;
+  }
 }
@@ -0,0 +1,44 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+/**
+ * Publishes an event to a Kafka topic for every version that is created, so that caches
+ * downstream can refresh without polling. An event is a small JSON object such as
+ * {"type":"NodeVersion","id":12,"itemId":3}. Events are keyed by the id of the item the version
+ * belongs to, so the events of one item arrive in order.
+ *
+ * <p>Events are sent after the create has committed and without waiting for Kafka, so a version
+ * whose event is lost is still created.
+ */
+public class ChangeFeed {
+  private final KafkaProduce producer;
+  private final String topic;
+
+  public ChangeFeed(KafkaProduce producer, String topic) {
+    this.producer = producer;
+    this.topic = topic;
+  }
+
+  /**
+   * @param type the kind of version, e.g. NodeVersion
+   * @param id the id of the new version
+   * @param itemId the id of the item it is a version of
+   */
+  public void publish(String type, long id, long itemId) {
+    this.producer.push(this.topic, Long.toString(itemId),
+        "{\"type\":\"" + type + "\",\"id\":" + id + ",\"itemId\":" + itemId + "}");
+  }
+}
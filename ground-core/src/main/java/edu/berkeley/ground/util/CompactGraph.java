@@ -0,0 +1,432 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A directed graph over long ids, stored in primitive arrays.
+ *
+ * <p>Every vertex is given a dense index. The bulk of the edges is kept in compressed sparse row
+ * form: the successors of vertex i are targets[offsets[i]] up to targets[offsets[i + 1]]. New edges
+ * go to an append buffer, which chains the buffered edges of each vertex together, and is merged
+ * into the CSR arrays once it has grown to a fraction of the graph. Parallel edges are kept.
+ *
+ * <p>The graph is safe for concurrent use: traversals share a read lock, while additions take
+ * the write lock.
+ */
+public class CompactGraph {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MIN_BUFFER_SIZE = 1024;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // id <-> dense index
+  private final LongIntHashMap indices = new LongIntHashMap();
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int vertexCount = 0;
+
+  // CSR edges; only the first csrVertexCount vertices have entries in offsets
+  private int[] offsets = new int[1];
+  private int[] targets = new int[0];
+  private int csrVertexCount = 0;
+
+  // append buffer: bufferHeads[v] is the latest buffered edge of v, bufferNext chains to the one
+  // before it, and -1 ends the chain
+  private int[] bufferHeads = new int[INITIAL_CAPACITY];
+  private int[] bufferSources = new int[INITIAL_CAPACITY];
+  private int[] bufferTargets = new int[INITIAL_CAPACITY];
+  private int[] bufferNext = new int[INITIAL_CAPACITY];
+  private int bufferSize = 0;
+
+  public CompactGraph() {
+    Arrays.fill(this.bufferHeads, -1);
+  }
+
+  // Rebuilds a graph from the arrays of an earlier one, e.g. after reading a snapshot.
+  CompactGraph(Csr csr) {
+    int capacity = Math.max(INITIAL_CAPACITY, csr.vertexCount);
+
+    this.ids = Arrays.copyOf(csr.ids, capacity);
+    this.vertexCount = csr.vertexCount;
+    this.offsets = csr.offsets;
+    this.targets = csr.targets;
+    this.csrVertexCount = csr.vertexCount;
+
+    this.indices.ensureCapacity(csr.vertexCount);
+    for (int i = 0; i < csr.vertexCount; i++) {
+      this.indices.put(csr.ids[i], i);
+    }
+
+    this.bufferHeads = new int[capacity];
+    Arrays.fill(this.bufferHeads, -1);
+  }
+
+  public void addVertex(long id) {
+    this.lock.writeLock().lock();
+    try {
+      this.index(id);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Add an edge, adding its endpoints first if they are not in the graph yet.
+   */
+  public void addEdge(long from, long to) {
+    this.lock.writeLock().lock();
+    try {
+      int source = this.index(from);
+      int target = this.index(to);
+
+      if (this.bufferSize == this.bufferSources.length) {
+        int capacity = this.bufferSize * 2;
+        this.bufferSources = Arrays.copyOf(this.bufferSources, capacity);
+        this.bufferTargets = Arrays.copyOf(this.bufferTargets, capacity);
+        this.bufferNext = Arrays.copyOf(this.bufferNext, capacity);
+      }
+
+      this.bufferSources[this.bufferSize] = source;
+      this.bufferTargets[this.bufferSize] = target;
+      this.bufferNext[this.bufferSize] = this.bufferHeads[source];
+      this.bufferHeads[source] = this.bufferSize;
+      this.bufferSize++;
+
+      if (this.bufferSize >= Math.max(MIN_BUFFER_SIZE, this.targets.length / 8)) {
+        this.compactLocked();
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Merge the append buffer into the CSR arrays. This happens automatically as edges are added,
+   * but is worth calling once after loading a large graph.
+   */
+  public void compact() {
+    this.lock.writeLock().lock();
+    try {
+      this.compactLocked();
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  public boolean containsVertex(long id) {
+    this.lock.readLock().lock();
+    try {
+      return this.indices.containsKey(id);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  public int vertexCount() {
+    this.lock.readLock().lock();
+    try {
+      return this.vertexCount;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  public int edgeCount() {
+    this.lock.readLock().lock();
+    try {
+      return this.targets.length + this.bufferSize;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Merge the append buffer and return the CSR arrays of the graph. The arrays are never changed
+   * once they have been merged, so the caller can use them without holding a lock.
+   */
+  Csr compactedCsr() {
+    this.lock.writeLock().lock();
+    try {
+      this.compactLocked();
+      return new Csr(this.ids, this.vertexCount, this.offsets, this.targets);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Depth-first traversal from start.
+   *
+   * @param start the id to start from
+   * @return start, followed by every vertex reachable from it in depth-first preorder
+   */
+  public long[] depthFirst(long start) {
+    return this.traverse(start, true);
+  }
+
+  /**
+   * Breadth-first traversal from start.
+   *
+   * @param start the id to start from
+   * @return start, followed by every vertex reachable from it in breadth-first order
+   */
+  public long[] breadthFirst(long start) {
+    return this.traverse(start, false);
+  }
+
+  /**
+   * Breadth-first traversal from start that follows at most maxDepth edges.
+   *
+   * @param start the id to start from
+   * @param maxDepth the most edges to follow
+   * @return start, followed by every vertex within maxDepth edges of it in breadth-first order
+   */
+  public long[] breadthFirst(long start, int maxDepth) {
+    this.lock.readLock().lock();
+    try {
+      if (!this.indices.containsKey(start)) {
+        return new long[] {start};
+      }
+
+      BitSet visited = new BitSet(this.vertexCount);
+      long[] result = new long[INITIAL_CAPACITY];
+      int resultSize = 0;
+
+      // the vertices at the current depth, and the ones found one edge further
+      int[] frontier = {this.indices.get(start)};
+      int frontierSize = 1;
+      int[] next = new int[INITIAL_CAPACITY];
+
+      visited.set(frontier[0]);
+      result[resultSize++] = start;
+
+      for (int depth = 0; depth < maxDepth && frontierSize > 0; depth++) {
+        int nextSize = 0;
+
+        for (int i = 0; i < frontierSize; i++) {
+          int vertex = frontier[i];
+          int successorCount = this.successorCount(vertex);
+          if (nextSize + successorCount > next.length) {
+            next = Arrays.copyOf(next, Math.max(next.length * 2, nextSize + successorCount));
+          }
+
+          if (vertex < this.csrVertexCount) {
+            for (int j = this.offsets[vertex]; j < this.offsets[vertex + 1]; j++) {
+              nextSize = this.visit(this.targets[j], visited, next, nextSize);
+            }
+          }
+
+          // buffered edges are chained newest first, so they are reversed to keep insertion order
+          int buffered = nextSize;
+          for (int edge = this.bufferHeads[vertex]; edge != -1; edge = this.bufferNext[edge]) {
+            nextSize = this.visit(this.bufferTargets[edge], visited, next, nextSize);
+          }
+          for (int low = buffered, high = nextSize - 1; low < high; low++, high--) {
+            int swap = next[low];
+            next[low] = next[high];
+            next[high] = swap;
+          }
+        }
+
+        if (resultSize + nextSize > result.length) {
+          result = Arrays.copyOf(result, Math.max(result.length * 2, resultSize + nextSize));
+        }
+        for (int i = 0; i < nextSize; i++) {
+          result[resultSize++] = this.ids[next[i]];
+        }
+
+        int[] swap = frontier;
+        frontier = next;
+        frontierSize = nextSize;
+        next = swap.length < INITIAL_CAPACITY ? new int[INITIAL_CAPACITY] : swap;
+      }
+
+      return Arrays.copyOf(result, resultSize);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  // Marks target as visited and appends it to next if it has not been visited before.
+  private int visit(int target, BitSet visited, int[] next, int nextSize) {
+    if (visited.get(target)) {
+      return nextSize;
+    }
+
+    visited.set(target);
+    next[nextSize] = target;
+    return nextSize + 1;
+  }
+
+  private long[] traverse(long start, boolean depthFirst) {
+    this.lock.readLock().lock();
+    try {
+      if (!this.indices.containsKey(start)) {
+        return new long[] {start};
+      }
+
+      BitSet visited = new BitSet(this.vertexCount);
+      long[] result = new long[INITIAL_CAPACITY];
+      int resultSize = 0;
+
+      // Used as a stack for depth-first and as a queue for breadth-first traversal. Every vertex
+      // is pushed at most once per incoming edge, so the deque never outgrows the edge count.
+      int[] deque = new int[INITIAL_CAPACITY];
+      int head = 0;
+      int tail = 0;
+
+      deque[tail++] = this.indices.get(start);
+      while (head < tail) {
+        int vertex = depthFirst ? deque[--tail] : deque[head++];
+        if (visited.get(vertex)) {
+          continue;
+        }
+
+        visited.set(vertex);
+        if (resultSize == result.length) {
+          result = Arrays.copyOf(result, resultSize * 2);
+        }
+        result[resultSize++] = this.ids[vertex];
+
+        int successorCount = this.successorCount(vertex);
+        if (tail + successorCount > deque.length) {
+          if (head > 0) {
+            System.arraycopy(deque, head, deque, 0, tail - head);
+            tail -= head;
+            head = 0;
+          }
+
+          if (tail + successorCount > deque.length) {
+            deque = Arrays.copyOf(deque, Math.max(deque.length * 2, tail + successorCount));
+          }
+        }
+
+        // Successors are visited in the order in which their edges were added, so a stack gets
+        // them in reverse. CSR edges are stored oldest first and buffered edges newest first.
+        int csrPosition = depthFirst ? tail + successorCount : tail;
+        int bufferPosition = depthFirst ? tail : tail + successorCount;
+        if (vertex < this.csrVertexCount) {
+          for (int i = this.offsets[vertex]; i < this.offsets[vertex + 1]; i++) {
+            if (depthFirst) {
+              deque[--csrPosition] = this.targets[i];
+            } else {
+              deque[csrPosition++] = this.targets[i];
+            }
+          }
+        }
+
+        for (int edge = this.bufferHeads[vertex]; edge != -1; edge = this.bufferNext[edge]) {
+          if (depthFirst) {
+            deque[bufferPosition++] = this.bufferTargets[edge];
+          } else {
+            deque[--bufferPosition] = this.bufferTargets[edge];
+          }
+        }
+
+        tail += successorCount;
+      }
+
+      return Arrays.copyOf(result, resultSize);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  private int successorCount(int vertex) {
+    int count = vertex < this.csrVertexCount ? this.offsets[vertex + 1] - this.offsets[vertex] : 0;
+    for (int edge = this.bufferHeads[vertex]; edge != -1; edge = this.bufferNext[edge]) {
+      count++;
+    }
+
+    return count;
+  }
+
+  private int index(long id) {
+    int slot = this.indices.indexOf(id);
+    if (this.indices.indexExists(slot)) {
+      return this.indices.indexGet(slot);
+    }
+
+    int index = this.vertexCount++;
+    this.indices.indexInsert(slot, id, index);
+
+    if (index == this.ids.length) {
+      int capacity = this.ids.length * 2;
+      this.ids = Arrays.copyOf(this.ids, capacity);
+
+      this.bufferHeads = Arrays.copyOf(this.bufferHeads, capacity);
+      Arrays.fill(this.bufferHeads, index, capacity, -1);
+    }
+
+    this.ids[index] = id;
+    return index;
+  }
+
+  private void compactLocked() {
+    if (this.bufferSize == 0 && this.csrVertexCount == this.vertexCount) {
+      return;
+    }
+
+    // counting sort of the old CSR edges and the buffered edges by source
+    int[] newOffsets = new int[this.vertexCount + 1];
+    for (int vertex = 0; vertex < this.csrVertexCount; vertex++) {
+      newOffsets[vertex + 1] = this.offsets[vertex + 1] - this.offsets[vertex];
+    }
+    for (int edge = 0; edge < this.bufferSize; edge++) {
+      newOffsets[this.bufferSources[edge] + 1]++;
+    }
+    for (int vertex = 0; vertex < this.vertexCount; vertex++) {
+      newOffsets[vertex + 1] += newOffsets[vertex];
+    }
+
+    int[] newTargets = new int[this.targets.length + this.bufferSize];
+    int[] next = Arrays.copyOf(newOffsets, this.vertexCount);
+    for (int vertex = 0; vertex < this.csrVertexCount; vertex++) {
+      int count = this.offsets[vertex + 1] - this.offsets[vertex];
+      System.arraycopy(this.targets, this.offsets[vertex], newTargets, next[vertex], count);
+      next[vertex] += count;
+    }
+    for (int edge = 0; edge < this.bufferSize; edge++) {
+      newTargets[next[this.bufferSources[edge]]++] = this.bufferTargets[edge];
+    }
+
+    this.offsets = newOffsets;
+    this.targets = newTargets;
+    this.csrVertexCount = this.vertexCount;
+
+    Arrays.fill(this.bufferHeads, 0, this.vertexCount, -1);
+    this.bufferSize = 0;
+  }
+
+  static class Csr {
+    final long[] ids;
+    final int vertexCount;
+    final int[] offsets;
+    final int[] targets;
+
+    Csr(long[] ids, int vertexCount, int[] offsets, int[] targets) {
+      this.ids = ids;
+      this.vertexCount = vertexCount;
+      this.offsets = offsets;
+      this.targets = targets;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A CompactGraph checkpointed to a file, together with a high-water mark: the time up to which
+ * edges are known to be included. The file holds a header followed by the CSR arrays of the
+ * graph, and is read and written through memory maps.
+ */
+public class GraphSnapshot {
+  private static final int MAGIC = 0x47524e44;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+
+  // a single mapping is limited to 2 GB, so large arrays are mapped a piece at a time
+  private static final int CHUNK_BYTES = 1 << 28;
+
+  private final CompactGraph graph;
+  private final long highWaterMark;
+
+  private GraphSnapshot(CompactGraph graph, long highWaterMark) {
+    this.graph = graph;
+    this.highWaterMark = highWaterMark;
+  }
+
+  public CompactGraph getGraph() {
+    return this.graph;
+  }
+
+  public long getHighWaterMark() {
+    return this.highWaterMark;
+  }
+
+  /**
+   * Write graph to path. The snapshot is written to a temporary file first and then moved into
+   * place, so that a crash never leaves a partial snapshot behind.
+   *
+   * @param graph the graph to write
+   * @param highWaterMark the time up to which graph includes all edges
+   * @param path the file to write
+   */
+  public static void write(CompactGraph graph, long highWaterMark, Path path) throws IOException {
+    CompactGraph.Csr csr = graph.compactedCsr();
+    int edgeCount = csr.offsets[csr.vertexCount];
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+      MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(highWaterMark)
+          .putInt(csr.vertexCount).putInt(edgeCount);
+
+      long position = HEADER_BYTES;
+      for (int i = 0; i < csr.vertexCount; i += CHUNK_BYTES / 8) {
+        int length = Math.min(CHUNK_BYTES / 8, csr.vertexCount - i);
+        map(channel, FileChannel.MapMode.READ_WRITE, position, length * 8L).asLongBuffer()
+            .put(csr.ids, i, length);
+        position += length * 8L;
+      }
+
+      position = writeInts(channel, position, csr.offsets, csr.vertexCount + 1);
+      writeInts(channel, position, csr.targets, edgeCount);
+
+      channel.force(false);
+    }
+
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Read the snapshot at path.
+   *
+   * @param path the file to read
+   * @return the snapshot
+   * @throws IOException if the file cannot be read or is not a graph snapshot
+   */
+  public static GraphSnapshot read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException(path + " is not a graph snapshot.");
+      }
+
+      MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+        throw new IOException(path + " is not a graph snapshot.");
+      }
+
+      long highWaterMark = header.getLong();
+      int vertexCount = header.getInt();
+      int edgeCount = header.getInt();
+
+      long expectedSize = HEADER_BYTES + vertexCount * 8L + (vertexCount + 1) * 4L
+          + edgeCount * 4L;
+      if (channel.size() != expectedSize) {
+        throw new IOException("Graph snapshot " + path + " is truncated.");
+      }
+
+      long[] ids = new long[vertexCount];
+      long position = HEADER_BYTES;
+      for (int i = 0; i < vertexCount; i += CHUNK_BYTES / 8) {
+        int length = Math.min(CHUNK_BYTES / 8, vertexCount - i);
+        map(channel, FileChannel.MapMode.READ_ONLY, position, length * 8L).asLongBuffer()
+            .get(ids, i, length);
+        position += length * 8L;
+      }
+
+      int[] offsets = new int[vertexCount + 1];
+      position = readInts(channel, position, offsets);
+      int[] targets = new int[edgeCount];
+      readInts(channel, position, targets);
+
+      CompactGraph graph = new CompactGraph(new CompactGraph.Csr(ids, vertexCount, offsets,
+          targets));
+      return new GraphSnapshot(graph, highWaterMark);
+    }
+  }
+
+  private static long writeInts(FileChannel channel, long position, int[] values, int count)
+      throws IOException {
+    for (int i = 0; i < count; i += CHUNK_BYTES / 4) {
+      int length = Math.min(CHUNK_BYTES / 4, count - i);
+      map(channel, FileChannel.MapMode.READ_WRITE, position, length * 4L).asIntBuffer()
+          .put(values, i, length);
+      position += length * 4L;
+    }
+
+    return position;
+  }
+
+  private static long readInts(FileChannel channel, long position, int[] values)
+      throws IOException {
+    for (int i = 0; i < values.length; i += CHUNK_BYTES / 4) {
+      int length = Math.min(CHUNK_BYTES / 4, values.length - i);
+      map(channel, FileChannel.MapMode.READ_ONLY, position, length * 4L).asIntBuffer()
+          .get(values, i, length);
+      position += length * 4L;
+    }
+
+    return position;
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position,
+                                      long size) throws IOException {
+    MappedByteBuffer buffer = channel.map(mode, position, size);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return buffer;
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+import com.google.common.collect.ImmutableMultimap;
+
+import edu.berkeley.ground.db.CassandraClient;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+
+/**
+ * Checkpoints the in-memory graph of a CassandraClient on demand:
+ *
+ * <pre>
+ * curl -X POST http://localhost:9091/tasks/snapshot-graph
+ * </pre>
+ */
+public class GraphSnapshotTask extends Task {
+  private final CassandraClient cassandraClient;
+
+  public GraphSnapshotTask(CassandraClient cassandraClient) {
+    super("snapshot-graph");
+
+    this.cassandraClient = cassandraClient;
+  }
+
+  @Override
+  public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output)
+      throws Exception {
+    this.cassandraClient.snapshot();
+    output.println("Wrote graph snapshot.");
+  }
+}
@@ -14,17 +14,71 @@
 
 package edu.berkeley.ground.util;
 
+import edu.berkeley.ground.exceptions.GroundDBException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates ids of the form machine prefix | counter value. Counter values are leased in blocks
+ * from an IdLeaseStore and handed out from the current block with an atomic add, so ids stay
+ * unique across restarts and threads only contend when a block runs out. Ids from a block that
+ * was not used up before a restart are skipped.
+ */
 public class IdGenerator {
-  private long prefix;
-  private long versionCounter;
-  private long successorCounter;
-  private long itemCounter;
+  public static final long DEFAULT_LEASE_SIZE = 10000;
 
-  // If true, only one counter will be used. If false, all three counters will be used.
-  private boolean globallyUnique;
+  private final long prefix;
+  private final Counter versionCounter;
+  private final Counter successorCounter;
+  private final Counter itemCounter;
 
+  /**
+   * Create a generator whose counters are only kept in memory, so they start over at 1 every
+   * time. This is only safe for tests and benchmarks.
+   */
   public IdGenerator(int machineId, int numMachines, boolean globallyUnique) {
-    long machineBits = 1;
+    this(machineId, numMachines, globallyUnique, new InMemoryIdLeaseStore(), DEFAULT_LEASE_SIZE);
+  }
+
+  /**
+   * Create a generator that leases counter values from store.
+   *
+   * @param globallyUnique if true, a single counter is used for all ids; otherwise versions,
+   *     successors and items each have their own
+   * @param store where the high-water marks of the counters are kept
+   * @param leaseSize how many values to lease from store at a time
+   */
+  public IdGenerator(int machineId, int numMachines, boolean globallyUnique, IdLeaseStore store,
+                     long leaseSize) {
+    this.prefix = IdGenerator.prefix(machineId, numMachines);
+
+    // NOTE: Do not change this. Counters start at 1 because 0 is the default empty version.
+    this.versionCounter = new Counter("version", machineId, store, leaseSize);
+    if (globallyUnique) {
+      this.successorCounter = this.versionCounter;
+      this.itemCounter = this.versionCounter;
+    } else {
+      this.successorCounter = new Counter("successor", machineId, store, leaseSize);
+      this.itemCounter = new Counter("item", machineId, store, leaseSize);
+    }
+  }
+
+  /**
+   * The bits that the ids of a machine start with. The rest of an id is a counter value, so the
+   * ids of the machine are [prefix, prefix + maxCounterValue(numMachines)].
+   */
+  public static long prefix(int machineId, int numMachines) {
+    return (long) machineId << (64 - IdGenerator.machineBits(numMachines));
+  }
+
+  public static long maxCounterValue(int numMachines) {
+    return -1L >>> IdGenerator.machineBits(numMachines);
+  }
+
+  private static int machineBits(int numMachines) {
+    int machineBits = 1;
     long fence = 2;
 
     while (fence < numMachines) {
@@ -32,33 +86,102 @@ public class IdGenerator {
       machineBits++;
     }
 
-    this.prefix = machineId << (64 - machineBits);
+    return machineBits;
+  }
 
-    // NOTE: Do not change this. The version counter is set to start a 1 because 0 is the default empty version.
-    this.versionCounter = 1;
-    this.successorCounter = 1;
-    this.itemCounter = 1;
+  public long generateVersionId() throws GroundDBException {
+    return this.prefix | this.versionCounter.next(1);
+  }
 
-    this.globallyUnique = globallyUnique;
+  public long generateSuccessorId() throws GroundDBException {
+    return this.prefix | this.successorCounter.next(1);
   }
 
-  public synchronized long generateVersionId() {
-    return prefix | this.versionCounter++;
+  public long generateItemId() throws GroundDBException {
+    return this.prefix | this.itemCounter.next(1);
   }
 
-  public synchronized long generateSuccessorId() {
-    if (this.globallyUnique) {
-      return prefix | this.versionCounter++;
-    } else {
-      return prefix | this.successorCounter++;
+  /**
+   * Reserve a contiguous block of version ids.
+   *
+   * @param count the number of ids to reserve
+   * @return the first id of the block; the block is [first, first + count)
+   */
+  public long reserveVersionIds(int count) throws GroundDBException {
+    return this.prefix | this.versionCounter.next(count);
+  }
+
+  public long reserveSuccessorIds(int count) throws GroundDBException {
+    return this.prefix | this.successorCounter.next(count);
+  }
+
+  public long reserveItemIds(int count) throws GroundDBException {
+    return this.prefix | this.itemCounter.next(count);
+  }
+
+  private static class Counter {
+    private final String name;
+    private final int machineId;
+    private final IdLeaseStore store;
+    private final long leaseSize;
+
+    // starts out exhausted, so that nothing is leased until the first id is needed
+    private volatile Lease lease = new Lease(0, 0);
+
+    Counter(String name, int machineId, IdLeaseStore store, long leaseSize) {
+      this.name = name;
+      this.machineId = machineId;
+      this.store = store;
+      this.leaseSize = leaseSize;
+    }
+
+    /**
+     * Take count consecutive values.
+     *
+     * @return the first value taken
+     */
+    long next(int count) throws GroundDBException {
+      // blocks at least as large as a lease get a lease of their own
+      if (count >= this.leaseSize) {
+        return this.store.lease(this.machineId, this.name, count);
+      }
+
+      while (true) {
+        Lease current = this.lease;
+        long first = current.next.getAndAdd(count);
+        if (first + count <= current.end) {
+          return first;
+        }
+
+        // Whoever gets here first replaces the exhausted lease; the rest retry on the new one.
+        // The unused tail of the old lease is skipped.
+        synchronized (this) {
+          if (this.lease == current) {
+            long start = this.store.lease(this.machineId, this.name, this.leaseSize);
+            this.lease = new Lease(start, start + this.leaseSize);
+          }
+        }
+      }
     }
   }
 
-  public synchronized long generateItemId() {
-    if (this.globallyUnique) {
-      return prefix | this.versionCounter++;
-    } else {
-      return prefix | this.itemCounter++;
+  private static class Lease {
+    private final AtomicLong next;
+    private final long end;
+
+    Lease(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+  }
+
+  private static class InMemoryIdLeaseStore implements IdLeaseStore {
+    private final ConcurrentMap<String, AtomicLong> highWaterMarks = new ConcurrentHashMap<>();
+
+    @Override
+    public long lease(int machineId, String counter, long count) {
+      return this.highWaterMarks.computeIfAbsent(machineId + "/" + counter, key -> new AtomicLong(1))
+          .getAndAdd(count);
     }
   }
 }
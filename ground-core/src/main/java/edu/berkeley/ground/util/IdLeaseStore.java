@@ -0,0 +1,36 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+import edu.berkeley.ground.exceptions.GroundDBException;
+
+/**
+ * Durable storage for the high-water marks of IdGenerator's counters. A lease must be persisted
+ * before it is returned, independently of any transaction the caller has open, so that no id in
+ * it is ever handed out again, even after a crash.
+ */
+@FunctionalInterface
+public interface IdLeaseStore {
+  /**
+   * Atomically advance the high-water mark of a counter. A counter that has never been leased
+   * starts at 1.
+   *
+   * @param machineId the machine that owns the counter
+   * @param counter the name of the counter
+   * @param count the number of values to lease
+   * @return the first leased value; the lease is [first, first + count)
+   */
+  long lease(int machineId, String counter, long count) throws GroundDBException;
+}
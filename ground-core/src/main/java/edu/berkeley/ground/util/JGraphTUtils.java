@@ -14,6 +14,8 @@
 
 package edu.berkeley.ground.util;
 
+import com.google.common.primitives.Longs;
+
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
@@ -53,4 +55,54 @@ public class JGraphTUtils {
 
     return result;
   }
+
+  /**
+   * Create a graph backed by primitive arrays, which is much smaller and faster to traverse than
+   * the JGraphT graph from createGraph.
+   */
+  public static CompactGraph createCompactGraph() {
+    return new CompactGraph();
+  }
+
+  public static void addVertex(CompactGraph graph, long id) {
+    graph.addVertex(id);
+  }
+
+  public static void addEdge(CompactGraph graph, long from, long to) {
+    graph.addEdge(from, to);
+  }
+
+  /**
+   * Run transitive closure from start, depth first.
+   *
+   * @param graph the graph to query
+   * @param start the start version
+   * @return the list of reachable nodes, starting with start
+   */
+  public static List<Long> runDFS(CompactGraph graph, long start) {
+    return Longs.asList(graph.depthFirst(start));
+  }
+
+  /**
+   * Run transitive closure from start, breadth first.
+   *
+   * @param graph the graph to query
+   * @param start the start version
+   * @return the list of reachable nodes, starting with start
+   */
+  public static List<Long> runBFS(CompactGraph graph, long start) {
+    return Longs.asList(graph.breadthFirst(start));
+  }
+
+  /**
+   * Run transitive closure from start, breadth first, following at most maxDepth edges.
+   *
+   * @param graph the graph to query
+   * @param start the start version
+   * @param maxDepth the most edges to follow
+   * @return the list of reachable nodes, starting with start
+   */
+  public static List<Long> runBFS(CompactGraph graph, long start, int maxDepth) {
+    return Longs.asList(graph.breadthFirst(start, maxDepth));
+  }
 }
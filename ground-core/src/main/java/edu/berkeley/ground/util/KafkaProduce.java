@@ -14,6 +14,8 @@
 
 package edu.berkeley.ground.util;
 
+import io.dropwizard.lifecycle.Managed;
+
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -22,28 +24,91 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
-public class KafkaProduce {
+/**
+ * The one Kafka producer of a server. A KafkaProducer is thread-safe and batches the records of
+ * all threads together, so it is created once at startup and closed when the server stops, which
+ * flushes whatever is still buffered.
+ */
+public class KafkaProduce implements Managed {
   private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProduce.class);
+  private static final long CLOSE_TIMEOUT_MILLIS = 10000;
 
-  public static void push(String kafkaHost, String kafkaPort, String topic, String key, String value) {
-    LOGGER.info("Sending kafka message...");
-    LOGGER.info("Key: " + key);
-    LOGGER.info("Topic: " + topic);
-    byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+  private final Producer<String, byte[]> producer;
 
+  /**
+   * @param kafkaHost the host of a broker to bootstrap from
+   * @param kafkaPort the port of that broker
+   * @param acks the acknowledgements a send waits for (0, 1 or all)
+   * @param lingerMs how long a record may wait for others to be batched with it
+   * @param batchSize the most bytes batched per partition
+   * @param compressionType the compression of batches (none, gzip, snappy or lz4)
+   * @param maxBlockMs how long a send may block while the broker metadata is fetched or the
+   *                   buffer is full
+   */
+  public KafkaProduce(String kafkaHost,
+                      String kafkaPort,
+                      String acks,
+                      int lingerMs,
+                      int batchSize,
+                      String compressionType,
+                      long maxBlockMs) {
+    this(kafkaHost + ":" + kafkaPort, acks, lingerMs, batchSize, compressionType, maxBlockMs);
+  }
+
+  /**
+   * @param bootstrapServers the host:port pairs of the brokers to bootstrap from, separated by
+   *                         commas
+   */
+  public KafkaProduce(String bootstrapServers,
+                      String acks,
+                      int lingerMs,
+                      int batchSize,
+                      String compressionType,
+                      long maxBlockMs) {
     Properties props = new Properties();
-    props.put("bootstrap.servers", kafkaHost + ":" + kafkaPort);
-    props.put("acks", "all");
-    props.put("retries", 0);
+    props.put("bootstrap.servers", bootstrapServers);
+    props.put("acks", acks);
+    props.put("linger.ms", lingerMs);
+    props.put("batch.size", batchSize);
+    props.put("compression.type", compressionType);
+    props.put("max.block.ms", maxBlockMs);
     props.put("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
     props.put("value.serializer", "org.apache.kafka.common.serialization.ByteArraySerializer");
 
-    Producer<String, byte[]> producer = new KafkaProducer<>(props);
-    producer.send(new ProducerRecord<>(topic, key, valueBytes));
+    this.producer = new KafkaProducer<>(props);
+  }
+
+  public KafkaProduce(Producer<String, byte[]> producer) {
+    this.producer = producer;
+  }
 
-    producer.close();
+  /**
+   * Send a message without waiting for it to be acknowledged. Failures are logged.
+   *
+   * @param topic the topic to send to
+   * @param key the key of the message, which picks its partition
+   * @param value the message
+   */
+  public void push(String topic, String key, String value) {
+    this.push(topic, key, value.getBytes(StandardCharsets.UTF_8));
   }
 
+  public void push(String topic, String key, byte[] value) {
+    this.producer.send(new ProducerRecord<>(topic, key, value), (metadata, exception) -> {
+      if (exception != null) {
+        LOGGER.error("Failed to send message with key " + key + " to topic " + topic + ": "
+            + exception.getMessage());
+      }
+    });
+  }
 
+  @Override
+  public void start() {}
+
+  @Override
+  public void stop() {
+    this.producer.close(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
 }
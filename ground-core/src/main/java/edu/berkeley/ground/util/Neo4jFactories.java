@@ -38,17 +38,25 @@ public class Neo4jFactories {
   private Neo4jLineageEdgeFactory lineageEdgeFactory;
   private Neo4jLineageEdgeVersionFactory lineageEdgeVersionFactory;
 
+  private Neo4jTagFactory tagFactory;
+
   public Neo4jFactories(Neo4jClient neo4jClient, int machineId, int numMachines) {
-    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, true);
+    long prefix = IdGenerator.prefix(machineId, numMachines);
+    long maxValue = IdGenerator.maxCounterValue(numMachines);
+    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, true,
+        (machine, counter, count) -> neo4jClient.leaseIds(machine, counter, count, prefix, maxValue),
+        IdGenerator.DEFAULT_LEASE_SIZE);
 
     Neo4jVersionSuccessorFactory versionSuccessorFactory = new Neo4jVersionSuccessorFactory(neo4jClient, idGenerator);
     Neo4jVersionHistoryDAGFactory versionHistoryDAGFactory = new Neo4jVersionHistoryDAGFactory(neo4jClient, versionSuccessorFactory);
-    Neo4jTagFactory tagFactory = new Neo4jTagFactory(neo4jClient);
-    Neo4jItemFactory itemFactory = new Neo4jItemFactory(neo4jClient, versionHistoryDAGFactory, tagFactory);
+    this.tagFactory = new Neo4jTagFactory(neo4jClient);
+    Neo4jItemFactory itemFactory = new Neo4jItemFactory(neo4jClient, versionHistoryDAGFactory, this.tagFactory);
 
     this.structureFactory = new Neo4jStructureFactory(neo4jClient, itemFactory, idGenerator);
     this.structureVersionFactory = new Neo4jStructureVersionFactory(neo4jClient, this.structureFactory, idGenerator);
-    Neo4jRichVersionFactory richVersionFactory = new Neo4jRichVersionFactory(neo4jClient, structureVersionFactory, tagFactory);
+    StructureValidatorCache structureValidators = new StructureValidatorCache(this.structureVersionFactory,
+        StructureValidatorCache.DEFAULT_SIZE);
+    Neo4jRichVersionFactory richVersionFactory = new Neo4jRichVersionFactory(neo4jClient, structureValidators, this.tagFactory);
     this.edgeFactory = new Neo4jEdgeFactory(itemFactory, neo4jClient, idGenerator);
     this.edgeVersionFactory = new Neo4jEdgeVersionFactory(this.edgeFactory, richVersionFactory, neo4jClient, idGenerator);
     this.graphFactory = new Neo4jGraphFactory(neo4jClient, itemFactory, idGenerator);
@@ -99,4 +107,8 @@ public class Neo4jFactories {
   public StructureVersionFactory getStructureVersionFactory() {
     return structureVersionFactory;
   }
+
+  public TagFactory getTagFactory() {
+    return tagFactory;
+  }
 }
@@ -15,9 +15,14 @@
 package edu.berkeley.ground.util;
 
 import edu.berkeley.ground.api.models.*;
+import edu.berkeley.ground.api.models.feed.ChangeFeedEdgeVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedGraphVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedNodeVersionFactory;
+import edu.berkeley.ground.api.models.feed.ChangeFeedStructureVersionFactory;
 import edu.berkeley.ground.api.models.postgres.*;
 import edu.berkeley.ground.api.usage.LineageEdgeFactory;
 import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
+import edu.berkeley.ground.api.usage.feed.ChangeFeedLineageEdgeVersionFactory;
 import edu.berkeley.ground.api.usage.postgres.PostgresLineageEdgeFactory;
 import edu.berkeley.ground.api.usage.postgres.PostgresLineageEdgeVersionFactory;
 import edu.berkeley.ground.api.versions.postgres.PostgresItemFactory;
@@ -28,29 +33,48 @@ import edu.berkeley.ground.db.PostgresClient;
 
 public class PostgresFactories {
   private PostgresStructureFactory structureFactory;
-  private PostgresStructureVersionFactory structureVersionFactory;
+  private StructureVersionFactory structureVersionFactory;
   private PostgresEdgeFactory edgeFactory;
-  private PostgresEdgeVersionFactory edgeVersionFactory;
+  private EdgeVersionFactory edgeVersionFactory;
   private PostgresGraphFactory graphFactory;
-  private PostgresGraphVersionFactory graphVersionFactory;
+  private GraphVersionFactory graphVersionFactory;
   private PostgresNodeFactory nodeFactory;
-  private PostgresNodeVersionFactory nodeVersionFactory;
+  private NodeVersionFactory nodeVersionFactory;
+
+  private PostgresBulkIngestFactory bulkIngestFactory;
 
   private PostgresLineageEdgeFactory lineageEdgeFactory;
-  private PostgresLineageEdgeVersionFactory lineageEdgeVersionFactory;
+  private LineageEdgeVersionFactory lineageEdgeVersionFactory;
+
+  private PostgresTagFactory tagFactory;
 
   public PostgresFactories(PostgresClient postgresClient, int machineId, int numMachines) {
-    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, false);
+    this(postgresClient, machineId, numMachines, StructureValidatorCache.DEFAULT_SIZE);
+  }
+
+  /**
+   * @param structureValidatorCacheSize the number of structure versions whose validators are kept
+   *                                    in memory; 0 reads the structure version on every write
+   */
+  public PostgresFactories(PostgresClient postgresClient, int machineId, int numMachines,
+                           long structureValidatorCacheSize) {
+    long prefix = IdGenerator.prefix(machineId, numMachines);
+    long maxValue = IdGenerator.maxCounterValue(numMachines);
+    IdGenerator idGenerator = new IdGenerator(machineId, numMachines, false,
+        (machine, counter, count) -> postgresClient.leaseIds(machine, counter, count, prefix, maxValue),
+        IdGenerator.DEFAULT_LEASE_SIZE);
 
     PostgresVersionFactory versionFactory = new PostgresVersionFactory(postgresClient);
     PostgresVersionSuccessorFactory versionSuccessorFactory = new PostgresVersionSuccessorFactory(postgresClient, idGenerator);
     PostgresVersionHistoryDAGFactory versionHistoryDAGFactory = new PostgresVersionHistoryDAGFactory(postgresClient, versionSuccessorFactory);
-    PostgresTagFactory tagFactory = new PostgresTagFactory(postgresClient);
-    PostgresItemFactory itemFactory = new PostgresItemFactory(postgresClient, versionHistoryDAGFactory, tagFactory);
+    this.tagFactory = new PostgresTagFactory(postgresClient);
+    PostgresItemFactory itemFactory = new PostgresItemFactory(postgresClient, versionHistoryDAGFactory, this.tagFactory);
 
     this.structureFactory = new PostgresStructureFactory(itemFactory, postgresClient, idGenerator);
     this.structureVersionFactory = new PostgresStructureVersionFactory(this.structureFactory, versionFactory, postgresClient, idGenerator);
-    PostgresRichVersionFactory richVersionFactory = new PostgresRichVersionFactory(postgresClient, versionFactory, structureVersionFactory, tagFactory);
+    StructureValidatorCache structureValidators = new StructureValidatorCache(this.structureVersionFactory,
+        structureValidatorCacheSize);
+    PostgresRichVersionFactory richVersionFactory = new PostgresRichVersionFactory(postgresClient, versionFactory, structureValidators, this.tagFactory);
     this.edgeFactory = new PostgresEdgeFactory(itemFactory, postgresClient, idGenerator);
     this.edgeVersionFactory = new PostgresEdgeVersionFactory(this.edgeFactory, richVersionFactory, postgresClient, idGenerator);
     this.graphFactory = new PostgresGraphFactory(itemFactory, postgresClient, idGenerator);
@@ -60,6 +84,22 @@ public class PostgresFactories {
 
     this.lineageEdgeFactory = new PostgresLineageEdgeFactory(itemFactory, postgresClient, idGenerator);
     this.lineageEdgeVersionFactory = new PostgresLineageEdgeVersionFactory(this.lineageEdgeFactory, richVersionFactory, postgresClient, idGenerator);
+
+    this.bulkIngestFactory = new PostgresBulkIngestFactory(postgresClient, this.nodeFactory, this.edgeFactory, structureValidators,
+        versionHistoryDAGFactory, idGenerator);
+  }
+
+  /**
+   * Publish an event for every version created through these factories, as a server with a
+   * change feed topic does. The events of a bulk ingest are published once it has committed.
+   */
+  public void setChangeFeed(ChangeFeed changeFeed) {
+    this.edgeVersionFactory = new ChangeFeedEdgeVersionFactory(this.edgeVersionFactory, changeFeed);
+    this.graphVersionFactory = new ChangeFeedGraphVersionFactory(this.graphVersionFactory, changeFeed);
+    this.lineageEdgeVersionFactory = new ChangeFeedLineageEdgeVersionFactory(this.lineageEdgeVersionFactory, changeFeed);
+    this.nodeVersionFactory = new ChangeFeedNodeVersionFactory(this.nodeVersionFactory, changeFeed);
+    this.structureVersionFactory = new ChangeFeedStructureVersionFactory(this.structureVersionFactory, changeFeed);
+    this.bulkIngestFactory.setChangeFeed(changeFeed);
   }
 
   public EdgeFactory getEdgeFactory() {
@@ -86,6 +126,10 @@ public class PostgresFactories {
     return nodeVersionFactory;
   }
 
+  public BulkIngestFactory getBulkIngestFactory() {
+    return bulkIngestFactory;
+  }
+
   public LineageEdgeFactory getLineageEdgeFactory() {
     return lineageEdgeFactory;
   }
@@ -101,4 +145,8 @@ public class PostgresFactories {
   public StructureVersionFactory getStructureVersionFactory() {
     return structureVersionFactory;
   }
+
+  public TagFactory getTagFactory() {
+    return tagFactory;
+  }
 }
@@ -0,0 +1,51 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.util;
+
+import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.exceptions.GroundDBException;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scopes database transactions to Jersey requests: once a request has finished, whatever the
+ * request thread still holds is rolled back and handed back to the client.
+ */
+public class TransactionListener implements ApplicationEventListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionListener.class);
+
+  private final DBClient dbClient;
+
+  public TransactionListener(DBClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void onEvent(ApplicationEvent event) {}
+
+  @Override
+  public RequestEventListener onRequest(RequestEvent requestEvent) {
+    return event -> {
+      if (event.getType() == RequestEvent.Type.FINISHED) {
+        try {
+          this.dbClient.release();
+        } catch (GroundDBException e) {
+          LOGGER.error("Unable to release transaction: " + e.getMessage());
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.berkeley.ground.util;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.berkeley.ground.api.versions.Version;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A size-bounded cache of hydrated versions, shared by the cached version factories. Versions
+ * never change once they have been created, so entries are only ever evicted, never invalidated.
+ *
+ * <p>All kinds of versions draw their ids from the same counter, so they share one key space. A
+ * cached version of the wrong kind is treated as a miss, which leaves it to the backend to reject
+ * the id.
+ */
+public class VersionCache {
+  private final Cache<Long, Version> cache;
+
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load(long id) throws GroundException;
+  }
+
+  @FunctionalInterface
+  public interface BatchLoader<T> {
+    List<T> load(List<Long> ids) throws GroundException;
+  }
+
+  public VersionCache(long maximumSize, MetricRegistry metricRegistry) {
+    this(maximumSize, metricRegistry, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param executor runs evictions; Runnable::run makes them happen before a put returns, as tests
+   *     that count them need
+   */
+  VersionCache(long maximumSize, MetricRegistry metricRegistry, Executor executor) {
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize).executor(executor).recordStats()
+        .build();
+
+    metricRegistry.register(MetricRegistry.name(VersionCache.class, "hits"),
+        (Gauge<Long>) () -> this.cache.stats().hitCount());
+    metricRegistry.register(MetricRegistry.name(VersionCache.class, "misses"),
+        (Gauge<Long>) () -> this.cache.stats().missCount());
+    metricRegistry.register(MetricRegistry.name(VersionCache.class, "evictions"),
+        (Gauge<Long>) () -> this.cache.stats().evictionCount());
+    metricRegistry.register(MetricRegistry.name(VersionCache.class, "size"),
+        (Gauge<Long>) this.cache::estimatedSize);
+  }
+
+  /**
+   * Look up a version, loading it from the backend if it is not cached.
+   *
+   * @param id the id of the version
+   * @param type the kind of version
+   * @param loader retrieves the version from the backend
+   */
+  public <T extends Version> T get(long id, Class<T> type, Loader<T> loader)
+      throws GroundException {
+    Version cached = this.cache.getIfPresent(id);
+    if (type.isInstance(cached)) {
+      return type.cast(cached);
+    }
+
+    T version = loader.load(id);
+    this.cache.put(id, version);
+
+    return version;
+  }
+
+  /**
+   * Look up several versions, loading the ones that are not cached from the backend at once.
+   *
+   * @param ids the ids of the versions
+   * @param type the kind of version
+   * @param loader retrieves the missing versions from the backend, in the order of their ids
+   * @return the versions, in the order of ids
+   */
+  public <T extends Version> List<T> getAll(List<Long> ids, Class<T> type, BatchLoader<T> loader)
+      throws GroundException {
+    Map<Long, T> versions = new HashMap<>();
+    Set<Long> missing = new LinkedHashSet<>();
+
+    for (long id : ids) {
+      if (versions.containsKey(id) || missing.contains(id)) {
+        continue;
+      }
+
+      Version cached = this.cache.getIfPresent(id);
+      if (type.isInstance(cached)) {
+        versions.put(id, type.cast(cached));
+      } else {
+        missing.add(id);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      for (T version : loader.load(new ArrayList<>(missing))) {
+        versions.put(version.getId(), version);
+        this.cache.put(version.getId(), version);
+      }
+    }
+
+    List<T> result = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      result.add(versions.get(id));
+    }
+
+    return result;
+  }
+
+  /**
+   * Block until pending evictions have run. Only needed to make the size exact, as in tests.
+   */
+  public void cleanUp() {
+    this.cache.cleanUp();
+  }
+
+  public long size() {
+    return this.cache.estimatedSize();
+  }
+}
@@ -7,8 +7,8 @@ import org.junit.BeforeClass;
 import java.io.File;
 import java.io.IOException;
 
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.cassandra.CassandraRichVersionFactory;
-import edu.berkeley.ground.api.models.cassandra.CassandraStructureVersionFactory;
 import edu.berkeley.ground.api.models.cassandra.CassandraTagFactory;
 import edu.berkeley.ground.api.versions.cassandra.CassandraItemFactory;
 import edu.berkeley.ground.api.versions.cassandra.CassandraVersionFactory;
@@ -43,7 +43,7 @@ public class CassandraTest {
     itemFactory = new CassandraItemFactory(cassandraClient, versionHistoryDAGFactory, tagFactory);
 
     richVersionFactory = new CassandraRichVersionFactory(cassandraClient, versionFactory,
-        (CassandraStructureVersionFactory) factories.getStructureVersionFactory(), tagFactory);
+        new StructureValidatorCache(factories.getStructureVersionFactory(), StructureValidatorCache.DEFAULT_SIZE), tagFactory);
   }
 
   @Before
@@ -7,13 +7,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.neo4j.Neo4jRichVersionFactory;
-import edu.berkeley.ground.api.models.neo4j.Neo4jStructureVersionFactory;
 import edu.berkeley.ground.api.models.neo4j.Neo4jTagFactory;
 import edu.berkeley.ground.api.versions.neo4j.Neo4jItemFactory;
 import edu.berkeley.ground.api.versions.neo4j.Neo4jVersionHistoryDAGFactory;
 import edu.berkeley.ground.api.versions.neo4j.Neo4jVersionSuccessorFactory;
 import edu.berkeley.ground.db.Neo4jClient;
+import edu.berkeley.ground.exceptions.GroundDBException;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.util.IdGenerator;
 import edu.berkeley.ground.util.Neo4jFactories;
@@ -31,19 +32,19 @@ public class Neo4jTest {
   protected Neo4jTagFactory tagFactory;
   protected Neo4jRichVersionFactory richVersionFactory;
 
-  public Neo4jTest() {
+  public Neo4jTest() throws GroundDBException {
     this.neo4jClient = new Neo4jClient("localhost", "neo4j", "password");
     this.factories = new Neo4jFactories(this.neo4jClient, 0, 1);
     this.versionSuccessorFactory = new Neo4jVersionSuccessorFactory(this.neo4jClient, new IdGenerator(0, 1, true));
     this.versionHistoryDAGFactory = new Neo4jVersionHistoryDAGFactory(this.neo4jClient, this.versionSuccessorFactory);
     this.tagFactory = new Neo4jTagFactory(this.neo4jClient);
     this.itemFactory = new Neo4jItemFactory(this.neo4jClient, this.versionHistoryDAGFactory, tagFactory);
-    this.richVersionFactory = new Neo4jRichVersionFactory(this.neo4jClient, (Neo4jStructureVersionFactory)
-        this.factories.getStructureVersionFactory(), this.tagFactory);
+    this.richVersionFactory = new Neo4jRichVersionFactory(this.neo4jClient, new StructureValidatorCache(
+        this.factories.getStructureVersionFactory(), StructureValidatorCache.DEFAULT_SIZE), this.tagFactory);
   }
 
   @Before
-  public void setup() throws IOException, InterruptedException {
+  public void setup() throws GroundDBException {
     this.neo4jClient.dropData();
   }
 
@@ -5,8 +5,8 @@ import org.junit.Before;
 import java.io.File;
 import java.io.IOException;
 
+import edu.berkeley.ground.api.models.StructureValidatorCache;
 import edu.berkeley.ground.api.models.postgres.PostgresRichVersionFactory;
-import edu.berkeley.ground.api.models.postgres.PostgresStructureVersionFactory;
 import edu.berkeley.ground.api.models.postgres.PostgresTagFactory;
 import edu.berkeley.ground.api.versions.postgres.PostgresItemFactory;
 import edu.berkeley.ground.api.versions.postgres.PostgresVersionFactory;
@@ -40,7 +40,7 @@ public class PostgresTest {
     this.itemFactory = new PostgresItemFactory(this.postgresClient, versionHistoryDAGFactory, tagFactory);
 
     this.richVersionFactory = new PostgresRichVersionFactory(this.postgresClient, versionFactory,
-        (PostgresStructureVersionFactory) factories.getStructureVersionFactory(), tagFactory);
+        new StructureValidatorCache(factories.getStructureVersionFactory(), StructureValidatorCache.DEFAULT_SIZE), tagFactory);
   }
 
   @Before
@@ -0,0 +1,170 @@
+package edu.berkeley.ground.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.berkeley.ground.api.models.EdgeFactory;
+import edu.berkeley.ground.api.models.EdgeVersionFactory;
+import edu.berkeley.ground.api.models.NodeFactory;
+import edu.berkeley.ground.api.models.NodeVersionFactory;
+import edu.berkeley.ground.api.usage.LineageEdgeFactory;
+import edu.berkeley.ground.api.usage.LineageEdgeVersionFactory;
+import edu.berkeley.ground.db.DBClient;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import static org.junit.Assert.*;
+
+/**
+ * The traversal tests that every backend runs against its own factories, so that paging, depth
+ * limits and edge name filters behave the same everywhere.
+ */
+public final class TraversalTests {
+  private TraversalTests() {}
+
+  /**
+   * Create a diamond, plus a tail below it: 1 -> {2, 3} -> 4 -> 5. The edge from a to b is named
+   * prefix + "Edge" + a + b.
+   *
+   * @return the ids of the node versions 1 to 5
+   */
+  public static List<Long> createDiamond(NodeFactory nodeFactory,
+                                         NodeVersionFactory nodeVersionFactory,
+                                         EdgeFactory edgeFactory,
+                                         EdgeVersionFactory edgeVersionFactory,
+                                         String prefix) throws GroundException {
+    List<Long> nodeVersionIds = createNodeVersions(nodeFactory, nodeVersionFactory, prefix, 5);
+
+    int[][] edges = {{1, 2}, {1, 3}, {2, 4}, {3, 4}, {4, 5}};
+    for (int[] edge : edges) {
+      long edgeId = edgeFactory.create(prefix + "Edge" + edge[0] + edge[1], new HashMap<>()).getId();
+
+      edgeVersionFactory.create(new HashMap<>(), -1, null, new HashMap<>(), edgeId,
+          nodeVersionIds.get(edge[0] - 1), nodeVersionIds.get(edge[1] - 1), new ArrayList<>());
+    }
+
+    return nodeVersionIds;
+  }
+
+  public static void testClosurePages(NodeFactory nodeFactory,
+                                      NodeVersionFactory nodeVersionFactory,
+                                      EdgeFactory edgeFactory,
+                                      EdgeVersionFactory edgeVersionFactory) throws GroundException {
+    List<Long> nodeVersionIds = createDiamond(nodeFactory, nodeVersionFactory, edgeFactory,
+        edgeVersionFactory, "paged");
+    long start = nodeVersionIds.get(0);
+
+    assertEquals(nodeVersionIds.subList(1, 5), nodeVersionFactory.getTransitiveClosure(start,
+        DBClient.UNBOUNDED_DEPTH, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(1, 3),
+        nodeVersionFactory.getTransitiveClosure(start, 1, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(1, 4),
+        nodeVersionFactory.getTransitiveClosure(start, 2, Long.MIN_VALUE, 10));
+
+    List<Long> firstPage = nodeVersionFactory.getTransitiveClosure(start,
+        DBClient.UNBOUNDED_DEPTH, Long.MIN_VALUE, 2);
+    assertEquals(nodeVersionIds.subList(1, 3), firstPage);
+    assertEquals(nodeVersionIds.subList(3, 5), nodeVersionFactory.getTransitiveClosure(start,
+        DBClient.UNBOUNDED_DEPTH, firstPage.get(1), 2));
+  }
+
+  public static void testUpstreamTraversal(NodeFactory nodeFactory,
+                                           NodeVersionFactory nodeVersionFactory,
+                                           EdgeFactory edgeFactory,
+                                           EdgeVersionFactory edgeVersionFactory)
+      throws GroundException {
+    List<Long> nodeVersionIds = createDiamond(nodeFactory, nodeVersionFactory, edgeFactory,
+        edgeVersionFactory, "upstream");
+    long end = nodeVersionIds.get(4);
+
+    assertEquals(nodeVersionIds.subList(0, 4), nodeVersionFactory.getUpstreamClosure(end,
+        DBClient.UNBOUNDED_DEPTH, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(3, 4),
+        nodeVersionFactory.getUpstreamClosure(end, 1, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(1, 4),
+        nodeVersionFactory.getUpstreamClosure(end, 2, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(2, 4), nodeVersionFactory.getUpstreamClosure(end,
+        DBClient.UNBOUNDED_DEPTH, nodeVersionIds.get(1), 2));
+
+    assertEquals(nodeVersionIds.subList(1, 3), nodeVersionFactory.getUpstreamAdjacentNodes(
+        nodeVersionIds.get(3), "upstreamEdge", Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(2, 3), nodeVersionFactory.getUpstreamAdjacentNodes(
+        nodeVersionIds.get(3), "upstreamEdge34", Long.MIN_VALUE, 10));
+  }
+
+  public static void testAdjacentNodes(NodeFactory nodeFactory,
+                                       NodeVersionFactory nodeVersionFactory,
+                                       EdgeFactory edgeFactory,
+                                       EdgeVersionFactory edgeVersionFactory)
+      throws GroundException {
+    List<Long> nodeVersionIds = createNodeVersions(nodeFactory, nodeVersionFactory, "adjacent", 4);
+
+    String[] edgeNames = {"adjacentEdge", "otherEdge", "secondAdjacentEdge"};
+    for (int i = 0; i < edgeNames.length; i++) {
+      long edgeId = edgeFactory.create(edgeNames[i], new HashMap<>()).getId();
+
+      edgeVersionFactory.create(new HashMap<>(), -1, null, new HashMap<>(), edgeId,
+          nodeVersionIds.get(0), nodeVersionIds.get(i + 1), new ArrayList<>());
+    }
+
+    List<Long> adjacent = nodeVersionFactory.getAdjacentNodes(nodeVersionIds.get(0), "djacent");
+
+    assertEquals(2, adjacent.size());
+    assertTrue(adjacent.contains(nodeVersionIds.get(1)));
+    assertTrue(adjacent.contains(nodeVersionIds.get(3)));
+
+    assertEquals(Arrays.asList(nodeVersionIds.get(3)), nodeVersionFactory.getAdjacentNodes(
+        nodeVersionIds.get(0), "djacent", nodeVersionIds.get(1), 10));
+  }
+
+  public static void testUpstreamLineage(NodeFactory nodeFactory,
+                                         NodeVersionFactory nodeVersionFactory,
+                                         LineageEdgeFactory lineageEdgeFactory,
+                                         LineageEdgeVersionFactory lineageEdgeVersionFactory)
+      throws GroundException {
+    List<Long> nodeVersionIds = createNodeVersions(nodeFactory, nodeVersionFactory, "lineage", 4);
+
+    long feedsId = lineageEdgeFactory.create("feeds", new HashMap<>()).getId();
+    long copiesId = lineageEdgeFactory.create("copies", new HashMap<>()).getId();
+
+    // 3 feeds 0, and 0 feeds 2 while 1 is copied into 2
+    long[][] lineageEdges = {{3, 0, feedsId}, {0, 2, feedsId}, {1, 2, copiesId}};
+    for (long[] lineageEdge : lineageEdges) {
+      lineageEdgeVersionFactory.create(new HashMap<>(), -1, null, new HashMap<>(),
+          nodeVersionIds.get((int) lineageEdge[0]), nodeVersionIds.get((int) lineageEdge[1]),
+          lineageEdge[2], new ArrayList<>());
+    }
+
+    long end = nodeVersionIds.get(2);
+
+    assertEquals(Arrays.asList(nodeVersionIds.get(0), nodeVersionIds.get(1),
+        nodeVersionIds.get(3)), lineageEdgeVersionFactory.getUpstreamClosure(end,
+        DBClient.UNBOUNDED_DEPTH, Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(0, 2),
+        lineageEdgeVersionFactory.getUpstreamClosure(end, 1, Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(nodeVersionIds.get(3)), lineageEdgeVersionFactory
+        .getUpstreamClosure(end, DBClient.UNBOUNDED_DEPTH, nodeVersionIds.get(1), 10));
+
+    assertEquals(nodeVersionIds.subList(0, 1),
+        lineageEdgeVersionFactory.getUpstreamAdjacent(end, "feeds", Long.MIN_VALUE, 10));
+    assertEquals(nodeVersionIds.subList(0, 2),
+        lineageEdgeVersionFactory.getUpstreamAdjacent(end, "s", Long.MIN_VALUE, 10));
+  }
+
+  // one version each of count new nodes, named prefix + "Node" + i
+  private static List<Long> createNodeVersions(NodeFactory nodeFactory,
+                                               NodeVersionFactory nodeVersionFactory,
+                                               String prefix,
+                                               int count) throws GroundException {
+    List<Long> nodeVersionIds = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      long nodeId = nodeFactory.create(prefix + "Node" + i, new HashMap<>()).getId();
+
+      nodeVersionIds.add(nodeVersionFactory.create(new HashMap<>(), -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    return nodeVersionIds;
+  }
+}
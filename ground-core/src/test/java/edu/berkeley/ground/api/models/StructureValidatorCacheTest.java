@@ -0,0 +1,115 @@
+package edu.berkeley.ground.api.models;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import static org.junit.Assert.*;
+
+public class StructureValidatorCacheTest {
+  private int retrievals = 0;
+
+  // serves a single structure version that requires an integer and a string tag
+  private final StructureVersionFactory structureVersionFactory = new StructureVersionFactory() {
+    @Override
+    public StructureVersion create(long structureId, Map<String, GroundType> attributes,
+                                   List<Long> parentIds) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public StructureVersion retrieveFromDatabase(long id) throws GroundException {
+      retrievals++;
+
+      if (id != 1) {
+        throw new GroundException("No StructureVersion found with id " + id + ".");
+      }
+
+      Map<String, GroundType> attributes = new HashMap<>();
+      attributes.put("intfield", GroundType.INTEGER);
+      attributes.put("strfield", GroundType.STRING);
+
+      return new StructureVersion(id, 1, attributes);
+    }
+
+    @Override
+    public List<StructureVersion> retrieveFromDatabase(List<Long> ids) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private Map<String, Tag> tags(Object intValue, GroundType intType) {
+    Map<String, Tag> tags = new HashMap<>();
+    tags.put("intfield", new Tag(-1, "intfield", intValue, intType));
+    tags.put("strfield", new Tag(-1, "strfield", "1", GroundType.STRING));
+
+    return tags;
+  }
+
+  @Test
+  public void testValidatorIsCached() throws GroundException {
+    StructureValidatorCache cache = new StructureValidatorCache(this.structureVersionFactory, 10);
+
+    for (int i = 0; i < 5; i++) {
+      cache.get(1).validate(this.tags(i, GroundType.INTEGER));
+    }
+
+    assertEquals(1, this.retrievals);
+  }
+
+  @Test
+  public void testDisabledCacheRetrievesEveryTime() throws GroundException {
+    StructureValidatorCache cache = new StructureValidatorCache(this.structureVersionFactory, 0);
+
+    for (int i = 0; i < 5; i++) {
+      cache.get(1).validate(this.tags(i, GroundType.INTEGER));
+    }
+
+    assertEquals(5, this.retrievals);
+  }
+
+  @Test
+  public void testMissingStructureVersionIsNotCached() throws GroundException {
+    StructureValidatorCache cache = new StructureValidatorCache(this.structureVersionFactory, 10);
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.get(2);
+        fail();
+      } catch (GroundException e) {
+        assertEquals("No StructureVersion found with id 2.", e.getMessage());
+      }
+    }
+
+    assertEquals(2, this.retrievals);
+  }
+
+  @Test
+  public void testValidation() throws GroundException {
+    StructureValidator validator = new StructureValidatorCache(this.structureVersionFactory, 10)
+        .get(1);
+
+    Map<String, Tag> missing = this.tags(1, GroundType.INTEGER);
+    missing.remove("strfield");
+
+    this.assertInvalid(validator, new HashMap<>(), "No tags were specified");
+    this.assertInvalid(validator, missing, "No tag with key strfield was specified.");
+    this.assertInvalid(validator, this.tags(null, null), "Tag with key intfield did not have a value.");
+    this.assertInvalid(validator, this.tags("1", GroundType.STRING),
+        "Tag with key intfield did not have a value of the correct type.");
+  }
+
+  private void assertInvalid(StructureValidator validator, Map<String, Tag> tags, String message) {
+    try {
+      validator.validate(tags);
+      fail();
+    } catch (GroundException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+}
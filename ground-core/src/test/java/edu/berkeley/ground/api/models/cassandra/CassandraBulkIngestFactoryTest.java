@@ -0,0 +1,65 @@
+package edu.berkeley.ground.api.models.cassandra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.List;
+
+import edu.berkeley.ground.api.CassandraTest;
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+import io.dropwizard.jackson.Jackson;
+
+import static org.junit.Assert.*;
+
+public class CassandraBulkIngestFactoryTest extends CassandraTest {
+  private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+
+  public CassandraBulkIngestFactoryTest() throws GroundException {
+    super();
+  }
+
+  @Test
+  public void testBulkIngest() throws Exception {
+    String stream = "{\"type\": \"node\", \"name\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node\", \"name\": \"secondTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"first\", \"node\": \"firstTestNode\","
+        + " \"tags\": {\"strfield\": {\"key\": \"strfield\", \"value\": \"1\", \"type\": \"string\"}}}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"second\", \"node\": \"secondTestNode\","
+        + " \"reference\": \"http://www.google.com\", \"referenceParameters\": {\"http\": \"GET\"}}\n"
+        + "{\"type\": \"edge\", \"name\": \"testEdge\"}\n"
+        + "{\"type\": \"edge_version\", \"ref\": \"edge\", \"edge\": \"testEdge\", \"from\": \"first\", \"to\": \"second\"}\n";
+
+    Iterator<BulkRecord> records = MAPPER.readerFor(BulkRecord.class).readValues(stream);
+    BulkIngestResult result = super.factories.getBulkIngestFactory().ingest(records);
+
+    assertEquals(2, result.getNodes());
+    assertEquals(2, result.getNodeVersions());
+    assertEquals(1, result.getEdges());
+    assertEquals(1, result.getEdgeVersions());
+
+    long firstId = result.getIds().get("first");
+    long secondId = result.getIds().get("second");
+
+    NodeVersion first = super.factories.getNodeVersionFactory().retrieveFromDatabase(firstId);
+    assertEquals("1", first.getTags().get("strfield").getValue());
+
+    NodeVersion second = super.factories.getNodeVersionFactory().retrieveFromDatabase(secondId);
+    assertEquals("http://www.google.com", second.getReference());
+    assertEquals("GET", second.getParameters().get("http"));
+
+    EdgeVersion edgeVersion = super.factories.getEdgeVersionFactory()
+        .retrieveFromDatabase(result.getIds().get("edge"));
+    assertEquals(firstId, edgeVersion.getFromId());
+    assertEquals(secondId, edgeVersion.getToId());
+
+    List<Long> leaves = super.factories.getNodeFactory().getLeaves("firstTestNode");
+    assertEquals(1, leaves.size());
+    assertEquals(firstId, (long) leaves.get(0));
+  }
+}
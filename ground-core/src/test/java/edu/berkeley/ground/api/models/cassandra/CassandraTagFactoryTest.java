@@ -3,13 +3,17 @@ package edu.berkeley.ground.api.models.cassandra;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.CassandraTest;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.CassandraClient;
 import edu.berkeley.ground.exceptions.GroundException;
 
 import static org.junit.Assert.*;
@@ -55,4 +59,113 @@ public class CassandraTagFactoryTest extends CassandraTest {
     assertTrue(ids.contains(nodeVersionId1));
     assertTrue(ids.contains(nodeVersionId2));
   }
+
+  private long createTaggedNode(String name, Object value, GroundType type) throws GroundException {
+    Map<String, Tag> tags = new HashMap<>();
+    tags.put("size", new Tag(-1, "size", value, type));
+
+    return CassandraTest.factories.getNodeFactory().create(name, tags).getId();
+  }
+
+  @Test
+  public void testSearchItemIds() throws GroundException {
+    long integer = this.createTaggedNode("search1", 5, GroundType.INTEGER);
+    long large = this.createTaggedNode("search2", 3000000000L, GroundType.LONG);
+    long string = this.createTaggedNode("search3", "5", GroundType.STRING);
+    long underscore = this.createTaggedNode("search4", "part_01", GroundType.STRING);
+    long other = this.createTaggedNode("search5", "partX01", GroundType.STRING);
+    long empty = this.createTaggedNode("search6", null, null);
+
+    assertEquals(Arrays.asList(integer, large, string, underscore, other, empty),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.exists("size"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(string),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.in("size", GroundType.STRING, Arrays.asList("5")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.in("size", GroundType.INTEGER, Arrays.asList("05", "3000000000")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(underscore),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.prefix("size", "part_"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.range("size", 4L, null), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer),
+        CassandraTest.tagFactory.searchItemIds(TagQuery.range("size", null, 5L), Long.MIN_VALUE, 10));
+    assertTrue(CassandraTest.tagFactory.searchItemIds(TagQuery.exists("missing"), Long.MIN_VALUE, 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchVersionIdsInPages() throws GroundException {
+    long nodeId = CassandraTest.factories.getNodeFactory().create("pages", new HashMap<>()).getId();
+
+    List<Long> versionIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("page", new Tag(-1, "page", i, GroundType.INTEGER));
+
+      versionIds.add(CassandraTest.factories.getNodeVersionFactory().create(tags, -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    TagQuery query = TagQuery.range("page", 1L, 4L);
+
+    List<Long> first = CassandraTest.tagFactory.searchVersionIds(query, Long.MIN_VALUE, 2);
+    assertEquals(versionIds.subList(1, 3), first);
+
+    List<Long> second = CassandraTest.tagFactory.searchVersionIds(query, first.get(1), 2);
+    assertEquals(versionIds.subList(3, 5), second);
+
+    assertTrue(CassandraTest.tagFactory.searchVersionIds(query, second.get(1), 2).isEmpty());
+  }
+
+  @Test
+  public void testSearchItemIdsAcrossBuckets() throws GroundException {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < CassandraClient.TAG_BUCKETS + 4; i++) {
+      ids.add(this.createTaggedNode("bucketed" + i, (long) i, GroundType.LONG));
+    }
+
+    // every page takes the smallest ids after the cursor from all of the buckets
+    for (TagQuery query : Arrays.asList(TagQuery.exists("size"), TagQuery.range("size", 0L, null))) {
+      List<Long> found = new ArrayList<>();
+      long afterId = Long.MIN_VALUE;
+      List<Long> page;
+      while (!(page = CassandraTest.tagFactory.searchItemIds(query, afterId, 7)).isEmpty()) {
+        found.addAll(page);
+        afterId = page.get(page.size() - 1);
+      }
+
+      assertEquals(ids, found);
+    }
+
+    assertEquals(ids.size(), CassandraTest.tagFactory.getItemIdsByTag("size").size());
+  }
+
+  @Test
+  public void testSearchVersionIdsWithFilter() throws GroundException {
+    long nodeId = CassandraTest.factories.getNodeFactory().create("filtered", new HashMap<>()).getId();
+
+    List<Long> versionIds = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("hour", new Tag(-1, "hour", (long) i, GroundType.LONG));
+      tags.put("region", new Tag(-1, "region", i % 2 == 0 ? "us" : "eu", GroundType.STRING));
+
+      versionIds.add(CassandraTest.factories.getNodeVersionFactory().create(tags, -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    // the region is searched, and the hours of its versions are checked one at a time
+    TagFilter usAfterOne = TagFilter.and(TagFilter.in("region", GroundType.STRING, "us"),
+        TagFilter.range("hour", 1L, null));
+    assertEquals(Arrays.asList(versionIds.get(2), versionIds.get(4)),
+        CassandraTest.tagFactory.searchVersionIds(usAfterOne, Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(versionIds.get(2)),
+        CassandraTest.tagFactory.searchVersionIds(usAfterOne, Long.MIN_VALUE, 1));
+
+    TagFilter nested = TagFilter.and(TagFilter.range("hour", 1L, 4L),
+        TagFilter.or(Arrays.asList(TagFilter.in("region", GroundType.STRING, "eu"),
+            TagFilter.in("hour", GroundType.LONG, "2"))));
+    assertEquals(Arrays.asList(versionIds.get(1), versionIds.get(2), versionIds.get(3)),
+        CassandraTest.tagFactory.searchVersionIds(nested, Long.MIN_VALUE, 10));
+  }
 }
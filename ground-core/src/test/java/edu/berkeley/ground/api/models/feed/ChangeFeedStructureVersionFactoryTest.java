@@ -0,0 +1,78 @@
+package edu.berkeley.ground.api.models.feed;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.models.StructureVersionFactory;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+import edu.berkeley.ground.util.KafkaProduce;
+
+import static org.junit.Assert.*;
+
+public class ChangeFeedStructureVersionFactoryTest {
+  private final MockProducer<String, byte[]> producer =
+      new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+
+  // creates version 10 of structure 1 and rejects every other structure
+  private final StructureVersionFactory delegate = new StructureVersionFactory() {
+    @Override
+    public StructureVersion create(long structureId, Map<String, GroundType> attributes,
+                                   List<Long> parentIds) throws GroundException {
+      if (structureId != 1) {
+        throw new GroundException("No Structure found with id " + structureId + ".");
+      }
+
+      return new StructureVersion(10, structureId, attributes);
+    }
+
+    @Override
+    public StructureVersion retrieveFromDatabase(long id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StructureVersion> retrieveFromDatabase(List<Long> ids) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private final StructureVersionFactory factory = new ChangeFeedStructureVersionFactory(
+      this.delegate, new ChangeFeed(new KafkaProduce(this.producer), "versions"));
+
+  @Test
+  public void testCreatePublishesEvent() throws GroundException {
+    StructureVersion version = this.factory.create(1, new HashMap<>(), new ArrayList<>());
+    assertEquals(10, version.getId());
+
+    List<ProducerRecord<String, byte[]>> records = this.producer.history();
+    assertEquals(1, records.size());
+    assertEquals("versions", records.get(0).topic());
+    assertEquals("1", records.get(0).key());
+    assertEquals("{\"type\":\"StructureVersion\",\"id\":10,\"itemId\":1}",
+        new String(records.get(0).value(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testFailedCreatePublishesNothing() {
+    try {
+      this.factory.create(2, new HashMap<>(), new ArrayList<>());
+      fail();
+    } catch (GroundException e) {
+      assertEquals("No Structure found with id 2.", e.getMessage());
+    }
+
+    assertTrue(this.producer.history().isEmpty());
+  }
+}
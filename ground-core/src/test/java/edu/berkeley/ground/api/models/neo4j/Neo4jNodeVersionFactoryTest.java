@@ -3,11 +3,13 @@ package edu.berkeley.ground.api.models.neo4j;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.Neo4jTest;
+import edu.berkeley.ground.api.TraversalTests;
 import edu.berkeley.ground.api.models.NodeVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
@@ -120,4 +122,64 @@ public class Neo4jNodeVersionFactoryTest extends Neo4jTest {
     assertTrue(reachable.contains(nodeVersionId));
     assertTrue(reachable.contains(secondNVId));
   }
+
+  @Test
+  public void testClosurePages() throws GroundException {
+    TraversalTests.testClosurePages(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
+
+  @Test
+  public void testAdjacentNodes() throws GroundException {
+    TraversalTests.testAdjacentNodes(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
+
+  @Test
+  public void testUpstreamTraversal() throws GroundException {
+    TraversalTests.testUpstreamTraversal(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
+
+  @Test
+  public void testBatchRetrieval() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+
+    List<Long> nodeVersionIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("index", new Tag(-1, "index", i, GroundType.INTEGER));
+
+      nodeVersionIds.add(super.factories.getNodeVersionFactory().create(tags, -1, null,
+          new HashMap<>(), nodeId, new ArrayList<>()).getId());
+    }
+
+    // out of insertion order, with a duplicate
+    List<Long> ids = Arrays.asList(nodeVersionIds.get(2), nodeVersionIds.get(0),
+        nodeVersionIds.get(2), nodeVersionIds.get(1));
+    List<NodeVersion> retrieved = super.factories.getNodeVersionFactory().retrieveFromDatabase(ids);
+
+    assertEquals(ids.size(), retrieved.size());
+    for (int i = 0; i < ids.size(); i++) {
+      NodeVersion version = retrieved.get(i);
+      assertEquals((long) ids.get(i), version.getId());
+      assertEquals(nodeId, version.getNodeId());
+      assertEquals(nodeVersionIds.indexOf(ids.get(i)), version.getTags().get("index").getValue());
+    }
+
+    assertTrue(super.factories.getNodeVersionFactory().retrieveFromDatabase(new ArrayList<>()).isEmpty());
+  }
+
+  @Test(expected = GroundException.class)
+  public void testBatchRetrievalMissingId() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+    long nodeVersionId = super.factories.getNodeVersionFactory().create(new HashMap<>(), -1, null,
+        new HashMap<>(), nodeId, new ArrayList<>()).getId();
+
+    super.factories.getNodeVersionFactory().retrieveFromDatabase(
+        Arrays.asList(nodeVersionId, nodeVersionId + 1000));
+  }
 }
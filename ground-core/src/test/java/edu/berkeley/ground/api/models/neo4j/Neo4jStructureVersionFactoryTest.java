@@ -3,7 +3,9 @@ package edu.berkeley.ground.api.models.neo4j;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.Neo4jTest;
@@ -43,4 +45,26 @@ public class Neo4jStructureVersionFactoryTest extends Neo4jTest {
       assertEquals(structureVersionAttributes.get(key), retrievedAttributes.get(key));
     }
   }
+
+  @Test
+  public void testBatchRetrieval() throws GroundException {
+    long structureId = super.factories.getStructureFactory().create("testStructure", new HashMap<>()).getId();
+    long emptyId = super.factories.getStructureVersionFactory().create(
+        structureId, new HashMap<>(), new ArrayList<>()).getId();
+
+    Map<String, GroundType> attributes = new HashMap<>();
+    attributes.put("intfield", GroundType.INTEGER);
+    attributes.put("strfield", GroundType.STRING);
+    long fullId = super.factories.getStructureVersionFactory().create(
+        structureId, attributes, new ArrayList<>()).getId();
+
+    List<StructureVersion> retrieved = super.factories.getStructureVersionFactory()
+        .retrieveFromDatabase(Arrays.asList(fullId, emptyId));
+
+    assertEquals(2, retrieved.size());
+    assertEquals(fullId, retrieved.get(0).getId());
+    assertEquals(attributes, retrieved.get(0).getAttributes());
+    assertEquals(emptyId, retrieved.get(1).getId());
+    assertTrue(retrieved.get(1).getAttributes().isEmpty());
+  }
 }
@@ -3,12 +3,14 @@ package edu.berkeley.ground.api.models.neo4j;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.Neo4jTest;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.GroundException;
 
@@ -55,4 +57,61 @@ public class Neo4jTagFactoryTest extends Neo4jTest {
     assertTrue(ids.contains(nodeVersionId1));
     assertTrue(ids.contains(nodeVersionId2));
   }
+
+  private long createTaggedNode(String name, Object value, GroundType type) throws GroundException {
+    Map<String, Tag> tags = new HashMap<>();
+    tags.put("size", new Tag(-1, "size", value, type));
+
+    return super.factories.getNodeFactory().create(name, tags).getId();
+  }
+
+  @Test
+  public void testSearchItemIds() throws GroundException {
+    long integer = this.createTaggedNode("search1", 5, GroundType.INTEGER);
+    long large = this.createTaggedNode("search2", 3000000000L, GroundType.LONG);
+    long string = this.createTaggedNode("search3", "5", GroundType.STRING);
+    long underscore = this.createTaggedNode("search4", "part_01", GroundType.STRING);
+    long other = this.createTaggedNode("search5", "partX01", GroundType.STRING);
+    long empty = this.createTaggedNode("search6", null, null);
+
+    assertEquals(Arrays.asList(integer, large, string, underscore, other, empty),
+        super.tagFactory.searchItemIds(TagQuery.exists("size"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(string),
+        super.tagFactory.searchItemIds(TagQuery.in("size", GroundType.STRING, Arrays.asList("5")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        super.tagFactory.searchItemIds(TagQuery.in("size", GroundType.INTEGER, Arrays.asList("05", "3000000000")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(underscore),
+        super.tagFactory.searchItemIds(TagQuery.prefix("size", "part_"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        super.tagFactory.searchItemIds(TagQuery.range("size", 4L, null), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer),
+        super.tagFactory.searchItemIds(TagQuery.range("size", null, 5L), Long.MIN_VALUE, 10));
+    assertTrue(super.tagFactory.searchItemIds(TagQuery.exists("missing"), Long.MIN_VALUE, 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchVersionIdsInPages() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("pages", new HashMap<>()).getId();
+
+    List<Long> versionIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("page", new Tag(-1, "page", i, GroundType.INTEGER));
+
+      versionIds.add(super.factories.getNodeVersionFactory().create(tags, -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    TagQuery query = TagQuery.range("page", 1L, 4L);
+
+    List<Long> first = super.tagFactory.searchVersionIds(query, Long.MIN_VALUE, 2);
+    assertEquals(versionIds.subList(1, 3), first);
+
+    List<Long> second = super.tagFactory.searchVersionIds(query, first.get(1), 2);
+    assertEquals(versionIds.subList(3, 5), second);
+
+    assertTrue(super.tagFactory.searchVersionIds(query, second.get(1), 2).isEmpty());
+  }
 }
@@ -0,0 +1,183 @@
+package edu.berkeley.ground.api.models.postgres;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.berkeley.ground.api.PostgresTest;
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.ChangeFeed;
+import edu.berkeley.ground.util.KafkaProduce;
+import io.dropwizard.jackson.Jackson;
+
+import static org.junit.Assert.*;
+
+public class PostgresBulkIngestFactoryTest extends PostgresTest {
+  private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+
+  public PostgresBulkIngestFactoryTest() throws GroundException {
+    super();
+  }
+
+  @Test
+  public void testBulkIngest() throws Exception {
+    String stream = "{\"type\": \"node\", \"name\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node\", \"name\": \"secondTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"first\", \"node\": \"firstTestNode\","
+        + " \"tags\": {\"strfield\": {\"key\": \"strfield\", \"value\": \"1\", \"type\": \"string\"}}}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"second\", \"node\": \"secondTestNode\","
+        + " \"reference\": \"http://www.google.com\", \"referenceParameters\": {\"http\": \"GET\"}}\n"
+        + "{\"type\": \"edge\", \"name\": \"testEdge\"}\n"
+        + "{\"type\": \"edge_version\", \"ref\": \"edge\", \"edge\": \"testEdge\", \"from\": \"first\", \"to\": \"second\"}\n";
+
+    Iterator<BulkRecord> records = MAPPER.readerFor(BulkRecord.class).readValues(stream);
+    BulkIngestResult result = super.factories.getBulkIngestFactory().ingest(records);
+
+    assertEquals(2, result.getNodes());
+    assertEquals(2, result.getNodeVersions());
+    assertEquals(1, result.getEdges());
+    assertEquals(1, result.getEdgeVersions());
+
+    long firstId = result.getIds().get("first");
+    long secondId = result.getIds().get("second");
+
+    NodeVersion first = super.factories.getNodeVersionFactory().retrieveFromDatabase(firstId);
+    assertEquals("1", first.getTags().get("strfield").getValue());
+
+    NodeVersion second = super.factories.getNodeVersionFactory().retrieveFromDatabase(secondId);
+    assertEquals("http://www.google.com", second.getReference());
+    assertEquals("GET", second.getParameters().get("http"));
+
+    EdgeVersion edgeVersion = super.factories.getEdgeVersionFactory()
+        .retrieveFromDatabase(result.getIds().get("edge"));
+    assertEquals(firstId, edgeVersion.getFromId());
+    assertEquals(secondId, edgeVersion.getToId());
+
+    List<Long> reachable = super.factories.getNodeVersionFactory().getTransitiveClosure(firstId);
+    assertEquals(1, reachable.size());
+    assertTrue(reachable.contains(secondId));
+
+    List<Long> leaves = super.factories.getNodeFactory().getLeaves("firstTestNode");
+    assertEquals(1, leaves.size());
+    assertEquals(firstId, (long) leaves.get(0));
+  }
+
+  @Test
+  public void testAtomicBulkIngestLoadsNothingOnFailure() throws Exception {
+    // enough nodes to fill more than one chunk, then a version of a node that does not exist
+    List<BulkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10001; i++) {
+      records.add(new BulkRecord(BulkRecord.NODE, null, "atomicNode" + i, null, null, null, null,
+          null, null, null, null, null));
+    }
+    records.add(new BulkRecord(BulkRecord.NODE_VERSION, null, null, "missingNode", null, null,
+        null, null, null, null, null, null));
+
+    try {
+      super.factories.getBulkIngestFactory().ingest(records.iterator(), true);
+      fail("Ingest should have failed.");
+    } catch (GroundException e) {
+      // expected
+    }
+
+    try {
+      super.factories.getNodeFactory().retrieveFromDatabase("atomicNode0");
+      fail("The first chunk should not have been committed.");
+    } catch (GroundException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testBulkIngestChecksParents() throws Exception {
+    String stream = "{\"type\": \"node\", \"name\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node\", \"name\": \"secondTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"first\", \"node\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"second\", \"node\": \"secondTestNode\"}\n";
+
+    Iterator<BulkRecord> records = MAPPER.readerFor(BulkRecord.class).readValues(stream);
+    BulkIngestResult result = super.factories.getBulkIngestFactory().ingest(records);
+    long firstId = result.getIds().get("first");
+
+    // a version of the same node may follow it
+    String child = "{\"type\": \"node_version\", \"ref\": \"child\", \"node\": \"firstTestNode\","
+        + " \"parents\": [" + firstId + "]}\n";
+    records = MAPPER.readerFor(BulkRecord.class).readValues(child);
+    long childId = super.factories.getBulkIngestFactory().ingest(records).getIds().get("child");
+    assertEquals(childId, (long) super.factories.getNodeFactory().getLeaves("firstTestNode").get(0));
+
+    // a version of another node may not
+    String stray = "{\"type\": \"node_version\", \"node\": \"secondTestNode\","
+        + " \"parents\": [" + firstId + "]}\n";
+    records = MAPPER.readerFor(BulkRecord.class).readValues(stray);
+    try {
+      super.factories.getBulkIngestFactory().ingest(records);
+      fail("A parent from another node should be rejected.");
+    } catch (GroundException e) {
+      assertTrue(e.getMessage().contains("is not in Item"));
+    }
+
+    assertEquals(1, super.factories.getNodeFactory().getLeaves("secondTestNode").size());
+  }
+
+  @Test
+  public void testBulkIngestPublishesEvents() throws Exception {
+    MockProducer<String, byte[]> producer =
+        new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+    super.factories.getBulkIngestFactory()
+        .setChangeFeed(new ChangeFeed(new KafkaProduce(producer), "versions"));
+
+    String stream = "{\"type\": \"node\", \"name\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"first\", \"node\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"ref\": \"second\", \"node\": \"firstTestNode\"}\n"
+        + "{\"type\": \"edge\", \"name\": \"testEdge\"}\n"
+        + "{\"type\": \"edge_version\", \"ref\": \"edge\", \"edge\": \"testEdge\", \"from\": \"first\", \"to\": \"second\"}\n";
+
+    Iterator<BulkRecord> records = MAPPER.readerFor(BulkRecord.class).readValues(stream);
+    BulkIngestResult result = super.factories.getBulkIngestFactory().ingest(records, true);
+
+    long nodeId = super.factories.getNodeFactory().retrieveFromDatabase("firstTestNode").getId();
+    long edgeId = super.factories.getEdgeFactory().retrieveFromDatabase("testEdge").getId();
+
+    List<String> events = new ArrayList<>();
+    for (ProducerRecord<String, byte[]> record : producer.history()) {
+      events.add(record.key() + " " + new String(record.value(), StandardCharsets.UTF_8));
+    }
+
+    List<String> expected = new ArrayList<>();
+    expected.add(nodeId + " {\"type\":\"NodeVersion\",\"id\":" + result.getIds().get("first")
+        + ",\"itemId\":" + nodeId + "}");
+    expected.add(nodeId + " {\"type\":\"NodeVersion\",\"id\":" + result.getIds().get("second")
+        + ",\"itemId\":" + nodeId + "}");
+    expected.add(edgeId + " {\"type\":\"EdgeVersion\",\"id\":" + result.getIds().get("edge")
+        + ",\"itemId\":" + edgeId + "}");
+    assertEquals(expected, events);
+
+    // nothing is published for a load that fails
+    producer.clear();
+    String stray = "{\"type\": \"node_version\", \"node\": \"firstTestNode\"}\n"
+        + "{\"type\": \"node_version\", \"node\": \"missingNode\"}\n";
+    try {
+      super.factories.getBulkIngestFactory()
+          .ingest(MAPPER.readerFor(BulkRecord.class).readValues(stray), true);
+      fail("Ingest should have failed.");
+    } catch (GroundException e) {
+      // expected
+    }
+
+    assertTrue(producer.history().isEmpty());
+  }
+}
@@ -1,16 +1,23 @@
 package edu.berkeley.ground.api.models.postgres;
 
+import com.codahale.metrics.MetricRegistry;
+
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import edu.berkeley.ground.api.PostgresTest;
+import edu.berkeley.ground.api.TraversalTests;
 import edu.berkeley.ground.api.models.NodeVersion;
 import edu.berkeley.ground.api.models.Tag;
 import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.PostgresClient;
 import edu.berkeley.ground.exceptions.GroundException;
 
 import static org.junit.Assert.*;
@@ -77,6 +84,57 @@ public class PostgresNodeVersionFactoryTest extends PostgresTest {
     assertTrue(1 == leaves.size());
   }
 
+  @Test
+  public void testBatchRetrieval() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+
+    List<Long> nodeVersionIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("index", new Tag(-1, "index", i, GroundType.INTEGER));
+
+      nodeVersionIds.add(super.factories.getNodeVersionFactory().create(tags, -1, null,
+          new HashMap<>(), nodeId, new ArrayList<>()).getId());
+    }
+
+    // out of insertion order, with a duplicate
+    List<Long> ids = Arrays.asList(nodeVersionIds.get(2), nodeVersionIds.get(0),
+        nodeVersionIds.get(2), nodeVersionIds.get(1));
+    List<NodeVersion> retrieved = super.factories.getNodeVersionFactory()
+        .retrieveFromDatabase(ids);
+
+    assertEquals(ids.size(), retrieved.size());
+    for (int i = 0; i < ids.size(); i++) {
+      NodeVersion version = retrieved.get(i);
+      assertEquals((long) ids.get(i), version.getId());
+      assertEquals(nodeId, version.getNodeId());
+      assertEquals(nodeVersionIds.indexOf(ids.get(i)), version.getTags().get("index").getValue());
+    }
+
+    assertTrue(super.factories.getNodeVersionFactory().retrieveFromDatabase(new ArrayList<>())
+        .isEmpty());
+  }
+
+  @Test(expected = GroundException.class)
+  public void testBatchRetrievalMissingId() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+    long nodeVersionId = super.factories.getNodeVersionFactory().create(new HashMap<>(), -1,
+        null, new HashMap<>(), nodeId, new ArrayList<>()).getId();
+
+    super.factories.getNodeVersionFactory().retrieveFromDatabase(
+        Arrays.asList(nodeVersionId, nodeVersionId + 1000));
+  }
+
+  @Test(expected = GroundException.class)
+  public void testRetrieveOtherSubtype() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+    long nodeVersionId = super.factories.getNodeVersionFactory().create(new HashMap<>(), -1,
+        null, new HashMap<>(), nodeId, new ArrayList<>()).getId();
+
+    // the rich version exists, but it is not an edge version
+    super.factories.getEdgeVersionFactory().retrieveFromDatabase(nodeVersionId);
+  }
+
   @Test
   public void testTransitiveClosure() throws GroundException {
     String nodeName = "testNode1";
@@ -118,4 +176,162 @@ public class PostgresNodeVersionFactoryTest extends PostgresTest {
     assertTrue(reachable.contains(nodeVersionId));
     assertTrue(reachable.contains(secondNVId));
   }
+
+  @Test
+  public void testClosureMatchesRecursiveQuery() throws GroundException {
+    // a diamond, plus a tail below it: 1 -> {2, 3} -> 4 -> 5
+    List<Long> nodeVersionIds = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      long nodeId = super.factories.getNodeFactory().create("closureNode" + i, new HashMap<>())
+          .getId();
+
+      nodeVersionIds.add(super.factories.getNodeVersionFactory().create(new HashMap<>(), -1,
+          null, new HashMap<>(), nodeId, new ArrayList<>()).getId());
+    }
+
+    int[][] edges = {{3, 4}, {4, 5}, {1, 2}, {2, 4}, {1, 3}};
+    for (int[] edge : edges) {
+      long edgeId = super.factories.getEdgeFactory().create("closureEdge" + edge[0] + edge[1],
+          new HashMap<>()).getId();
+
+      super.factories.getEdgeVersionFactory().create(new HashMap<>(), -1, null, new HashMap<>(),
+          edgeId, nodeVersionIds.get(edge[0] - 1), nodeVersionIds.get(edge[1] - 1),
+          new ArrayList<>());
+    }
+
+    List<Long> reachable = super.factories.getNodeVersionFactory()
+        .getTransitiveClosure(nodeVersionIds.get(0));
+    assertEquals(4, reachable.size());
+    assertTrue(reachable.containsAll(nodeVersionIds.subList(1, 5)));
+
+    for (long nodeVersionId : nodeVersionIds) {
+      List<Long> expected = super.postgresClient.transitiveClosureRecursive(nodeVersionId);
+      List<Long> closure = super.postgresClient.transitiveClosure(nodeVersionId);
+
+      assertEquals(expected.size(), closure.size());
+      assertTrue(closure.containsAll(expected));
+    }
+
+    super.postgresClient.rebuildClosure();
+    super.postgresClient.commit();
+
+    for (long nodeVersionId : nodeVersionIds) {
+      List<Long> expected = super.postgresClient.transitiveClosureRecursive(nodeVersionId);
+      List<Long> closure = super.postgresClient.transitiveClosure(nodeVersionId);
+
+      assertEquals(expected.size(), closure.size());
+      assertTrue(closure.containsAll(expected));
+    }
+
+    super.postgresClient.commit();
+  }
+
+  @Test
+  public void testConcurrentClosureUpdates() throws Exception {
+    PostgresClient client = new PostgresClient("localhost", 5432, "test", "test", "", 2, 30000,
+        new MetricRegistry());
+
+    // 2 -> 3 is committed, then 1 -> 2 and 3 -> 4 are recorded by overlapping transactions
+    client.addReachability(Collections.singletonList(new long[] {2, 3}));
+    client.commit();
+
+    client.addReachability(Collections.singletonList(new long[] {1, 2}));
+
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    Thread writer = new Thread(() -> {
+      try {
+        client.addReachability(Collections.singletonList(new long[] {3, 4}));
+        client.commit();
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    });
+    writer.start();
+
+    // the second writer waits for the first, since both change paths through 2 and 3
+    writer.join(500);
+    assertTrue(writer.isAlive());
+
+    client.commit();
+    writer.join();
+    assertNull(failure.get());
+
+    List<Long> closure = client.transitiveClosure(1);
+    client.commit();
+    assertEquals(3, closure.size());
+    assertTrue(closure.containsAll(Arrays.asList(2L, 3L, 4L)));
+
+    // unrelated edges do not wait for each other
+    client.addReachability(Collections.singletonList(new long[] {5, 6}));
+
+    Thread unrelated = new Thread(() -> {
+      try {
+        client.addReachability(Collections.singletonList(new long[] {7, 8}));
+        client.commit();
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    });
+    unrelated.start();
+    unrelated.join(5000);
+    assertFalse(unrelated.isAlive());
+    assertNull(failure.get());
+
+    client.commit();
+  }
+
+  @Test
+  public void testClosureLocksFoundWhileWaiting() throws Exception {
+    PostgresClient client = new PostgresClient("localhost", 5432, "test", "test", "", 2, 30000,
+        new MetricRegistry());
+
+    // 1500 -> 2000 holds the locks of both until it commits
+    client.addReachability(Collections.singletonList(new long[] {1500, 2000}));
+
+    // 2000 -> 1000 waits on the lock of 2000, and then finds that 1500 reaches 2000, so the lock of
+    // 1500 has to be taken as well, before that of 2000 and after that of 1000
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    Thread writer = new Thread(() -> {
+      try {
+        client.addReachability(Collections.singletonList(new long[] {2000, 1000}));
+        client.commit();
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    });
+    writer.start();
+
+    writer.join(500);
+    assertTrue(writer.isAlive());
+
+    client.commit();
+    writer.join();
+    assertNull(failure.get());
+
+    List<Long> closure = client.transitiveClosure(1500);
+    client.commit();
+    assertEquals(2, closure.size());
+    assertTrue(closure.containsAll(Arrays.asList(1000L, 2000L)));
+  }
+
+  @Test
+  public void testClosurePages() throws GroundException {
+    TraversalTests.testClosurePages(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
+
+  @Test
+  public void testAdjacentNodes() throws GroundException {
+    TraversalTests.testAdjacentNodes(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
+
+  @Test
+  public void testUpstreamTraversal() throws GroundException {
+    TraversalTests.testUpstreamTraversal(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getEdgeFactory(),
+        super.factories.getEdgeVersionFactory());
+  }
 }
@@ -3,7 +3,9 @@ package edu.berkeley.ground.api.models.postgres;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.PostgresTest;
@@ -43,4 +45,62 @@ public class PostgresStructureVersionFactoryTest extends PostgresTest {
       assertEquals(structureVersionAttributes.get(key), retrievedAttributes.get(key));
     }
   }
+
+  @Test
+  public void testStructureVersionWithoutAttributes() throws GroundException {
+    long structureId = super.factories.getStructureFactory().create("testStructure", new HashMap<>()).getId();
+    long structureVersionId = super.factories.getStructureVersionFactory().create(
+        structureId, new HashMap<>(), new ArrayList<>()).getId();
+
+    StructureVersion retrieved = super.factories.getStructureVersionFactory()
+        .retrieveFromDatabase(structureVersionId);
+
+    assertEquals(structureId, retrieved.getStructureId());
+    assertTrue(retrieved.getAttributes().isEmpty());
+  }
+
+  @Test
+  public void testBatchRetrievalWithoutAttributes() throws GroundException {
+    long structureId = super.factories.getStructureFactory().create("testStructure", new HashMap<>()).getId();
+    long emptyId = super.factories.getStructureVersionFactory().create(
+        structureId, new HashMap<>(), new ArrayList<>()).getId();
+
+    Map<String, GroundType> attributes = new HashMap<>();
+    attributes.put("intfield", GroundType.INTEGER);
+    long fullId = super.factories.getStructureVersionFactory().create(
+        structureId, attributes, new ArrayList<>()).getId();
+
+    List<StructureVersion> retrieved = super.factories.getStructureVersionFactory()
+        .retrieveFromDatabase(Arrays.asList(emptyId, fullId));
+
+    assertEquals(2, retrieved.size());
+    assertEquals(emptyId, retrieved.get(0).getId());
+    assertTrue(retrieved.get(0).getAttributes().isEmpty());
+    assertEquals(attributes, retrieved.get(1).getAttributes());
+  }
+
+  @Test
+  public void testBatchRetrieval() throws GroundException {
+    long structureId = super.factories.getStructureFactory().create("testStructure", new HashMap<>()).getId();
+
+    Map<String, GroundType> firstAttributes = new HashMap<>();
+    firstAttributes.put("intfield", GroundType.INTEGER);
+    Map<String, GroundType> secondAttributes = new HashMap<>();
+    secondAttributes.put("strfield", GroundType.STRING);
+    secondAttributes.put("boolfield", GroundType.BOOLEAN);
+
+    long firstId = super.factories.getStructureVersionFactory().create(
+        structureId, firstAttributes, new ArrayList<>()).getId();
+    long secondId = super.factories.getStructureVersionFactory().create(
+        structureId, secondAttributes, new ArrayList<>()).getId();
+
+    List<StructureVersion> retrieved = super.factories.getStructureVersionFactory()
+        .retrieveFromDatabase(Arrays.asList(secondId, firstId));
+
+    assertEquals(2, retrieved.size());
+    assertEquals(secondId, retrieved.get(0).getId());
+    assertEquals(secondAttributes, retrieved.get(0).getAttributes());
+    assertEquals(firstId, retrieved.get(1).getId());
+    assertEquals(firstAttributes, retrieved.get(1).getAttributes());
+  }
 }
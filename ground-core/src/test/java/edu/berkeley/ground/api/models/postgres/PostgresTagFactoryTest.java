@@ -3,12 +3,16 @@ package edu.berkeley.ground.api.models.postgres;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.PostgresTest;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.api.models.TagQuery;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.GroundException;
 
@@ -55,4 +59,105 @@ public class PostgresTagFactoryTest extends PostgresTest {
     assertTrue(ids.contains(nodeVersionId1));
     assertTrue(ids.contains(nodeVersionId2));
   }
+
+  private long createTaggedNode(String name, Object value, GroundType type) throws GroundException {
+    Map<String, Tag> tags = new HashMap<>();
+    tags.put("size", new Tag(-1, "size", value, type));
+
+    return super.factories.getNodeFactory().create(name, tags).getId();
+  }
+
+  @Test
+  public void testSearchItemIds() throws GroundException {
+    long integer = this.createTaggedNode("search1", 5, GroundType.INTEGER);
+    long large = this.createTaggedNode("search2", 3000000000L, GroundType.LONG);
+    long string = this.createTaggedNode("search3", "5", GroundType.STRING);
+    long underscore = this.createTaggedNode("search4", "part_01", GroundType.STRING);
+    long other = this.createTaggedNode("search5", "partX01", GroundType.STRING);
+    long empty = this.createTaggedNode("search6", null, null);
+
+    assertEquals(Arrays.asList(integer, large, string, underscore, other, empty),
+        super.tagFactory.searchItemIds(TagQuery.exists("size"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(string),
+        super.tagFactory.searchItemIds(TagQuery.in("size", GroundType.STRING, Arrays.asList("5")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        super.tagFactory.searchItemIds(TagQuery.in("size", GroundType.INTEGER, Arrays.asList("05", "3000000000")),
+            Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(underscore),
+        super.tagFactory.searchItemIds(TagQuery.prefix("size", "part_"), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer, large),
+        super.tagFactory.searchItemIds(TagQuery.range("size", 4L, null), Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(integer),
+        super.tagFactory.searchItemIds(TagQuery.range("size", null, 5L), Long.MIN_VALUE, 10));
+    assertTrue(super.tagFactory.searchItemIds(TagQuery.exists("missing"), Long.MIN_VALUE, 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchVersionIdsInPages() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("pages", new HashMap<>()).getId();
+
+    List<Long> versionIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("page", new Tag(-1, "page", i, GroundType.INTEGER));
+
+      versionIds.add(super.factories.getNodeVersionFactory().create(tags, -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    TagQuery query = TagQuery.range("page", 1L, 4L);
+
+    List<Long> first = super.tagFactory.searchVersionIds(query, Long.MIN_VALUE, 2);
+    assertEquals(versionIds.subList(1, 3), first);
+
+    List<Long> second = super.tagFactory.searchVersionIds(query, first.get(1), 2);
+    assertEquals(versionIds.subList(3, 5), second);
+
+    assertTrue(super.tagFactory.searchVersionIds(query, second.get(1), 2).isEmpty());
+  }
+
+  @Test
+  public void testSearchVersionIdsWithFilter() throws GroundException {
+    long nodeId = super.factories.getNodeFactory().create("partitions", new HashMap<>()).getId();
+
+    // versions with an hour and a region, like the partitions of a Hive table
+    List<Long> versionIds = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Map<String, Tag> tags = new HashMap<>();
+      tags.put("hour", new Tag(-1, "hour", (long) i, GroundType.LONG));
+      tags.put("region", new Tag(-1, "region", i % 2 == 0 ? "us" : "eu", GroundType.STRING));
+
+      versionIds.add(super.factories.getNodeVersionFactory().create(tags, -1, null, new HashMap<>(),
+          nodeId, new ArrayList<>()).getId());
+    }
+
+    TagFilter usAfterOne = TagFilter.and(TagFilter.in("region", GroundType.STRING, "us"),
+        TagFilter.range("hour", 1L, null));
+    assertEquals(Arrays.asList(versionIds.get(2), versionIds.get(4)),
+        super.tagFactory.searchVersionIds(usAfterOne, Long.MIN_VALUE, 10));
+    assertEquals(Arrays.asList(versionIds.get(4)),
+        super.tagFactory.searchVersionIds(usAfterOne, versionIds.get(2), 10));
+
+    TagFilter firstOrEu = TagFilter.or(Arrays.asList(TagFilter.range("hour", null, 0L),
+        TagFilter.in("region", GroundType.STRING, "eu")));
+    assertEquals(Arrays.asList(versionIds.get(0), versionIds.get(1), versionIds.get(3)),
+        super.tagFactory.searchVersionIds(firstOrEu, Long.MIN_VALUE, 3));
+
+    assertTrue(super.tagFactory.searchVersionIds(TagFilter.and(usAfterOne,
+        TagFilter.in("hour", GroundType.LONG, "3")), Long.MIN_VALUE, 10).isEmpty());
+
+    TagFilter nested = TagFilter.and(TagFilter.range("hour", 1L, 4L),
+        TagFilter.or(Arrays.asList(TagFilter.in("region", GroundType.STRING, "eu"),
+            TagFilter.in("hour", GroundType.LONG, "2"))));
+    assertEquals(Arrays.asList(versionIds.get(1), versionIds.get(2)),
+        super.tagFactory.searchVersionIds(nested, Long.MIN_VALUE, 2));
+    assertEquals(Arrays.asList(versionIds.get(3)),
+        super.tagFactory.searchVersionIds(nested, versionIds.get(2), 2));
+
+    assertEquals(Arrays.asList(versionIds.get(1), versionIds.get(5)),
+        super.tagFactory.filterVersionIds(TagQuery.in("region", GroundType.STRING,
+            Collections.singletonList("eu")), Arrays.asList(versionIds.get(0), versionIds.get(1),
+            versionIds.get(2), versionIds.get(5))));
+  }
 }
@@ -7,8 +7,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import edu.berkeley.ground.api.CassandraTest;
-import edu.berkeley.ground.api.usage.LineageEdgeVersion;
+import edu.berkeley.ground.api.TraversalTests;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.usage.LineageEdgeVersion;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.GroundException;
 
@@ -84,4 +85,12 @@ public class CassandraLineageEdgeVersionFactoryTest extends CassandraTest {
       assertEquals(tags.get(key), retrievedTags.get(key));
     }
   }
+
+  @Test
+  public void testUpstreamLineage() throws GroundException {
+    TraversalTests.testUpstreamLineage(CassandraTest.factories.getNodeFactory(),
+        CassandraTest.factories.getNodeVersionFactory(),
+        CassandraTest.factories.getLineageEdgeFactory(),
+        CassandraTest.factories.getLineageEdgeVersionFactory());
+  }
 }
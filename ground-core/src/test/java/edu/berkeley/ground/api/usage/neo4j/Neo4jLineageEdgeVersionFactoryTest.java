@@ -7,8 +7,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import edu.berkeley.ground.api.Neo4jTest;
-import edu.berkeley.ground.api.usage.LineageEdgeVersion;
+import edu.berkeley.ground.api.TraversalTests;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.usage.LineageEdgeVersion;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.GroundException;
 
@@ -84,4 +85,11 @@ public class Neo4jLineageEdgeVersionFactoryTest extends Neo4jTest {
       assertEquals(tags.get(key), retrievedTags.get(key));
     }
   }
+
+  @Test
+  public void testUpstreamLineage() throws GroundException {
+    TraversalTests.testUpstreamLineage(super.factories.getNodeFactory(),
+        super.factories.getNodeVersionFactory(), super.factories.getLineageEdgeFactory(),
+        super.factories.getLineageEdgeVersionFactory());
+  }
 }
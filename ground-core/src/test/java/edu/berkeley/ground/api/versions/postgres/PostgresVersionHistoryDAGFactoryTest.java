@@ -2,6 +2,12 @@ package edu.berkeley.ground.api.versions.postgres;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
 import edu.berkeley.ground.api.PostgresTest;
 import edu.berkeley.ground.api.versions.VersionHistoryDAG;
 import edu.berkeley.ground.exceptions.GroundException;
@@ -27,4 +33,61 @@ public class PostgresVersionHistoryDAGFactoryTest extends PostgresTest {
       super.postgresClient.abort();
     }
   }
+
+  @Test
+  public void testCachedDAGFollowsCommits() throws GroundException {
+    try {
+      long testId = 1;
+      super.itemFactory.insertIntoDatabase(testId, new HashMap<>());
+      for (long id = 2; id <= 4; id++) {
+        super.versionFactory.insertIntoDatabase(id);
+      }
+
+      super.itemFactory.update(testId, 2, new ArrayList<>());
+      super.postgresClient.commit();
+
+      // cached by the read, then extended by a committed update
+      assertEquals(Collections.singletonList(2L), super.itemFactory.getLeaves(testId));
+      super.postgresClient.commit();
+
+      super.itemFactory.update(testId, 3, new ArrayList<>(Collections.singletonList(2L)));
+      super.postgresClient.commit();
+
+      // an aborted update must not reach the cache
+      super.itemFactory.update(testId, 4, new ArrayList<>(Collections.singletonList(3L)));
+      super.postgresClient.abort();
+
+      VersionHistoryDAG<?> dag = super.versionHistoryDAGFactory.retrieveFromDatabase(testId);
+      assertEquals(2, dag.getEdgeIds().size());
+      assertEquals(Collections.singletonList(3L), dag.getLeaves());
+      assertTrue(dag.checkItemInDag(2));
+      assertFalse(dag.checkItemInDag(4));
+    } finally {
+      super.postgresClient.abort();
+    }
+  }
+
+  @Test
+  public void testLeavesWithBranches() throws GroundException {
+    try {
+      long testId = 1;
+      super.itemFactory.insertIntoDatabase(testId, new HashMap<>());
+      for (long id = 2; id <= 5; id++) {
+        super.versionFactory.insertIntoDatabase(id);
+      }
+
+      // 2 -> {3, 4}, {3, 4} -> 5 leaves only 5; 2 -> 3 alone leaves 3 and 4
+      super.itemFactory.update(testId, 2, new ArrayList<>());
+      super.itemFactory.update(testId, 3, new ArrayList<>(Collections.singletonList(2L)));
+      super.itemFactory.update(testId, 4, new ArrayList<>(Collections.singletonList(2L)));
+
+      assertEquals(new HashSet<>(Arrays.asList(3L, 4L)),
+          new HashSet<>(super.itemFactory.getLeaves(testId)));
+
+      super.itemFactory.update(testId, 5, new ArrayList<>(Arrays.asList(3L, 4L)));
+      assertEquals(Collections.singletonList(5L), super.itemFactory.getLeaves(testId));
+    } finally {
+      super.postgresClient.abort();
+    }
+  }
 }
@@ -49,8 +49,9 @@ public class PostgresVersionSuccessorFactoryTest extends PostgresTest {
         fail(ge.getMessage());
       }
 
-      // This statement should fail because toId is not in the database
+      // This should fail because toId is not in the database; rows are written at commit
       super.versionSuccessorFactory.create(fromId, toId);
+      super.postgresClient.commit();
     } finally {
       super.postgresClient.abort();
     }
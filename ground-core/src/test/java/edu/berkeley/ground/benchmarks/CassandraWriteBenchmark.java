@@ -0,0 +1,77 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.CassandraClient;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * Measures the latency of committing a transaction of independent rows in Cassandra, as a
+ * version create with tags does, with the rows sent as logged batches and as concurrent
+ * requests. The local test keyspace is truncated first, just as in the Cassandra tests.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CassandraWriteBenchmark {
+  @Param({"false", "true"})
+  private boolean asyncWrites;
+
+  @Param({"8", "64"})
+  private int rowCount;
+
+  private CassandraClient cassandraClient;
+  private long nextId;
+
+  @Setup
+  public void setup() throws GroundException, IOException, InterruptedException {
+    Process p = Runtime.getRuntime().exec("cqlsh -k test -f truncate.cql", null,
+        new File("scripts/cassandra/"));
+    p.waitFor();
+    p.destroy();
+
+    this.cassandraClient = new CassandraClient("localhost", 9160, "test", "test", "", null,
+        this.asyncWrites, CassandraClient.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    this.nextId = 1;
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.cassandraClient.close();
+  }
+
+  // each row is a rich version parameter of a different version, so each is its own partition
+  @Benchmark
+  public void commit() throws GroundException {
+    for (int i = 0; i < this.rowCount; i++) {
+      List<DbDataContainer> row = new ArrayList<>();
+      row.add(new DbDataContainer("rich_version_id", GroundType.LONG, this.nextId++));
+      row.add(new DbDataContainer("key", GroundType.STRING, "key"));
+      row.add(new DbDataContainer("value", GroundType.STRING, "value"));
+
+      this.cassandraClient.insert("rich_version_external_parameter", row);
+    }
+
+    this.cassandraClient.commit();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CassandraWriteBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,127 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.PostgresFactories;
+
+/**
+ * Compares transitive closure lookups in node_version_closure with the recursive query over
+ * edge_version. The graph is a tree of node versions with the given fan-out and depth, loaded into
+ * the local test database, which is reset first just as in the Postgres tests.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClosureBenchmark {
+  @Param({"3", "6"})
+  private int depth;
+
+  @Param({"5"})
+  private int fanout;
+
+  private PostgresClient postgresClient;
+  private long root;
+  private long inner;
+
+  @Setup
+  public void setup() throws GroundException, IOException, InterruptedException {
+    Process p = Runtime.getRuntime().exec("python2.7 postgres_setup.py test test drop", null,
+        new File("scripts/postgres/"));
+    p.waitFor();
+    p.destroy();
+
+    this.postgresClient = new PostgresClient("localhost", 5432, "test", "test", "");
+    PostgresFactories factories = new PostgresFactories(this.postgresClient, 0, 1);
+
+    String prefix = "closure-";
+    String edgeName = prefix + "edge";
+
+    List<BulkRecord> records = new ArrayList<>();
+    records.add(record(BulkRecord.NODE, null, prefix + "node", null, null, null, null));
+    records.add(record(BulkRecord.EDGE, null, edgeName, null, null, null, null));
+    records.add(record(BulkRecord.NODE_VERSION, "0", null, prefix + "node", null, null, null));
+
+    // Breadth first, so that every version's parent is created before it.
+    int count = 1;
+    int levelStart = 0;
+    int levelSize = 1;
+    for (int level = 0; level < this.depth; level++) {
+      for (int parent = levelStart; parent < levelStart + levelSize; parent++) {
+        for (int child = 0; child < this.fanout; child++) {
+          String ref = String.valueOf(count++);
+
+          records.add(record(BulkRecord.NODE_VERSION, ref, null, prefix + "node", null, null,
+              null));
+          records.add(record(BulkRecord.EDGE_VERSION, null, null, null, edgeName,
+              String.valueOf(parent), ref));
+        }
+      }
+
+      levelStart += levelSize;
+      levelSize *= this.fanout;
+    }
+
+    BulkIngestResult result = factories.getBulkIngestFactory().ingest(records.iterator());
+    this.root = result.getIds().get("0");
+    this.inner = result.getIds().get("1");
+  }
+
+  @TearDown
+  public void tearDown() throws GroundException {
+    this.postgresClient.close();
+  }
+
+  @Benchmark
+  public List<Long> closureTableFromRoot() throws GroundException {
+    return this.closure(this.root, false);
+  }
+
+  @Benchmark
+  public List<Long> recursiveQueryFromRoot() throws GroundException {
+    return this.closure(this.root, true);
+  }
+
+  @Benchmark
+  public List<Long> closureTableFromInner() throws GroundException {
+    return this.closure(this.inner, false);
+  }
+
+  @Benchmark
+  public List<Long> recursiveQueryFromInner() throws GroundException {
+    return this.closure(this.inner, true);
+  }
+
+  private List<Long> closure(long nodeVersionId, boolean recursive) throws GroundException {
+    List<Long> result = recursive ? this.postgresClient.transitiveClosureRecursive(nodeVersionId)
+        : this.postgresClient.transitiveClosure(nodeVersionId);
+
+    this.postgresClient.commit();
+    return result;
+  }
+
+  private static BulkRecord record(String type, String ref, String name, String node, String edge,
+                                   String from, String to) {
+    return new BulkRecord(type, ref, name, node, edge, null, null, null, null, null, from, to);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ClosureBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,122 @@
+package edu.berkeley.ground.benchmarks;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.neo4j.driver.v1.AuthTokens;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Values;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.db.Neo4jClient;
+import edu.berkeley.ground.exceptions.EmptyResultException;
+import edu.berkeley.ground.exceptions.GroundDBException;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * Compares vertex lookups by id sent as Cypher with the values concatenated into the query text,
+ * as Neo4jClient used to build them, with the parameterized queries that Neo4jClient sends now.
+ * Every lookup is for a different id, so the concatenated queries are all distinct and have to be
+ * parsed and planned again, while the parameterized ones share one cached template and plan. The
+ * template cache hit rate is logged at the end.
+ *
+ * <p>The vertices are written to the local test database, which is cleared first just as in the
+ * Neo4j tests.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CypherBenchmark {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CypherBenchmark.class);
+
+  @Param({"10000"})
+  private int vertices;
+
+  private MetricRegistry metricRegistry;
+  private Neo4jClient neo4jClient;
+  private Driver driver;
+  private Session session;
+  private int next;
+
+  @Setup
+  public void setup() throws GroundDBException {
+    this.metricRegistry = new MetricRegistry();
+    this.neo4jClient = new Neo4jClient("localhost", "neo4j", "password", 1, 30000,
+        this.metricRegistry);
+    this.neo4jClient.dropData();
+
+    this.driver = GraphDatabase.driver("bolt://localhost", AuthTokens.basic("neo4j", "password"));
+    this.session = this.driver.session();
+
+    try (Transaction transaction = this.session.beginTransaction()) {
+      transaction.run("UNWIND range(1, $count) AS i CREATE (:NodeVersion:GroundObject {id: i, node_id: 0})",
+          Values.parameters("count", this.vertices));
+      transaction.success();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws GroundDBException {
+    Counter hits = this.metricRegistry.counter(
+        MetricRegistry.name(Neo4jClient.class, "templates", "hits"));
+    Counter misses = this.metricRegistry.counter(
+        MetricRegistry.name(Neo4jClient.class, "templates", "misses"));
+
+    LOGGER.info("Template cache: " + hits.getCount() + " hits, " + misses.getCount()
+        + " misses");
+
+    this.neo4jClient.dropData();
+    this.neo4jClient.close();
+    this.session.close();
+    this.driver.close();
+  }
+
+  @Benchmark
+  public Record concatenated() {
+    long id = this.nextId();
+
+    try (Transaction transaction = this.session.beginTransaction()) {
+      Record record = transaction.run("MATCH (v:NodeVersion {id: " + id + "}) RETURN v").single();
+      transaction.success();
+      return record;
+    }
+  }
+
+  @Benchmark
+  public Record parameterized() throws GroundException, EmptyResultException {
+    List<DbDataContainer> attributes = new ArrayList<>();
+    attributes.add(new DbDataContainer("id", GroundType.LONG, this.nextId()));
+
+    Record record = this.neo4jClient.getVertex("NodeVersion", attributes);
+    this.neo4jClient.commit();
+    return record;
+  }
+
+  private long nextId() {
+    this.next = this.next % this.vertices + 1;
+    return this.next;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CypherBenchmark.class.getSimpleName()).build()).run();
+  }
+}
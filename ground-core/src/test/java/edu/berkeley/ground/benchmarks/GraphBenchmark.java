@@ -0,0 +1,120 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.util.CompactGraph;
+import edu.berkeley.ground.util.JGraphTUtils;
+
+/**
+ * Compares the JGraphT graph with CompactGraph on a random version graph: the retained heap of
+ * each graph is logged during setup, and the benchmarks measure runDFS from a fixed vertex.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class GraphBenchmark {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GraphBenchmark.class);
+
+  @Param({"100000", "1000000"})
+  private int vertices;
+
+  // average out-degree
+  @Param({"2"})
+  private int degree;
+
+  private DirectedGraph<Long, DefaultEdge> jgraphtGraph;
+  private CompactGraph compactGraph;
+  private long start;
+
+  @Setup
+  public void setup() {
+    // Ids look like the ones from IdGenerator: a machine prefix in the high bits.
+    long prefix = 1L << 48;
+    Random random = new Random(0);
+
+    long before = usedHeap();
+    this.jgraphtGraph = JGraphTUtils.createGraph();
+    for (long i = 0; i < this.vertices; i++) {
+      JGraphTUtils.addVertex(this.jgraphtGraph, prefix + i);
+    }
+    // Versions only point at later versions, as in a version history.
+    for (long i = 0; i < (long) this.vertices * this.degree; i++) {
+      long from = random.nextInt(this.vertices - 1);
+      long to = from + 1 + random.nextInt(Math.min(1000, this.vertices - 1 - (int) from));
+      JGraphTUtils.addEdge(this.jgraphtGraph, prefix + from, prefix + to);
+    }
+    long jgraphtHeap = usedHeap() - before;
+
+    random = new Random(0);
+    before = usedHeap();
+    this.compactGraph = JGraphTUtils.createCompactGraph();
+    for (long i = 0; i < this.vertices; i++) {
+      JGraphTUtils.addVertex(this.compactGraph, prefix + i);
+    }
+    for (long i = 0; i < (long) this.vertices * this.degree; i++) {
+      long from = random.nextInt(this.vertices - 1);
+      long to = from + 1 + random.nextInt(Math.min(1000, this.vertices - 1 - (int) from));
+      JGraphTUtils.addEdge(this.compactGraph, prefix + from, prefix + to);
+    }
+    this.compactGraph.compact();
+    long compactHeap = usedHeap() - before;
+
+    // Start from whichever of the first versions reaches the most others.
+    this.start = prefix;
+    for (long i = 0; i < 100; i++) {
+      if (this.compactGraph.depthFirst(prefix + i).length
+          > this.compactGraph.depthFirst(this.start).length) {
+        this.start = prefix + i;
+      }
+    }
+
+    LOGGER.info("JGraphT heap: " + (jgraphtHeap >> 20) + " MB, CompactGraph heap: "
+        + (compactHeap >> 20) + " MB (" + this.vertices + " vertices, "
+        + this.compactGraph.edgeCount() + " edges, "
+        + this.compactGraph.depthFirst(this.start).length + " reachable)");
+  }
+
+  @Benchmark
+  public List<Long> jgrapht() {
+    return JGraphTUtils.runDFS(this.jgraphtGraph, this.start);
+  }
+
+  @Benchmark
+  public List<Long> compact() {
+    return JGraphTUtils.runDFS(this.compactGraph, this.start);
+  }
+
+  @Benchmark
+  public long[] compactUnboxed() {
+    return this.compactGraph.depthFirst(this.start);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(GraphBenchmark.class.getSimpleName()).build()).run();
+  }
+}
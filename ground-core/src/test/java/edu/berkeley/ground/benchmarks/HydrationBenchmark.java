@@ -0,0 +1,137 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.GraphVersion;
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.usage.LineageEdgeVersion;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.PostgresFactories;
+
+/**
+ * Measures the latency of retrieving node, edge, graph and lineage edge versions from Postgres,
+ * each with the given number of tags and external parameters. The local test database is reset
+ * first, just as in the Postgres tests.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HydrationBenchmark {
+  @Param({"10"})
+  private int tagCount;
+
+  // versions created besides the ones that are retrieved, so that the tables are not trivial
+  @Param({"1000"})
+  private int otherVersions;
+
+  private PostgresClient postgresClient;
+  private PostgresFactories factories;
+
+  private long nodeVersionId;
+  private long edgeVersionId;
+  private long graphVersionId;
+  private long lineageEdgeVersionId;
+
+  @Setup
+  public void setup() throws GroundException, IOException, InterruptedException {
+    Process p = Runtime.getRuntime().exec("python2.7 postgres_setup.py test test drop", null,
+        new File("scripts/postgres/"));
+    p.waitFor();
+    p.destroy();
+
+    this.postgresClient = new PostgresClient("localhost", 5432, "test", "test", "");
+    this.factories = new PostgresFactories(this.postgresClient, 0, 1);
+
+    Map<String, String> parameters = new HashMap<>();
+    for (int i = 0; i < 3; i++) {
+      parameters.put("parameter" + i, "value" + i);
+    }
+
+    long nodeId = this.factories.getNodeFactory().create("hydration-node", new HashMap<>())
+        .getId();
+    for (int i = 0; i < this.otherVersions; i++) {
+      this.factories.getNodeVersionFactory().create(this.tags(), -1, "reference", parameters,
+          nodeId, new ArrayList<>());
+    }
+
+    this.nodeVersionId = this.factories.getNodeVersionFactory().create(this.tags(), -1,
+        "reference", parameters, nodeId, new ArrayList<>()).getId();
+    long otherNodeVersionId = this.factories.getNodeVersionFactory().create(this.tags(), -1,
+        "reference", parameters, nodeId, new ArrayList<>()).getId();
+
+    long edgeId = this.factories.getEdgeFactory().create("hydration-edge", new HashMap<>())
+        .getId();
+    this.edgeVersionId = this.factories.getEdgeVersionFactory().create(this.tags(), -1,
+        "reference", parameters, edgeId, this.nodeVersionId, otherNodeVersionId,
+        new ArrayList<>()).getId();
+
+    long graphId = this.factories.getGraphFactory().create("hydration-graph", new HashMap<>())
+        .getId();
+    this.graphVersionId = this.factories.getGraphVersionFactory().create(this.tags(), -1,
+        "reference", parameters, graphId, Collections.singletonList(this.edgeVersionId),
+        new ArrayList<>()).getId();
+
+    long lineageEdgeId = this.factories.getLineageEdgeFactory()
+        .create("hydration-lineage", new HashMap<>()).getId();
+    this.lineageEdgeVersionId = this.factories.getLineageEdgeVersionFactory().create(this.tags(),
+        -1, "reference", parameters, this.nodeVersionId, otherNodeVersionId, lineageEdgeId,
+        new ArrayList<>()).getId();
+  }
+
+  @TearDown
+  public void tearDown() throws GroundException {
+    this.postgresClient.close();
+  }
+
+  @Benchmark
+  public NodeVersion nodeVersion() throws GroundException {
+    return this.factories.getNodeVersionFactory().retrieveFromDatabase(this.nodeVersionId);
+  }
+
+  @Benchmark
+  public EdgeVersion edgeVersion() throws GroundException {
+    return this.factories.getEdgeVersionFactory().retrieveFromDatabase(this.edgeVersionId);
+  }
+
+  @Benchmark
+  public GraphVersion graphVersion() throws GroundException {
+    return this.factories.getGraphVersionFactory().retrieveFromDatabase(this.graphVersionId);
+  }
+
+  @Benchmark
+  public LineageEdgeVersion lineageEdgeVersion() throws GroundException {
+    return this.factories.getLineageEdgeVersionFactory()
+        .retrieveFromDatabase(this.lineageEdgeVersionId);
+  }
+
+  private Map<String, Tag> tags() {
+    Map<String, Tag> tags = new HashMap<>();
+    for (int i = 0; i < this.tagCount; i++) {
+      tags.put("tag" + i, new Tag(-1, "tag" + i, i, GroundType.INTEGER));
+    }
+
+    return tags;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(HydrationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
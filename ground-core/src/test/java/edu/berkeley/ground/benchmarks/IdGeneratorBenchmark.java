@@ -0,0 +1,80 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.berkeley.ground.exceptions.GroundDBException;
+import edu.berkeley.ground.util.IdGenerator;
+
+/**
+ * Measures id allocation from 64 threads at once: the synchronized counter IdGenerator used to
+ * have, against blocks leased from a store that answers immediately or only after a database-like
+ * round trip.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(64)
+public class IdGeneratorBenchmark {
+  @Param({"10000"})
+  private long leaseSize;
+
+  @Param({"0", "1000"})
+  private long storeLatencyMicros;
+
+  private SynchronizedIdGenerator synchronizedGenerator;
+  private IdGenerator leasedGenerator;
+
+  @Setup
+  public void setup() {
+    this.synchronizedGenerator = new SynchronizedIdGenerator();
+
+    AtomicLong highWaterMark = new AtomicLong(1);
+    this.leasedGenerator = new IdGenerator(1, 2, false, (machineId, counter, count) -> {
+      if (this.storeLatencyMicros > 0) {
+        try {
+          TimeUnit.MICROSECONDS.sleep(this.storeLatencyMicros);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      return highWaterMark.getAndAdd(count);
+    }, this.leaseSize);
+  }
+
+  @Benchmark
+  public long synchronizedCounter() {
+    return this.synchronizedGenerator.generateVersionId();
+  }
+
+  @Benchmark
+  public long leased() throws GroundDBException {
+    return this.leasedGenerator.generateVersionId();
+  }
+
+  // IdGenerator as it was before leases: one monitor around an in-memory counter.
+  private static class SynchronizedIdGenerator {
+    private final long prefix = 1L << 63;
+    private long versionCounter = 1;
+
+    synchronized long generateVersionId() {
+      return this.prefix | this.versionCounter++;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,150 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.neo4j.driver.v1.AuthTokens;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.db.Neo4jClient;
+import edu.berkeley.ground.exceptions.EmptyResultException;
+import edu.berkeley.ground.exceptions.GroundDBException;
+
+/**
+ * Compares the labeled lookups that Neo4jClient sends, which use the indexes and constraints in
+ * scripts/neo4j/neo4j.cypher, with the unlabeled queries it used to send, which scan every vertex.
+ * The graph has the given number of node versions, one in ten of which carries a tag. The local
+ * database is reset with the setup script first.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class Neo4jIndexBenchmark {
+  private static final int LOAD_BATCH_SIZE = 50000;
+
+  @Param({"100000", "1000000"})
+  private int vertices;
+
+  private Neo4jClient neo4jClient;
+  private Driver driver;
+  private Session session;
+  private int next;
+
+  @Setup
+  public void setup() throws GroundDBException, IOException, InterruptedException {
+    Process p = Runtime.getRuntime().exec("python2.7 neo4j_setup.py drop", null,
+        new File("scripts/neo4j/"));
+    p.waitFor();
+    p.destroy();
+
+    this.neo4jClient = new Neo4jClient("localhost", "neo4j", "password");
+    this.driver = GraphDatabase.driver("bolt://localhost", AuthTokens.basic("neo4j", "password"));
+    this.session = this.driver.session();
+
+    for (int first = 1; first <= this.vertices; first += LOAD_BATCH_SIZE) {
+      int last = Math.min(this.vertices, first + LOAD_BATCH_SIZE - 1);
+
+      try (Transaction transaction = this.session.beginTransaction()) {
+        transaction.run("UNWIND range($first, $last) AS i "
+                + "CREATE (v:NodeVersion:GroundObject {id: i, node_id: 0}) "
+                + "WITH v, i WHERE i % 10 = 0 "
+                + "CREATE (v)-[:RichVersionTagConnection]->"
+                + "(:RichVersionTag {rich_version_id: i, tkey: 'key' + i})",
+            Values.parameters("first", first, "last", last));
+        transaction.success();
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    // Deleting a million vertices in one transaction, as dropData does, exhausts a small server.
+    long deleted;
+    do {
+      try (Transaction transaction = this.session.beginTransaction()) {
+        deleted = transaction.run("MATCH (n) WITH n LIMIT $limit DETACH DELETE n RETURN count(*)",
+            Values.parameters("limit", LOAD_BATCH_SIZE)).single().get(0).asLong();
+        transaction.success();
+      }
+    } while (deleted > 0);
+
+    this.neo4jClient.close();
+    this.session.close();
+    this.driver.close();
+  }
+
+  @Benchmark
+  public Record idLookup() throws GroundDBException, EmptyResultException {
+    List<DbDataContainer> attributes = new ArrayList<>();
+    attributes.add(new DbDataContainer("id", GroundType.LONG, this.nextId()));
+
+    Record record = this.neo4jClient.getVertex("NodeVersion", attributes);
+    this.neo4jClient.commit();
+    return record;
+  }
+
+  @Benchmark
+  public Record idLookupUnlabeled() {
+    return this.run("MATCH (v {id: $id}) RETURN v", Values.parameters("id", this.nextId()))
+        .get(0);
+  }
+
+  @Benchmark
+  public List<Long> tagLookup() throws GroundDBException {
+    List<DbDataContainer> attributes = new ArrayList<>();
+    attributes.add(new DbDataContainer("tkey", GroundType.STRING, "key" + this.nextTag()));
+
+    List<Long> result =
+        this.neo4jClient.getVerticesByAttributes("RichVersionTag", attributes, "rich_version_id");
+    this.neo4jClient.commit();
+    return result;
+  }
+
+  @Benchmark
+  public List<Record> tagLookupUnlabeled() {
+    return this.run("MATCH (f {tkey: $tkey}) where exists(f.rich_version_id) return f",
+        Values.parameters("tkey", "key" + this.nextTag()));
+  }
+
+  private List<Record> run(String query, Value parameters) {
+    try (Transaction transaction = this.session.beginTransaction()) {
+      List<Record> result = transaction.run(query, parameters).list();
+      transaction.success();
+      return result;
+    }
+  }
+
+  private long nextId() {
+    this.next = this.next % this.vertices + 1;
+    return this.next;
+  }
+
+  private long nextTag() {
+    return (this.nextId() - 1) / 10 * 10 + 10;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(Neo4jIndexBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
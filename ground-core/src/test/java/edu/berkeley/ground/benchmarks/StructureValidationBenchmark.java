@@ -0,0 +1,90 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.PostgresFactories;
+
+/**
+ * Measures the throughput of creating node versions in Postgres that must conform to a structure
+ * version, with the structure validators cached and with the structure version read on every
+ * create. The local test database is reset first, just as in the Postgres tests.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StructureValidationBenchmark {
+  // 0 disables the validator cache
+  @Param({"0", "10000"})
+  private long structureValidatorCacheSize;
+
+  @Param({"10"})
+  private int attributeCount;
+
+  private PostgresClient postgresClient;
+  private PostgresFactories factories;
+
+  private long nodeId;
+  private long structureVersionId;
+  private Map<String, Tag> tags;
+
+  @Setup
+  public void setup() throws GroundException, IOException, InterruptedException {
+    Process p = Runtime.getRuntime().exec("python2.7 postgres_setup.py test test drop", null,
+        new File("scripts/postgres/"));
+    p.waitFor();
+    p.destroy();
+
+    this.postgresClient = new PostgresClient("localhost", 5432, "test", "test", "");
+    this.factories = new PostgresFactories(this.postgresClient, 0, 1,
+        this.structureValidatorCacheSize);
+
+    Map<String, GroundType> attributes = new HashMap<>();
+    this.tags = new HashMap<>();
+    for (int i = 0; i < this.attributeCount; i++) {
+      attributes.put("attribute" + i, GroundType.INTEGER);
+      this.tags.put("attribute" + i, new Tag(-1, "attribute" + i, i, GroundType.INTEGER));
+    }
+
+    long structureId = this.factories.getStructureFactory()
+        .create("validation-structure", new HashMap<>()).getId();
+    this.structureVersionId = this.factories.getStructureVersionFactory()
+        .create(structureId, attributes, new ArrayList<>()).getId();
+
+    this.nodeId = this.factories.getNodeFactory().create("validation-node", new HashMap<>())
+        .getId();
+  }
+
+  @TearDown
+  public void tearDown() throws GroundException {
+    this.postgresClient.close();
+  }
+
+  @Benchmark
+  public NodeVersion createNodeVersion() throws GroundException {
+    return this.factories.getNodeVersionFactory().create(this.tags, this.structureVersionId,
+        "reference", new HashMap<>(), this.nodeId, new ArrayList<>());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StructureValidationBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,169 @@
+package edu.berkeley.ground.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import edu.berkeley.ground.api.models.TagFactory;
+import edu.berkeley.ground.api.models.TagQuery;
+import edu.berkeley.ground.api.models.cassandra.CassandraTagFactory;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.db.CassandraClient;
+import edu.berkeley.ground.db.DbDataContainer;
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.CassandraFactories;
+import edu.berkeley.ground.util.PostgresFactories;
+
+/**
+ * Measures the latency of reading one page of a tag search. Every item has an integer tag n, which
+ * is unique, and a string tag s, which takes one of 1000 values. The local test database is reset
+ * and loaded first, just as in the tests of the backend.
+ *
+ * <p>searchWideRange reads the last page of a range of CassandraTagFactory.MAX_RANGE_TAGS tags.
+ * Cassandra reads the whole range for every page, so its cost grows with the width of the range
+ * rather than with the page size.
+ *
+ * <p>The default size loads in seconds; run at full size with -p tagCount=100000000, and on
+ * Cassandra with -p backend=cassandra.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TagSearchBenchmark {
+  private static final int LOAD_BATCH_SIZE = 50000;
+  private static final int PAGE_SIZE = 100;
+
+  // the total number of tags; each item has two
+  @Param({"1000000"})
+  private long tagCount;
+
+  @Param({"postgres"})
+  private String backend;
+
+  private PostgresClient postgresClient;
+  private CassandraClient cassandraClient;
+  private TagFactory tagFactory;
+
+  private TagQuery exists;
+  private TagQuery value;
+  private TagQuery prefix;
+  private TagQuery range;
+  private TagQuery wideRange;
+  private long wideRangeLastPage;
+
+  @Setup
+  public void setup() throws GroundException, IOException, InterruptedException {
+    if (this.backend.equals("cassandra")) {
+      Process p = Runtime.getRuntime().exec("cqlsh -k test -f truncate.cql", null,
+          new File("scripts/cassandra/"));
+      p.waitFor();
+      p.destroy();
+
+      this.cassandraClient = new CassandraClient("localhost", 9160, "test", "test", "");
+      this.tagFactory = new CassandraFactories(this.cassandraClient, 0, 1).getTagFactory();
+    } else {
+      Process p = Runtime.getRuntime().exec("python2.7 postgres_setup.py test test drop", null,
+          new File("scripts/postgres/"));
+      p.waitFor();
+      p.destroy();
+
+      this.postgresClient = new PostgresClient("localhost", 5432, "test", "test", "");
+      this.tagFactory = new PostgresFactories(this.postgresClient, 0, 1).getTagFactory();
+    }
+
+    long itemCount = this.tagCount / 2;
+    for (long first = 1; first <= itemCount; first += LOAD_BATCH_SIZE) {
+      this.load(first, Math.min(first + LOAD_BATCH_SIZE, itemCount + 1));
+    }
+
+    this.exists = TagQuery.exists("s");
+    this.value = TagQuery.in("s", GroundType.STRING, Collections.singletonList("value-500"));
+    this.prefix = TagQuery.prefix("s", "value-50");
+    this.range = TagQuery.range("n", itemCount / 2, itemCount / 2 + PAGE_SIZE);
+
+    long wideRangeSize = Math.min(itemCount, CassandraTagFactory.MAX_RANGE_TAGS);
+    this.wideRange = TagQuery.range("n", 1L, wideRangeSize);
+    this.wideRangeLastPage = wideRangeSize - PAGE_SIZE;
+  }
+
+  // loads the items with ids in [first, end) and their tags
+  private void load(long first, long end) throws GroundException {
+    List<List<DbDataContainer>> items = new ArrayList<>();
+    List<List<DbDataContainer>> tags = new ArrayList<>();
+
+    for (long id = first; id < end; id++) {
+      items.add(Collections.singletonList(new DbDataContainer("id", GroundType.LONG, id)));
+      tags.add(tagRow(id, "n", Long.toString(id), GroundType.INTEGER));
+      tags.add(tagRow(id, "s", "value-" + (id % 1000), GroundType.STRING));
+    }
+
+    if (this.cassandraClient != null) {
+      this.cassandraClient.insertUnlogged("item", items);
+      this.cassandraClient.insertUnlogged("item_tag", tags);
+    } else {
+      this.postgresClient.copy("item", items);
+      this.postgresClient.copy("item_tag", tags);
+      this.postgresClient.commit();
+    }
+  }
+
+  private static List<DbDataContainer> tagRow(long id, String key, String value, GroundType type)
+      throws GroundException {
+    return Arrays.asList(
+        new DbDataContainer("item_id", GroundType.LONG, id),
+        new DbDataContainer("key", GroundType.STRING, key),
+        new DbDataContainer("value", GroundType.STRING, value),
+        new DbDataContainer("type", GroundType.STRING, type.toString()));
+  }
+
+  @TearDown
+  public void tearDown() throws GroundException {
+    if (this.cassandraClient != null) {
+      this.cassandraClient.close();
+    } else {
+      this.postgresClient.close();
+    }
+  }
+
+  @Benchmark
+  public List<Long> searchExists() throws GroundException {
+    return this.tagFactory.searchItemIds(this.exists, Long.MIN_VALUE, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<Long> searchValue() throws GroundException {
+    return this.tagFactory.searchItemIds(this.value, Long.MIN_VALUE, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<Long> searchPrefix() throws GroundException {
+    return this.tagFactory.searchItemIds(this.prefix, Long.MIN_VALUE, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<Long> searchRange() throws GroundException {
+    return this.tagFactory.searchItemIds(this.range, Long.MIN_VALUE, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<Long> searchWideRange() throws GroundException {
+    return this.tagFactory.searchItemIds(this.wideRange, this.wideRangeLastPage, PAGE_SIZE);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TagSearchBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
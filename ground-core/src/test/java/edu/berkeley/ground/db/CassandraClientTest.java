@@ -0,0 +1,101 @@
+package edu.berkeley.ground.db;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import edu.berkeley.ground.api.CassandraTest;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.IdGenerator;
+
+import static org.junit.Assert.*;
+
+public class CassandraClientTest extends CassandraTest {
+
+  private static List<Statement> row(int statements) {
+    List<Statement> row = new ArrayList<>();
+    for (int i = 0; i < statements; i++) {
+      row.add(new SimpleStatement("insert into node(item_id) values (" + i + ");"));
+    }
+
+    return row;
+  }
+
+  @Test
+  public void testLoggedBatchesAreBounded() {
+    // 120 rows of 3 statements, such as an edge version and its two query table copies
+    List<List<Statement>> rows = new ArrayList<>(Collections.nCopies(120, row(3)));
+
+    List<BatchStatement> batches = CassandraClient.loggedBatches(rows);
+
+    int total = 0;
+    for (BatchStatement batch : batches) {
+      // 33 whole rows fit in a batch; none is split across two
+      assertTrue(batch.size() <= 100);
+      assertEquals(0, batch.size() % 3);
+      total += batch.size();
+    }
+
+    assertEquals(4, batches.size());
+    assertEquals(360, total);
+  }
+
+  @Test
+  public void testLargeRowGetsItsOwnBatch() {
+    List<List<Statement>> rows = new ArrayList<>();
+    rows.add(row(1));
+    rows.add(row(150));
+    rows.add(row(1));
+
+    List<BatchStatement> batches = CassandraClient.loggedBatches(rows);
+
+    assertEquals(3, batches.size());
+    assertEquals(150, batches.get(1).size());
+    assertTrue(CassandraClient.loggedBatches(new ArrayList<>()).isEmpty());
+  }
+
+  @Test
+  public void testPermitIsReleasedWhenSendingFails() {
+    Semaphore permits = new Semaphore(1);
+
+    // with the permit kept, the second attempt would wait forever
+    for (int attempt = 0; attempt < 2; attempt++) {
+      try {
+        CassandraClient.executeConcurrently(row(1), statement -> {
+          throw new NoHostAvailableException(Collections.emptyMap());
+        }, permits);
+        fail("expected the failure to be rethrown");
+      } catch (NoHostAvailableException e) {
+        assertEquals(0, e.getErrors().size());
+      }
+    }
+
+    assertEquals(1, permits.availablePermits());
+  }
+
+  @Test
+  public void testFirstLeaseStartsAfterExistingIds() throws GroundException {
+    long maxValue = IdGenerator.maxCounterValue(2);
+    long first = IdGenerator.prefix(0, 2);
+    long second = IdGenerator.prefix(1, 2);
+
+    // ids written before there were leases, by two machines
+    versionFactory.insertIntoDatabase(first | 500);
+    versionFactory.insertIntoDatabase(second | 700);
+    cassandraClient.commit();
+
+    assertEquals(501, cassandraClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(511, cassandraClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(701, cassandraClient.leaseIds(1, "version", 10, second, maxValue));
+
+    // a counter with no ids in its table starts at 1
+    assertEquals(1, cassandraClient.leaseIds(0, "item", 10, first, maxValue));
+  }
+}
@@ -0,0 +1,46 @@
+package edu.berkeley.ground.db;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import edu.berkeley.ground.api.Neo4jTest;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.IdGenerator;
+
+import static org.junit.Assert.*;
+
+public class Neo4jClientTest extends Neo4jTest {
+
+  public Neo4jClientTest() throws GroundException {
+    super();
+  }
+
+  private static List<DbDataContainer> id(long id) throws GroundException {
+    return Collections.singletonList(new DbDataContainer("id", GroundType.LONG, id));
+  }
+
+  @Test
+  public void testFirstLeaseStartsAfterExistingIds() throws GroundException {
+    long maxValue = IdGenerator.maxCounterValue(2);
+    long first = IdGenerator.prefix(0, 2);
+    long second = IdGenerator.prefix(1, 2);
+
+    // ids written before there were leases, by two machines, on vertices and successor edges
+    super.neo4jClient.addVertex("NodeVersion", id(first | 500));
+    super.neo4jClient.addVertex("NodeVersion", id(first | 510));
+    super.neo4jClient.addEdge("VersionSuccessor", first | 500, first | 510, id(first | 600));
+    super.neo4jClient.addVertex("NodeVersion", id(second | 700));
+    super.neo4jClient.commit();
+
+    assertEquals(601, super.neo4jClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(611, super.neo4jClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(701, super.neo4jClient.leaseIds(1, "version", 10, second, maxValue));
+
+    // a counter of a machine with no ids starts at 1
+    assertEquals(1, super.neo4jClient.leaseIds(1, "item", 10, IdGenerator.prefix(1, 4),
+        IdGenerator.maxCounterValue(4)));
+  }
+}
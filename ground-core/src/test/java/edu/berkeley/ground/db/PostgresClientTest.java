@@ -0,0 +1,35 @@
+package edu.berkeley.ground.db;
+
+import org.junit.Test;
+
+import edu.berkeley.ground.api.PostgresTest;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.util.IdGenerator;
+
+import static org.junit.Assert.*;
+
+public class PostgresClientTest extends PostgresTest {
+
+  public PostgresClientTest() throws GroundException {
+    super();
+  }
+
+  @Test
+  public void testFirstLeaseStartsAfterExistingIds() throws GroundException {
+    long maxValue = IdGenerator.maxCounterValue(2);
+    long first = IdGenerator.prefix(0, 2);
+    long second = IdGenerator.prefix(1, 2);
+
+    // ids written before there were leases, by two machines
+    super.versionFactory.insertIntoDatabase(first | 500);
+    super.versionFactory.insertIntoDatabase(second | 700);
+    super.postgresClient.commit();
+
+    assertEquals(501, super.postgresClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(511, super.postgresClient.leaseIds(0, "version", 10, first, maxValue));
+    assertEquals(701, super.postgresClient.leaseIds(1, "version", 10, second, maxValue));
+
+    // a counter with no ids in its table starts at 1
+    assertEquals(1, super.postgresClient.leaseIds(0, "item", 10, first, maxValue));
+  }
+}
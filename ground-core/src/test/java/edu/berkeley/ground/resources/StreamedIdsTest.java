@@ -0,0 +1,62 @@
+package edu.berkeley.ground.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamedIdsTest {
+  private final List<Integer> limits = new ArrayList<>();
+
+  // ids 1 to 25000, recording the limit of every read
+  private List<Long> page(long afterId, int limit) {
+    this.limits.add(limit);
+
+    List<Long> ids = new ArrayList<>();
+    for (long id = Math.max(afterId, 0) + 1; id <= 25000 && ids.size() < limit; id++) {
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  private static long[] write(StreamedIds ids) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ids.write(output);
+
+    return new ObjectMapper().readValue(output.toByteArray(), long[].class);
+  }
+
+  @Test
+  public void testPages() throws Exception {
+    long[] ids = write(new StreamedIds(this::page, null, null));
+
+    assertEquals(25000, ids.length);
+    assertEquals(3, this.limits.size());
+  }
+
+  @Test
+  public void testInFullReadsOnce() throws Exception {
+    long[] ids = write(StreamedIds.inFull(this::page, null, null));
+
+    assertEquals(25000, ids.length);
+    assertEquals(1, ids[0]);
+    assertEquals(25000, ids[24999]);
+    assertEquals(1, this.limits.size());
+  }
+
+  @Test
+  public void testInFullStopsAtLimit() throws Exception {
+    long[] ids = write(StreamedIds.inFull(this::page, 100L, 15000));
+
+    assertEquals(15000, ids.length);
+    assertEquals(101, ids[0]);
+    assertEquals(15100, ids[14999]);
+    assertEquals(1, this.limits.size());
+    assertEquals(15000, (int) this.limits.get(0));
+  }
+}
@@ -0,0 +1,121 @@
+package edu.berkeley.ground.util;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactGraphTest {
+  private CompactGraph graph;
+
+  @Before
+  public void setup() {
+    this.graph = JGraphTUtils.createCompactGraph();
+  }
+
+  @Test
+  public void testAddVertex() {
+    long testId = 1L << 60;
+
+    JGraphTUtils.addVertex(this.graph, testId);
+    JGraphTUtils.addVertex(this.graph, testId);
+
+    assertEquals(1, this.graph.vertexCount());
+    assertTrue(this.graph.containsVertex(testId));
+  }
+
+  @Test
+  public void testAddEdge() {
+    JGraphTUtils.addEdge(this.graph, 1, 2);
+
+    assertEquals(2, this.graph.vertexCount());
+    assertEquals(1, this.graph.edgeCount());
+    assertArrayEquals(new long[] {1, 2}, this.graph.depthFirst(1));
+  }
+
+  @Test
+  public void testTraversalOrder() {
+    // 1 -> {2, 3}, 2 -> 4, 3 -> 4, with one edge of 1 merged into the CSR arrays
+    JGraphTUtils.addEdge(this.graph, 1, 2);
+    this.graph.compact();
+    JGraphTUtils.addEdge(this.graph, 1, 3);
+    JGraphTUtils.addEdge(this.graph, 2, 4);
+    JGraphTUtils.addEdge(this.graph, 3, 4);
+
+    assertArrayEquals(new long[] {1, 2, 4, 3}, this.graph.depthFirst(1));
+    assertArrayEquals(new long[] {1, 2, 3, 4}, this.graph.breadthFirst(1));
+    assertArrayEquals(new long[] {3, 4}, this.graph.depthFirst(3));
+  }
+
+  @Test
+  public void testBoundedBreadthFirst() {
+    // 1 -> 2 -> 3 -> 4, with a shortcut 1 -> 3 added after the rest was merged
+    JGraphTUtils.addEdge(this.graph, 1, 2);
+    JGraphTUtils.addEdge(this.graph, 2, 3);
+    JGraphTUtils.addEdge(this.graph, 3, 4);
+    this.graph.compact();
+    JGraphTUtils.addEdge(this.graph, 1, 5);
+    JGraphTUtils.addEdge(this.graph, 1, 3);
+
+    assertArrayEquals(new long[] {1}, this.graph.breadthFirst(1, 0));
+    assertArrayEquals(new long[] {1, 2, 5, 3}, this.graph.breadthFirst(1, 1));
+    assertArrayEquals(new long[] {1, 2, 5, 3, 4}, this.graph.breadthFirst(1, 2));
+    assertEquals(new HashSet<>(JGraphTUtils.runBFS(this.graph, 1)),
+        new HashSet<>(JGraphTUtils.runBFS(this.graph, 1, Integer.MAX_VALUE)));
+  }
+
+  @Test
+  public void testCycle() {
+    JGraphTUtils.addEdge(this.graph, 1, 2);
+    JGraphTUtils.addEdge(this.graph, 2, 3);
+    JGraphTUtils.addEdge(this.graph, 3, 1);
+
+    List<Long> reachable = JGraphTUtils.runDFS(this.graph, 2);
+    assertEquals(3, reachable.size());
+    assertEquals(2L, (long) reachable.get(0));
+  }
+
+  @Test
+  public void testUnknownVertex() {
+    assertArrayEquals(new long[] {5}, this.graph.depthFirst(5));
+  }
+
+  @Test
+  public void testMatchesJGraphT() {
+    DirectedGraph<Long, DefaultEdge> expected = JGraphTUtils.createGraph();
+    Random random = new Random(0);
+
+    // enough edges to go through several compactions, with some left in the buffer
+    int vertices = 2000;
+    for (long i = 0; i < vertices; i++) {
+      JGraphTUtils.addVertex(expected, i);
+      JGraphTUtils.addVertex(this.graph, i);
+    }
+
+    for (int i = 0; i < 5000; i++) {
+      long from = random.nextInt(vertices);
+      long to = random.nextInt(vertices);
+
+      if (!expected.containsEdge(from, to)) {
+        JGraphTUtils.addEdge(expected, from, to);
+        JGraphTUtils.addEdge(this.graph, from, to);
+      }
+    }
+
+    assertEquals(expected.edgeSet().size(), this.graph.edgeCount());
+    for (long start = 0; start < vertices; start += 97) {
+      List<Long> dfs = JGraphTUtils.runDFS(this.graph, start);
+      List<Long> bfs = JGraphTUtils.runBFS(this.graph, start);
+
+      assertEquals(new HashSet<>(JGraphTUtils.runDFS(expected, start)), new HashSet<>(dfs));
+      assertEquals(new HashSet<>(dfs), new HashSet<>(bfs));
+      assertEquals(dfs.size(), new HashSet<>(dfs).size());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package edu.berkeley.ground.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GraphSnapshotTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    CompactGraph graph = JGraphTUtils.createCompactGraph();
+    JGraphTUtils.addEdge(graph, 1, 2);
+    JGraphTUtils.addEdge(graph, 2, 3);
+    JGraphTUtils.addVertex(graph, 4);
+
+    Path path = this.folder.getRoot().toPath().resolve("graph.snapshot");
+    GraphSnapshot.write(graph, 1234, path);
+
+    GraphSnapshot snapshot = GraphSnapshot.read(path);
+    CompactGraph restored = snapshot.getGraph();
+
+    assertEquals(1234, snapshot.getHighWaterMark());
+    assertEquals(4, restored.vertexCount());
+    assertEquals(2, restored.edgeCount());
+    assertArrayEquals(new long[] {1, 2, 3}, restored.depthFirst(1));
+
+    // the restored graph keeps accepting edges
+    JGraphTUtils.addEdge(restored, 3, 4);
+    assertArrayEquals(new long[] {1, 2, 3, 4}, restored.depthFirst(1));
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedSnapshot() throws IOException {
+    CompactGraph graph = JGraphTUtils.createCompactGraph();
+    JGraphTUtils.addEdge(graph, 1, 2);
+
+    Path path = this.folder.getRoot().toPath().resolve("graph.snapshot");
+    GraphSnapshot.write(graph, 0, path);
+
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+
+    GraphSnapshot.read(path);
+  }
+}
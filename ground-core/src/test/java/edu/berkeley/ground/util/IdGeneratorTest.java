@@ -0,0 +1,144 @@
+package edu.berkeley.ground.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class IdGeneratorTest {
+  // a store that remembers its high-water marks across generators, like a database would
+  private final Map<String, Long> highWaterMarks = new HashMap<>();
+  private int leases = 0;
+
+  private synchronized long lease(int machineId, String counter, long count) {
+    this.leases++;
+
+    String key = machineId + "/" + counter;
+    long first = this.highWaterMarks.getOrDefault(key, 1L);
+    this.highWaterMarks.put(key, first + count);
+
+    return first;
+  }
+
+  private IdGenerator createGenerator(int machineId, int numMachines, long leaseSize) {
+    return new IdGenerator(machineId, numMachines, false, this::lease, leaseSize);
+  }
+
+  @Test
+  public void testIdsStartAtOne() throws Exception {
+    IdGenerator generator = new IdGenerator(0, 1, false);
+
+    assertEquals(1, generator.generateVersionId());
+    assertEquals(2, generator.generateVersionId());
+    assertEquals(1, generator.generateItemId());
+    assertEquals(1, generator.generateSuccessorId());
+  }
+
+  @Test
+  public void testMachinePrefix() throws Exception {
+    IdGenerator generator = this.createGenerator(3, 4, 10);
+
+    long id = generator.generateVersionId();
+    assertEquals(3, id >>> 62);
+    assertEquals(1, id & ((1L << 62) - 1));
+  }
+
+  @Test
+  public void testLeasesInBlocks() throws Exception {
+    IdGenerator generator = this.createGenerator(0, 1, 10);
+
+    for (long i = 1; i <= 25; i++) {
+      assertEquals(i, generator.generateVersionId());
+    }
+
+    assertEquals(3, this.leases);
+  }
+
+  @Test
+  public void testRestartDoesNotReuseIds() throws Exception {
+    IdGenerator generator = this.createGenerator(0, 1, 10);
+    long last = 0;
+    for (int i = 0; i < 5; i++) {
+      last = generator.generateVersionId();
+    }
+
+    // The rest of the first generator's lease is skipped.
+    IdGenerator restarted = this.createGenerator(0, 1, 10);
+    assertEquals(11, restarted.generateVersionId());
+    assertTrue(restarted.generateVersionId() > last);
+  }
+
+  @Test
+  public void testReserveLargerThanLease() throws Exception {
+    IdGenerator generator = this.createGenerator(0, 1, 10);
+
+    assertEquals(1, generator.generateItemId());
+    long first = generator.reserveItemIds(50);
+    assertEquals(11, first);
+    assertEquals(2, generator.generateItemId());
+
+    // later leases start after the reserved block
+    for (int i = 0; i < 8; i++) {
+      generator.generateItemId();
+    }
+    assertEquals(61, generator.generateItemId());
+  }
+
+  @Test
+  public void testGloballyUnique() throws Exception {
+    IdGenerator generator = new IdGenerator(0, 1, true, this::lease, 10);
+
+    assertEquals(1, generator.generateVersionId());
+    assertEquals(2, generator.generateItemId());
+    assertEquals(3, generator.generateSuccessorId());
+    assertEquals(4, generator.reserveItemIds(5));
+    assertEquals(9, generator.generateVersionId());
+  }
+
+  @Test
+  public void testConcurrentIdsAreUnique() throws Exception {
+    IdGenerator generator = this.createGenerator(1, 2, 100);
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+    int threads = 16;
+    int idsPerThread = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < idsPerThread; j++) {
+            if (j % 10 == 0) {
+              long first = generator.reserveVersionIds(3);
+              for (int k = 0; k < 3; k++) {
+                ids.add(first + k);
+              }
+            } else {
+              ids.add(generator.generateVersionId());
+            }
+          }
+
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // every tenth call reserves three ids
+    assertEquals(threads * (idsPerThread + idsPerThread / 10 * 2), ids.size());
+  }
+}
@@ -0,0 +1,42 @@
+package edu.berkeley.ground.util;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.berkeley.ground.api.PostgresTest;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import static org.junit.Assert.*;
+
+public class PostgresFactoriesTest extends PostgresTest {
+
+  public PostgresFactoriesTest() throws GroundException {
+    super();
+  }
+
+  @Test
+  public void testChangeFeed() throws GroundException {
+    MockProducer<String, byte[]> producer =
+        new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+    super.factories.setChangeFeed(new ChangeFeed(new KafkaProduce(producer), "versions"));
+
+    long nodeId = super.factories.getNodeFactory().create("testNode", new HashMap<>()).getId();
+    long nodeVersionId = super.factories.getNodeVersionFactory().create(new HashMap<>(), -1, null,
+        new HashMap<>(), nodeId, new ArrayList<>()).getId();
+
+    List<ProducerRecord<String, byte[]>> records = producer.history();
+    assertEquals(1, records.size());
+    assertEquals("versions", records.get(0).topic());
+    assertEquals(Long.toString(nodeId), records.get(0).key());
+    assertEquals("{\"type\":\"NodeVersion\",\"id\":" + nodeVersionId + ",\"itemId\":" + nodeId + "}",
+        new String(records.get(0).value(), StandardCharsets.UTF_8));
+  }
+}
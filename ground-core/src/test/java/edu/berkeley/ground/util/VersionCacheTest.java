@@ -0,0 +1,98 @@
+package edu.berkeley.ground.util;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+
+import static org.junit.Assert.*;
+
+public class VersionCacheTest {
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private final List<Long> loaded = new ArrayList<>();
+
+  private NodeVersion loadNodeVersion(long id) {
+    this.loaded.add(id);
+    return new NodeVersion(id, new HashMap<>(), -1, null, new HashMap<>(), 1);
+  }
+
+  private List<NodeVersion> loadNodeVersions(List<Long> ids) {
+    List<NodeVersion> versions = new ArrayList<>();
+    for (long id : ids) {
+      versions.add(this.loadNodeVersion(id));
+    }
+
+    return versions;
+  }
+
+  private long gauge(String name) {
+    return (Long) this.metricRegistry.getGauges()
+        .get(MetricRegistry.name(VersionCache.class, name)).getValue();
+  }
+
+  @Test
+  public void testHits() throws GroundException {
+    VersionCache cache = new VersionCache(10, this.metricRegistry);
+
+    NodeVersion first = cache.get(1, NodeVersion.class, this::loadNodeVersion);
+    NodeVersion second = cache.get(1, NodeVersion.class, this::loadNodeVersion);
+
+    assertSame(first, second);
+    assertEquals(Arrays.asList(1L), this.loaded);
+    assertEquals(1, this.gauge("hits"));
+    assertEquals(1, this.gauge("misses"));
+  }
+
+  @Test(expected = GroundException.class)
+  public void testOtherKindOfVersionIsLoaded() throws GroundException {
+    VersionCache cache = new VersionCache(10, this.metricRegistry);
+    cache.get(1, NodeVersion.class, this::loadNodeVersion);
+
+    // the backend decides what happens to an id of the wrong kind
+    cache.get(1, EdgeVersion.class, id -> {
+      throw new GroundException("No EdgeVersion found with id " + id + ".");
+    });
+  }
+
+  @Test
+  public void testGetAllLoadsOnlyMissingVersions() throws GroundException {
+    VersionCache cache = new VersionCache(10, this.metricRegistry);
+    cache.get(2, NodeVersion.class, this::loadNodeVersion);
+    this.loaded.clear();
+
+    List<NodeVersion> versions = cache.getAll(Arrays.asList(3L, 2L, 3L, 4L), NodeVersion.class,
+        this::loadNodeVersions);
+
+    assertEquals(Arrays.asList(3L, 4L), this.loaded);
+    assertEquals(4, versions.size());
+    assertEquals(3, versions.get(0).getId());
+    assertEquals(2, versions.get(1).getId());
+    assertSame(versions.get(0), versions.get(2));
+    assertEquals(4, versions.get(3).getId());
+
+    this.loaded.clear();
+    cache.getAll(Arrays.asList(2L, 3L, 4L), NodeVersion.class, this::loadNodeVersions);
+    assertTrue(this.loaded.isEmpty());
+  }
+
+  @Test
+  public void testSizeIsBounded() throws GroundException {
+    // evictions run on the calling thread, so they have all happened once cleanUp returns
+    VersionCache cache = new VersionCache(10, this.metricRegistry, Runnable::run);
+    for (long id = 1; id <= 100; id++) {
+      cache.get(id, NodeVersion.class, this::loadNodeVersion);
+    }
+    cache.cleanUp();
+
+    assertEquals(10, cache.size());
+    assertEquals(90, this.gauge("evictions"));
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.List;
+
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * A GroundReadWriteBulkResource that calls the bulk ingest factory of an EmbeddedGround instead of
+ * a Ground server. Caching is unchanged.
+ */
+class EmbeddedBulkResource extends GroundReadWriteBulkResource {
+
+    private final EmbeddedGround ground;
+
+    EmbeddedBulkResource(GroundMetadataCache cache, EmbeddedGround ground) {
+        super(cache);
+        this.ground = ground;
+    }
+
+    @Override
+    BulkIngestResult load(List<BulkRecord> records) throws GroundException {
+        return this.ground.run(factories -> factories.getBulkIngestFactory().ingest(records.iterator(), true));
+    }
+}
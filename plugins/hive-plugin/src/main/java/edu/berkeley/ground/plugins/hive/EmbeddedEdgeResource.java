@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import edu.berkeley.ground.api.models.Edge;
+import edu.berkeley.ground.api.models.EdgeVersion;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * A GroundReadWriteEdgeResource that calls the edge factories of an EmbeddedGround instead of a
+ * Ground server. Caching is unchanged.
+ */
+class EmbeddedEdgeResource extends GroundReadWriteEdgeResource {
+
+    private final EmbeddedGround ground;
+
+    EmbeddedEdgeResource(GroundMetadataCache cache, EmbeddedGround ground) {
+        super(cache);
+        this.ground = ground;
+    }
+
+    @Override
+    public Edge getEdge(String edgeName) throws GroundException {
+        return this.ground.find(factories -> factories.getEdgeFactory().retrieveFromDatabase(edgeName));
+    }
+
+    @Override
+    public EdgeVersion getEdgeVersion(long edgeId) throws GroundException {
+        return this.ground.find(factories -> factories.getEdgeVersionFactory().retrieveFromDatabase(edgeId));
+    }
+
+    @Override
+    Edge insertEdge(String name, Map<String, Tag> tagMap) throws GroundException {
+        return this.ground.run(factories -> factories.getEdgeFactory().create(name, tagMap));
+    }
+
+    @Override
+    EdgeVersion insertEdgeVersion(EdgeVersion edgeVersion) throws GroundException {
+        return this.ground.run(factories -> factories.getEdgeVersionFactory().create(edgeVersion.getTags(),
+                edgeVersion.getStructureVersionId(), edgeVersion.getReference(), edgeVersion.getParameters(),
+                edgeVersion.getEdgeId(), edgeVersion.getFromId(), edgeVersion.getToId(), new ArrayList<>()));
+    }
+}
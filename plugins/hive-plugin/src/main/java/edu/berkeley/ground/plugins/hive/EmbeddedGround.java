@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.berkeley.ground.db.PostgresClient;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.plugins.hive.util.PluginUtil;
+import edu.berkeley.ground.util.ChangeFeed;
+import edu.berkeley.ground.util.KafkaProduce;
+import edu.berkeley.ground.util.PostgresFactories;
+
+/**
+ * Ground running inside the metastore JVM: the Postgres factories a Ground server would use,
+ * called directly instead of over HTTP. There is one per metastore, so every store shares its
+ * connection pool.
+ *
+ * <p>Outside of a server nothing hands connections back to the pool at the end of a request, so
+ * every call goes through {@link #run} or {@link #find}, which release the calling thread's
+ * connection once the factory returns.
+ *
+ * <p>When the metadata caches follow a change feed topic, writes publish their events to it, as
+ * a Ground server configured with that topic does, so that the caches of other metastores see
+ * them.
+ */
+class EmbeddedGround {
+
+    static final private Logger LOG = LoggerFactory.getLogger(EmbeddedGround.class.getName());
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call(PostgresFactories factories) throws GroundException;
+    }
+
+    private static EmbeddedGround instance;
+
+    private final PostgresClient postgresClient;
+    private final PostgresFactories factories;
+
+    EmbeddedGround(PostgresClient postgresClient, PostgresFactories factories) {
+        this.postgresClient = postgresClient;
+        this.factories = factories;
+    }
+
+    // connects on first use, from the model config in ground.properties
+    static synchronized EmbeddedGround get() throws GroundException {
+        if (instance == null) {
+            String factoryType = PluginUtil.getProperty("edu.berkeley.ground.model.config.factoryType", "postgres");
+            if (!factoryType.equals("postgres")) {
+                throw new GroundException("Embedded mode only supports postgres, not " + factoryType + ".");
+            }
+            String host = PluginUtil.getProperty("edu.berkeley.ground.model.config.host", "localhost");
+            int port = Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.model.config.port", "5432"));
+            String dbName = PluginUtil.getProperty("edu.berkeley.ground.model.config.dbName", "test");
+
+            PostgresClient postgresClient = new PostgresClient(host, port, dbName,
+                    PluginUtil.getProperty("edu.berkeley.ground.model.config.user", "test"),
+                    PluginUtil.getProperty("edu.berkeley.ground.model.config.password", ""),
+                    Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.embedded.poolSize", "16")),
+                    Long.parseLong(PluginUtil.getProperty("edu.berkeley.ground.embedded.poolTimeoutMillis", "10000")),
+                    new MetricRegistry());
+            PostgresFactories factories = new PostgresFactories(postgresClient,
+                    Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.embedded.machineId", "0")),
+                    Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.embedded.numMachines", "1")));
+            String changeFeedTopic = PluginUtil.getProperty("edu.berkeley.ground.cache.changeFeedTopic", null);
+            if (changeFeedTopic != null) {
+                factories.setChangeFeed(new ChangeFeed(changeFeedProducer(), changeFeedTopic));
+            }
+            LOG.info("Using embedded Ground on postgres {}:{}/{}", host, port, dbName);
+            instance = new EmbeddedGround(postgresClient, factories);
+        }
+        return instance;
+    }
+
+    // flushed when the JVM exits, as a server closes its producer when it stops
+    private static KafkaProduce changeFeedProducer() {
+        KafkaProduce producer = new KafkaProduce(
+                PluginUtil.getProperty("edu.berkeley.ground.cache.kafkaServers", "localhost:9092"),
+                PluginUtil.getProperty("edu.berkeley.ground.embedded.kafkaAcks", "1"),
+                Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.embedded.kafkaLingerMs", "5")),
+                Integer.parseInt(PluginUtil.getProperty("edu.berkeley.ground.embedded.kafkaBatchSize", "65536")),
+                PluginUtil.getProperty("edu.berkeley.ground.embedded.kafkaCompressionType", "lz4"),
+                Long.parseLong(PluginUtil.getProperty("edu.berkeley.ground.embedded.kafkaMaxBlockMs", "1000")));
+        Runtime.getRuntime().addShutdownHook(new Thread(producer::stop, "ground-change-feed-close"));
+        return producer;
+    }
+
+    <T> T run(Call<T> call) throws GroundException {
+        try {
+            return call.call(this.factories);
+        } finally {
+            this.postgresClient.release();
+        }
+    }
+
+    // like run, but a lookup that fails gives null, as a request that does not return 200 does
+    <T> T find(Call<T> call) throws GroundException {
+        try {
+            return this.run(call);
+        } catch (GroundException e) {
+            LOG.debug("Lookup failed: {}", e.getMessage());
+            return null;
+        }
+    }
+}
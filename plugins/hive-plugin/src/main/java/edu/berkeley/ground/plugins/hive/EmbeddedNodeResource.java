@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.berkeley.ground.api.models.Node;
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * A GroundReadWriteNodeResource that calls the node factories of an EmbeddedGround instead of a
+ * Ground server. Caching is unchanged.
+ */
+class EmbeddedNodeResource extends GroundReadWriteNodeResource {
+
+    private final EmbeddedGround ground;
+
+    EmbeddedNodeResource(GroundMetadataCache cache, EmbeddedGround ground) {
+        super(cache);
+        this.ground = ground;
+    }
+
+    @Override
+    NodeVersion insertNodeVersion(NodeVersion nodeVersion) throws GroundException {
+        return this.ground.run(factories -> factories.getNodeVersionFactory().create(nodeVersion.getTags(),
+                nodeVersion.getStructureVersionId(), nodeVersion.getReference(), nodeVersion.getParameters(),
+                nodeVersion.getNodeId(), new ArrayList<>()));
+    }
+
+    @Override
+    List<Long> retrieveLatestVersions(String name) throws GroundException {
+        return this.ground.find(factories -> factories.getNodeFactory().getLeaves(name));
+    }
+
+    @Override
+    NodeVersion retrieveNodeVersion(long nodeVersionId) throws GroundException {
+        return this.ground.find(factories -> factories.getNodeVersionFactory().retrieveFromDatabase(nodeVersionId));
+    }
+
+    @Override
+    List<NodeVersion> retrieveNodeVersions(List<Long> nodeVersionIds) throws GroundException {
+        return this.ground.run(factories -> factories.getNodeVersionFactory().retrieveFromDatabase(nodeVersionIds));
+    }
+
+    @Override
+    public List<Long> searchVersions(TagFilter filter, long afterId, int limit) throws GroundException {
+        return this.ground.run(factories -> factories.getTagFactory().searchVersionIds(filter, afterId, limit));
+    }
+
+    @Override
+    Node getNode(String name) throws GroundException {
+        return this.ground.find(factories -> factories.getNodeFactory().retrieveFromDatabase(name));
+    }
+
+    @Override
+    List<Long> retrieveTransitiveClosure(long nodeVersionId) throws GroundException {
+        return this.ground.run(factories -> factories.getNodeVersionFactory().getTransitiveClosure(nodeVersionId));
+    }
+
+    @Override
+    List<Long> retrieveAdjacentNodes(long prevVersionId, String edgeName) throws GroundException {
+        return this.ground.run(factories -> factories.getNodeVersionFactory().getAdjacentNodes(prevVersionId,
+                edgeName));
+    }
+
+    @Override
+    Node insertNode(String name, Map<String, Tag> tagMap) throws GroundException {
+        return this.ground.run(factories -> factories.getNodeFactory().create(name, tagMap));
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.berkeley.ground.api.models.Structure;
+import edu.berkeley.ground.api.models.StructureVersion;
+import edu.berkeley.ground.api.versions.GroundType;
+import edu.berkeley.ground.exceptions.GroundException;
+
+/**
+ * A GroundReadWriteStructureResource that calls the structure factories of an EmbeddedGround
+ * instead of a Ground server.
+ */
+class EmbeddedStructureResource extends GroundReadWriteStructureResource {
+
+    private final EmbeddedGround ground;
+
+    EmbeddedStructureResource(EmbeddedGround ground) {
+        this.ground = ground;
+    }
+
+    @Override
+    Structure createStructure(String name) throws GroundException {
+        return this.ground.run(factories -> factories.getStructureFactory().create(name, activeTags(name)));
+    }
+
+    @Override
+    StructureVersion createStructureVersion(long id, long structureId, Map<String, GroundType> attributes)
+            throws GroundException {
+        return this.ground.run(factories -> factories.getStructureVersionFactory().create(structureId, attributes,
+                new ArrayList<>()));
+    }
+
+    @Override
+    Structure getStructure(String name) throws GroundException {
+        Structure structure = this.ground.find(factories -> factories.getStructureFactory().retrieveFromDatabase(name));
+        if (structure != null) {
+            return structure;
+        }
+        return createStructure(name);
+    }
+
+    @Override
+    List<Long> retrieveLatestVersions(String name) throws GroundException {
+        return this.ground.find(factories -> factories.getStructureFactory().getLeaves(name));
+    }
+}
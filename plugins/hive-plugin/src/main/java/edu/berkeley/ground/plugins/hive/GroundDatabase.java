@@ -94,7 +94,7 @@ public class GroundDatabase {
     }
 
     NodeVersion getDatabaseNodeVersion(String dbName) throws GroundException {
-        List<Long> versions = (List<Long>) PluginUtil.getLatestVersions(dbName, "nodes");
+        List<Long> versions = this.groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(dbName);
         if (versions == null || versions.isEmpty()) {
             throw new GroundException("Database node not found: " + dbName);
         }
@@ -188,11 +188,11 @@ public class GroundDatabase {
 
     NodeVersion dropDatabase(String dbName, String state) throws GroundException {
         NodeVersion databaseNodeVersion = getDatabaseNodeVersion(dbName);
-        Map<String, Tag> dbTagMap = databaseNodeVersion.getTags();
-        if (dbTagMap == null) {
+        if (databaseNodeVersion.getTags() == null) {
             LOG.info("node version getTags failed");
             return null;
         }
+        Map<String, Tag> dbTagMap = new HashMap<>(databaseNodeVersion.getTags());
         StructureVersion sv = getDatabaseStructureVersion(state);
         Tag stateTag = new Tag(1L, DB_STATE, state, GroundType.STRING);
         dbTagMap.put(DB_STATE, stateTag); // update state to deleted
@@ -206,8 +206,8 @@ public class GroundDatabase {
         List<String> list = new ArrayList<>();
         List<Long> metaDatabaseClosureList = groundReadWrite.getGroundReadWriteNodeResource()
                 .getTransitiveClosure(metaDatabaseNodeVersion.getId());
-        for (long i : metaDatabaseClosureList) {
-            NodeVersion nodeVersion = this.groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(i);
+        for (NodeVersion nodeVersion : this.groundReadWrite.getGroundReadWriteNodeResource()
+                .getNodeVersions(metaDatabaseClosureList)) {
             list.add(nodeVersion.getReference());
         }
         return list;
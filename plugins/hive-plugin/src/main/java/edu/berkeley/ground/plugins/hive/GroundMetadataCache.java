@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.plugins.hive.util.ChangeFeedConsumer;
+import edu.berkeley.ground.plugins.hive.util.PluginUtil;
+
+/**
+ * Client-side cache of the metadata the plugin reads from Ground, shared by every GroundStore in
+ * the metastore. Node versions never change, so they are kept until they are evicted. The latest
+ * versions of a node and the nodes reachable from a version change as the metastore is written
+ * to, so they expire after a TTL and are dropped whenever this plugin writes. If the server
+ * publishes a change feed, they are also dropped as soon as it announces a new version.
+ *
+ * <p>Failed and empty lookups are never cached.
+ */
+public class GroundMetadataCache implements Closeable {
+
+    static final private Logger LOG = LoggerFactory.getLogger(GroundMetadataCache.class.getName());
+
+    // goes to the server every time; used when the TTL is not positive
+    static final GroundMetadataCache DISABLED = new GroundMetadataCache();
+
+    @FunctionalInterface
+    interface Loader<K, V> {
+        V load(K key) throws GroundException;
+    }
+
+    private final boolean enabled;
+    // whether reads are answered from the caches; invalidations are applied either way
+    private final boolean cacheReads;
+    private final Cache<String, List<Long>> latestVersions;
+    private final Cache<Long, NodeVersion> nodeVersions;
+    // keyed by the kind of traversal, the version it starts from and the edge name
+    private final Cache<String, List<Long>> reachableNodes;
+    // Bumped before the entries of a cache are invalidated. A value loaded while the generation
+    // changed may predate the write that caused the invalidation, so it is not kept.
+    private final AtomicLong latestVersionsGeneration;
+    private final AtomicLong reachableNodesGeneration;
+    private final ChangeFeedConsumer changeFeedConsumer;
+
+    private GroundMetadataCache() {
+        this.enabled = false;
+        this.cacheReads = false;
+        this.latestVersions = null;
+        this.nodeVersions = null;
+        this.reachableNodes = null;
+        this.latestVersionsGeneration = null;
+        this.reachableNodesGeneration = null;
+        this.changeFeedConsumer = null;
+    }
+
+    // the caches of shared, which are invalidated but never read; the change feed stays with shared
+    private GroundMetadataCache(GroundMetadataCache shared) {
+        this.enabled = shared.enabled;
+        this.cacheReads = false;
+        this.latestVersions = shared.latestVersions;
+        this.nodeVersions = shared.nodeVersions;
+        this.reachableNodes = shared.reachableNodes;
+        this.latestVersionsGeneration = shared.latestVersionsGeneration;
+        this.reachableNodesGeneration = shared.reachableNodesGeneration;
+        this.changeFeedConsumer = null;
+    }
+
+    /**
+     * @param ttlMillis how long the latest versions of a node and traversals are kept
+     * @param maxNodeVersions the most node versions kept
+     * @param kafkaServers the Kafka servers of the change feed
+     * @param changeFeedTopic the topic of the change feed, or null if there is none
+     */
+    GroundMetadataCache(long ttlMillis, long maxNodeVersions, String kafkaServers, String changeFeedTopic) {
+        this.enabled = true;
+        this.cacheReads = true;
+        this.latestVersions = CacheBuilder.newBuilder().expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+        this.nodeVersions = CacheBuilder.newBuilder().maximumSize(maxNodeVersions).build();
+        this.reachableNodes = CacheBuilder.newBuilder().expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxNodeVersions).build();
+        this.latestVersionsGeneration = new AtomicLong();
+        this.reachableNodesGeneration = new AtomicLong();
+        this.changeFeedConsumer = changeFeedTopic == null ? null
+                : new ChangeFeedConsumer(kafkaServers, changeFeedTopic, this::onChange);
+    }
+
+    static GroundMetadataCache fromProperties() {
+        long ttlMillis = Long.parseLong(PluginUtil.getProperty("edu.berkeley.ground.cache.ttlMillis", "10000"));
+        if (ttlMillis <= 0) {
+            return DISABLED;
+        }
+        return new GroundMetadataCache(ttlMillis,
+                Long.parseLong(PluginUtil.getProperty("edu.berkeley.ground.cache.maxNodeVersions", "100000")),
+                PluginUtil.getProperty("edu.berkeley.ground.cache.kafkaServers", "localhost:9092"),
+                PluginUtil.getProperty("edu.berkeley.ground.cache.changeFeedTopic", null));
+    }
+
+    /**
+     * A cache that reads past this one but still invalidates it, for a store that must see every
+     * write as soon as it is made but whose own writes other stores must see too; see NO_CACHE_CONF.
+     */
+    GroundMetadataCache withoutReads() {
+        return new GroundMetadataCache(this);
+    }
+
+    List<Long> getLatestVersions(String name, Loader<String, List<Long>> loader) throws GroundException {
+        return get(this.latestVersions, this.latestVersionsGeneration, name, loader);
+    }
+
+    // node versions never change, so no load of one can be stale
+    NodeVersion getNodeVersion(long id, Loader<Long, NodeVersion> loader) throws GroundException {
+        return get(this.nodeVersions, null, id, loader);
+    }
+
+    // the node versions in the order of ids, loading only the ones that are not cached
+    List<NodeVersion> getNodeVersions(List<Long> ids, Loader<List<Long>, List<NodeVersion>> loader)
+            throws GroundException {
+        if (!this.cacheReads) {
+            return loader.load(ids);
+        }
+        Map<Long, NodeVersion> found = new HashMap<>(this.nodeVersions.getAllPresent(ids));
+        List<Long> missing = new ArrayList<>();
+        for (long id : ids) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (NodeVersion nodeVersion : loader.load(missing)) {
+                found.put(nodeVersion.getId(), nodeVersion);
+                this.nodeVersions.put(nodeVersion.getId(), nodeVersion);
+            }
+        }
+        List<NodeVersion> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            result.add(found.get(id));
+        }
+        return result;
+    }
+
+    List<Long> getReachableNodes(String kind, long nodeVersionId, String edgeName,
+            Loader<String, List<Long>> loader) throws GroundException {
+        return get(this.reachableNodes, this.reachableNodesGeneration,
+                kind + ":" + nodeVersionId + ":" + edgeName, loader);
+    }
+
+    void invalidateLatestVersions(String name) {
+        if (this.enabled) {
+            this.latestVersionsGeneration.incrementAndGet();
+            this.latestVersions.invalidate(name);
+        }
+    }
+
+    void invalidateReachableNodes() {
+        if (this.enabled) {
+            this.reachableNodesGeneration.incrementAndGet();
+            this.reachableNodes.invalidateAll();
+        }
+    }
+
+    // events only name the node or edge that changed, so everything of that kind is dropped
+    void onChange(String event) {
+        try {
+            JsonNode type = new ObjectMapper().readTree(event).get("type");
+            if (type == null) {
+                return;
+            }
+            switch (type.asText()) {
+            case "NodeVersion":
+                this.latestVersionsGeneration.incrementAndGet();
+                this.latestVersions.invalidateAll();
+                break;
+            case "EdgeVersion":
+                this.reachableNodesGeneration.incrementAndGet();
+                this.reachableNodes.invalidateAll();
+                break;
+            default:
+                break;
+            }
+        } catch (IOException e) {
+            LOG.warn("Ignoring malformed change feed event: {}", event);
+        }
+    }
+
+    // An invalidation can run between the load and the put, and would then be undone by the put.
+    // So the generation is read before the load, and checked again once the value is in the cache.
+    private <K, V> V get(Cache<K, V> cache, AtomicLong generation, K key, Loader<K, V> loader)
+            throws GroundException {
+        if (!this.cacheReads) {
+            return loader.load(key);
+        }
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            long loadedAt = generation == null ? 0 : generation.get();
+            value = loader.load(key);
+            if (value != null && !(value instanceof List && ((List<?>) value).isEmpty())) {
+                cache.put(key, value);
+                if (generation != null && generation.get() != loadedAt) {
+                    cache.invalidate(key);
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        if (this.changeFeedConsumer != null) {
+            this.changeFeedConsumer.close();
+        }
+    }
+}
@@ -17,38 +17,67 @@
  */
 package edu.berkeley.ground.plugins.hive;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.hadoop.hive.common.ObjectPair;
-import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.MetaException;
 import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hive.common.util.HiveStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.berkeley.ground.api.models.BulkRecord;
 import edu.berkeley.ground.api.models.Edge;
 import edu.berkeley.ground.api.models.Node;
 import edu.berkeley.ground.api.models.NodeVersion;
 import edu.berkeley.ground.api.models.Structure;
 import edu.berkeley.ground.api.models.StructureVersion;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagFilter;
 import edu.berkeley.ground.api.versions.GroundType;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.plugins.hive.util.PluginUtil;
 
+/**
+ * Partitions are nodes whose versions carry the partition as JSON, its name, and the value of each
+ * partition key as a typed tag. The keys of the name and value tags start with the database and
+ * table, so that Ground's tag index finds the partitions of a table, and prunes them by key value,
+ * without walking the table.
+ */
 public class GroundPartition {
 
     static final private Logger LOG = LoggerFactory.getLogger(GroundTable.class.getName());
 
     private static final long DUMMY_NOT_USED = 1L;
+
+    private static final String PARTITION = "partition";
+
+    // the tag holding the partition as JSON
+    static final String PARTITION_TAG = "_PARTITION";
+
+    // the tag holding the partition name, e.g. ds=2016-01-01/hr=3; column names are lower case, so
+    // this never clashes with the tag of a partition key
+    private static final String NAME_TAG = "_NAME";
+
+    // the most ids asked for in one search, which is the server's limit
+    private static final int SEARCH_PAGE_SIZE = 1000;
+
     private GroundReadWrite groundReadWrite = null;
 
     public GroundPartition(GroundReadWrite ground) {
         groundReadWrite = ground;
     }
-
     public Node getNode(String partitionName) throws GroundException {
         LOG.debug("Fetching partition node: " + partitionName);
         return groundReadWrite.getGroundReadWriteNodeResource().getNode(partitionName);
@@ -79,30 +108,136 @@ public class GroundPartition {
         }
     }
 
-    public NodeVersion createPartition(String dbName, String tableName, Partition part)
-            throws InvalidObjectException, MetaException {
+    // the structure version of every partition version
+    StructureVersion getPartitionStructureVersion() throws GroundException {
+        return groundReadWrite.getGroundReadWriteStructureResource().getStructureVersion(PARTITION,
+                GroundStore.EntityState.ACTIVE.name());
+    }
+
+    /**
+     * The bulk records that add a version of a partition under ref: a node for the partition if it
+     * is new, and a node version that follows latest, the current version of the partition, if
+     * there is one.
+     */
+    static List<BulkRecord> partitionRecords(Table table, Partition part, String ref, NodeVersion latest,
+            long structureVersionId) throws MetaException {
+        List<BulkRecord> records = new ArrayList<>();
+        String partId = partitionId(table.getDbName(), table.getTableName(), part);
+        if (latest == null) {
+            records.add(new BulkRecord(BulkRecord.NODE, null, partId, null, null, null, null, null, null, null, null,
+                    null));
+        }
+        List<Long> parents = latest == null ? new ArrayList<>() : Collections.singletonList(latest.getId());
+        records.add(new BulkRecord(BulkRecord.NODE_VERSION, ref, null, partId, null, partitionTags(table, part),
+                structureVersionId, part.getSd().getLocation(), part.getParameters(), parents, null, null));
+        return records;
+    }
+
+    // the name of the node of a partition
+    static String partitionId(String dbName, String tableName, Partition part) {
+        ObjectPair<String, String> objectPair = new ObjectPair<>(HiveStringUtils.normalizeIdentifier(dbName),
+                HiveStringUtils.normalizeIdentifier(tableName));
+        String partId = objectPair.toString();
+        for (String value : part.getValues()) {
+            partId += ":" + value;
+        }
+        return partId;
+    }
+
+    static Map<String, Tag> partitionTags(Table table, Partition part) throws MetaException {
+        Map<String, Tag> tags = new HashMap<>();
+        tags.put(PARTITION_TAG, new Tag(DUMMY_NOT_USED, PARTITION_TAG, PluginUtil.toJson(part), GroundType.STRING));
+
+        String nameKey = nameTagKey(table.getDbName(), table.getTableName());
+        String name = Warehouse.makePartName(table.getPartitionKeys(), part.getValues());
+        tags.put(nameKey, new Tag(DUMMY_NOT_USED, nameKey, name, GroundType.STRING));
+
+        List<FieldSchema> partitionKeys = table.getPartitionKeys();
+        for (int i = 0; i < partitionKeys.size(); i++) {
+            String key = tagKey(table.getDbName(), table.getTableName(), partitionKeys.get(i).getName());
+            String value = part.getValues().get(i);
+            Long number = isNumeric(partitionKeys.get(i)) ? toLong(value) : null;
+            // values that are not numbers, such as the default partition name, are kept as strings
+            tags.put(key, number != null ? new Tag(DUMMY_NOT_USED, key, number, GroundType.LONG)
+                    : new Tag(DUMMY_NOT_USED, key, value, GroundType.STRING));
+        }
+        return tags;
+    }
+
+    // the key of the tag holding the value of a partition key
+    static String tagKey(String dbName, String tableName, String partitionKey) {
+        return HiveStringUtils.normalizeIdentifier(dbName) + "." + HiveStringUtils.normalizeIdentifier(tableName)
+                + "/" + partitionKey.toLowerCase();
+    }
+
+    static String nameTagKey(String dbName, String tableName) {
+        return HiveStringUtils.normalizeIdentifier(dbName) + "." + HiveStringUtils.normalizeIdentifier(tableName)
+                + "/" + NAME_TAG;
+    }
+
+    static boolean isNumeric(FieldSchema partitionKey) {
+        String type = partitionKey.getType().toLowerCase();
+        return type.equals(serdeConstants.TINYINT_TYPE_NAME) || type.equals(serdeConstants.SMALLINT_TYPE_NAME)
+                || type.equals(serdeConstants.INT_TYPE_NAME) || type.equals(serdeConstants.BIGINT_TYPE_NAME);
+    }
+
+    // the value as a number, or null if it is not one
+    static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
         try {
-            ObjectPair<String, String> objectPair = new ObjectPair<>(HiveStringUtils.normalizeIdentifier(dbName),
-                    HiveStringUtils.normalizeIdentifier(tableName));
-            String partId = objectPair.toString();
-            for (String value : part.getValues()) {
-                partId += ":" + value;
+            return Long.parseLong(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    Partition toPartition(NodeVersion nodeVersion) {
+        return PluginUtil.fromJson((String) nodeVersion.getTags().get(PARTITION_TAG).getValue(), Partition.class);
+    }
+
+    String toPartitionName(String dbName, String tableName, NodeVersion nodeVersion) {
+        return (String) nodeVersion.getTags().get(nameTagKey(dbName, tableName)).getValue();
+    }
+
+    // a filter on the partitions of a table that have one of names
+    static TagFilter byNames(String dbName, String tableName, List<String> names) {
+        return TagFilter.in(nameTagKey(dbName, tableName), GroundType.STRING, names);
+    }
+
+    static TagFilter all(String dbName, String tableName) {
+        return TagFilter.exists(nameTagKey(dbName, tableName));
+    }
+
+    /**
+     * The latest versions of the partitions matching filter, found with one search per thousand
+     * partitions and fetched with one batch request per search. Every search is read, since a later
+     * version of a partition can replace one that was found first.
+     *
+     * @param scope the partition versions to choose from, such as those of a version of a table, or null
+     *        for any version
+     * @param max the most partitions to return, or a negative number for all of them
+     */
+    List<NodeVersion> getPartitionVersions(TagFilter filter, Set<Long> scope, int max) throws GroundException {
+        GroundReadWriteNodeResource nodeResource = groundReadWrite.getGroundReadWriteNodeResource();
+        // versions come in ascending order of id, so a later version of a partition replaces an earlier one
+        Map<Long, NodeVersion> latest = new LinkedHashMap<>();
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = nodeResource.searchVersions(filter, afterId, SEARCH_PAGE_SIZE);
+            List<Long> inScope = scope == null ? ids
+                    : ids.stream().filter(scope::contains).collect(Collectors.toList());
+            for (NodeVersion nodeVersion : nodeResource.getNodeVersions(inScope)) {
+                latest.put(nodeVersion.getNodeId(), nodeVersion);
             }
-            Tag partTag = new Tag(DUMMY_NOT_USED, partId, PluginUtil.toJson(part), GroundType.STRING);
-            Map<String, GroundType> structureVersionAttribs = new HashMap<>();
-            structureVersionAttribs.put(GroundStore.EntityState.ACTIVE.name(), GroundType.STRING);
-            StructureVersion sv = groundReadWrite.getGroundReadWriteStructureResource().getStructureVersion(partId,
-                    structureVersionAttribs);
-            String reference = part.getSd().getLocation();
-            HashMap<String, Tag> tags = new HashMap<>();
-            tags.put(partId, partTag);
-
-            long versionId = sv.getId();
-            Map<String, String> parameters = part.getParameters();
-            return groundReadWrite.getGroundReadWriteNodeResource().createNodeVersion(1L, tags, versionId, reference,
-                    parameters, partId);
-        } catch (GroundException e) {
-            throw new MetaException("Unable to create partition " + e.getMessage());
+            if (ids.size() < SEARCH_PAGE_SIZE) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
         }
+        List<NodeVersion> versions = new ArrayList<>(latest.values());
+        LOG.debug("Found {} partitions", versions.size());
+        return max < 0 || versions.size() <= max ? versions : versions.subList(0, max);
     }
 }
@@ -17,41 +17,52 @@
  */
 package edu.berkeley.ground.plugins.hive;
 
-import java.io.IOException;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.util.HttpURLConnection;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.plugins.hive.util.PluginUtil;
 
 public class GroundReadWrite {
 
     public static final String NO_CACHE_CONF = "no_cache_conf";
+
+    // shared by every store in the metastore, since Hive opens one per thread
+    private static final GroundMetadataCache SHARED_CACHE = GroundMetadataCache.fromProperties();
+
     private GroundReadWriteNodeResource groundReadWriteNodeResource;
     private GroundReadWriteStructureResource groundReadWriteStructureResource;
     private GroundReadWriteEdgeResource groundReadWriteEdgeResource;
+    private GroundReadWriteBulkResource groundReadWriteBulkResource;
+
+    // "http" to call a Ground server, "embedded" to run Ground in the metastore against its database
+    public static final String MODE_PROPERTY = "edu.berkeley.ground.mode";
+    public static final String EMBEDDED_MODE = "embedded";
 
     public GroundReadWrite() throws GroundException {
-        // initialize all ground related resources
-        setGroundReadWriteNodeResource(new GroundReadWriteNodeResource());
-        setGroundReadWriteEdgeResource(new GroundReadWriteEdgeResource());
-        setGroundReadWriteStructureResource(new GroundReadWriteStructureResource());
+        this(PluginUtil.getProperty(MODE_PROPERTY, "http"));
     }
 
-    String checkStatus(HttpMethod method) throws GroundException {
-        try {
-            if (PluginUtil.client.executeMethod(method) == HttpURLConnection.HTTP_OK) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                String text = method.getResponseBodyAsString();
-                JsonNode jsonNode = objectMapper.readValue(text, JsonNode.class);
-                JsonNode nodeId = jsonNode.get("id");
-                return nodeId.asText();
-            }
-        } catch (IOException e) {
-            throw new GroundException(e);
+    public GroundReadWrite(String mode) throws GroundException {
+        // initialize all ground related resources
+        if (EMBEDDED_MODE.equals(mode)) {
+            EmbeddedGround embeddedGround = EmbeddedGround.get();
+            setGroundReadWriteNodeResource(new EmbeddedNodeResource(SHARED_CACHE, embeddedGround));
+            setGroundReadWriteEdgeResource(new EmbeddedEdgeResource(SHARED_CACHE, embeddedGround));
+            setGroundReadWriteStructureResource(new EmbeddedStructureResource(embeddedGround));
+            setGroundReadWriteBulkResource(new EmbeddedBulkResource(SHARED_CACHE, embeddedGround));
+        } else {
+            setGroundReadWriteNodeResource(new GroundReadWriteNodeResource(SHARED_CACHE));
+            setGroundReadWriteEdgeResource(new GroundReadWriteEdgeResource(SHARED_CACHE));
+            setGroundReadWriteStructureResource(new GroundReadWriteStructureResource());
+            setGroundReadWriteBulkResource(new GroundReadWriteBulkResource(SHARED_CACHE));
         }
-        return null;
+    }
+
+    // stop reading from the cache in this instance; its writes still invalidate what the other stores
+    // cached. See NO_CACHE_CONF.
+    void disableCache() {
+        GroundMetadataCache cache = SHARED_CACHE.withoutReads();
+        this.groundReadWriteNodeResource.setCache(cache);
+        this.groundReadWriteEdgeResource.setCache(cache);
+        this.groundReadWriteBulkResource.setCache(cache);
     }
 
     public GroundReadWriteNodeResource getGroundReadWriteNodeResource() {
@@ -77,4 +88,12 @@ public class GroundReadWrite {
     public GroundReadWriteEdgeResource getGroundReadWriteEdgeResource() {
         return this.groundReadWriteEdgeResource;
     }
+
+    public GroundReadWriteBulkResource getGroundReadWriteBulkResource() {
+        return this.groundReadWriteBulkResource;
+    }
+
+    public void setGroundReadWriteBulkResource(GroundReadWriteBulkResource groundReadWriteBulkResource) {
+        this.groundReadWriteBulkResource = groundReadWriteBulkResource;
+    }
 }
@@ -0,0 +1,62 @@
+package edu.berkeley.ground.plugins.hive;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.google.gson.stream.JsonReader;
+
+import edu.berkeley.ground.api.models.BulkIngestResult;
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.plugins.hive.util.PluginUtil;
+
+public class GroundReadWriteBulkResource {
+
+    private GroundMetadataCache cache;
+
+    GroundReadWriteBulkResource(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
+    void setCache(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
+    // load records in one transaction: either all of them are created or none is. A load that fails
+    // on this side, such as with a timeout, may still have committed, so the cache is invalidated
+    // either way.
+    public BulkIngestResult ingest(List<BulkRecord> records) throws GroundException {
+        try {
+            return this.load(records);
+        } finally {
+            for (BulkRecord record : records) {
+                if (BulkRecord.NODE_VERSION.equals(record.getType())) {
+                    this.cache.invalidateLatestVersions(record.getNode());
+                } else if (BulkRecord.EDGE_VERSION.equals(record.getType())) {
+                    this.cache.invalidateReachableNodes();
+                }
+            }
+        }
+    }
+
+    BulkIngestResult load(List<BulkRecord> records) throws GroundException {
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            StringBuilder stream = new StringBuilder();
+            for (BulkRecord record : records) {
+                stream.append(mapper.writeValueAsString(record)).append('\n');
+            }
+            String response = PluginUtil.post(PluginUtil.groundServerAddress + "bulk?atomic=true", stream.toString());
+            if (response == null) {
+                throw new GroundException("Unable to load " + records.size() + " records.");
+            }
+            JsonReader reader = new JsonReader(new StringReader(response));
+            return PluginUtil.fromJson(reader, BulkIngestResult.class);
+        } catch (IOException e) {
+            throw new GroundException(e);
+        }
+    }
+}
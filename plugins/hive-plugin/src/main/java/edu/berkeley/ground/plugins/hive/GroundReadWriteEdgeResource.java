@@ -5,14 +5,6 @@ import java.io.StringReader;
 import java.net.URLEncoder;
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpException;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.methods.PostMethod;
-import org.apache.commons.httpclient.methods.StringRequestEntity;
-import org.apache.commons.httpclient.util.HttpURLConnection;
-import org.codehaus.jackson.JsonParseException;
-import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import com.google.gson.stream.JsonReader;
@@ -25,29 +17,52 @@ import edu.berkeley.ground.plugins.hive.util.PluginUtil;
 
 public class GroundReadWriteEdgeResource {
 
+    private GroundMetadataCache cache;
+
+    GroundReadWriteEdgeResource(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
+    void setCache(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
     public Edge getEdge(String edgeName) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "edges/" + edgeName);
-        return getEdge(get);
+        try {
+            String response = PluginUtil.get(PluginUtil.groundServerAddress + "edges/" + edgeName);
+            if (response != null) {
+                return constructEdge(response);
+            }
+        } catch (IOException e) {
+            throw new GroundException(e);
+        }
+        return null;
     }
 
     public EdgeVersion getEdgeVersion(long edgeId) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "edges/versions" + edgeId);
         try {
-            return getEdgeVersion(get);
+            return constructEdgeVersion(PluginUtil.get(PluginUtil.groundServerAddress + "edges/versions" + edgeId));
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
-    // create edge for input Tag
+    // the same edge links every version of a database to its tables, so reuse it if it exists
     public Edge createEdge(String name, Map<String, Tag> tagMap) throws GroundException {
+        Edge edge = this.getEdge(name);
+        if (edge != null) {
+            return edge;
+        }
+        return this.insertEdge(name, tagMap);
+    }
+
+    // create edge for input Tag
+    Edge insertEdge(String name, Map<String, Tag> tagMap) throws GroundException {
         try {
             String encodedUri = PluginUtil.groundServerAddress + "edges/" + URLEncoder.encode(name, "UTF-8");
-            PostMethod post = new PostMethod(encodedUri);
             ObjectMapper objectMapper = new ObjectMapper();
             String jsonString = objectMapper.writeValueAsString(tagMap);
-            post.setRequestEntity(PluginUtil.createRequestEntity(jsonString));
-            String response = PluginUtil.execute(post);
+            String response = PluginUtil.post(encodedUri, jsonString);
             return this.constructEdge(response);
         } catch (IOException e) {
             throw new GroundException(e);
@@ -57,43 +72,29 @@ public class GroundReadWriteEdgeResource {
     // method to create the edgeVersion given the nodeId and the tags
     public EdgeVersion createEdgeVersion(long id, Map<String, Tag> tags, long structureVersionId, String reference,
             Map<String, String> referenceParameters, long edgeId, long fromId, long toId) throws GroundException {
+        EdgeVersion edgeVersion = this.insertEdgeVersion(new EdgeVersion(id, tags, structureVersionId, reference,
+                referenceParameters, edgeId, fromId, toId));
+        this.cache.invalidateReachableNodes();
+        return edgeVersion;
+    }
+
+    EdgeVersion insertEdgeVersion(EdgeVersion edgeVersion) throws GroundException {
         try {
-            EdgeVersion edgeVersion = new EdgeVersion(id, tags, structureVersionId, reference, referenceParameters,
-                    edgeId, fromId, toId);
             ObjectMapper mapper = new ObjectMapper();
             String jsonRecord = mapper.writeValueAsString(edgeVersion);
             String uri = PluginUtil.groundServerAddress + "edges/versions";
-            PostMethod post = new PostMethod(uri);
-            StringRequestEntity requestEntity = PluginUtil.createRequestEntity(jsonRecord);
-            post.setRequestEntity(requestEntity);
-            return getEdgeVersion(post);
+            return constructEdgeVersion(PluginUtil.post(uri, jsonRecord));
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
-    private Edge getEdge(HttpMethod method) throws GroundException {
-        try {
-            if (PluginUtil.client.executeMethod(method) == HttpURLConnection.HTTP_OK) {
-                // getting the nodeId of the node created
-                String response = method.getResponseBodyAsString();
-                return constructEdge(response);
-            }
-        } catch (IOException e) {
-            throw new GroundException(e);
+    private EdgeVersion constructEdgeVersion(String response) {
+        if (response == null) {
+            return null;
         }
-        return null;
-    }
-
-    private EdgeVersion getEdgeVersion(HttpMethod method)
-            throws JsonParseException, JsonMappingException, HttpException, IOException {
-        if (PluginUtil.client.executeMethod(method) == HttpURLConnection.HTTP_OK) {
-            //create edge version from response of POST request
-            String response = method.getResponseBodyAsString();
-            JsonReader reader = new JsonReader(new StringReader(response));
-            return PluginUtil.fromJson(reader, EdgeVersion.class);
-        }
-        return null;
+        JsonReader reader = new JsonReader(new StringReader(response));
+        return PluginUtil.fromJson(reader, EdgeVersion.class);
     }
 
     private Edge constructEdge(String response) throws GroundException {
@@ -3,57 +3,120 @@ package edu.berkeley.ground.plugins.hive;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import edu.berkeley.ground.api.models.Node;
 import edu.berkeley.ground.api.models.NodeVersion;
 import edu.berkeley.ground.api.models.Tag;
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.api.models.TagSearchResult;
 import edu.berkeley.ground.exceptions.GroundException;
 import edu.berkeley.ground.plugins.hive.util.PluginUtil;
 
 import com.google.gson.stream.JsonReader;
 
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.methods.PostMethod;
 import org.codehaus.jackson.map.ObjectMapper;
 
 public class GroundReadWriteNodeResource {
 
+    private GroundMetadataCache cache;
+
+    GroundReadWriteNodeResource(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
+    void setCache(GroundMetadataCache cache) {
+        this.cache = cache;
+    }
+
     // method to create the NodeVersion given the nodeId and the tags
     public NodeVersion createNodeVersion(long id, Map<String, Tag> tags, long structureVersionId, String reference,
             Map<String, String> referenceParameters, String name) throws GroundException {
+        Node node = this.createNode(name, tags);
+        NodeVersion nodeVersion = this.insertNodeVersion(new NodeVersion(id, tags, structureVersionId, reference,
+                referenceParameters, node.getId()));
+        this.cache.invalidateLatestVersions(name);
+        return nodeVersion;
+    }
+
+    NodeVersion insertNodeVersion(NodeVersion nodeVersion) throws GroundException {
         try {
-            Node node = this.createNode(name, tags);
-            NodeVersion nodeVersion = new NodeVersion(id, tags, structureVersionId, reference, referenceParameters,
-                    node.getId());
             ObjectMapper mapper = new ObjectMapper();
             String jsonString = mapper.writeValueAsString(nodeVersion);
-            String uri = PluginUtil.groundServerAddress + "nodes/versions";
-            PostMethod post = new PostMethod(uri);
-            post.setRequestEntity(PluginUtil.createRequestEntity(jsonString));
-            String response = PluginUtil.execute(post);
+            String response = PluginUtil.post(PluginUtil.groundServerAddress + "nodes/versions", jsonString);
             return constructNodeVersion(response);
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
+    // the ids of the latest versions of a node
+    public List<Long> getLatestVersions(String name) throws GroundException {
+        return this.cache.getLatestVersions(name, this::retrieveLatestVersions);
+    }
+
+    List<Long> retrieveLatestVersions(String name) throws GroundException {
+        return PluginUtil.getLatestVersions(name, "nodes");
+    }
+
     public NodeVersion getNodeVersion(long nodeVersionId) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "nodes/versions/" + nodeVersionId);
+        return this.cache.getNodeVersion(nodeVersionId, this::retrieveNodeVersion);
+    }
+
+    NodeVersion retrieveNodeVersion(long nodeVersionId) throws GroundException {
         try {
-            String response = PluginUtil.execute(get);
+            String response = PluginUtil.get(PluginUtil.groundServerAddress + "nodes/versions/" + nodeVersionId);
             return this.constructNodeVersion(response);
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
+    // retrieve many node versions with a single request; they come back in the order of the ids
+    public List<NodeVersion> getNodeVersions(List<Long> nodeVersionIds) throws GroundException {
+        if (nodeVersionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return this.cache.getNodeVersions(nodeVersionIds, this::retrieveNodeVersions);
+    }
+
+    List<NodeVersion> retrieveNodeVersions(List<Long> nodeVersionIds) throws GroundException {
+        try {
+            String jsonString = new ObjectMapper().writeValueAsString(nodeVersionIds);
+            String response = PluginUtil.post(PluginUtil.groundServerAddress + "nodes/versions/batch", jsonString);
+            if (response == null) {
+                throw new GroundException("Unable to retrieve node versions " + nodeVersionIds + ".");
+            }
+            JsonReader reader = new JsonReader(new StringReader(response));
+            return Arrays.asList(PluginUtil.fromJson(reader, NodeVersion[].class));
+        } catch (IOException e) {
+            throw new GroundException(e);
+        }
+    }
+
+    // the ids of the versions whose tags match filter, in ascending order, after afterId; not cached,
+    // since new versions can match at any time
+    public List<Long> searchVersions(TagFilter filter, long afterId, int limit) throws GroundException {
+        try {
+            String jsonString = new ObjectMapper().writeValueAsString(filter);
+            String response = PluginUtil.post(PluginUtil.groundServerAddress + "search/versions?after=" + afterId
+                    + "&limit=" + limit, jsonString);
+            if (response == null) {
+                throw new GroundException("Unable to search for versions with tags of " + filter.getKey() + ".");
+            }
+            JsonReader reader = new JsonReader(new StringReader(response));
+            return PluginUtil.fromJson(reader, TagSearchResult.class).getIds();
+        } catch (IOException e) {
+            throw new GroundException(e);
+        }
+    }
+
     Node getNode(String dbName) throws GroundException {
-        HttpMethod get = new GetMethod(PluginUtil.groundServerAddress + "nodes/" + dbName);
         try {
-            String response = PluginUtil.execute(get);
+            String response = PluginUtil.get(PluginUtil.groundServerAddress + "nodes/" + dbName);
             if (response != null) {
                 return this.constructNode(response);
             }
@@ -64,32 +127,48 @@ public class GroundReadWriteNodeResource {
     }
 
     public List<Long> getTransitiveClosure(Long nodeVersionId) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "nodes/closure/" + nodeVersionId);
+        return this.cache.getReachableNodes("closure", nodeVersionId, "",
+                key -> this.retrieveTransitiveClosure(nodeVersionId));
+    }
+
+    List<Long> retrieveTransitiveClosure(long nodeVersionId) throws GroundException {
         try {
-            return (List<Long>) PluginUtil.getVersionList(get);
+            return PluginUtil.getVersionList(PluginUtil.groundServerAddress + "nodes/closure/" + nodeVersionId);
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
     public List<Long> getAdjacentNodes(Long prevVersionId, String edgeName) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "adjacent/" + prevVersionId + "/" + edgeName);
+        return this.cache.getReachableNodes("adjacent", prevVersionId, edgeName,
+                key -> this.retrieveAdjacentNodes(prevVersionId, edgeName));
+    }
+
+    List<Long> retrieveAdjacentNodes(long prevVersionId, String edgeName) throws GroundException {
         try {
-            return (List<Long>) PluginUtil.getVersionList(get);
+            return PluginUtil.getVersionList(PluginUtil.groundServerAddress + "nodes/adjacent/" + prevVersionId + "/"
+                    + URLEncoder.encode(edgeName, "UTF-8"));
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
-    // create a node using Tag
+    // every version of a table or database is a version of the same node, so reuse it if it exists
     Node createNode(String name, Map<String, Tag> tagMap) throws GroundException {
+        Node node = this.getNode(name);
+        if (node != null) {
+            return node;
+        }
+        return this.insertNode(name, tagMap);
+    }
+
+    // create a node using Tag
+    Node insertNode(String name, Map<String, Tag> tagMap) throws GroundException {
         try {
             String encodedUri = PluginUtil.groundServerAddress + "nodes/" + URLEncoder.encode(name, "UTF-8");
-            PostMethod post = new PostMethod(encodedUri);
             ObjectMapper mapper = new ObjectMapper();
             String jsonString = mapper.writeValueAsString(tagMap);
-            post.setRequestEntity(PluginUtil.createRequestEntity(jsonString));
-            String response = PluginUtil.execute(post);
+            String response = PluginUtil.post(encodedUri, jsonString);
             return this.constructNode(response);
         } catch (IOException e) {
             throw new GroundException(e);
@@ -7,9 +7,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.methods.PostMethod;
-import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,21 +29,22 @@ public class GroundReadWriteStructureResource {
     Structure createStructure(String name) throws GroundException {
         try {
             String encodedUri = PluginUtil.groundServerAddress + "structures/" + URLEncoder.encode(name, "UTF-8");
-            PostMethod post = new PostMethod(encodedUri);
             ObjectMapper mapper = new ObjectMapper();
-            Tag tag = new Tag(-1L, name, "active", GroundType.STRING);
-            Map<String, Tag> tags = new HashMap<>();
-            tags.put(name, tag);
-            String jsonRecord = mapper.writeValueAsString(tags);
-            StringRequestEntity requestEntity = PluginUtil.createRequestEntity(jsonRecord);
-            post.setRequestEntity(requestEntity);
-            String response = PluginUtil.execute(post);
+            String jsonRecord = mapper.writeValueAsString(activeTags(name));
+            String response = PluginUtil.post(encodedUri, jsonRecord);
             return constructStructure(response);
         } catch (IOException ioe) {
             throw new GroundException(ioe);
         }
     }
 
+    // the tags a structure is created with
+    static Map<String, Tag> activeTags(String name) {
+        Map<String, Tag> tags = new HashMap<>();
+        tags.put(name, new Tag(-1L, name, "active", GroundType.STRING));
+        return tags;
+    }
+
     // method to create StructureVersion given the nodeId and the tags
     StructureVersion createStructureVersion(long id, long structureId, Map<String, GroundType> attributes)
             throws GroundException {
@@ -55,9 +53,7 @@ public class GroundReadWriteStructureResource {
             ObjectMapper mapper = new ObjectMapper();
             String jsonString = mapper.writeValueAsString(structureVersion);
             String uri = PluginUtil.groundServerAddress + "structures/versions";
-            PostMethod post = new PostMethod(uri);
-            post.setRequestEntity(PluginUtil.createRequestEntity(jsonString));
-            String response = PluginUtil.execute(post);
+            String response = PluginUtil.post(uri, jsonString);
             return constructStructureVersion(response);
         } catch (IOException e) {
             throw new GroundException(e);
@@ -72,9 +68,8 @@ public class GroundReadWriteStructureResource {
     }
 
     Structure getStructure(String name) throws GroundException {
-        GetMethod get = new GetMethod(PluginUtil.groundServerAddress + "structures/" + name);
         try {
-            String response = PluginUtil.execute(get);
+            String response = PluginUtil.get(PluginUtil.groundServerAddress + "structures/" + name);
             if (response != null) {
                 return constructStructure(response);
             }
@@ -87,7 +82,7 @@ public class GroundReadWriteStructureResource {
     // this is the only public API needed for creating and accessing
     // StructureVersion
     public StructureVersion getStructureVersion(String name, Map<String, GroundType> attribs) throws GroundException {
-        List<Long> versions = (List<Long>) PluginUtil.getLatestVersions(name, "structures");
+        List<Long> versions = this.retrieveLatestVersions(name);
         if (versions != null && !versions.isEmpty()) {
             logger.info("getting versions: {}, {}", versions.size(), versions.get(0));
             return new StructureVersion(versions.get(0), getStructure(name).getId(), attribs);
@@ -96,6 +91,10 @@ public class GroundReadWriteStructureResource {
         }
     }
 
+    List<Long> retrieveLatestVersions(String name) throws GroundException {
+        return PluginUtil.getLatestVersions(name, "structures");
+    }
+
     private Structure constructStructure(String response) throws IOException {
         JsonReader reader = new JsonReader(new StringReader(response));
         return PluginUtil.fromJson(reader, Structure.class);
@@ -21,11 +21,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.PartFilterExprUtil;
+import org.apache.hadoop.hive.metastore.PartitionExpressionProxy;
 import org.apache.hadoop.hive.metastore.api.*;
+import org.apache.hadoop.hive.metastore.partition.spec.PartitionSpecProxy;
+import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.plugins.hive.util.PluginUtil;
 
 /** RawStore Implementation using Ground APIs. */
 public class GroundStore extends GroundStoreBase {
@@ -38,7 +43,10 @@ public class GroundStore extends GroundStoreBase {
     private GroundDatabase groundDatabase;
     private GroundTable groundTable;
     private Configuration conf;
+    private PartitionExpressionProxy expressionProxy;
     private int txnNestLevel;
+    // whether this store has released its hold on the shared transport
+    private boolean isShutdown;
 
     public static enum EntityState {
         ACTIVE, DELETED
@@ -49,6 +57,7 @@ public class GroundStore extends GroundStoreBase {
         groundDatabase = new GroundDatabase(ground);
         groundTable = new GroundTable(ground);
         new GroundPartition(ground);
+        PluginUtil.acquireTransport();
     }
 
     private GroundReadWrite getGround() throws GroundException {
@@ -66,12 +75,20 @@ public class GroundStore extends GroundStoreBase {
     @Override
     public void setConf(Configuration configuration) {
         conf = configuration;
+        expressionProxy = PartFilterExprUtil.createExpressionProxy(conf);
+        if (conf.getBoolean(GroundReadWrite.NO_CACHE_CONF, false)) {
+            ground.disableCache();
+        }
     }
 
     @Override
     public void shutdown() {
         if (txnNestLevel != 0)
             rollbackTransaction();
+        if (!isShutdown) {
+            isShutdown = true;
+            PluginUtil.releaseTransport();
+        }
     }
 
     @Override
@@ -257,20 +274,43 @@ public class GroundStore extends GroundStoreBase {
         }
     }
 
+    @Override
+    public boolean addPartitions(String dbName, String tblName, PartitionSpecProxy partitionSpec, boolean ifNotExists)
+            throws InvalidObjectException, MetaException {
+        List<Partition> parts = new ArrayList<Partition>();
+        PartitionSpecProxy.PartitionIterator iterator = partitionSpec.getPartitionIterator();
+        while (iterator.hasNext()) {
+            parts.add(iterator.next());
+        }
+        try {
+            return this.groundTable.addPartitions(dbName, tblName, parts, ifNotExists);
+        } catch (InvalidObjectException | MetaException ex) {
+            LOG.error("Unable to add partitions to table {} database {} with error: {}", tblName, dbName,
+                    ex.getMessage());
+            throw ex;
+        }
+    }
+
     @Override
     public List<Partition> getPartitionsByNames(String dbName, String tableName, List<String> part_vals)
             throws MetaException, NoSuchObjectException {
         return this.groundTable.getPartitions(dbName, tableName, part_vals);
     }
 
+    @Override
+    public Partition getPartition(String dbName, String tableName, List<String> part_vals)
+            throws MetaException, NoSuchObjectException {
+        return this.groundTable.getPartition(dbName, tableName, part_vals);
+    }
+
     @Override
     public boolean doesPartitionExist(String dbName, String tableName, List<String> part_vals)
             throws MetaException, NoSuchObjectException {
         try {
-            List<Partition> partition = this.groundTable.getPartitions(dbName, tableName, part_vals);
-            return (partition != null);
-        } catch (MetaException | NoSuchObjectException ex) {
-            throw ex;
+            this.groundTable.getPartition(dbName, tableName, part_vals);
+            return true;
+        } catch (NoSuchObjectException ex) {
+            return false;
         }
     }
 
@@ -291,6 +331,40 @@ public class GroundStore extends GroundStoreBase {
         }
     }
 
+    @Override
+    public List<Partition> getPartitionsByFilter(String dbName, String tblName, String filter, short maxParts)
+            throws MetaException, NoSuchObjectException {
+        return this.groundTable.getPartitionsByFilter(dbName, tblName, filter, maxParts);
+    }
+
+    @Override
+    public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr, String defaultPartitionName,
+            short maxParts, List<Partition> result) throws TException {
+        return this.groundTable.getPartitionsByExpr(dbName, tblName, expr, defaultPartitionName, maxParts, result,
+                expressionProxy);
+    }
+
+    @Override
+    public int getNumPartitionsByFilter(String dbName, String tblName, String filter)
+            throws MetaException, NoSuchObjectException {
+        return this.groundTable.getNumPartitionsByFilter(dbName, tblName, filter);
+    }
+
+    @Override
+    public List<String> listPartitionNames(String db_name, String tbl_name, short max_parts) throws MetaException {
+        return this.listPartitionNamesByFilter(db_name, tbl_name, null, max_parts);
+    }
+
+    @Override
+    public List<String> listPartitionNamesByFilter(String db_name, String tbl_name, String filter, short max_parts)
+            throws MetaException {
+        try {
+            return this.groundTable.listPartitionNamesByFilter(db_name, tbl_name, filter, max_parts);
+        } catch (NoSuchObjectException ex) {
+            throw new MetaException(ex.getMessage());
+        }
+    }
+
     @Override
     public void alterTable(String dbName, String tableName, Table newTable)
             throws InvalidObjectException, MetaException {
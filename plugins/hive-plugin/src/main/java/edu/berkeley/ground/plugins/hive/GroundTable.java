@@ -17,20 +17,32 @@
  */
 package edu.berkeley.ground.plugins.hive;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.hadoop.hive.metastore.PartFilterExprUtil;
+import org.apache.hadoop.hive.metastore.PartitionExpressionProxy;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.InvalidInputException;
 import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
 import org.apache.hadoop.hive.metastore.api.MetaException;
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.berkeley.ground.api.models.BulkRecord;
 import edu.berkeley.ground.api.models.Edge;
 import edu.berkeley.ground.api.models.Node;
 import edu.berkeley.ground.api.models.NodeVersion;
@@ -80,7 +92,8 @@ public class GroundTable {
         }
         try {
             String tableName = table.getTableName();
-            List<Long> tableNodeVersionList = PluginUtil.getLatestVersions(tableName, "nodes");
+            List<Long> tableNodeVersionList =
+                    groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(tableName);
             if (tableNodeVersionList != null) {
                 LOG.info("table node exists: {}", tableName);
                 return groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(tableNodeVersionList.get(0));
@@ -98,7 +111,7 @@ public class GroundTable {
             }
             Map<String, String> parameters = tableParamMap;
             List<Long> parent = new ArrayList<Long>();
-            List<Long> versions = PluginUtil.getLatestVersions(tableName, "nodes");
+            List<Long> versions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(tableName);
             if (!versions.isEmpty()) {
                 parent.add(versions.get(0));
             }
@@ -107,8 +120,8 @@ public class GroundTable {
             // create an edge from database node to tableNode
             Edge edge = groundReadWrite.getGroundReadWriteEdgeResource()
                     .createEdge(table.getDbName() + "-" + table.getTableName(), tags);
-            NodeVersion dbNodeVersion = groundReadWrite.getGroundReadWriteNodeResource()
-                    .getNodeVersion(PluginUtil.getLatestVersions(table.getDbName(), "nodes").get(0));
+            NodeVersion dbNodeVersion = groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(
+                    groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(table.getDbName()).get(0));
             groundReadWrite.getGroundReadWriteEdgeResource().createEdgeVersion(edge.getId(), tags, sv.getId(),
                     reference, parameters, edge.getId(), dbNodeVersion.getId(), tableNodeVersion.getId());
             return tableNodeVersion;
@@ -119,14 +132,23 @@ public class GroundTable {
     }
 
     Table getTable(String dbName, String tableName) throws MetaException {
+        NodeVersion tableVersion = this.getTableVersion(dbName, tableName);
+        if (tableVersion == null) {
+            return null;
+        }
+        return PluginUtil.fromJson((String) tableVersion.getTags().get(tableName).getValue(), Table.class);
+    }
+
+    // the latest version of a table, or null if the database does not link to it
+    private NodeVersion getTableVersion(String dbName, String tableName) throws MetaException {
         try {
-            List<Long> dbVersions = PluginUtil.getLatestVersions(dbName, "nodes");
+            List<Long> dbVersions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(dbName);
             if (dbVersions.isEmpty()) {
                 throw new MetaException("Database node not found: " + dbName);
             }
             List<Long> adjacentNodeIds = groundReadWrite.getGroundReadWriteNodeResource()
                     .getAdjacentNodes(dbVersions.get(0), dbName + "-" + tableName);
-            List<Long> versions = PluginUtil.getLatestVersions(tableName, "nodes");
+            List<Long> versions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(tableName);
             if (versions.isEmpty()) {
                 throw new MetaException("Table node not found: " + tableName);
             }
@@ -134,8 +156,7 @@ public class GroundTable {
                     .getNodeVersion(versions.get(0));
             for (long adjacentNodeId : adjacentNodeIds) {
                 if (adjacentNodeId == latestVersion.getId()) {
-                    Map<String, Tag> dbTag = latestVersion.getTags();
-                    return PluginUtil.fromJson((String) dbTag.get(tableName).getValue(), Table.class);
+                    return latestVersion;
                 }
             }
         } catch (GroundException ex) {
@@ -147,14 +168,13 @@ public class GroundTable {
     List<String> getTables(String dbName, String pattern) throws MetaException {
         List<String> tables = new ArrayList<String>();
         try {
-            List<Long> versions = PluginUtil.getLatestVersions(dbName, "nodes");
+            List<Long> versions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(dbName);
             if (!versions.isEmpty()) {
                 Long dbVersionId = versions.get(0);
                 List<Long> tableNodeIds = groundReadWrite.getGroundReadWriteNodeResource().getAdjacentNodes(dbVersionId,
                         pattern);
-                for (Long tableNodeId : tableNodeIds) {
-                    NodeVersion tableNodeVersion = groundReadWrite.getGroundReadWriteNodeResource()
-                            .getNodeVersion(tableNodeId);
+                for (NodeVersion tableNodeVersion : groundReadWrite.getGroundReadWriteNodeResource()
+                        .getNodeVersions(tableNodeIds)) {
                     tables.add(tableNodeVersion.getTags().keySet().iterator().next());
                 }
             }
@@ -167,21 +187,41 @@ public class GroundTable {
 
     boolean addPartitions(String dbName, String tableName, List<Partition> parts)
             throws InvalidObjectException, MetaException {
+        return this.addPartitions(dbName, tableName, parts, false);
+    }
+
+    /**
+     * Add partitions to the latest version of a table in one transaction, with a single bulk load
+     * of a node version per partition, a node for each new partition, and an edge version from the
+     * table to each partition version.
+     *
+     * @param ifNotExists whether to skip the partitions that exist, rather than fail
+     */
+    boolean addPartitions(String dbName, String tableName, List<Partition> parts, boolean ifNotExists)
+            throws InvalidObjectException, MetaException {
         try {
-            Table sourceTable = this.getTable(dbName, tableName);
-            NodeVersion tableNodeVersion = createTableNodeVersion(sourceTable);
-            long tableNodeVersionId = tableNodeVersion.getId();
-            for (Partition part : parts) {
-                StringBuilder sb = new StringBuilder();
-                NodeVersion nv = groundPartition.createPartition(dbName, tableName, part);
-                Edge edge = groundReadWrite.getGroundReadWriteEdgeResource().createEdge(
-                        sb.append(dbName).append("-").append(tableName).append("-").append(part).toString(),
-                        nv.getTags());
-                StructureVersion structureVersion =
-                        groundReadWrite.getGroundReadWriteStructureResource().getStructureVersion(EDGE, EntityState.ACTIVE.name());
-                groundReadWrite.getGroundReadWriteEdgeResource().createEdgeVersion(edge.getId(), nv.getTags(),
-                        structureVersion.getId(), tableNodeVersion.getReference(), tableNodeVersion.getParameters(),
-                        edge.getId(), tableNodeVersionId, nv.getId());
+            NodeVersion tableVersion = this.getTableVersion(dbName, tableName);
+            if (tableVersion == null) {
+                throw new InvalidObjectException("Unable to find table " + tableName + " in database " + dbName);
+            }
+            List<BulkRecord> records = this.planPartitions(dbName, tableName, tableVersion, parts, ifNotExists);
+            try {
+                this.loadPartitions(records);
+            } catch (GroundException ex) {
+                // A lost connection or a timeout may have come after the load committed, so it is not
+                // safe to load again.
+                if (ex.getCause() instanceof IOException) {
+                    throw ex;
+                }
+                // A concurrent add can create the edge or a partition node between the lookups and the
+                // load, which then fails as a whole. Only then does planning again change what to create.
+                List<BulkRecord> retry = this.planPartitions(dbName, tableName, tableVersion, parts, ifNotExists);
+                if (createdNames(retry).equals(createdNames(records))) {
+                    throw ex;
+                }
+                LOG.info("Adding partitions to table {} conflicted with another add, retrying: {}", tableName,
+                        ex.getMessage());
+                this.loadPartitions(retry);
             }
             return true;
         } catch (InvalidObjectException | MetaException ex) {
@@ -193,29 +233,127 @@ public class GroundTable {
         }
     }
 
-    Partition getPartition(String dbName, String tableName, String partName)
-            throws MetaException, NoSuchObjectException {
-        try {
-            List<Long> versions = PluginUtil.getLatestVersions(tableName, "nodes");
-            if (!versions.isEmpty() && versions.size() > 0) {
-                Long tableNodeVersionId = versions.get(0); // table version
-                List<Long> tableClosure =
-                        groundReadWrite.getGroundReadWriteNodeResource().getTransitiveClosure(tableNodeVersionId);
-                long partitionVersionId = PluginUtil.getLatestVersions(partName, "nodes").get(0);
-                for (Long closureId : tableClosure) {
-                    Long version = groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(closureId).getId();
-                    NodeVersion nv = groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(version);
-                    if (nv.getNodeId() == partitionVersionId) {
-                        return PluginUtil.fromJson((String) nv.getTags().get(partName).getValue(), Partition.class);
-                    }
+    // The records that add parts, planned against what is in Ground now. The partitions of the table
+    // version are read past the cache, since a partition that another metastore added within the TTL
+    // must not be added again.
+    private List<BulkRecord> planPartitions(String dbName, String tableName, NodeVersion tableVersion,
+            List<Partition> parts, boolean ifNotExists) throws GroundException, InvalidObjectException, MetaException {
+        Table table = PluginUtil.fromJson((String) tableVersion.getTags().get(tableName).getValue(), Table.class);
+        List<String> names = new ArrayList<>();
+        for (Partition part : parts) {
+            names.add(Warehouse.makePartName(table.getPartitionKeys(), part.getValues()));
+        }
+        // the latest version of every partition node with one of the names, found with one search
+        // per thousand, whether or not it belongs to this version of the table
+        Map<String, NodeVersion> latestVersions = new HashMap<>();
+        if (!names.isEmpty()) {
+            for (NodeVersion nodeVersion : groundPartition.getPartitionVersions(
+                    GroundPartition.byNames(dbName, tableName, names), null, -1)) {
+                latestVersions.put(groundPartition.toPartitionName(dbName, tableName, nodeVersion), nodeVersion);
+            }
+        }
+
+        String edgeName = partitionEdgeName(dbName, tableName);
+        Set<Long> scope = new HashSet<>(groundReadWrite.getGroundReadWriteNodeResource()
+                .retrieveAdjacentNodes(tableVersion.getId(), edgeName));
+        List<BulkRecord> records = partitionRecords(table, tableVersion.getId(), parts, names, latestVersions, scope,
+                ifNotExists, groundPartition.getPartitionStructureVersion().getId(),
+                groundReadWrite.getGroundReadWriteStructureResource()
+                        .getStructureVersion(EDGE, EntityState.ACTIVE.name()).getId());
+        if (!records.isEmpty() && groundReadWrite.getGroundReadWriteEdgeResource().getEdge(edgeName) == null) {
+            records.add(0, new BulkRecord(BulkRecord.EDGE, null, edgeName, null, null, null, null, null, null,
+                    null, null, null));
+        }
+        return records;
+    }
+
+    private void loadPartitions(List<BulkRecord> records) throws GroundException {
+        if (!records.isEmpty()) {
+            groundReadWrite.getGroundReadWriteBulkResource().ingest(records);
+        }
+    }
+
+    // the names of the nodes and edges that records create
+    static Set<String> createdNames(List<BulkRecord> records) {
+        Set<String> names = new HashSet<>();
+        for (BulkRecord record : records) {
+            if (BulkRecord.NODE.equals(record.getType()) || BulkRecord.EDGE.equals(record.getType())) {
+                names.add(record.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The bulk records that add parts to a version of a table: a node version of each partition,
+     * following its latest version, and an edge version from the table to it. A partition whose
+     * node does not exist gets one; a partition of another version of the table, such as one that
+     * was dropped and created again, only gets a new version.
+     *
+     * @param names the name of each partition in parts
+     * @param latestVersions the latest version of each partition node, by name
+     * @param scope the partition versions of the table version
+     * @param ifNotExists whether to skip the partitions of the table version, rather than fail
+     */
+    static List<BulkRecord> partitionRecords(Table table, long tableVersionId, List<Partition> parts,
+            List<String> names, Map<String, NodeVersion> latestVersions, Set<Long> scope, boolean ifNotExists,
+            long partitionStructureVersionId, long edgeStructureVersionId)
+            throws InvalidObjectException, MetaException {
+        String edgeName = partitionEdgeName(table.getDbName(), table.getTableName());
+        Set<String> added = new HashSet<>();
+        List<BulkRecord> records = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            String name = names.get(i);
+            // as in Hive, a list that names a partition twice is rejected whether or not it exists
+            if (!added.add(name)) {
+                throw new MetaException("Duplicate partitions in the list: " + name);
+            }
+            NodeVersion latest = latestVersions.get(name);
+            if (latest != null && scope.contains(latest.getId())) {
+                if (ifNotExists) {
+                    continue;
                 }
+                throw new InvalidObjectException("Partition already exists: " + name);
             }
+            String ref = "partition" + i;
+            records.addAll(GroundPartition.partitionRecords(table, parts.get(i), ref, latest,
+                    partitionStructureVersionId));
+            records.add(new BulkRecord(BulkRecord.EDGE_VERSION, null, null, null, edgeName, null,
+                    edgeStructureVersionId, null, null, null, String.valueOf(tableVersionId), ref));
+        }
+        return records;
+    }
+
+    // the edge whose versions link the versions of a table to its partitions
+    private static String partitionEdgeName(String dbName, String tableName) {
+        return dbName + "-" + tableName + "-" + PARTITION;
+    }
+
+    // the partition versions of the latest version of a table, so that a table that was dropped and
+    // created again does not have the partitions of the old one
+    private Set<Long> getPartitionScope(String dbName, String tableName) throws GroundException {
+        List<Long> versions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(tableName);
+        if (versions.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(groundReadWrite.getGroundReadWriteNodeResource().getAdjacentNodes(versions.get(0),
+                partitionEdgeName(dbName, tableName)));
+    }
+
+    Partition getPartition(String dbName, String tableName, String partName)
+            throws MetaException, NoSuchObjectException {
+        List<Partition> partitions = this.getPartitions(dbName, tableName, Collections.singletonList(partName));
+        if (partitions.isEmpty()) {
             throw new NoSuchObjectException(
                     "Unable to find partition " + partName + " for table " + tableName + " in database " + dbName);
-        } catch (GroundException ex) {
-            LOG.error("Unable to find partition {} for table {} in database {}", partName, tableName, dbName);
-            throw new MetaException(ex.getMessage());
         }
+        return partitions.get(0);
+    }
+
+    Partition getPartition(String dbName, String tableName, List<String> values)
+            throws MetaException, NoSuchObjectException {
+        Table table = this.getExistingTable(dbName, tableName);
+        return this.getPartition(dbName, tableName, Warehouse.makePartName(table.getPartitionKeys(), values));
     }
 
     boolean dropPartition(String dbName, String tableName, List<String> part_vals)
@@ -226,25 +364,102 @@ public class GroundTable {
 
     List<Partition> getPartitions(String dbName, String tableName, int max)
             throws MetaException, NoSuchObjectException {
+        return this.getPartitionsByFilter(dbName, tableName, null, max);
+    }
+
+    List<Partition> getPartitionsByFilter(String dbName, String tableName, String filter, int max)
+            throws MetaException, NoSuchObjectException {
+        Table table = this.getExistingTable(dbName, tableName);
+        List<Partition> partitions = new ArrayList<>();
+        for (NodeVersion nodeVersion : this.getPartitionVersions(table, PartitionFilter.fromFilter(table, filter),
+                max)) {
+            partitions.add(groundPartition.toPartition(nodeVersion));
+        }
+        return partitions;
+    }
+
+    List<String> listPartitionNamesByFilter(String dbName, String tableName, String filter, int max)
+            throws MetaException, NoSuchObjectException {
+        Table table = this.getExistingTable(dbName, tableName);
+        List<String> names = new ArrayList<>();
+        for (NodeVersion nodeVersion : this.getPartitionVersions(table, PartitionFilter.fromFilter(table, filter),
+                max)) {
+            names.add(groundPartition.toPartitionName(dbName, tableName, nodeVersion));
+        }
+        return names;
+    }
+
+    int getNumPartitionsByFilter(String dbName, String tableName, String filter)
+            throws MetaException, NoSuchObjectException {
+        return this.listPartitionNamesByFilter(dbName, tableName, filter, -1).size();
+    }
+
+    /**
+     * Prune the partitions of a table with a serialized Hive expression. Expressions that have a
+     * filter form are pruned by Ground; for the rest, Hive prunes the names of all the partitions.
+     *
+     * @return whether Hive could not tell if some of the partitions match
+     */
+    boolean getPartitionsByExpr(String dbName, String tableName, byte[] expr, String defaultPartitionName,
+            int max, List<Partition> result, PartitionExpressionProxy expressionProxy)
+            throws MetaException, NoSuchObjectException {
+        Table table = this.getExistingTable(dbName, tableName);
+        ExpressionTree tree = PartFilterExprUtil.makeExpressionTree(expressionProxy, expr);
+        if (tree != null) {
+            for (NodeVersion nodeVersion : this.getPartitionVersions(table, new PartitionFilter(table, tree), max)) {
+                result.add(groundPartition.toPartition(nodeVersion));
+            }
+            return false;
+        }
+
+        List<String> names = this.listPartitionNamesByFilter(dbName, tableName, null, -1);
+        List<String> columnNames = new ArrayList<>();
+        List<PrimitiveTypeInfo> columnTypes = new ArrayList<>();
+        for (FieldSchema partitionKey : table.getPartitionKeys()) {
+            columnNames.add(partitionKey.getName());
+            columnTypes.add(TypeInfoFactory.getPrimitiveTypeInfo(partitionKey.getType()));
+        }
+        boolean hasUnknownPartitions = expressionProxy.filterPartitionsByExpr(columnNames, columnTypes, expr,
+                defaultPartitionName, names);
+        if (max >= 0 && names.size() > max) {
+            names = names.subList(0, max);
+        }
+        result.addAll(this.getPartitions(dbName, tableName, names));
+        return hasUnknownPartitions;
+    }
+
+    // the latest versions of the partitions of table that match filter
+    private List<NodeVersion> getPartitionVersions(Table table, PartitionFilter filter, int max)
+            throws MetaException {
         try {
-            List<Long> versions = PluginUtil.getLatestVersions(tableName, "nodes");
-            List<Partition> parts = new ArrayList<Partition>();
-            if (!versions.isEmpty()) {
-                Long prevVersionId = versions.get(0);
-                List<Long> nodeIds = groundReadWrite.getGroundReadWriteNodeResource().getAdjacentNodes(prevVersionId,
-                        "");
-                for (Long nodeId : nodeIds) {
-                    NodeVersion oldNV = groundReadWrite.getGroundReadWriteNodeResource().getNodeVersion(nodeId);
-                    parts.add(PluginUtil.fromJson((String) oldNV.getTags().get(oldNV.getNodeId()).getValue(),
-                            Partition.class));
+            // a search that is not exact finds partitions that do not match, so the limit is applied here
+            List<NodeVersion> found = groundPartition.getPartitionVersions(filter.getTagFilter(),
+                    this.getPartitionScope(table.getDbName(), table.getTableName()), filter.isExact() ? max : -1);
+            if (filter.isExact()) {
+                return found;
+            }
+            List<NodeVersion> matching = new ArrayList<>();
+            for (NodeVersion nodeVersion : found) {
+                if (max >= 0 && matching.size() >= max) {
+                    break;
+                }
+                if (filter.matches(groundPartition.toPartition(nodeVersion).getValues())) {
+                    matching.add(nodeVersion);
                 }
             }
-            return parts;
+            return matching;
         } catch (GroundException ex) {
-            LOG.error("Get partitions failed on table {} in database {}", tableName, dbName);
+            LOG.error("Get partitions failed on table {} in database {}", table.getTableName(), table.getDbName());
             throw new MetaException(ex.getMessage());
         }
+    }
 
+    private Table getExistingTable(String dbName, String tableName) throws MetaException, NoSuchObjectException {
+        Table table = this.getTable(dbName, tableName);
+        if (table == null) {
+            throw new NoSuchObjectException("Unable to find table " + tableName + " in database " + dbName);
+        }
+        return table;
     }
 
     boolean dropTable(String dbName, String tableName, String state) throws GroundException {
@@ -253,15 +468,15 @@ public class GroundTable {
             LOG.info("Database does not exist: {}", dbName);
             return false;// short circuit database does not exist
         }
-        Long tableNodeVersionId = PluginUtil.getLatestVersions(tableName, "nodes").get(0);
+        Long tableNodeVersionId = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(tableName).get(0);
         NodeVersion tableNodeVersion = groundReadWrite.getGroundReadWriteNodeResource()
                 .getNodeVersion(tableNodeVersionId);
-        Map<String, Tag> tableTagMap = tableNodeVersion.getTags();
+        Map<String, Tag> tableTagMap = new HashMap<>(tableNodeVersion.getTags());
         StructureVersion sv = groundReadWrite.getGroundReadWriteStructureResource().getStructureVersion(TABLE, state);
         Tag stateTag = new Tag(1L, TABLE_STATE, state, GroundType.STRING);
         tableTagMap.put(TABLE_STATE, stateTag); // update state to deleted
         List<Long> parent = new ArrayList<Long>();
-        List<Long> versions = PluginUtil.getLatestVersions(dbName, "nodes");
+        List<Long> versions = groundReadWrite.getGroundReadWriteNodeResource().getLatestVersions(dbName);
         if (!versions.isEmpty()) {
             LOG.debug("leaves {}", versions.get(0));
             parent.add(versions.get(0));
@@ -275,10 +490,20 @@ public class GroundTable {
     public List<Partition> getPartitions(String dbName, String tableName, List<String> part_list)
             throws MetaException, NoSuchObjectException {
         List<Partition> partitionList = new ArrayList<Partition>();
-        for (String partitionName : part_list) {
-            partitionList.add(getPartition(dbName, tableName, partitionName));
+        if (part_list.isEmpty()) {
+            return partitionList;
+        }
+        try {
+            // one search for all the names
+            for (NodeVersion nodeVersion : groundPartition.getPartitionVersions(
+                    GroundPartition.byNames(dbName, tableName, part_list), this.getPartitionScope(dbName, tableName),
+                    -1)) {
+                partitionList.add(groundPartition.toPartition(nodeVersion));
+            }
+        } catch (GroundException ex) {
+            LOG.error("Get partitions failed on table {} in database {}", tableName, dbName);
+            throw new MetaException(ex.getMessage());
         }
         return partitionList;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.hadoop.hive.metastore.PartFilterExprUtil;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.LeafNode;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.LogicalOperator;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.Operator;
+import org.apache.hadoop.hive.metastore.parser.ExpressionTree.TreeNode;
+
+import edu.berkeley.ground.api.models.TagFilter;
+import edu.berkeley.ground.api.versions.GroundType;
+
+/**
+ * A Hive partition filter translated into a search on the partition key tags of a table, so that
+ * Ground prunes the partitions. Equality, numeric comparisons and LIKE on a literal prefix map to
+ * the tag index exactly. Anything else, such as a comparison of strings, is searched for as any
+ * value of the key, and the partitions that come back are checked against the filter here.
+ */
+class PartitionFilter {
+
+    // a LIKE pattern that is a literal prefix followed by anything
+    private static final Pattern LITERAL_PREFIX = Pattern.compile("[^\\\\.\\[\\]{}()*+?^$|]*\\.\\*");
+
+    private final String dbName;
+    private final String tableName;
+    private final List<FieldSchema> partitionKeys;
+    // null when every partition matches
+    private final TreeNode root;
+    private boolean exact = true;
+    private final TagFilter tagFilter;
+
+    PartitionFilter(Table table, ExpressionTree tree) throws MetaException {
+        this.dbName = table.getDbName();
+        this.tableName = table.getTableName();
+        this.partitionKeys = table.getPartitionKeys();
+        this.root = tree.getRoot();
+        this.tagFilter = this.root == null ? GroundPartition.all(this.dbName, this.tableName)
+                : this.toTagFilter(this.root);
+    }
+
+    // filter is in the syntax of getPartitionsByFilter, e.g. ds > '2016-01-01' and hr = 3
+    static PartitionFilter fromFilter(Table table, String filter) throws MetaException {
+        if (filter == null || filter.trim().isEmpty()) {
+            return new PartitionFilter(table, ExpressionTree.EMPTY_TREE);
+        }
+        return new PartitionFilter(table, PartFilterExprUtil.getFilterParser(filter));
+    }
+
+    TagFilter getTagFilter() {
+        return this.tagFilter;
+    }
+
+    // whether every partition the search finds matches, so that they need not be checked
+    boolean isExact() {
+        return this.exact;
+    }
+
+    boolean matches(List<String> values) throws MetaException {
+        return this.root == null || this.evaluate(this.root, values);
+    }
+
+    private TagFilter toTagFilter(TreeNode node) throws MetaException {
+        if (!(node instanceof LeafNode)) {
+            List<TagFilter> children = Arrays.asList(this.toTagFilter(node.getLhs()), this.toTagFilter(node.getRhs()));
+            return node.getAndOr() == LogicalOperator.AND ? TagFilter.and(children) : TagFilter.or(children);
+        }
+
+        LeafNode leaf = (LeafNode) node;
+        int index = this.keyIndex(leaf.keyName);
+        String key = GroundPartition.tagKey(this.dbName, this.tableName, this.partitionKeys.get(index).getName());
+        Long number = GroundPartition.isNumeric(this.partitionKeys.get(index)) ? GroundPartition.toLong(leaf.value)
+                : null;
+
+        switch (operator(leaf)) {
+        case EQUALS:
+            return number != null ? TagFilter.in(key, GroundType.LONG, number.toString())
+                    : TagFilter.in(key, GroundType.STRING, String.valueOf(leaf.value));
+        case GREATERTHAN:
+            if (number != null && number < Long.MAX_VALUE) {
+                return TagFilter.range(key, number + 1, null);
+            }
+            break;
+        case GREATERTHANOREQUALTO:
+            if (number != null) {
+                return TagFilter.range(key, number, null);
+            }
+            break;
+        case LESSTHAN:
+            if (number != null && number > Long.MIN_VALUE) {
+                return TagFilter.range(key, null, number - 1);
+            }
+            break;
+        case LESSTHANOREQUALTO:
+            if (number != null) {
+                return TagFilter.range(key, null, number);
+            }
+            break;
+        case LIKE:
+            String pattern = String.valueOf(leaf.value);
+            if (LITERAL_PREFIX.matcher(pattern).matches()) {
+                return TagFilter.prefix(key, pattern.substring(0, pattern.length() - 2));
+            }
+            break;
+        default:
+            break;
+        }
+
+        this.exact = false;
+        return TagFilter.exists(key);
+    }
+
+    private boolean evaluate(TreeNode node, List<String> values) throws MetaException {
+        if (!(node instanceof LeafNode)) {
+            boolean lhs = this.evaluate(node.getLhs(), values);
+            if (node.getAndOr() == LogicalOperator.AND) {
+                return lhs && this.evaluate(node.getRhs(), values);
+            }
+            return lhs || this.evaluate(node.getRhs(), values);
+        }
+
+        LeafNode leaf = (LeafNode) node;
+        int index = this.keyIndex(leaf.keyName);
+        String value = values.get(index);
+        Operator operator = operator(leaf);
+        if (operator == Operator.LIKE) {
+            return Pattern.matches(String.valueOf(leaf.value), value);
+        }
+
+        int comparison;
+        Long number = GroundPartition.isNumeric(this.partitionKeys.get(index)) ? GroundPartition.toLong(leaf.value)
+                : null;
+        if (number != null) {
+            Long actual = GroundPartition.toLong(value);
+            if (actual == null) {
+                // such as the default partition, which only differs from every number
+                return operator == Operator.NOTEQUALS || operator == Operator.NOTEQUALS2;
+            }
+            comparison = Long.compare(actual, number);
+        } else {
+            comparison = value.compareTo(String.valueOf(leaf.value));
+        }
+
+        switch (operator) {
+        case EQUALS:
+            return comparison == 0;
+        case NOTEQUALS:
+        case NOTEQUALS2:
+            return comparison != 0;
+        case GREATERTHAN:
+            return comparison > 0;
+        case GREATERTHANOREQUALTO:
+            return comparison >= 0;
+        case LESSTHAN:
+            return comparison < 0;
+        case LESSTHANOREQUALTO:
+            return comparison <= 0;
+        default:
+            throw new MetaException("Unsupported operator " + operator + " in partition filter");
+        }
+    }
+
+    // the operator as if the key came first, so that 3 < hr is hr > 3
+    private static Operator operator(LeafNode leaf) {
+        if (!leaf.isReverseOrder) {
+            return leaf.operator;
+        }
+        switch (leaf.operator) {
+        case GREATERTHAN:
+            return Operator.LESSTHAN;
+        case GREATERTHANOREQUALTO:
+            return Operator.LESSTHANOREQUALTO;
+        case LESSTHAN:
+            return Operator.GREATERTHAN;
+        case LESSTHANOREQUALTO:
+            return Operator.GREATERTHANOREQUALTO;
+        default:
+            return leaf.operator;
+        }
+    }
+
+    private int keyIndex(String keyName) throws MetaException {
+        for (int i = 0; i < this.partitionKeys.size(); i++) {
+            if (this.partitionKeys.get(i).getName().equalsIgnoreCase(keyName)) {
+                return i;
+            }
+        }
+        throw new MetaException("Partition filter on " + keyName + ", which is not a partition key of "
+                + this.dbName + "." + this.tableName);
+    }
+}
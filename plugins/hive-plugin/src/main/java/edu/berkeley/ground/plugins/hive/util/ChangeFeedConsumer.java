@@ -0,0 +1,67 @@
+package edu.berkeley.ground.plugins.hive.util;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the change feed topic of a Ground server on a background thread, handing every event
+ * to a listener. Each consumer has a group of its own, so that every metastore sees every event,
+ * and starts from the end of the topic, since only changes after startup matter to a cache.
+ */
+public class ChangeFeedConsumer implements Closeable {
+
+    static final private Logger logger = LoggerFactory.getLogger(ChangeFeedConsumer.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    public ChangeFeedConsumer(String kafkaServers, String topic, Consumer<String> listener) {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", kafkaServers);
+        props.put("group.id", "ground-hive-" + UUID.randomUUID());
+        props.put("auto.offset.reset", "latest");
+        props.put("enable.auto.commit", "false");
+        props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+
+        this.consumer = new KafkaConsumer<>(props);
+        this.consumer.subscribe(Collections.singletonList(topic));
+
+        this.thread = new Thread(() -> {
+            try {
+                while (!this.closed) {
+                    for (ConsumerRecord<String, byte[]> record : this.consumer.poll(POLL_TIMEOUT_MILLIS)) {
+                        listener.accept(new String(record.value(), StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (WakeupException e) {
+                // closed
+            } catch (RuntimeException e) {
+                logger.error("Stopped following change feed {}: {}", topic, e);
+            } finally {
+                this.consumer.close();
+            }
+        }, "ground-change-feed");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.consumer.wakeup();
+    }
+}
@@ -0,0 +1,39 @@
+package edu.berkeley.ground.plugins.hive.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * How the plugin talks to the Ground server. Implementations must be safe to share between
+ * threads, since every metastore session goes through the same transport.
+ */
+public interface GroundHttpTransport extends Closeable {
+
+    /**
+     * @param uri the full uri to get
+     * @return the body of the response if the status was 200, null otherwise
+     */
+    String get(String uri) throws IOException;
+
+    /**
+     * @param uri the full uri to post to
+     * @param json the JSON body of the request
+     * @return the body of the response if the status was 200, null otherwise
+     */
+    String post(String uri, String json) throws IOException;
+
+    // the number of connections taken from the pool so far
+    long getLeases();
+
+    // the total time spent waiting for a connection from the pool
+    long getLeaseWaitMillis();
+
+    // the number of connections currently in use by a request
+    long getLeasedConnections();
+
+    // the number of open connections, in use or idle
+    int getOpenConnections();
+
+    @Override
+    void close();
+}
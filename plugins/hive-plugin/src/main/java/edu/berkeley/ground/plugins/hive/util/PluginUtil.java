@@ -2,19 +2,9 @@ package edu.berkeley.ground.plugins.hive.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Properties;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpException;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.methods.StringRequestEntity;
-import org.apache.commons.httpclient.util.HttpURLConnection;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.JsonParseException;
-import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
@@ -31,11 +21,15 @@ public class PluginUtil {
             
     private static final String GROUNDCONF = "ground.properties";
     private static final String DEFAULT_ADDRESS = "http://localhost:9090/";
-    public static final HttpClient client = new HttpClient();
     public static final String groundServerAddress;
 
+    // Shared by every GroundStore in the metastore, and closed, with its idle connection closer,
+    // when the last of them shuts down. Guarded by PluginUtil.class.
+    private static GroundHttpTransport transport;
+    private static int transportUsers;
+    private static final Properties properties = new Properties();
+
     static {
-        Properties properties = new Properties();
         try {
             String groundPropertyResource = GROUNDCONF; // ground properties
                                                         // from resources
@@ -53,6 +47,11 @@ public class PluginUtil {
     private PluginUtil() {
     }
 
+    // a setting from ground.properties
+    public static String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
     public static <T> T fromJson(String json, Class<T> clazz) {
         Gson gson = new Gson();
         return gson.fromJson(json.replace("\\", ""), clazz);
@@ -70,42 +69,65 @@ public class PluginUtil {
     }
 
     public static List<Long> getLatestVersions(String name, String type) throws GroundException {
-        GetMethod get = new GetMethod(groundServerAddress + type + "/" + name + "/latest");
         try {
-            return (List<Long>) getVersionList(get);
+            return getVersionList(groundServerAddress + type + "/" + name + "/latest");
         } catch (IOException e) {
             throw new GroundException(e);
         }
     }
 
-    public static String execute(HttpMethod method)
-            throws IOException, HttpException, JsonParseException, JsonMappingException {
-        if (client.executeMethod(method) == HttpURLConnection.HTTP_OK) {
-            // getting the nodeId of the node created
-            return method.getResponseBodyAsString();
+    // Called by each GroundStore as it is created, so that the transport stays open until every
+    // store that uses it has shut down.
+    public static synchronized void acquireTransport() {
+        transportUsers++;
+    }
+
+    // Called by each GroundStore as it shuts down. The last one logs how the connection pool was
+    // used and closes it.
+    public static synchronized void releaseTransport() {
+        if (transportUsers == 0 || --transportUsers > 0 || transport == null) {
+            return;
         }
-        return null;
+
+        logger.info("Closing the Ground transport: {} leases, {} ms waiting for a connection, "
+                + "{} connections leased, {} open", transport.getLeases(),
+                transport.getLeaseWaitMillis(), transport.getLeasedConnections(),
+                transport.getOpenConnections());
+        transport.close();
+        transport = null;
+    }
+
+    // the transport, opened on first use
+    public static synchronized GroundHttpTransport getTransport() {
+        if (transport == null) {
+            transport = new PooledHttpTransport(
+                    Integer.parseInt(properties.getProperty("edu.berkeley.ground.http.maxConnections", "64")),
+                    Integer.parseInt(properties.getProperty("edu.berkeley.ground.http.maxConnectionsPerRoute", "32")),
+                    Integer.parseInt(properties.getProperty("edu.berkeley.ground.http.connectTimeoutMillis", "5000")),
+                    Integer.parseInt(properties.getProperty("edu.berkeley.ground.http.socketTimeoutMillis", "60000")),
+                    Long.parseLong(properties.getProperty("edu.berkeley.ground.http.leaseTimeoutMillis", "10000")),
+                    Boolean.parseBoolean(properties.getProperty("edu.berkeley.ground.http.gzip", "true")));
+        }
+        return transport;
+    }
+
+    // the body of the response to a GET, or null if the status was not 200
+    public static String get(String uri) throws IOException {
+        return getTransport().get(uri);
     }
 
-    public static StringRequestEntity createRequestEntity(String jsonRecord)
-            throws UnsupportedEncodingException {
-        StringRequestEntity requestEntity = new StringRequestEntity(jsonRecord, "application/json", "UTF-8");
-        return requestEntity;
+    // the body of the response to a POST of a JSON record, or null if the status was not 200
+    public static String post(String uri, String jsonRecord) throws IOException {
+        return getTransport().post(uri, jsonRecord);
     }
 
-    public static List<Long> getVersionList(HttpMethod method)
-            throws JsonParseException, JsonMappingException, HttpException, IOException {
-        if (client.executeMethod(method) == HttpURLConnection.HTTP_OK) {
-            // getting the nodeId of the node created
-            String response = method.getResponseBodyAsString();
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readValue(response, JsonNode.class);
-            List<Long> list = objectMapper.readValue(objectMapper.treeAsTokens(jsonNode),
-                    new TypeReference<List<Long>>() {
-                    });
-            return list;
+    public static List<Long> getVersionList(String uri) throws IOException {
+        String response = getTransport().get(uri);
+        if (response == null) {
+            return null;
         }
-        return null;
+        return new ObjectMapper().readValue(response, new TypeReference<List<Long>>() {
+        });
     }
 
 }
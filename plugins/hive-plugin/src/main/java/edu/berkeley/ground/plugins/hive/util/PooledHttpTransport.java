@@ -0,0 +1,177 @@
+package edu.berkeley.ground.plugins.hive.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+
+/**
+ * A GroundHttpTransport over a pool of keep-alive connections, so that concurrent sessions each
+ * get their own connection instead of waiting for a single one. Every request releases its
+ * connection back to the pool once the response has been read, whatever the status.
+ *
+ * <p>Connections that have been idle for a while are closed in the background before the server
+ * can close them, which saves the stale check that would otherwise come before every request.
+ *
+ * <p>Responses are requested gzipped, and request bodies above a few kilobytes are gzipped, both of
+ * which the Ground server handles.
+ */
+public class PooledHttpTransport implements GroundHttpTransport {
+
+    private static final int GZIP_MIN_BYTES = 4096;
+
+    // below the server's default idle timeout of 30 seconds
+    private static final long IDLE_TIMEOUT_MILLIS = 20000;
+
+    private final MeteredConnectionManager connectionManager;
+    private final IdleConnectionTimeoutThread idleConnectionCloser;
+    private final HttpClient client;
+    private final boolean gzip;
+
+    /**
+     * @param maxConnections the most connections open at once
+     * @param maxConnectionsPerRoute the most connections open at once to one host
+     * @param connectTimeoutMillis how long to wait for a connection to be established
+     * @param socketTimeoutMillis how long to wait for data on an open connection
+     * @param leaseTimeoutMillis how long to wait for a connection from the pool
+     * @param gzip whether to compress request and response bodies
+     */
+    public PooledHttpTransport(int maxConnections, int maxConnectionsPerRoute, int connectTimeoutMillis,
+            int socketTimeoutMillis, long leaseTimeoutMillis, boolean gzip) {
+        this.connectionManager = new MeteredConnectionManager();
+        HttpConnectionManagerParams params = this.connectionManager.getParams();
+        params.setMaxTotalConnections(maxConnections);
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerRoute);
+        params.setConnectionTimeout(connectTimeoutMillis);
+        params.setSoTimeout(socketTimeoutMillis);
+        params.setStaleCheckingEnabled(false);
+        params.setTcpNoDelay(true);
+
+        this.idleConnectionCloser = new IdleConnectionTimeoutThread();
+        this.idleConnectionCloser.setName("ground-idle-connection-closer");
+        this.idleConnectionCloser.setConnectionTimeout(IDLE_TIMEOUT_MILLIS);
+        this.idleConnectionCloser.setTimeoutInterval(IDLE_TIMEOUT_MILLIS / 4);
+        this.idleConnectionCloser.addConnectionManager(this.connectionManager);
+        this.idleConnectionCloser.start();
+
+        this.client = new HttpClient(this.connectionManager);
+        this.client.getParams().setConnectionManagerTimeout(leaseTimeoutMillis);
+        this.gzip = gzip;
+    }
+
+    @Override
+    public String get(String uri) throws IOException {
+        return this.execute(new GetMethod(uri));
+    }
+
+    @Override
+    public String post(String uri, String json) throws IOException {
+        PostMethod post = new PostMethod(uri);
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        if (this.gzip && body.length >= GZIP_MIN_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            post.setRequestHeader("Content-Encoding", "gzip");
+        }
+        post.setRequestEntity(new ByteArrayRequestEntity(body, "application/json; charset=UTF-8"));
+        return this.execute(post);
+    }
+
+    private String execute(HttpMethod method) throws IOException {
+        if (this.gzip) {
+            method.setRequestHeader("Accept-Encoding", "gzip");
+        }
+        try {
+            if (this.client.executeMethod(method) != HttpStatus.SC_OK) {
+                return null;
+            }
+            InputStream body = method.getResponseBodyAsStream();
+            if (body == null) {
+                return "";
+            }
+            Header encoding = method.getResponseHeader("Content-Encoding");
+            if (encoding != null && "gzip".equalsIgnoreCase(encoding.getValue())) {
+                body = new GZIPInputStream(body);
+            }
+
+            // read to the end, so that the connection can be reused
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    @Override
+    public long getLeases() {
+        return this.connectionManager.leases.get();
+    }
+
+    @Override
+    public long getLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.connectionManager.leaseWaitNanos.get());
+    }
+
+    @Override
+    public long getLeasedConnections() {
+        return this.connectionManager.leases.get() - this.connectionManager.releases.get();
+    }
+
+    @Override
+    public int getOpenConnections() {
+        return this.connectionManager.getConnectionsInPool();
+    }
+
+    @Override
+    public void close() {
+        this.idleConnectionCloser.shutdown();
+        this.connectionManager.shutdown();
+    }
+
+    private static class MeteredConnectionManager extends MultiThreadedHttpConnectionManager {
+        private final AtomicLong leases = new AtomicLong();
+        private final AtomicLong releases = new AtomicLong();
+        private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+        @Override
+        public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+                throws ConnectionPoolTimeoutException {
+            long start = System.nanoTime();
+            HttpConnection connection = super.getConnectionWithTimeout(hostConfiguration, timeout);
+            this.leaseWaitNanos.addAndGet(System.nanoTime() - start);
+            this.leases.incrementAndGet();
+            return connection;
+        }
+
+        @Override
+        public void releaseConnection(HttpConnection connection) {
+            super.releaseConnection(connection);
+            this.releases.incrementAndGet();
+        }
+    }
+}
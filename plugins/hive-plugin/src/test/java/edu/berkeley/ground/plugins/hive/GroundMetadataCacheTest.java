@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+
+public class GroundMetadataCacheTest {
+  private final GroundMetadataCache cache = new GroundMetadataCache(60000, 100, null, null);
+  private final List<Object> loaded = new ArrayList<>();
+
+  private List<Long> latest(String name) {
+    this.loaded.add(name);
+    return name.equals("missing") ? new ArrayList<>() : Arrays.asList(1L);
+  }
+
+  private List<NodeVersion> nodeVersions(List<Long> ids) {
+    this.loaded.addAll(ids);
+    List<NodeVersion> versions = new ArrayList<>();
+    for (long id : ids) {
+      versions.add(new NodeVersion(id, new HashMap<>(), -1, null, new HashMap<>(), 1));
+    }
+    return versions;
+  }
+
+  @Test
+  public void testLatestVersionsAreCachedUntilInvalidated() throws GroundException {
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getLatestVersions("table", this::latest);
+    assertEquals(Arrays.asList("table"), this.loaded);
+
+    this.cache.invalidateLatestVersions("table");
+    this.cache.getLatestVersions("table", this::latest);
+    assertEquals(Arrays.asList("table", "table"), this.loaded);
+  }
+
+  @Test
+  public void testEmptyResultsAreNotCached() throws GroundException {
+    this.cache.getLatestVersions("missing", this::latest);
+    this.cache.getLatestVersions("missing", this::latest);
+    assertEquals(Arrays.asList("missing", "missing"), this.loaded);
+  }
+
+  @Test
+  public void testOnlyMissingNodeVersionsAreLoaded() throws GroundException {
+    this.cache.getNodeVersions(Arrays.asList(1L, 2L), this::nodeVersions);
+    this.loaded.clear();
+
+    List<NodeVersion> versions = this.cache.getNodeVersions(Arrays.asList(3L, 2L, 1L), this::nodeVersions);
+    assertEquals(Arrays.asList(3L), this.loaded);
+    assertEquals(3, versions.get(0).getId());
+    assertEquals(2, versions.get(1).getId());
+    assertEquals(1, versions.get(2).getId());
+  }
+
+  @Test
+  public void testChangeFeedEvents() throws GroundException {
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    this.loaded.clear();
+
+    this.cache.onChange("{\"type\":\"NodeVersion\",\"id\":12,\"itemId\":3}");
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    assertEquals(Arrays.asList("table"), this.loaded);
+
+    this.cache.onChange("{\"type\":\"EdgeVersion\",\"id\":13,\"itemId\":4}");
+    this.cache.onChange("not json");
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    assertEquals(Arrays.asList("table", "adjacent:1:edge"), this.loaded);
+  }
+
+  @Test
+  public void testLoadOverlappingInvalidationIsNotCached() throws GroundException {
+    // another session writes the table while this one is reading its old latest versions
+    this.cache.getLatestVersions("table", name -> {
+      this.cache.invalidateLatestVersions(name);
+      return this.latest(name);
+    });
+    this.cache.getLatestVersions("table", this::latest);
+    assertEquals(Arrays.asList("table", "table"), this.loaded);
+
+    this.loaded.clear();
+    this.cache.getReachableNodes("adjacent", 1, "edge", name -> {
+      this.cache.onChange("{\"type\":\"EdgeVersion\",\"id\":13,\"itemId\":4}");
+      return this.latest(name);
+    });
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    assertEquals(Arrays.asList("adjacent:1:edge", "adjacent:1:edge"), this.loaded);
+  }
+
+  @Test
+  public void testCacheWithoutReadsStillInvalidates() throws GroundException {
+    GroundMetadataCache withoutReads = this.cache.withoutReads();
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    this.loaded.clear();
+
+    // reads go past the cache
+    withoutReads.getLatestVersions("table", this::latest);
+    assertEquals(Arrays.asList("table"), this.loaded);
+
+    // and writes invalidate what the shared cache holds
+    withoutReads.invalidateLatestVersions("table");
+    withoutReads.invalidateReachableNodes();
+    this.cache.getLatestVersions("table", this::latest);
+    this.cache.getReachableNodes("adjacent", 1, "edge", this::latest);
+    assertEquals(Arrays.asList("table", "table", "adjacent:1:edge"), this.loaded);
+  }
+
+  @Test
+  public void testDisabledCacheAlwaysLoads() throws GroundException {
+    GroundMetadataCache.DISABLED.getLatestVersions("table", this::latest);
+    GroundMetadataCache.DISABLED.getLatestVersions("table", this::latest);
+    assertEquals(Arrays.asList("table", "table"), this.loaded);
+  }
+}
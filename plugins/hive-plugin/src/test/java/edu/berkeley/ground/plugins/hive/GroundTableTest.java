@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.junit.Test;
+
+import edu.berkeley.ground.api.models.BulkRecord;
+import edu.berkeley.ground.api.models.NodeVersion;
+
+public class GroundTableTest {
+  private static final long TABLE_VERSION = 100;
+  private static final long PARTITION_STRUCTURE_VERSION = 7;
+  private static final long EDGE_STRUCTURE_VERSION = 8;
+
+  private final Table table = new Table();
+  private final Map<String, NodeVersion> latestVersions = new HashMap<>();
+
+  public GroundTableTest() {
+    this.table.setDbName("default");
+    this.table.setTableName("sales");
+    this.table.setPartitionKeys(Collections.singletonList(new FieldSchema("ds", "string", null)));
+  }
+
+  private static Partition partition(String ds) {
+    StorageDescriptor sd = new StorageDescriptor(null, "/sales/ds=" + ds, null, null, false, 0,
+        new SerDeInfo(), null, null, null);
+    return new Partition(Collections.singletonList(ds), "default", "sales", 0, 0, sd, new HashMap<>());
+  }
+
+  private List<BulkRecord> records(List<String> values, Set<Long> scope, boolean ifNotExists)
+      throws InvalidObjectException, MetaException {
+    List<Partition> parts = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    for (String value : values) {
+      parts.add(partition(value));
+      names.add("ds=" + value);
+    }
+    return GroundTable.partitionRecords(this.table, TABLE_VERSION, parts, names, this.latestVersions, scope,
+        ifNotExists, PARTITION_STRUCTURE_VERSION, EDGE_STRUCTURE_VERSION);
+  }
+
+  private static List<String> types(List<BulkRecord> records) {
+    List<String> types = new ArrayList<>();
+    for (BulkRecord record : records) {
+      types.add(record.getType());
+    }
+    return types;
+  }
+
+  @Test
+  public void testNewPartitions() throws Exception {
+    List<BulkRecord> records = this.records(Arrays.asList("2016-01-01", "2016-01-02"), Collections.emptySet(),
+        false);
+
+    assertEquals(Arrays.asList(BulkRecord.NODE, BulkRecord.NODE_VERSION, BulkRecord.EDGE_VERSION,
+        BulkRecord.NODE, BulkRecord.NODE_VERSION, BulkRecord.EDGE_VERSION), types(records));
+    assertEquals("default:sales:2016-01-01", records.get(0).getName());
+    assertEquals("default:sales:2016-01-01", records.get(1).getNode());
+    assertEquals(PARTITION_STRUCTURE_VERSION, records.get(1).getStructureVersionId());
+    assertTrue(records.get(1).getParents().isEmpty());
+
+    BulkRecord edgeVersion = records.get(2);
+    assertEquals("default-sales-partition", edgeVersion.getEdge());
+    assertEquals(EDGE_STRUCTURE_VERSION, edgeVersion.getStructureVersionId());
+    assertEquals(String.valueOf(TABLE_VERSION), edgeVersion.getFrom());
+    assertEquals(records.get(1).getRef(), edgeVersion.getTo());
+    assertNotEquals(records.get(1).getRef(), records.get(4).getRef());
+  }
+
+  @Test
+  public void testExistingPartition() throws Exception {
+    this.latestVersions.put("ds=2016-01-01", new NodeVersion(10, new HashMap<>(), -1, null, new HashMap<>(), 1));
+
+    // skipped if asked to
+    List<BulkRecord> records = this.records(Arrays.asList("2016-01-01", "2016-01-02"),
+        Collections.singleton(10L), true);
+    assertEquals(Arrays.asList(BulkRecord.NODE, BulkRecord.NODE_VERSION, BulkRecord.EDGE_VERSION), types(records));
+    assertEquals("default:sales:2016-01-02", records.get(0).getName());
+
+    try {
+      this.records(Arrays.asList("2016-01-01", "2016-01-02"), Collections.singleton(10L), false);
+      fail("Adding an existing partition should fail.");
+    } catch (InvalidObjectException e) {
+      assertEquals("Partition already exists: ds=2016-01-01", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testPartitionOfOtherTableVersion() throws Exception {
+    // the node is there from before the table was created again, so only a version is added
+    this.latestVersions.put("ds=2016-01-01", new NodeVersion(10, new HashMap<>(), -1, null, new HashMap<>(), 1));
+
+    List<BulkRecord> records = this.records(Collections.singletonList("2016-01-01"), Collections.emptySet(),
+        false);
+    assertEquals(Arrays.asList(BulkRecord.NODE_VERSION, BulkRecord.EDGE_VERSION), types(records));
+    assertEquals("default:sales:2016-01-01", records.get(0).getNode());
+    assertEquals(Collections.singletonList(10L), records.get(0).getParents());
+  }
+
+  @Test
+  public void testDuplicatePartitions() throws Exception {
+    for (boolean ifNotExists : new boolean[] {false, true}) {
+      try {
+        this.records(Arrays.asList("2016-01-01", "2016-01-01"), Collections.emptySet(), ifNotExists);
+        fail("A list that names a partition twice should be rejected.");
+      } catch (MetaException e) {
+        assertEquals("Duplicate partitions in the list: ds=2016-01-01", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentCreateChangesCreatedNames() throws Exception {
+    List<BulkRecord> first = this.records(Arrays.asList("2016-01-01", "2016-01-02"), Collections.emptySet(), true);
+    assertEquals(new HashSet<>(Arrays.asList("default:sales:2016-01-01", "default:sales:2016-01-02")),
+        GroundTable.createdNames(first));
+
+    // planned again after another metastore created one of the partitions
+    this.latestVersions.put("ds=2016-01-01", new NodeVersion(10, new HashMap<>(), -1, null, new HashMap<>(), 1));
+    List<BulkRecord> retry = this.records(Arrays.asList("2016-01-01", "2016-01-02"), Collections.singleton(10L),
+        true);
+    assertEquals(Collections.singleton("default:sales:2016-01-02"), GroundTable.createdNames(retry));
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.berkeley.ground.api.models.NodeVersion;
+import edu.berkeley.ground.exceptions.GroundException;
+import edu.berkeley.ground.plugins.hive.GroundStore.EntityState;
+
+/**
+ * Measures the latency of metastore calls when the plugin talks to a Ground server over HTTP and
+ * when it runs Ground embedded against the server's Postgres database. The metadata cache is
+ * disabled, so that every call reaches Ground.
+ *
+ * <p>Both modes read ground.properties: the HTTP mode needs a server at
+ * edu.berkeley.ground.server.address, and the embedded mode needs the model config to point at
+ * the same Postgres database.
+ *
+ * <p>Run with: mvn test-compile, then the main method of this class on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MetastoreLatencyBenchmark {
+  @Param({"http", "embedded"})
+  private String mode;
+
+  private GroundDatabase groundDatabase;
+  private GroundTable groundTable;
+
+  private String dbName;
+  private String tableName;
+  // written to by createDatabaseVersion, so that the versions it adds do not slow down the reads
+  private Database writtenDatabase;
+
+  @Setup
+  public void setup() throws GroundException, InvalidObjectException, MetaException {
+    GroundReadWrite groundReadWrite = new GroundReadWrite(this.mode);
+    groundReadWrite.disableCache();
+    this.groundDatabase = new GroundDatabase(groundReadWrite);
+    this.groundTable = new GroundTable(groundReadWrite);
+
+    // node names are unique, so every run gets its own database and table
+    long run = System.currentTimeMillis();
+    this.dbName = "latency_db_" + this.mode + "_" + run;
+    this.tableName = "latency_table_" + this.mode + "_" + run;
+
+    this.groundDatabase.createDatabaseNodeVersion(
+        new Database(this.dbName, "latency benchmark", "location", new HashMap<>()), EntityState.ACTIVE.name());
+    this.writtenDatabase = new Database("latency_writes_" + this.mode + "_" + run, "latency benchmark",
+        "location", new HashMap<>());
+
+    Table table = new Table();
+    table.setDbName(this.dbName);
+    table.setTableName(this.tableName);
+    table.setParameters(new HashMap<>());
+    this.groundTable.createTableNodeVersion(table);
+  }
+
+  @Benchmark
+  public Database getDatabase() throws GroundException {
+    return this.groundDatabase.getDatabase(this.dbName);
+  }
+
+  @Benchmark
+  public Table getTable() throws MetaException {
+    return this.groundTable.getTable(this.dbName, this.tableName);
+  }
+
+  @Benchmark
+  public NodeVersion createDatabaseVersion() throws InvalidObjectException, MetaException {
+    return this.groundDatabase.createDatabaseNodeVersion(this.writtenDatabase, EntityState.ACTIVE.name());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MetastoreLatencyBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
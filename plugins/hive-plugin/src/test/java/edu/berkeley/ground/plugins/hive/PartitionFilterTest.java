@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.plugins.hive;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.junit.Test;
+
+import edu.berkeley.ground.api.models.TagFilter;
+
+public class PartitionFilterTest {
+  private static final String DS = "default.sales/ds";
+  private static final String HR = "default.sales/hr";
+  private static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+  private final Table table = new Table();
+
+  public PartitionFilterTest() {
+    this.table.setDbName("default");
+    this.table.setTableName("sales");
+    this.table.setPartitionKeys(Arrays.asList(new FieldSchema("ds", "string", null),
+        new FieldSchema("hr", "int", null)));
+  }
+
+  private PartitionFilter filter(String filter) throws MetaException {
+    return PartitionFilter.fromFilter(this.table, filter);
+  }
+
+  private static void assertIn(TagFilter tagFilter, String key, String value) {
+    assertNull(tagFilter.getOperator());
+    assertEquals(key, tagFilter.getKey());
+    assertEquals(Collections.singletonList(value), tagFilter.getValues());
+  }
+
+  private static void assertRange(TagFilter tagFilter, String key, Long min, Long max) {
+    assertNull(tagFilter.getOperator());
+    assertEquals(key, tagFilter.getKey());
+    assertEquals(min, tagFilter.getMin());
+    assertEquals(max, tagFilter.getMax());
+  }
+
+  // a tag filter that finds every partition with the key, for the filter to check
+  private static void assertExists(TagFilter tagFilter, String key) {
+    assertNull(tagFilter.getOperator());
+    assertEquals(key, tagFilter.getKey());
+    assertTrue(tagFilter.getValues().isEmpty());
+    assertNull(tagFilter.getPrefix());
+    assertNull(tagFilter.getMin());
+    assertNull(tagFilter.getMax());
+  }
+
+  private static List<String> partition(String ds, String hr) {
+    return Arrays.asList(ds, hr);
+  }
+
+  @Test
+  public void testEmptyFilterFindsEveryPartition() throws MetaException {
+    PartitionFilter filter = this.filter(" ");
+
+    assertTrue(filter.isExact());
+    assertExists(filter.getTagFilter(), "default.sales/_NAME");
+    assertTrue(filter.matches(partition("2016-01-01", "3")));
+  }
+
+  @Test
+  public void testEquals() throws MetaException {
+    PartitionFilter number = this.filter("hr = 3");
+    assertTrue(number.isExact());
+    assertIn(number.getTagFilter(), HR, "3");
+    assertTrue(number.matches(partition("2016-01-01", "3")));
+    assertFalse(number.matches(partition("2016-01-01", "4")));
+
+    PartitionFilter string = this.filter("ds = \"2016-01-01\"");
+    assertTrue(string.isExact());
+    assertIn(string.getTagFilter(), DS, "2016-01-01");
+    assertTrue(string.matches(partition("2016-01-01", "3")));
+    assertFalse(string.matches(partition("2016-01-02", "3")));
+  }
+
+  @Test
+  public void testNumericComparisons() throws MetaException {
+    assertRange(this.filter("hr > 3").getTagFilter(), HR, 4L, null);
+    assertRange(this.filter("hr >= 3").getTagFilter(), HR, 3L, null);
+    assertRange(this.filter("hr < 3").getTagFilter(), HR, null, 2L);
+    assertRange(this.filter("hr <= 3").getTagFilter(), HR, null, 3L);
+
+    PartitionFilter filter = this.filter("hr > 3");
+    assertTrue(filter.isExact());
+    assertTrue(filter.matches(partition("2016-01-01", "4")));
+    assertFalse(filter.matches(partition("2016-01-01", "3")));
+    // compared as numbers, not as strings
+    assertTrue(filter.matches(partition("2016-01-01", "10")));
+  }
+
+  @Test
+  public void testReverseOrder() throws MetaException {
+    assertRange(this.filter("3 < hr").getTagFilter(), HR, 4L, null);
+    assertRange(this.filter("3 <= hr").getTagFilter(), HR, 3L, null);
+    assertRange(this.filter("3 > hr").getTagFilter(), HR, null, 2L);
+    assertRange(this.filter("3 >= hr").getTagFilter(), HR, null, 3L);
+    assertIn(this.filter("3 = hr").getTagFilter(), HR, "3");
+
+    PartitionFilter filter = this.filter("3 > hr");
+    assertTrue(filter.matches(partition("2016-01-01", "2")));
+    assertFalse(filter.matches(partition("2016-01-01", "3")));
+  }
+
+  @Test
+  public void testLikePrefix() throws MetaException {
+    PartitionFilter prefix = this.filter("ds like \"2016-01.*\"");
+    assertTrue(prefix.isExact());
+    assertNull(prefix.getTagFilter().getOperator());
+    assertEquals(DS, prefix.getTagFilter().getKey());
+    assertEquals("2016-01", prefix.getTagFilter().getPrefix());
+    assertTrue(prefix.matches(partition("2016-01-31", "3")));
+    assertFalse(prefix.matches(partition("2016-02-01", "3")));
+
+    // a pattern that is not a literal prefix is checked here
+    PartitionFilter pattern = this.filter("ds like \"2016-0[12].*\"");
+    assertFalse(pattern.isExact());
+    assertExists(pattern.getTagFilter(), DS);
+    assertTrue(pattern.matches(partition("2016-02-01", "3")));
+    assertFalse(pattern.matches(partition("2016-03-01", "3")));
+  }
+
+  @Test
+  public void testDefaultPartition() throws MetaException {
+    // the default partition of a numeric key is not a number, so it only differs from every number
+    PartitionFilter equals = this.filter("hr = 3");
+    assertFalse(equals.matches(partition("2016-01-01", DEFAULT_PARTITION)));
+    assertFalse(this.filter("hr > 3").matches(partition("2016-01-01", DEFAULT_PARTITION)));
+    assertFalse(this.filter("hr < 3").matches(partition("2016-01-01", DEFAULT_PARTITION)));
+    assertTrue(this.filter("hr <> 3").matches(partition("2016-01-01", DEFAULT_PARTITION)));
+
+    // a string key compares it as a string
+    PartitionFilter string = this.filter("ds = \"" + DEFAULT_PARTITION + "\"");
+    assertIn(string.getTagFilter(), DS, DEFAULT_PARTITION);
+    assertTrue(string.matches(partition(DEFAULT_PARTITION, "3")));
+  }
+
+  @Test
+  public void testInexactFallback() throws MetaException {
+    PartitionFilter string = this.filter("ds > \"2016-01-01\"");
+    assertFalse(string.isExact());
+    assertExists(string.getTagFilter(), DS);
+    assertTrue(string.matches(partition("2016-01-02", "3")));
+    assertFalse(string.matches(partition("2016-01-01", "3")));
+
+    PartitionFilter notEquals = this.filter("hr <> 3");
+    assertFalse(notEquals.isExact());
+    assertExists(notEquals.getTagFilter(), HR);
+    assertTrue(notEquals.matches(partition("2016-01-01", "4")));
+    assertFalse(notEquals.matches(partition("2016-01-01", "3")));
+  }
+
+  @Test
+  public void testAndOrNesting() throws MetaException {
+    PartitionFilter filter = this.filter("ds = \"2016-01-01\" and (hr = 1 or hr > 5)");
+    assertTrue(filter.isExact());
+
+    TagFilter and = filter.getTagFilter();
+    assertEquals(TagFilter.AND, and.getOperator());
+    assertIn(and.getChildren().get(0), DS, "2016-01-01");
+    TagFilter or = and.getChildren().get(1);
+    assertEquals(TagFilter.OR, or.getOperator());
+    assertIn(or.getChildren().get(0), HR, "1");
+    assertRange(or.getChildren().get(1), HR, 6L, null);
+
+    assertTrue(filter.matches(partition("2016-01-01", "1")));
+    assertTrue(filter.matches(partition("2016-01-01", "6")));
+    assertFalse(filter.matches(partition("2016-01-01", "3")));
+    assertFalse(filter.matches(partition("2016-01-02", "1")));
+
+    // one inexact leaf makes the whole search inexact, but keeps the others
+    PartitionFilter mixed = this.filter("hr = 1 or ds > \"2016-01-01\"");
+    assertFalse(mixed.isExact());
+    assertEquals(TagFilter.OR, mixed.getTagFilter().getOperator());
+    assertIn(mixed.getTagFilter().getChildren().get(0), HR, "1");
+    assertExists(mixed.getTagFilter().getChildren().get(1), DS);
+    assertTrue(mixed.matches(partition("2016-01-01", "1")));
+    assertTrue(mixed.matches(partition("2016-01-02", "3")));
+    assertFalse(mixed.matches(partition("2016-01-01", "3")));
+  }
+
+  @Test(expected = MetaException.class)
+  public void testUnknownKey() throws MetaException {
+    this.filter("region = \"us\"");
+  }
+}